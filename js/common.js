@@ -31,6 +31,17 @@
         }
     };
 
+    /**
+     * 封面缩略图地址（仅对本站上传的封面生成，外部图片原样返回）
+     * @param {string} url - 封面原图地址
+     * @param {string} size - 缩略图尺寸: 'list' | 'detail'
+     * @returns {string} 缩略图地址
+     */
+    const coverThumb = (url, size = 'list') => {
+        if (!url || !url.includes('/uploads/covers/') || url.includes('?')) return url;
+        return `${url}?size=${size}`;
+    };
+
     /**
      * 时间格式化函数
      * @param {string} dateStr - ISO格式时间字符串
@@ -153,6 +164,104 @@
                     }
                     throw error;
                 }
+            },
+
+            /**
+             * 订阅服务端事件流（SSE）。EventSource 无法携带 Authorization 头，这里用 fetch 读取流并解析事件；
+             * 断开后按 1s、2s、4s…（最长30s）退避重连，未登录或令牌失效时停止。
+             * @param {string} url - 接口路径
+             * @param {Object} handlers - 事件名 -> 处理函数（参数为解析后的 JSON）
+             * @returns {{close: Function}}
+             */
+            openEventStream(url, handlers) {
+                let controller = null;
+                let closed = false;
+                let retryDelay = 1000;
+                let retryTimer = null;
+
+                const dispatch = (block) => {
+                    let event = 'message';
+                    const data = [];
+                    for (const line of block.split('\n')) {
+                        if (line.startsWith('event:')) {
+                            event = line.slice(6).trim();
+                        } else if (line.startsWith('data:')) {
+                            data.push(line.slice(5).trimStart());
+                        }
+                    }
+                    const handler = handlers[event];
+                    if (!handler || data.length === 0) {
+                        return;
+                    }
+                    try {
+                        handler(JSON.parse(data.join('\n')));
+                    } catch (e) {
+                        console.warn('事件处理失败:', event, e);
+                    }
+                };
+
+                const scheduleReconnect = () => {
+                    if (closed) {
+                        return;
+                    }
+                    retryTimer = setTimeout(connect, retryDelay);
+                    retryDelay = Math.min(retryDelay * 2, 30000);
+                };
+
+                const connect = async () => {
+                    const token = this.getToken();
+                    if (closed || !token) {
+                        return;
+                    }
+                    controller = new AbortController();
+                    try {
+                        const response = await fetch(`${API_BASE_URL}${url}`, {
+                            headers: {
+                                'Accept': 'text/event-stream',
+                                'Authorization': `Bearer ${token}`
+                            },
+                            signal: controller.signal
+                        });
+                        if (response.status === 401 || response.status === 403) {
+                            return;
+                        }
+                        if (!response.ok || !response.body) {
+                            throw new Error(`HTTP ${response.status}`);
+                        }
+                        retryDelay = 1000;
+                        const reader = response.body.getReader();
+                        const decoder = new TextDecoder();
+                        let buffer = '';
+                        while (true) {
+                            const { value, done } = await reader.read();
+                            if (done) {
+                                break;
+                            }
+                            buffer += decoder.decode(value, { stream: true }).replace(/\r\n?/g, '\n');
+                            let index;
+                            while ((index = buffer.indexOf('\n\n')) >= 0) {
+                                dispatch(buffer.slice(0, index));
+                                buffer = buffer.slice(index + 2);
+                            }
+                        }
+                    } catch (e) {
+                        if (closed) {
+                            return;
+                        }
+                    }
+                    scheduleReconnect();
+                };
+
+                connect();
+                return {
+                    close() {
+                        closed = true;
+                        clearTimeout(retryTimer);
+                        if (controller) {
+                            controller.abort();
+                        }
+                    }
+                };
             }
         };
     }
@@ -165,6 +274,7 @@
         PLACEHOLDER_BANNER,
         PLACEHOLDER_AVATAR,
         handleImgError,
+        coverThumb,
         formatTime,
         createHttpClient
     };
@@ -1,9 +1,9 @@
 package com.library.aspect;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.library.annotation.Log;
-import com.library.entity.OperationLog;
-import com.library.repository.OperationLogRepository;
+import com.library.security.SecurityUtils;
+import com.library.service.AuditLogWriter;
+import com.library.service.LatencyHistogramService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,17 +11,12 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 操作日志切面
@@ -32,8 +27,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class LogAspect {
 
-    private final OperationLogRepository operationLogRepository;
-    private final ObjectMapper objectMapper;
+    private final AuditLogWriter auditLogWriter;
+    private final LatencyHistogramService latencyHistogramService;
 
     @Around("@annotation(logAnnotation)")
     public Object around(ProceedingJoinPoint joinPoint, Log logAnnotation) throws Throwable {
@@ -46,139 +41,80 @@ public class LogAspect {
         String ip = request != null ? getClientIp(request) : "";
 
         // 获取操作人信息
-        String operator = "anonymous";
+        String username = SecurityUtils.currentUsername();
+        String operator = username != null ? username : "anonymous";
         Long operatorId = null;
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            operator = auth.getName();
-        }
 
-        // 获取请求参数
-        String params = "";
+        // 获取请求参数（敏感参数和文件替换为占位文本，请求结束时序列化）
+        String[] paramNames = null;
+        Object[] args = null;
         if (logAnnotation.saveParams()) {
-            params = getParams(joinPoint);
+            paramNames = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+            args = captureArgs(paramNames, joinPoint.getArgs());
         }
 
         Object result = null;
-        String resultStr = "";
         int status = 1;
         String errorMsg = "";
 
         try {
             // 执行目标方法
             result = joinPoint.proceed();
-
-            // 记录返回结果
-            if (logAnnotation.saveResult() && result != null) {
-                try {
-                    resultStr = objectMapper.writeValueAsString(result);
-                    if (resultStr.length() > 2000) {
-                        resultStr = resultStr.substring(0, 2000) + "...";
-                    }
-                } catch (Exception e) {
-                    resultStr = result.toString();
-                }
-            }
-
             return result;
         } catch (Throwable e) {
             status = 0;
             errorMsg = e.getMessage();
-            if (errorMsg != null && errorMsg.length() > 2000) {
-                errorMsg = errorMsg.substring(0, 2000);
+            if (errorMsg != null && errorMsg.length() > AuditLogWriter.MAX_TEXT_LENGTH) {
+                errorMsg = errorMsg.substring(0, AuditLogWriter.MAX_TEXT_LENGTH);
             }
             throw e;
         } finally {
             long costTime = System.currentTimeMillis() - startTime;
-
-            // 异步保存日志
-            saveLogAsync(
-                    logAnnotation.module(),
-                    logAnnotation.operation().getDesc(),
-                    logAnnotation.description(),
-                    method,
-                    url,
-                    params,
-                    resultStr,
-                    operator,
-                    operatorId,
-                    ip,
-                    costTime,
-                    status,
-                    errorMsg
-            );
-        }
-    }
-
-    /**
-     * 异步保存日志
-     */
-    @Async
-    public void saveLogAsync(String module, String operation, String description,
-                             String method, String url, String params, String result,
-                             String operator, Long operatorId, String ip,
-                             long costTime, int status, String errorMsg) {
-        try {
-            OperationLog operationLog = OperationLog.builder()
-                    .module(module)
-                    .operation(operation)
-                    .description(description)
-                    .method(method)
-                    .url(url)
-                    .params(params)
-                    .result(result)
-                    .operator(operator)
-                    .operatorId(operatorId)
-                    .ipAddress(ip)
-                    .operationTime(LocalDateTime.now())
-                    .costTime(costTime)
-                    .status(status)
-                    .errorMsg(errorMsg)
-                    .build();
-
-            operationLogRepository.save(operationLog);
-            log.debug("操作日志已保存: module={}, operation={}, operator={}", module, operation, operator);
-        } catch (Exception e) {
-            log.error("保存操作日志失败", e);
+            latencyHistogramService.record(logAnnotation.module(), logAnnotation.description(), costTime);
+
+            // 在请求线程序列化参数和结果后放入写入队列，由后台线程批量保存
+            try {
+                auditLogWriter.submit(AuditLogWriter.Entry.builder()
+                        .module(logAnnotation.module())
+                        .operation(logAnnotation.operation().getDesc())
+                        .description(logAnnotation.description())
+                        .method(method)
+                        .url(url)
+                        .params(auditLogWriter.serializeParams(paramNames, args))
+                        .result(logAnnotation.saveResult() ? auditLogWriter.serializeResult(result) : "")
+                        .operator(operator)
+                        .operatorId(operatorId)
+                        .ipAddress(ip)
+                        .operationTime(LocalDateTime.now())
+                        .costTime(costTime)
+                        .status(status)
+                        .errorMsg(errorMsg)
+                        .build());
+            } catch (Exception e) {
+                log.error("提交操作日志失败", e);
+            }
         }
     }
 
     /**
-     * 获取请求参数
+     * 获取请求参数：在参数数组副本上原地替换敏感参数、上传文件和不可序列化对象，其余保留引用
      */
-    private String getParams(ProceedingJoinPoint joinPoint) {
-        try {
-            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-            String[] paramNames = signature.getParameterNames();
-            Object[] args = joinPoint.getArgs();
-
-            Map<String, Object> params = new HashMap<>();
-            for (int i = 0; i < paramNames.length; i++) {
-                Object arg = args[i];
-                // 过滤敏感参数和不可序列化对象
-                if (arg == null) {
-                    params.put(paramNames[i], null);
-                } else if (arg instanceof MultipartFile) {
-                    MultipartFile file = (MultipartFile) arg;
-                    params.put(paramNames[i], "文件: " + file.getOriginalFilename());
-                } else if (isSensitiveParam(paramNames[i])) {
-                    params.put(paramNames[i], "******");
-                } else if (isSerializable(arg)) {
-                    params.put(paramNames[i], arg);
-                } else {
-                    params.put(paramNames[i], arg.getClass().getSimpleName());
-                }
+    private Object[] captureArgs(String[] paramNames, Object[] args) {
+        for (int i = 0; i < paramNames.length && i < args.length; i++) {
+            Object arg = args[i];
+            // 过滤敏感参数和不可序列化对象
+            if (arg == null) {
+                continue;
             }
-
-            String json = objectMapper.writeValueAsString(params);
-            if (json.length() > 2000) {
-                json = json.substring(0, 2000) + "...";
+            if (arg instanceof MultipartFile file) {
+                args[i] = "文件: " + file.getOriginalFilename();
+            } else if (isSensitiveParam(paramNames[i])) {
+                args[i] = "******";
+            } else if (!isSerializable(arg)) {
+                args[i] = arg.getClass().getSimpleName();
             }
-            return json;
-        } catch (Exception e) {
-            log.warn("获取请求参数失败: {}", e.getMessage());
-            return "";
         }
+        return args;
     }
 
     /**
@@ -0,0 +1,117 @@
+package com.library.common;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形队列（多生产者、多消费者）
+ * 每个槽位带一个序号，生产者和消费者各自通过 CAS 推进位置，槽位序号表示该槽位当前可写还是可读，
+ * 入队和出队都不加锁、不分配节点对象。容量向上取整为2的幂。
+ * 允许多个消费者，因此生产者可以在队列满时自行出队最旧的元素腾出位置。
+ */
+public final class BoundedRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    public BoundedRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 入队，队列已满时返回 false
+     */
+    public boolean offer(E item) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.set(index, item);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队，队列为空时返回 null
+     */
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E item = items.getAndSet(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return item;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 批量出队到 target，最多 max 个，返回出队数量
+     */
+    public int drainTo(List<? super E> target, int max) {
+        int count = 0;
+        E item;
+        while (count < max && (item = poll()) != null) {
+            target.add(item);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素数（并发修改时为近似值）
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.common;
+
+/**
+ * HTTP 单段字节范围（RFC 9110 Range: bytes=...），起止位置均为闭区间
+ *
+ * @param start 起始字节
+ * @param end   结束字节（含）
+ */
+public record ByteRange(long start, long end) {
+
+    /**
+     * 表示范围无法满足（应返回 416）
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    public long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * 解析 Range 请求头
+     * 支持 bytes=start-end、bytes=start-、bytes=-suffix 三种形式；
+     * 请求头缺失、格式错误或包含多段范围时返回 null（按完整内容响应），范围超出文件时返回 {@link #UNSATISFIABLE}
+     *
+     * @param header Range 请求头
+     * @param length 文件长度
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // 后缀范围：最后 N 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.common;
+
+/**
+ * Hibernate 二级缓存区域名称
+ * 每个区域在 JpaConfig 中显式创建，容量与存活时间见 library.cache.regions.&lt;区域名&gt;；
+ * 实体或查询引用了未创建的区域时启动失败，避免出现不受限制的默认缓存。
+ */
+public final class CacheRegions {
+
+    private CacheRegions() {
+    }
+
+    public static final String CATEGORY = "category";
+
+    public static final String FINE_RULE = "fine-rule";
+
+    /**
+     * 用户实体（仅按ID加载时命中，按用户名查询仍走数据库）
+     */
+    public static final String USER = "user";
+
+    /**
+     * 图书实体：库存、借阅次数、评论统计通过原子更新语句修改，由 SecondLevelCacheService 按ID失效
+     */
+    public static final String BOOK = "book";
+
+    /**
+     * 查询缓存结果（Hibernate 默认区域，只缓存实体ID，实体本身从对应实体区域读取）
+     */
+    public static final String QUERY_RESULTS = "default-query-results-region";
+
+    /**
+     * 各表最后修改时间戳，用于判定查询缓存是否过期，不能淘汰
+     */
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+}
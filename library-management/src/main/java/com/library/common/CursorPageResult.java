@@ -0,0 +1,54 @@
+package com.library.common;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页结果
+ * 不执行 COUNT 查询，total 仅在请求时返回（来自缓存，可能存在短暂延迟）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResult<T> {
+
+    private List<T> list;
+    private int size;
+    private boolean hasMore;
+    private String nextCursor;
+    private Long total;
+
+    /**
+     * 根据多查询一条的结果构建分页（rows 最多为 size + 1 条）
+     *
+     * @param rows     查询结果
+     * @param size     每页数量
+     * @param cursorOf 从记录中提取游标
+     * @param mapper   记录转换为响应对象
+     * @param total    总数（可为空）
+     */
+    public static <E, T> CursorPageResult<T> of(List<E> rows, int size,
+                                                Function<E, PageCursor> cursorOf,
+                                                Function<E, T> mapper, Long total) {
+        boolean hasMore = rows.size() > size;
+        List<E> pageRows = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null;
+
+        return CursorPageResult.<T>builder()
+                .list(pageRows.stream().map(mapper).collect(Collectors.toList()))
+                .size(size)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .total(total)
+                .build();
+    }
+}
@@ -35,6 +35,7 @@ public enum ErrorCode {
     STOCK_NOT_ENOUGH(2005, "库存不足，当前可借数量为0"),
     STOCK_INVALID(2006, "可借数量不能超过总库存"),
     BOOK_HAS_ACTIVE_BORROWS(2007, "图书存在未归还的借阅记录，无法删除"),
+    IMPORT_BUSY(2008, "图书导入任务排队已满，请稍后重试"),
 
     // 业务错误 - 借阅相关 21xx
     BORROW_NOT_FOUND(2101, "借阅记录不存在"),
@@ -82,6 +83,12 @@ public enum ErrorCode {
     // 业务错误 - 公告相关 27xx
     ANNOUNCEMENT_NOT_FOUND(2701, "公告不存在"),
 
+    // 业务错误 - 导出相关 28xx
+    EXPORT_JOB_LIMIT_EXCEEDED(2801, "进行中的导出任务过多，请等待已有任务完成"),
+    EXPORT_BUSY(2802, "导出任务排队已满，请稍后重试"),
+    EXPORT_NOT_READY(2803, "导出文件尚未生成"),
+    EXPORT_PERMISSION_DENIED(2804, "只能查看和下载本人提交的导出任务"),
+
     // 业务错误 - 文件相关 25xx
     FILE_UPLOAD_ERROR(2501, "文件上传失败"),
     FILE_TYPE_NOT_ALLOWED(2502, "不支持的文件类型"),
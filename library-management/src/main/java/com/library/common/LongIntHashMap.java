@@ -0,0 +1,186 @@
+package com.library.common;
+
+import java.util.Arrays;
+
+/**
+ * long -> int 开放寻址哈希表（线性探测），键和值均以基本类型数组存储，避免装箱及 Entry 对象开销。
+ * 键 0 保留为空槽标记，仅用于正整数ID。非线程安全，由调用方负责同步。
+ */
+public final class LongIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int threshold;
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return keys[indexOf(key)] == key;
+    }
+
+    public int get(long key) {
+        int index = indexOf(key);
+        return keys[index] == key ? values[index] : 0;
+    }
+
+    public void put(long key, int value) {
+        checkKey(key);
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            values[index] = value;
+            return;
+        }
+        insert(index, key, value);
+    }
+
+    /**
+     * 累加并返回新值（键不存在时从0开始）
+     */
+    public int addTo(long key, int delta) {
+        checkKey(key);
+        int index = indexOf(key);
+        if (keys[index] == key) {
+            return values[index] += delta;
+        }
+        insert(index, key, delta);
+        return delta;
+    }
+
+    /**
+     * 删除值最小的条目，只保留值最大的 limit 个
+     */
+    public void retainTop(int limit) {
+        if (size <= limit) {
+            return;
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        int[] sorted = new int[size];
+        int n = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                sorted[n++] = oldValues[i];
+            }
+        }
+        Arrays.sort(sorted);
+        int cutoff = sorted[size - limit];
+        // 等于分界值的条目按遍历顺序保留，直到凑满 limit 个
+        int aboveCutoff = 0;
+        for (int value : sorted) {
+            if (value > cutoff) {
+                aboveCutoff++;
+            }
+        }
+        int ties = limit - aboveCutoff;
+
+        allocate(keys.length);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) {
+                continue;
+            }
+            int value = oldValues[i];
+            if (value > cutoff || (value == cutoff && ties-- > 0)) {
+                insert(indexOf(key), key, value);
+            }
+        }
+    }
+
+    /**
+     * 遍历所有条目
+     */
+    public void forEach(Consumer consumer) {
+        long[] k = keys;
+        int[] v = values;
+        for (int i = 0; i < k.length; i++) {
+            if (k[i] != 0) {
+                consumer.accept(k[i], v[i]);
+            }
+        }
+    }
+
+    /**
+     * 返回所有键（顺序不固定）
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != 0) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, int value);
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void insert(int index, long key, int value) {
+        keys[index] = key;
+        values[index] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static void checkKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.common;
+
+import com.library.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 游标分页位置（排序键 + 主键）
+ * 对外以 Base64 编码的不透明字符串传递，客户端只需原样回传
+ */
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime sortKey;
+    private final Long id;
+
+    /**
+     * 编码为不透明游标字符串
+     */
+    public String encode() {
+        String raw = sortKey.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串，空字符串表示从第一页开始
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index <= 0) {
+                throw new IllegalArgumentException("missing separator");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.parseLong(raw.substring(index + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "无效的分页游标");
+        }
+    }
+}
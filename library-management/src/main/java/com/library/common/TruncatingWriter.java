@@ -0,0 +1,90 @@
+package com.library.common;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 限长字符输出
+ * 只保留前 limit 个字符，首次写入超出上限时抛出 {@link LimitReachedException} 中止上游的序列化，
+ * 避免为截取前若干字符而生成完整字符串；之后的写入（如关闭时刷新缓冲）直接忽略。
+ */
+public final class TruncatingWriter extends Writer {
+
+    private final StringBuilder buffer;
+    private final int limit;
+    private boolean truncated;
+
+    public TruncatingWriter(int limit) {
+        this.limit = limit;
+        this.buffer = new StringBuilder(Math.min(limit, 256));
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        append(chars, off, len);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (truncated) {
+            return;
+        }
+        int room = limit - buffer.length();
+        buffer.append(str, off, off + Math.min(len, room));
+        if (len > room) {
+            truncated = true;
+            throw new LimitReachedException();
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        append(new char[]{(char) c}, 0, 1);
+    }
+
+    private void append(char[] chars, int off, int len) throws IOException {
+        if (truncated) {
+            return;
+        }
+        int room = limit - buffer.length();
+        buffer.append(chars, off, Math.min(len, room));
+        if (len > room) {
+            truncated = true;
+            throw new LimitReachedException();
+        }
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 已写入的内容，被截断时追加 "..."
+     */
+    public String result() {
+        return truncated ? buffer + "..." : buffer.toString();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 达到长度上限（不填充堆栈）
+     */
+    public static final class LimitReachedException extends IOException {
+
+        private LimitReachedException() {
+            super("output limit reached", null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -1,9 +1,68 @@
 package com.library.config;
 
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.library.common.CacheRegions;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Configuration
 @EnableJpaAuditing
 public class JpaConfig {
+
+    /**
+     * 有容量和存活时间上限的缓存区域：区域名、默认最大条目数、默认存活时间（分钟）
+     */
+    private static final List<Region> BOUNDED_REGIONS = List.of(
+            new Region(CacheRegions.CATEGORY, 1000, 60),
+            new Region(CacheRegions.FINE_RULE, 100, 60),
+            new Region(CacheRegions.USER, 10000, 30),
+            new Region(CacheRegions.BOOK, 20000, 30),
+            new Region(CacheRegions.QUERY_RESULTS, 1000, 10)
+    );
+
+    private record Region(String name, long defaultMaxSize, long defaultTtlMinutes) {
+    }
+
+    /**
+     * Hibernate 二级缓存使用的本地 Caffeine 缓存管理器
+     * 各区域在这里显式创建（missing_cache_strategy=fail），容量和存活时间可通过
+     * library.cache.regions.&lt;区域名&gt;.max-size / ttl-minutes 调整。
+     * 条目按引用保存（Hibernate 缓存的是拆解后的不可变状态），避免每次读写都做序列化拷贝。
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(Environment environment) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        for (Region region : BOUNDED_REGIONS) {
+            String name = region.name();
+            long maxSize = environment.getProperty("library.cache.regions." + name + ".max-size", Long.class, region.defaultMaxSize());
+            long ttlMinutes = environment.getProperty("library.cache.regions." + name + ".ttl-minutes", Long.class, region.defaultTtlMinutes());
+            createIfAbsent(cacheManager, name, new CaffeineConfiguration<>()
+                    .setStoreByValue(false)
+                    .setMaximumSize(OptionalLong.of(maxSize))
+                    .setExpireAfterWrite(OptionalLong.of(TimeUnit.MINUTES.toNanos(ttlMinutes))));
+            log.info("二级缓存区域 {}: 最大条目数 {}, 存活时间 {} 分钟", name, maxSize, ttlMinutes);
+        }
+        // 时间戳区域条目数等于被查询缓存涉及的表数，淘汰会导致查询缓存返回过期结果，因此不设上限
+        createIfAbsent(cacheManager, CacheRegions.UPDATE_TIMESTAMPS, new CaffeineConfiguration<>().setStoreByValue(false));
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private static void createIfAbsent(CacheManager cacheManager, String name, CaffeineConfiguration<Object, Object> configuration) {
+        if (cacheManager.getCache(name) == null) {
+            cacheManager.createCache(name, configuration);
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.library.security.CustomUserDetailsService;
 import com.library.security.JwtAccessDeniedHandler;
 import com.library.security.JwtAuthenticationEntryPoint;
 import com.library.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -70,6 +71,8 @@ public class SecurityConfig {
                 )
                 // 配置请求授权
                 .authorizeHttpRequests(auth -> auth
+                        // 异步请求（SSE）的后续派发沿用首次请求的认证结果
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Swagger UI 公开访问
                         .requestMatchers("/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**", "/swagger-resources/**", "/webjars/**").permitAll()
                         // 公开接口
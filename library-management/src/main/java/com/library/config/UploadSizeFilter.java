@@ -0,0 +1,75 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.ErrorCode;
+import com.library.common.Result;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 上传请求大小限制
+ * 容器级 multipart 上限（spring.servlet.multipart）按批量导入接口设置，
+ * 其余上传接口在解析请求体之前按 library.upload.max-request-size 拒绝超限请求。
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UploadSizeFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 普通上传接口的请求体上限
+     */
+    @Value("${library.upload.max-request-size:10MB}")
+    private DataSize maxRequestSize;
+
+    /**
+     * 允许使用容器级上限的接口
+     */
+    @Value("${library.upload.large-upload-paths:/api/books/import}")
+    private List<String> largeUploadPaths;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return largeUploadPaths.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        // 未声明长度（分块传输）时无法在解析前判断大小，一并拒绝
+        if (contentLength < 0 || contentLength > maxRequestSize.toBytes()) {
+            log.warn("上传请求超限: uri={}, contentLength={}", request.getRequestURI(), contentLength);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            Result<?> result = Result.error(ErrorCode.FILE_SIZE_EXCEEDED,
+                    "上传文件大小超过" + maxRequestSize.toMegabytes() + "MB限制");
+            response.getWriter().write(objectMapper.writeValueAsString(result));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
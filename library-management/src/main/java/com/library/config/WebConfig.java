@@ -16,7 +16,7 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // 配置静态资源映射，让上传的文件可以通过URL访问
+        // 配置静态资源映射，让上传的文件可以通过URL访问（封面图片由 CoverController 处理）
         Path uploadPath = Paths.get(uploadDir).toAbsolutePath();
         String uploadAbsolutePath = uploadPath.toUri().toString();
         // 必须以 "/" 结尾，否则在 Windows 上可能无法正确映射
@@ -2,12 +2,17 @@ package com.library.controller;
 
 import com.library.annotation.Log;
 import com.library.annotation.Log.OperationType;
+import com.library.common.CursorPageResult;
 import com.library.common.PageResult;
 import com.library.common.Result;
 import com.library.dto.request.BookQueryRequest;
 import com.library.dto.request.BookRequest;
+import com.library.dto.request.CatalogSearchRequest;
 import com.library.dto.response.BookResponse;
+import com.library.dto.response.BookStatusResponse;
+import com.library.dto.response.CatalogSearchResponse;
 import com.library.service.BookService;
+import com.library.service.BookStatusService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -32,6 +37,7 @@ import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 public class BookController {
 
     private final BookService bookService;
+    private final BookStatusService bookStatusService;
 
     @Operation(summary = "新增图书", description = "添加一本新书到系统（需要管理员权限）")
     @SecurityRequirement(name = SECURITY_SCHEME_NAME)
@@ -103,6 +109,36 @@ public class BookController {
         return Result.success(bookService.getBooks(request));
     }
 
+    @Operation(summary = "游标分页查询图书", description = "按创建时间倒序游标分页查询图书，不统计总数（withTotal=true 时返回缓存总数）。此接口无需认证。")
+    @ApiResponse(responseCode = "200", description = "查询成功")
+    @GetMapping("/cursor")
+    public Result<CursorPageResult<BookResponse>> getBooksByCursor(@ParameterObject BookQueryRequest request) {
+        return Result.success(bookService.getBooksByCursor(request));
+    }
+
+    @Operation(summary = "目录检索", description = "按关键字、分类、作者、出版社、价格区间、状态及是否可借组合筛选，" +
+            "返回当前页图书及分类/出版社/可借状态分面统计（基于内存索引，图书变更后数秒内生效）。此接口无需认证。")
+    @ApiResponse(responseCode = "200", description = "查询成功")
+    @GetMapping("/search")
+    public Result<CatalogSearchResponse> searchCatalog(@ParameterObject CatalogSearchRequest request) {
+        return Result.success(bookService.searchCatalog(request));
+    }
+
+    @Operation(summary = "批量获取图书状态",
+            description = "一次返回多本图书的库存、收藏数、评分、预约排队人数，以及当前用户的收藏和预约标记（未登录时为 false）。" +
+                    "每次最多100本，按请求顺序返回，不存在的图书忽略。此接口无需认证。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "图书数量超过上限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/status")
+    public Result<List<BookStatusResponse>> getBookStatuses(
+            @Parameter(description = "图书ID列表，逗号分隔", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        return Result.success(bookStatusService.getBookStatuses(ids));
+    }
+
     @Operation(summary = "获取新书推荐", description = "获取最近入库的新书列表。此接口无需认证。")
     @ApiResponse(responseCode = "200", description = "查询成功")
     @GetMapping("/new-arrivals")
@@ -122,4 +158,32 @@ public class BookController {
             @RequestParam(defaultValue = "10") int limit) {
         return Result.success(bookService.getPopularBooks(limit));
     }
+
+    @Operation(summary = "获取相关图书", description = "“借过这本书的读者还借过”推荐，基于内存共借矩阵实时计算。此接口无需认证。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "404", description = "图书不存在",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/{id}/related")
+    public Result<List<BookResponse>> getRelatedBooks(
+            @Parameter(description = "图书ID", required = true) @PathVariable Long id,
+            @Parameter(description = "返回数量限制，默认10本")
+            @RequestParam(defaultValue = "10") int limit) {
+        return Result.success(bookService.getRelatedBooks(id, limit));
+    }
+
+    @Operation(summary = "获取相似图书", description = "按书名、作者、分类和简介的内容相似度推荐，新书无借阅记录也可推荐。此接口无需认证。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "404", description = "图书不存在",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/{id}/similar")
+    public Result<List<BookResponse>> getSimilarBooks(
+            @Parameter(description = "图书ID", required = true) @PathVariable Long id,
+            @Parameter(description = "返回数量限制，默认10本，最多20本")
+            @RequestParam(defaultValue = "10") int limit) {
+        return Result.success(bookService.getSimilarBooks(id, limit));
+    }
 }
@@ -0,0 +1,61 @@
+package com.library.controller;
+
+import com.library.annotation.Log;
+import com.library.annotation.Log.OperationType;
+import com.library.common.Result;
+import com.library.dto.response.BookImportJobResponse;
+import com.library.service.BookImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
+
+@Tag(name = "图书导入", description = "CSV / MARC21 文件批量导入图书（需要管理员或馆员权限）")
+@RestController
+@RequestMapping("/api/books/import")
+@RequiredArgsConstructor
+@SecurityRequirement(name = SECURITY_SCHEME_NAME)
+@PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+public class BookImportController {
+
+    private final BookImportService bookImportService;
+
+    @Operation(summary = "提交批量导入", description = "上传 CSV（首行为表头）或 MARC21（ISO 2709）文件，后台异步导入，返回任务ID。" +
+            "ISBN 已存在的记录将被跳过，校验失败的记录在任务详情中返回行级错误。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "任务已提交"),
+            @ApiResponse(responseCode = "400", description = "文件为空或格式不支持",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @Log(module = "图书管理", operation = OperationType.IMPORT, description = "批量导入图书")
+    @PostMapping(consumes = "multipart/form-data")
+    public Result<BookImportJobResponse> submitImport(
+            @Parameter(description = "导入文件（.csv / .mrc）", required = true) @RequestParam("file") MultipartFile file,
+            @Parameter(description = "文件格式：csv / marc，为空时按扩展名识别") @RequestParam(required = false) String format) {
+        return Result.success(bookImportService.submitImport(file, format));
+    }
+
+    @Operation(summary = "查询导入进度", description = "根据任务ID查询导入进度、统计及行级错误")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "404", description = "任务不存在或已过期",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/{jobId}")
+    public Result<BookImportJobResponse> getJob(
+            @Parameter(description = "任务ID", required = true) @PathVariable String jobId) {
+        return Result.success(bookImportService.getJob(jobId));
+    }
+}
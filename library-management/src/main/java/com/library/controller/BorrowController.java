@@ -2,6 +2,7 @@ package com.library.controller;
 
 import com.library.annotation.Log;
 import com.library.annotation.Log.OperationType;
+import com.library.common.CursorPageResult;
 import com.library.common.PageResult;
 import com.library.common.Result;
 import com.library.dto.request.BorrowQueryRequest;
@@ -26,7 +27,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
-import java.util.List;
 
 import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 
@@ -133,6 +133,19 @@ public class BorrowController {
         return Result.success(borrowService.getRecords(request));
     }
 
+    @Operation(summary = "游标分页查询借阅记录", description = "按借阅日期倒序游标分页查询借阅记录，不统计总数（需要管理员或馆员权限）")
+    @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public Result<CursorPageResult<BorrowRecordResponse>> getRecordsByCursor(@ParameterObject BorrowQueryRequest request) {
+        return Result.success(borrowService.getRecordsByCursor(request));
+    }
+
     @Operation(summary = "获取我的借阅记录", description = "获取当前用户的借阅记录")
     @SecurityRequirement(name = SECURITY_SCHEME_NAME)
     @ApiResponse(responseCode = "200", description = "查询成功")
@@ -163,10 +176,7 @@ public class BorrowController {
         try {
             log.info("开始导出借阅记录, 查询条件: userId={}, bookId={}, status={}",
                     request.getUserId(), request.getBookId(), request.getStatus());
-            List<BorrowRecordResponse> records = borrowService.getAllRecordsForExport(request);
-            log.info("查询到 {} 条记录", records.size());
-            excelExportService.exportBorrowRecords(records, response);
-            log.info("导出完成");
+            excelExportService.exportBorrowRecords(request, response);
         } catch (Exception e) {
             log.error("导出借阅记录失败", e);
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -0,0 +1,154 @@
+package com.library.controller;
+
+import com.library.common.ByteRange;
+import com.library.service.CoverStorageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+@Tag(name = "封面图片", description = "图书封面及缩略图访问（公开）")
+@RestController
+@RequestMapping("/uploads/" + CoverStorageService.COVER_DIR)
+@RequiredArgsConstructor
+public class CoverController {
+
+    /**
+     * Tomcat sendfile 请求属性（NIO 连接器支持时由容器直接以零拷贝方式发送文件）
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String CACHE_REVALIDATE = "public, max-age=60";
+
+    private final CoverStorageService coverStorageService;
+
+    @Operation(summary = "获取封面图片", description = "按内容指纹命名的封面返回强 ETag 并可永久缓存，其他封面返回弱 ETag，支持 If-None-Match（304）及 Range 断点请求。" +
+            "size=list/detail 返回对应缩略图，缩略图未生成时回退为原图")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "完整内容"),
+            @ApiResponse(responseCode = "206", description = "部分内容"),
+            @ApiResponse(responseCode = "304", description = "未修改"),
+            @ApiResponse(responseCode = "404", description = "文件不存在"),
+            @ApiResponse(responseCode = "416", description = "请求范围无效")
+    })
+    @GetMapping("/{filename:.+}")
+    public void getCover(
+            @Parameter(description = "封面文件名", required = true) @PathVariable String filename,
+            @Parameter(description = "缩略图尺寸：list / detail，为空返回原图") @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        CoverStorageService.CoverFile cover = coverStorageService.resolve(filename, CoverStorageService.Size.of(size));
+        if (cover == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, cover.etag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cover.immutable() ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cover.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Path path = cover.path();
+        long length = Files.size(path);
+        ByteRange range = null;
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range 要求强比较，弱 ETag 一律视为不匹配，返回完整内容
+        if (ifRange == null || (!cover.weak() && ifRange.equals(cover.etag()))) {
+            range = ByteRange.parse(request.getHeader(HttpHeaders.RANGE), length);
+        }
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (range == null) {
+            range = new ByteRange(0, length - 1);
+        } else {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(Math.max(range.length(), 0));
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 交由 Tomcat 在响应提交后调用 sendfile，数据不经过用户态缓冲
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+        transfer(path, range, response);
+    }
+
+    /**
+     * 容器不支持 sendfile 时使用 FileChannel.transferTo 直接写入响应通道
+     */
+    private static void transfer(Path path, ByteRange range, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * If-None-Match 按弱比较：忽略双方的 W/ 前缀
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = stripWeak(candidate.trim());
+            if (value.equals("*") || value.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
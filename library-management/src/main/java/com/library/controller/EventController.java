@@ -0,0 +1,48 @@
+package com.library.controller;
+
+import com.library.entity.User;
+import com.library.service.EventPushService;
+import com.library.service.NotificationService;
+import com.library.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
+
+@Tag(name = "事件推送", description = "服务端推送（SSE）接口")
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@SecurityRequirement(name = SECURITY_SCHEME_NAME)
+public class EventController {
+
+    private final EventPushService eventPushService;
+    private final NotificationService notificationService;
+    private final UserService userService;
+
+    @Operation(summary = "订阅事件流",
+            description = "建立 text/event-stream 长连接，推送 unread（未读通知数）、hold（预约到书）、availability（可借数量变化）事件")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "连接建立"),
+            @ApiResponse(responseCode = "401", description = "未认证")
+    })
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(HttpServletResponse response) {
+        User user = userService.getCurrentUserEntity();
+        long unreadCount = notificationService.getUnreadCount();
+        // 关闭反向代理缓冲，保证事件及时送达
+        response.setHeader("X-Accel-Buffering", "no");
+        response.setHeader("Cache-Control", "no-cache");
+        return eventPushService.subscribe(user.getId(), unreadCount);
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.controller;
+
+import com.library.annotation.Log;
+import com.library.annotation.Log.OperationType;
+import com.library.common.Result;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.ExportJobResponse;
+import com.library.service.ExportJobService;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
+
+@Tag(name = "导出任务", description = "大批量数据异步导出，完成后通过下载地址获取文件（需要管理员或馆员权限）")
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@SecurityRequirement(name = SECURITY_SCHEME_NAME)
+@PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    @Operation(summary = "提交导出任务", description = "在后台生成导出文件，返回任务ID。数据：borrows-借阅记录（支持按用户、图书、状态筛选）、" +
+            "fines-罚款记录、users-用户（仅管理员）、books-图书；格式：xlsx（仅借阅记录，借阅记录默认）、csv、ndjson（gzip 压缩，其他数据默认 csv）。" +
+            "相同数据、格式和条件在结果有效期内直接返回已有任务（reused=true）。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "任务已提交"),
+            @ApiResponse(responseCode = "400", description = "数据或格式不支持",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @Log(module = "数据导出", operation = OperationType.EXPORT, description = "提交导出任务")
+    @PostMapping("/{dataset}")
+    public Result<ExportJobResponse> submitExport(
+            @Parameter(description = "导出数据：borrows / fines / users / books", required = true) @PathVariable String dataset,
+            @Parameter(description = "文件格式：xlsx / csv / ndjson，为空时使用默认格式") @RequestParam(required = false) String format,
+            @ParameterObject BorrowQueryRequest request) {
+        ExportDataset exportDataset = ExportDataset.of(dataset);
+        return Result.success(exportJobService.submitExport(exportDataset,
+                ExportFormat.of(format, exportDataset.getDefaultFormat()), request));
+    }
+
+    @Operation(summary = "查询导出进度", description = "返回已写入行数、进度百分比、预计剩余时间，完成后返回下载地址")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "403", description = "不是本人提交的任务",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "404", description = "任务不存在或已过期",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/{jobId}")
+    public Result<ExportJobResponse> getJob(
+            @Parameter(description = "任务ID", required = true) @PathVariable String jobId) {
+        return Result.success(exportJobService.getJob(jobId));
+    }
+
+    @Operation(summary = "下载导出文件", description = "下载已完成任务生成的文件")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "文件内容"),
+            @ApiResponse(responseCode = "403", description = "不是本人提交的任务",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "404", description = "任务不存在或已过期",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/{jobId}/file")
+    public void download(
+            @Parameter(description = "任务ID", required = true) @PathVariable String jobId,
+            HttpServletResponse response) throws IOException {
+        ExportJobService.ExportFile file = exportJobService.getFile(jobId);
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(Files.size(file.path()));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment;filename=" + URLEncoder.encode(file.fileName(), StandardCharsets.UTF_8));
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.CONTENT_DISPOSITION);
+        Files.copy(file.path(), response.getOutputStream());
+    }
+}
@@ -2,8 +2,11 @@ package com.library.controller;
 
 import com.library.annotation.Log;
 import com.library.annotation.Log.OperationType;
+import com.library.common.CursorPageResult;
 import com.library.common.Result;
+import com.library.dto.request.BroadcastRequest;
 import com.library.dto.response.NotificationResponse;
+import com.library.entity.Notification;
 import com.library.service.NotificationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,10 +16,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -46,6 +51,20 @@ public class NotificationController {
         return Result.success(notificationService.getMyNotifications(pageable));
     }
 
+    @Operation(summary = "游标分页获取我的通知", description = "按时间倒序游标分页获取当前用户的通知，不统计总数")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "401", description = "未认证",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/cursor")
+    public Result<CursorPageResult<NotificationResponse>> getMyNotificationsByCursor(
+            @Parameter(description = "分页游标（首页留空）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "是否返回总数（缓存值）") @RequestParam(defaultValue = "false") boolean withTotal) {
+        return Result.success(notificationService.getMyNotificationsByCursor(cursor, size, withTotal));
+    }
+
     @Operation(summary = "获取未读通知数量", description = "获取当前用户的未读通知数量")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "获取成功"),
@@ -74,6 +93,37 @@ public class NotificationController {
         return Result.success(null);
     }
 
+    @Operation(summary = "标记广播通知为已读", description = "推进当前用户的广播通知已读水位，更早的广播一并视为已读")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "标记成功"),
+            @ApiResponse(responseCode = "401", description = "未认证",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "404", description = "通知不存在",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @PutMapping("/broadcasts/{id}/read")
+    public Result<Void> markBroadcastAsRead(
+            @Parameter(description = "广播通知ID") @PathVariable Long id) {
+        notificationService.markBroadcastAsRead(id);
+        return Result.success(null);
+    }
+
+    @Operation(summary = "发送广播通知", description = "向全体读者发送系统通知，如闭馆通知（需要管理员或馆员权限）")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "发送成功"),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @PostMapping("/broadcasts")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    @Log(module = "通知", operation = OperationType.CREATE, description = "发送广播通知")
+    public Result<Void> sendBroadcast(
+            @Parameter(description = "广播通知内容", required = true)
+            @Valid @RequestBody BroadcastRequest request) {
+        notificationService.sendBroadcast(Notification.Type.SYSTEM, request.getTitle().trim(), request.getContent(), null);
+        return Result.success(null);
+    }
+
     @Operation(summary = "标记所有通知为已读", description = "将当前用户的所有通知标记为已读")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "标记成功"),
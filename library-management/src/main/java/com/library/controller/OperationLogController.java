@@ -1,14 +1,26 @@
 package com.library.controller;
 
+import com.library.annotation.Log;
+import com.library.annotation.Log.OperationType;
+import com.library.common.CursorPageResult;
+import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
 import com.library.common.PageResult;
 import com.library.common.Result;
+import com.library.dto.response.RetentionRunResponse;
 import com.library.entity.OperationLog;
+import com.library.exception.BusinessException;
 import com.library.repository.OperationLogRepository;
+import com.library.service.AuditLogWriter;
+import com.library.service.AuditSegmentStore;
+import com.library.service.PageCountCache;
+import com.library.service.RetentionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -17,6 +29,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 
@@ -28,6 +43,16 @@ import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 public class OperationLogController {
 
     private final OperationLogRepository operationLogRepository;
+    private final PageCountCache pageCountCache;
+    private final RetentionService retentionService;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditSegmentStore auditSegmentStore;
+
+    /**
+     * 分段存储按页码分页时最多跳过的条数（分段文件只能顺序扫描，深分页需使用游标接口）
+     */
+    @Value("${library.audit.segment-max-offset:10000}")
+    private int segmentMaxOffset;
 
     @Operation(summary = "分页查询操作日志", description = "管理员查询系统操作日志")
     @SecurityRequirement(name = SECURITY_SCHEME_NAME)
@@ -45,6 +70,20 @@ public class OperationLogController {
         page = page > 0 ? page : 1;
         size = size > 0 ? Math.min(size, 100) : 20;
 
+        if (auditSegmentStore.isEnabled()) {
+            long offset = (long) (page - 1) * size;
+            if (offset > segmentMaxOffset) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR,
+                        "页码过大，请使用游标分页接口 /api/logs/cursor 查询更早的日志");
+            }
+            AuditSegmentStore.Filter filter = new AuditSegmentStore.Filter(module, operator, startTime, endTime);
+            List<OperationLog> rows = auditSegmentStore.query(filter, null, (int) offset + size);
+            int from = Math.min((int) offset, rows.size());
+            long total = pageCountCache.getOrCount(countKey(module, operator, startTime, endTime),
+                    () -> auditSegmentStore.count(filter));
+            return Result.success(PageResult.of(rows.subList(from, rows.size()), total, page, size));
+        }
+
         PageRequest pageRequest = PageRequest.of(page - 1, size,
                 Sort.by(Sort.Direction.DESC, "operationTime"));
 
@@ -59,13 +98,81 @@ public class OperationLogController {
         ));
     }
 
+    @Operation(summary = "游标分页查询操作日志", description = "按操作时间倒序游标分页查询日志，不统计总数（withTotal=true 时返回缓存总数）")
+    @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    @GetMapping("/cursor")
+    public Result<CursorPageResult<OperationLog>> getLogsByCursor(
+            @Parameter(description = "模块名称") @RequestParam(required = false) String module,
+            @Parameter(description = "操作人") @RequestParam(required = false) String operator,
+            @Parameter(description = "开始时间") @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间") @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "分页游标（首页留空）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "是否返回总数（缓存值）") @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        size = size > 0 ? Math.min(size, 100) : 20;
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        // 分段存储按写入顺序（ID）倒序，游标中只使用ID
+        AuditSegmentStore.Filter filter = new AuditSegmentStore.Filter(module, operator, startTime, endTime);
+        List<OperationLog> logs = auditSegmentStore.isEnabled()
+                ? auditSegmentStore.query(filter, pageCursor != null ? pageCursor.getId() : null, size + 1)
+                : operationLogRepository.findByConditionsAfter(
+                module, operator, startTime, endTime,
+                pageCursor != null ? pageCursor.getSortKey() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                PageRequest.of(0, size + 1));
+
+        Long total = null;
+        if (withTotal) {
+            total = pageCountCache.getOrCount(countKey(module, operator, startTime, endTime), () -> auditSegmentStore.isEnabled()
+                    ? auditSegmentStore.count(filter)
+                    : operationLogRepository.countByConditions(module, operator, startTime, endTime));
+        }
+
+        return Result.success(CursorPageResult.of(logs, size,
+                entry -> new PageCursor(entry.getOperationTime(), entry.getId()),
+                Function.identity(), total));
+    }
+
     @Operation(summary = "获取日志详情", description = "根据ID获取操作日志详情")
     @SecurityRequirement(name = SECURITY_SCHEME_NAME)
     @GetMapping("/{id}")
     public Result<OperationLog> getLogById(
             @Parameter(description = "日志ID") @PathVariable Long id) {
-        return operationLogRepository.findById(id)
+        return (auditSegmentStore.isEnabled() ? auditSegmentStore.findById(id) : operationLogRepository.findById(id))
                 .map(Result::success)
                 .orElse(Result.error(404, "日志记录不存在"));
     }
+
+    @Operation(summary = "执行数据保留清理", description = "提交后台清理任务：按保留策略删除过期的已读通知、归档并删除过期的操作日志，立即返回（平时由定时任务执行）")
+    @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    @Log(module = "系统管理", operation = OperationType.DELETE, description = "执行数据保留清理")
+    @PostMapping("/retention")
+    public Result<RetentionRunResponse> runRetention() {
+        return Result.success(retentionService.submit());
+    }
+
+    @Operation(summary = "数据保留清理状态", description = "最近一次清理（手动或定时）的执行状态和各表的清理结果")
+    @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    @GetMapping("/retention")
+    public Result<RetentionRunResponse> getRetentionStatus() {
+        return Result.success(retentionService.status());
+    }
+
+    @Operation(summary = "日志写入状态", description = "操作日志异步写入队列的运行指标：队列深度、丢弃数、批量写入耗时等")
+    @SecurityRequirement(name = SECURITY_SCHEME_NAME)
+    @GetMapping("/writer-stats")
+    public Result<Map<String, Object>> getWriterStats() {
+        return Result.success(auditLogWriter.stats());
+    }
+
+    /**
+     * 总数缓存键（页码分页与游标分页共用）
+     */
+    private static String countKey(String module, String operator, LocalDateTime startTime, LocalDateTime endTime) {
+        return "log:" + module + "|" + operator + "|" + startTime + "|" + endTime;
+    }
 }
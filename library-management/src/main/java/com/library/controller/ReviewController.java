@@ -1,5 +1,6 @@
 package com.library.controller;
 
+import com.library.common.CursorPageResult;
 import com.library.common.Result;
 import com.library.dto.request.ReviewRequest;
 import com.library.dto.response.ReviewResponse;
@@ -51,6 +52,16 @@ public class ReviewController {
         return Result.success(result);
     }
 
+    @Operation(summary = "游标分页获取图书评论", description = "按时间倒序游标分页获取指定图书的评论，不统计总数")
+    @GetMapping("/book/{bookId}/cursor")
+    public Result<CursorPageResult<ReviewResponse>> getBookReviewsByCursor(
+            @Parameter(description = "图书ID") @PathVariable Long bookId,
+            @Parameter(description = "分页游标（首页留空）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "是否返回总数（缓存值）") @RequestParam(defaultValue = "false") boolean withTotal) {
+        return Result.success(reviewService.getBookReviewsByCursor(bookId, cursor, size, withTotal));
+    }
+
     @Operation(summary = "获取用户评论", description = "获取当前用户的评论列表")
     @GetMapping("/my")
     public Result<List<ReviewResponse>> getMyReviews() {
@@ -3,7 +3,11 @@ package com.library.controller;
 import com.library.common.Result;
 import com.library.dto.request.StatisticsQueryRequest;
 import com.library.dto.response.AdvancedStatisticsResponse;
+import com.library.dto.response.CacheRegionStatsResponse;
+import com.library.dto.response.LatencyStatsResponse;
 import com.library.dto.response.StatisticsResponse;
+import com.library.service.LatencyHistogramService;
+import com.library.service.SecondLevelCacheService;
 import com.library.service.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,11 +18,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 
 @Tag(name = "统计分析", description = "系统数据统计（需要管理员或馆员权限）")
@@ -29,6 +38,8 @@ import static com.library.config.OpenApiConfig.SECURITY_SCHEME_NAME;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final LatencyHistogramService latencyHistogramService;
+    private final SecondLevelCacheService secondLevelCacheService;
 
     @Operation(summary = "获取统计数据", description = "获取系统基础统计数据")
     @ApiResponses(value = {
@@ -72,4 +83,39 @@ public class StatisticsController {
             @Parameter(description = "统计查询条件") StatisticsQueryRequest request) {
         return Result.success(statisticsService.getAdvancedStatistics(request));
     }
+
+    @Operation(summary = "操作耗时分位数", description = "按模块和操作统计时间窗口内的耗时 p50/p95/p99/max（来自每分钟汇总的直方图，最近一分钟在下一次汇总后可见）。" +
+            "window 为最近一段时间（如 15m、1h、24h、7d），指定 startTime 时按 [startTime, endTime) 统计")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "400", description = "时间窗口格式不正确",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult"))),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/latency")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<List<LatencyStatsResponse>> getLatency(
+            @Parameter(description = "时间窗口，如 15m、1h、24h、7d（最长30天）") @RequestParam(defaultValue = "1h") String window,
+            @Parameter(description = "开始时间（可选）") @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @Parameter(description = "结束时间（可选，默认当前时间）") @RequestParam(required = false)
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            @Parameter(description = "模块名称（可选）") @RequestParam(required = false) String module) {
+        LocalDateTime to = endTime != null ? endTime : LocalDateTime.now();
+        LocalDateTime from = startTime != null ? startTime : to.minus(LatencyHistogramService.parseWindow(window));
+        return Result.success(latencyHistogramService.query(from, to, module));
+    }
+
+    @Operation(summary = "二级缓存统计", description = "按缓存区域返回自启动以来的命中、未命中、写入次数、命中率和当前条目数")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "获取成功"),
+            @ApiResponse(responseCode = "403", description = "无权限",
+                    content = @Content(schema = @Schema(ref = "#/components/schemas/ErrorResult")))
+    })
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Result<List<CacheRegionStatsResponse>> getCacheStatistics() {
+        return Result.success(secondLevelCacheService.getStatistics());
+    }
 }
@@ -0,0 +1,23 @@
+package com.library.dto.projection;
+
+import com.library.entity.Book;
+
+/**
+ * 图书计数投影（借还、评论会改变的字段，供详情缓存单独刷新）
+ */
+public record BookCounters(Integer availableCount,
+                           Integer borrowCount,
+                           Integer reviewCount,
+                           Integer ratingSum) {
+
+    /**
+     * JPQL 构造表达式（FROM Book b）
+     */
+    public static final String SELECT = "SELECT new com.library.dto.projection.BookCounters(" +
+            "b.availableCount, b.borrowCount, b.reviewCount, b.ratingSum) ";
+
+    public static BookCounters fromEntity(Book book) {
+        return new BookCounters(book.getAvailableCount(), book.getBorrowCount(),
+                book.getReviewCount(), book.getRatingSum());
+    }
+}
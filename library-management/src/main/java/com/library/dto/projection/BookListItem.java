@@ -0,0 +1,37 @@
+package com.library.dto.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 图书列表投影（不含 description 等大字段，分类名通过连接查询一次取出）
+ */
+public record BookListItem(Long id,
+                           String isbn,
+                           String title,
+                           String author,
+                           String publisher,
+                           LocalDate publishDate,
+                           Long categoryId,
+                           String categoryName,
+                           BigDecimal price,
+                           Integer totalCount,
+                           Integer availableCount,
+                           String coverUrl,
+                           String location,
+                           Integer status,
+                           Integer borrowCount,
+                           Integer reviewCount,
+                           Integer ratingSum,
+                           LocalDateTime createdAt,
+                           LocalDateTime updatedAt) {
+
+    /**
+     * JPQL 构造表达式（FROM Book b LEFT JOIN b.category c）
+     */
+    public static final String SELECT = "SELECT new com.library.dto.projection.BookListItem(" +
+            "b.id, b.isbn, b.title, b.author, b.publisher, b.publishDate, c.id, c.name, b.price, " +
+            "b.totalCount, b.availableCount, b.coverUrl, b.location, b.status, b.borrowCount, " +
+            "b.reviewCount, b.ratingSum, b.createdAt, b.updatedAt) ";
+}
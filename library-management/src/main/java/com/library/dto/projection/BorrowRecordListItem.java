@@ -0,0 +1,51 @@
+package com.library.dto.projection;
+
+import com.library.entity.BorrowRecord;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 借阅记录列表投影（用户、图书只取列表展示所需的列）
+ */
+public record BorrowRecordListItem(Long id,
+                                   Long userId,
+                                   String username,
+                                   String realName,
+                                   Long bookId,
+                                   String bookTitle,
+                                   String bookIsbn,
+                                   String bookAuthor,
+                                   String bookCoverUrl,
+                                   LocalDateTime borrowDate,
+                                   LocalDateTime dueDate,
+                                   LocalDateTime returnDate,
+                                   BorrowRecord.Status status,
+                                   String remark,
+                                   LocalDateTime createdAt,
+                                   Integer renewCount,
+                                   Integer overdueDays,
+                                   BigDecimal fineAmount,
+                                   Boolean finePaid) {
+
+    /**
+     * JPQL 构造表达式（FROM BorrowRecord br JOIN br.user u JOIN br.book b）
+     */
+    public static final String SELECT = "SELECT new com.library.dto.projection.BorrowRecordListItem(" +
+            "br.id, u.id, u.username, u.realName, b.id, b.title, b.isbn, b.author, b.coverUrl, " +
+            "br.borrowDate, br.dueDate, br.returnDate, br.status, br.remark, br.createdAt, " +
+            "br.renewCount, br.overdueDays, br.fineAmount, br.finePaid) ";
+
+    /**
+     * 从已加载的实体构建（详情及写操作返回时使用，调用方需保证 user、book 已加载）
+     */
+    public static BorrowRecordListItem from(BorrowRecord record) {
+        return new BorrowRecordListItem(record.getId(),
+                record.getUser().getId(), record.getUser().getUsername(), record.getUser().getRealName(),
+                record.getBook().getId(), record.getBook().getTitle(), record.getBook().getIsbn(),
+                record.getBook().getAuthor(), record.getBook().getCoverUrl(),
+                record.getBorrowDate(), record.getDueDate(), record.getReturnDate(), record.getStatus(),
+                record.getRemark(), record.getCreatedAt(), record.getRenewCount(), record.getOverdueDays(),
+                record.getFineAmount(), record.getFinePaid());
+    }
+}
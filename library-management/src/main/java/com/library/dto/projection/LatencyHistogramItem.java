@@ -0,0 +1,15 @@
+package com.library.dto.projection;
+
+/**
+ * 操作耗时汇总投影（合并直方图只需要模块、操作和压缩编码的直方图）
+ */
+public record LatencyHistogramItem(String module,
+                                   String operation,
+                                   byte[] histogram) {
+
+    /**
+     * JPQL 构造表达式（FROM LatencySummary ls）
+     */
+    public static final String SELECT = "SELECT new com.library.dto.projection.LatencyHistogramItem(" +
+            "ls.module, ls.operation, ls.histogram) ";
+}
@@ -0,0 +1,40 @@
+package com.library.dto.projection;
+
+import com.library.entity.Review;
+
+import java.time.LocalDateTime;
+
+/**
+ * 评论列表投影（用户、图书只取列表展示所需的列）
+ */
+public record ReviewListItem(Long id,
+                             Long userId,
+                             String username,
+                             Long bookId,
+                             String bookTitle,
+                             String bookAuthor,
+                             String bookCoverUrl,
+                             Integer rating,
+                             String content,
+                             Integer likes,
+                             Integer status,
+                             LocalDateTime createdAt) {
+
+    /**
+     * JPQL 构造表达式（FROM Review r JOIN r.user u JOIN r.book b）
+     */
+    public static final String SELECT = "SELECT new com.library.dto.projection.ReviewListItem(" +
+            "r.id, u.id, u.username, b.id, b.title, b.author, b.coverUrl, " +
+            "r.rating, r.content, r.likes, r.status, r.createdAt) ";
+
+    /**
+     * 从已加载的实体构建（调用方需保证 user、book 已加载）
+     */
+    public static ReviewListItem from(Review review) {
+        return new ReviewListItem(review.getId(),
+                review.getUser().getId(), review.getUser().getUsername(),
+                review.getBook().getId(), review.getBook().getTitle(), review.getBook().getAuthor(),
+                review.getBook().getCoverUrl(), review.getRating(), review.getContent(), review.getLikes(),
+                review.getStatus(), review.getCreatedAt());
+    }
+}
@@ -20,6 +20,10 @@ public class BookQueryRequest {
     @Schema(description = "状态：1-上架，0-下架", example = "1")
     private Integer status;
 
+    @Parameter(description = "排序方式：latest-最新入库（默认），popular-借阅次数", example = "latest")
+    @Schema(description = "排序方式：latest-最新入库（默认），popular-借阅次数", example = "latest", defaultValue = "latest")
+    private String sortBy = "latest";
+
     @Parameter(description = "页码，从1开始", example = "1")
     @Schema(description = "页码，从1开始", example = "1", defaultValue = "1")
     private Integer page = 1;
@@ -27,4 +31,12 @@ public class BookQueryRequest {
     @Parameter(description = "每页数量", example = "10")
     @Schema(description = "每页数量", example = "10", defaultValue = "10")
     private Integer size = 10;
+
+    @Parameter(description = "分页游标（游标分页接口使用，首页留空，后续传入上一页返回的 nextCursor）")
+    @Schema(description = "分页游标（游标分页接口使用，首页留空，后续传入上一页返回的 nextCursor）")
+    private String cursor;
+
+    @Parameter(description = "是否返回总数（游标分页接口使用，总数为缓存值）", example = "false")
+    @Schema(description = "是否返回总数（游标分页接口使用，总数为缓存值）", example = "false", defaultValue = "false")
+    private Boolean withTotal = false;
 }
@@ -27,4 +27,12 @@ public class BorrowQueryRequest {
     @Parameter(description = "每页数量", example = "10")
     @Schema(description = "每页数量", example = "10", defaultValue = "10")
     private Integer size = 10;
+
+    @Parameter(description = "分页游标（游标分页接口使用，首页留空，后续传入上一页返回的 nextCursor）")
+    @Schema(description = "分页游标（游标分页接口使用，首页留空，后续传入上一页返回的 nextCursor）")
+    private String cursor;
+
+    @Parameter(description = "是否返回总数（游标分页接口使用，总数为缓存值）", example = "false")
+    @Schema(description = "是否返回总数（游标分页接口使用，总数为缓存值）", example = "false", defaultValue = "false")
+    private Boolean withTotal = false;
 }
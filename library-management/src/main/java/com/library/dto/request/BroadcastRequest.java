@@ -0,0 +1,21 @@
+package com.library.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+@Schema(description = "广播通知请求")
+public class BroadcastRequest {
+
+    @Schema(description = "通知标题", example = "闭馆通知")
+    @NotBlank(message = "通知标题不能为空")
+    @Size(max = 100, message = "标题长度不能超过100个字符")
+    private String title;
+
+    @Schema(description = "通知内容", example = "因设备检修，图书馆将于本周六闭馆一天。")
+    @NotBlank(message = "通知内容不能为空")
+    @Size(max = 500, message = "内容长度不能超过500个字符")
+    private String content;
+}
@@ -0,0 +1,56 @@
+package com.library.dto.request;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Schema(description = "目录检索条件（内存索引，支持分面统计）")
+public class CatalogSearchRequest {
+
+    @Parameter(description = "搜索关键字（书名/作者/ISBN）", example = "Java")
+    @Schema(description = "搜索关键字（书名/作者/ISBN）", example = "Java")
+    private String keyword;
+
+    @Parameter(description = "分类ID", example = "1")
+    @Schema(description = "分类ID", example = "1")
+    private Long categoryId;
+
+    @Parameter(description = "作者（模糊匹配）", example = "鲁迅")
+    @Schema(description = "作者（模糊匹配）", example = "鲁迅")
+    private String author;
+
+    @Parameter(description = "出版社（模糊匹配）", example = "人民文学出版社")
+    @Schema(description = "出版社（模糊匹配）", example = "人民文学出版社")
+    private String publisher;
+
+    @Parameter(description = "最低价格", example = "10")
+    @Schema(description = "最低价格", example = "10")
+    private BigDecimal minPrice;
+
+    @Parameter(description = "最高价格", example = "100")
+    @Schema(description = "最高价格", example = "100")
+    private BigDecimal maxPrice;
+
+    @Parameter(description = "状态：1-上架，0-下架", example = "1")
+    @Schema(description = "状态：1-上架，0-下架", example = "1")
+    private Integer status;
+
+    @Parameter(description = "是否仅显示可借图书", example = "true")
+    @Schema(description = "是否仅显示可借图书", example = "true")
+    private Boolean available;
+
+    @Parameter(description = "排序方式：latest-最新入库（默认），popular-借阅次数，price_asc-价格升序，price_desc-价格降序", example = "latest")
+    @Schema(description = "排序方式：latest-最新入库（默认），popular-借阅次数，price_asc-价格升序，price_desc-价格降序", example = "latest", defaultValue = "latest")
+    private String sortBy = "latest";
+
+    @Parameter(description = "页码，从1开始", example = "1")
+    @Schema(description = "页码，从1开始", example = "1", defaultValue = "1")
+    private Integer page = 1;
+
+    @Parameter(description = "每页数量", example = "10")
+    @Schema(description = "每页数量", example = "10", defaultValue = "10")
+    private Integer size = 10;
+}
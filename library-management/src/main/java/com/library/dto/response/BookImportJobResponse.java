@@ -0,0 +1,39 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookImportJobResponse {
+
+    private String jobId;
+    private String fileName;
+    private String format;             // 文件格式：CSV / MARC
+    private String status;             // PENDING / RUNNING / COMPLETED / FAILED
+    private int progress;              // 进度百分比（按已读取文件字节计算）
+    private long processedRows;        // 已读取记录数
+    private long importedRows;         // 成功导入数
+    private long duplicateRows;        // ISBN 重复跳过数
+    private long failedRows;           // 校验或写入失败数
+    private String message;            // 任务级错误信息
+    private List<RowError> errors;     // 行级错误（最多保留前 1000 条）
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String isbn;
+        private String message;
+    }
+}
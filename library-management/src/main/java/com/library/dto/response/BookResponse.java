@@ -1,5 +1,6 @@
 package com.library.dto.response;
 
+import com.library.dto.projection.BookListItem;
 import com.library.entity.Book;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,7 +12,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookResponse {
@@ -31,6 +32,9 @@ public class BookResponse {
     private String coverUrl;
     private String location;
     private Integer status;
+    private Integer borrowCount;
+    private Integer reviewCount;
+    private Double averageRating;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -51,8 +55,38 @@ public class BookResponse {
                 .coverUrl(book.getCoverUrl())
                 .location(book.getLocation())
                 .status(book.getStatus())
+                .borrowCount(book.getBorrowCount())
+                .reviewCount(book.getReviewCount())
+                .averageRating(book.getAverageRating())
                 .createdAt(book.getCreatedAt())
                 .updatedAt(book.getUpdatedAt())
                 .build();
     }
+
+    /**
+     * 从列表投影转换（列表视图不返回 description）
+     */
+    public static BookResponse fromListItem(BookListItem item) {
+        return BookResponse.builder()
+                .id(item.id())
+                .isbn(item.isbn())
+                .title(item.title())
+                .author(item.author())
+                .publisher(item.publisher())
+                .publishDate(item.publishDate())
+                .categoryId(item.categoryId())
+                .categoryName(item.categoryName())
+                .price(item.price())
+                .totalCount(item.totalCount())
+                .availableCount(item.availableCount())
+                .coverUrl(item.coverUrl())
+                .location(item.location())
+                .status(item.status())
+                .borrowCount(item.borrowCount())
+                .reviewCount(item.reviewCount())
+                .averageRating(Book.averageRating(item.reviewCount(), item.ratingSum()))
+                .createdAt(item.createdAt())
+                .updatedAt(item.updatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,33 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 图书动态状态（库存、收藏、预约、评分），用于目录页批量查询
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookStatusResponse {
+
+    private Long bookId;
+    private Integer status;
+    private Integer totalCount;
+    private Integer availableCount;
+    private Boolean available;
+
+    /**
+     * 当前用户是否已收藏、是否有有效预约（未登录时为 false）
+     */
+    private Boolean favorited;
+    private Boolean reserved;
+
+    private Long favoriteCount;
+    private Integer reviewCount;
+    private Double averageRating;
+    private Integer queueLength;
+}
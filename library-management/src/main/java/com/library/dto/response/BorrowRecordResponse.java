@@ -1,5 +1,6 @@
 package com.library.dto.response;
 
+import com.library.dto.projection.BorrowRecordListItem;
 import com.library.entity.BorrowRecord;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -57,58 +58,71 @@ public class BorrowRecordResponse {
      * @param maxRenewCount 最大续借次数（来自配置）
      */
     public static BorrowRecordResponse fromEntity(BorrowRecord record, int maxRenewCount) {
+        return fromListItem(BorrowRecordListItem.from(record), maxRenewCount);
+    }
+
+    /**
+     * 从列表投影转换（列表查询不加载实体，避免关联对象的懒加载）
+     *
+     * @param item          借阅记录投影
+     * @param maxRenewCount 最大续借次数（来自配置）
+     */
+    public static BorrowRecordResponse fromListItem(BorrowRecordListItem item, int maxRenewCount) {
         String statusDesc;
-        switch (record.getStatus()) {
+        switch (item.status()) {
             case BORROWING -> statusDesc = "借阅中";
             case RETURNED -> statusDesc = "已归还";
             case OVERDUE -> statusDesc = "逾期";
             default -> statusDesc = "未知";
         }
 
+        boolean overdue = BorrowRecord.isOverdue(item.status(), item.dueDate());
+
         // 判断是否可以续借（未归还、未逾期、续借次数未达上限）
-        boolean canRenew = record.getStatus() == BorrowRecord.Status.BORROWING
-                && !record.isOverdue()
-                && record.getRenewCount() < maxRenewCount;
+        boolean canRenew = item.status() == BorrowRecord.Status.BORROWING
+                && !overdue
+                && item.renewCount() < maxRenewCount;
 
         // 获取逾期天数：已归还记录使用存储值，未归还记录实时计算
         int overdueDays;
-        if (record.getStatus() == BorrowRecord.Status.RETURNED) {
+        if (item.status() == BorrowRecord.Status.RETURNED) {
             // 已归还：使用归还时保存的逾期天数
-            overdueDays = record.getOverdueDays() != null ? record.getOverdueDays() : 0;
+            overdueDays = item.overdueDays() != null ? item.overdueDays() : 0;
         } else {
             // 未归还：实时计算当前逾期天数
-            overdueDays = record.calculateOverdueDays();
+            overdueDays = BorrowRecord.calculateOverdueDays(item.status(), item.dueDate(), item.returnDate());
         }
 
         // 获取罚款金额：优先使用存储值，未存储则实时计算
-        BigDecimal fineAmount = (record.getFineAmount() != null && record.getFineAmount().compareTo(BigDecimal.ZERO) > 0)
-                ? record.getFineAmount()
-                : record.calculateFine();
+        BigDecimal fineAmount = (item.fineAmount() != null && item.fineAmount().compareTo(BigDecimal.ZERO) > 0)
+                ? item.fineAmount()
+                : BorrowRecord.calculateFine(
+                        BorrowRecord.calculateOverdueDays(item.status(), item.dueDate(), item.returnDate()));
 
         return BorrowRecordResponse.builder()
-                .id(record.getId())
-                .userId(record.getUser().getId())
-                .username(record.getUser().getUsername())
-                .realName(record.getUser().getRealName())
-                .bookId(record.getBook().getId())
-                .bookTitle(record.getBook().getTitle())
-                .bookIsbn(record.getBook().getIsbn())
-                .bookAuthor(record.getBook().getAuthor())
-                .bookCoverUrl(record.getBook().getCoverUrl())
-                .borrowDate(record.getBorrowDate())
-                .dueDate(record.getDueDate())
-                .returnDate(record.getReturnDate())
-                .status(record.getStatus().getValue())
+                .id(item.id())
+                .userId(item.userId())
+                .username(item.username())
+                .realName(item.realName())
+                .bookId(item.bookId())
+                .bookTitle(item.bookTitle())
+                .bookIsbn(item.bookIsbn())
+                .bookAuthor(item.bookAuthor())
+                .bookCoverUrl(item.bookCoverUrl())
+                .borrowDate(item.borrowDate())
+                .dueDate(item.dueDate())
+                .returnDate(item.returnDate())
+                .status(item.status().getValue())
                 .statusDesc(statusDesc)
-                .remark(record.getRemark())
-                .overdue(record.isOverdue())
-                .createdAt(record.getCreatedAt())
-                .renewCount(record.getRenewCount())
+                .remark(item.remark())
+                .overdue(overdue)
+                .createdAt(item.createdAt())
+                .renewCount(item.renewCount())
                 .canRenew(canRenew)
                 .maxRenewCount(maxRenewCount)
                 .overdueDays(overdueDays)
                 .fineAmount(fineAmount)
-                .finePaid(record.getFinePaid())
+                .finePaid(item.finePaid())
                 .build();
     }
 }
@@ -0,0 +1,20 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheRegionStatsResponse {
+
+    private String region;             // 缓存区域
+    private long hitCount;             // 命中次数（自启动以来）
+    private long missCount;            // 未命中次数
+    private long putCount;             // 写入次数
+    private double hitRatio;           // 命中率
+    private long size;                 // 当前条目数（估算值）
+}
@@ -0,0 +1,35 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogSearchResponse {
+
+    private List<BookResponse> list;
+    private long total;
+    private int page;
+    private int size;
+
+    // 分面统计（基于当前筛选结果）
+    private List<FacetCount> categories;    // 按分类
+    private List<FacetCount> publishers;    // 按出版社（前20个）
+    private long availableCount;            // 可借图书数
+    private long unavailableCount;          // 不可借图书数
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value;   // 分面值（分类为分类ID）
+        private String label;   // 显示名称
+        private long count;
+    }
+}
@@ -7,9 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Data
 @Builder
@@ -39,16 +37,4 @@ public class CategoryResponse {
                 .createdAt(category.getCreatedAt())
                 .build();
     }
-
-    public static CategoryResponse fromEntityWithChildren(Category category) {
-        CategoryResponse response = fromEntity(category);
-        if (category.getChildren() != null && !category.getChildren().isEmpty()) {
-            response.setChildren(category.getChildren().stream()
-                    .map(CategoryResponse::fromEntityWithChildren)
-                    .collect(Collectors.toList()));
-        } else {
-            response.setChildren(new ArrayList<>());
-        }
-        return response;
-    }
 }
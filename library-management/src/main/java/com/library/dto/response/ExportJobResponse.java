@@ -0,0 +1,32 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExportJobResponse {
+
+    private String jobId;
+    private String type;               // 导出内容：BORROW_RECORDS
+    private String format;             // 文件格式：XLSX
+    private String status;             // PENDING / RUNNING / COMPLETED / FAILED
+    private int progress;              // 进度百分比（按已写入行数 / 预计总行数计算）
+    private long rowsWritten;          // 已写入行数
+    private long totalRows;            // 预计总行数（任务开始时统计）
+    private Long etaSeconds;           // 预计剩余时间（秒），未开始或无法估算时为空
+    private long fileSize;             // 文件大小（字节），完成后有效
+    private String downloadUrl;        // 下载地址，完成后有效
+    private boolean reused;            // 是否复用了相同条件的已有任务
+    private String message;            // 失败原因
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;   // 文件过期时间，过期后需重新导出
+}
@@ -0,0 +1,26 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatencyStatsResponse {
+
+    private String module;             // 操作模块
+    private String operation;          // 操作（@Log 描述）
+    private LocalDateTime from;        // 窗口开始（含）
+    private LocalDateTime to;          // 窗口结束（不含）
+    private long count;                // 请求数
+    private long p50Ms;
+    private long p95Ms;
+    private long p99Ms;
+    private long maxMs;
+    private double meanMs;
+}
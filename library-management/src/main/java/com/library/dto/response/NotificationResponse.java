@@ -1,5 +1,7 @@
 package com.library.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.library.entity.BroadcastNotification;
 import com.library.entity.Notification;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +24,17 @@ public class NotificationResponse {
     private Long borrowRecordId;
     private LocalDateTime createdAt;
 
+    /**
+     * 结构化内容（原样输出 JSON）
+     */
+    @JsonRawValue
+    private String payload;
+
+    /**
+     * 是否为广播通知（标记已读需调用广播通知接口）
+     */
+    private Boolean broadcast;
+
     public static NotificationResponse fromEntity(Notification notification) {
         return NotificationResponse.builder()
                 .id(notification.getId())
@@ -31,6 +44,20 @@ public class NotificationResponse {
                 .isRead(notification.getIsRead())
                 .borrowRecordId(notification.getBorrowRecordId())
                 .createdAt(notification.getCreatedAt())
+                .payload(notification.getPayload())
+                .broadcast(false)
+                .build();
+    }
+
+    public static NotificationResponse fromBroadcast(BroadcastNotification broadcast, boolean read) {
+        return NotificationResponse.builder()
+                .id(broadcast.getId())
+                .type(broadcast.getType().name())
+                .title(broadcast.getTitle())
+                .content(broadcast.getContent())
+                .isRead(read)
+                .createdAt(broadcast.getCreatedAt())
+                .broadcast(true)
                 .build();
     }
 }
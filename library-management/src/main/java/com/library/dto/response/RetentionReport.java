@@ -0,0 +1,27 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetentionReport {
+
+    private String table;              // 表名
+    private String action;             // PURGE-直接删除 / ARCHIVE-归档后删除
+    private LocalDateTime cutoff;      // 早于该时间的数据被清理
+    private long deletedRows;          // 删除行数
+    private long archivedRows;         // 写入归档文件的行数
+    private String archiveFile;        // 归档文件路径（无归档时为空）
+    private long archiveBytes;         // 归档文件大小（压缩后）
+    private long freedBytes;           // 估算释放的表空间（删除行数 × 平均行长度）
+    private int chunks;                // 执行的分段数（分段存储为移动的文件数）
+    private boolean completed;         // 是否已清理完（false 表示达到单次分段上限，剩余部分下次继续）
+    private long elapsedMs;            // 耗时（毫秒）
+}
@@ -0,0 +1,23 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetentionRunResponse {
+
+    private String status;                 // IDLE / RUNNING / COMPLETED / FAILED
+    private String trigger;                // MANUAL-手动触发 / SCHEDULED-定时任务
+    private String message;                // 失败原因
+    private List<RetentionReport> reports; // 各表的清理结果（执行结束后填充）
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
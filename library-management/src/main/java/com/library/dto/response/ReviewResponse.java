@@ -1,5 +1,6 @@
 package com.library.dto.response;
 
+import com.library.dto.projection.ReviewListItem;
 import com.library.entity.Review;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -32,21 +33,28 @@ public class ReviewResponse {
     private static final String PLACEHOLDER_AVATAR = "https://cube.elemecdn.com/0/88/03b0d39583f48206768a7534e55bcpng.png";
 
     public static ReviewResponse fromEntity(Review review) {
+        return fromListItem(ReviewListItem.from(review));
+    }
+
+    /**
+     * 从列表投影转换
+     */
+    public static ReviewResponse fromListItem(ReviewListItem item) {
         return ReviewResponse.builder()
-                .id(review.getId())
-                .userId(review.getUser().getId())
-                .username(review.getUser().getUsername())
+                .id(item.id())
+                .userId(item.userId())
+                .username(item.username())
                 .avatar(PLACEHOLDER_AVATAR)
-                .bookId(review.getBook().getId())
-                .bookTitle(review.getBook().getTitle())
-                .bookAuthor(review.getBook().getAuthor())
-                .bookCoverUrl(review.getBook().getCoverUrl())
-                .rating(review.getRating())
-                .content(review.getContent())
-                .likes(review.getLikes())
-                .status(review.getStatus())
-                .createdAt(review.getCreatedAt() != null ?
-                    review.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) : null)
+                .bookId(item.bookId())
+                .bookTitle(item.bookTitle())
+                .bookAuthor(item.bookAuthor())
+                .bookCoverUrl(item.bookCoverUrl())
+                .rating(item.rating())
+                .content(item.content())
+                .likes(item.likes())
+                .status(item.status())
+                .createdAt(item.createdAt() != null ?
+                    item.createdAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) : null)
                 .build();
     }
 }
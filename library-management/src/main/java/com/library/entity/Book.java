@@ -1,7 +1,10 @@
 package com.library.entity;
 
+import com.library.common.CacheRegions;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -9,7 +12,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "book")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.BOOK)
+@Table(name = "book", indexes = {
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        @Index(name = "idx_status_borrow_count", columnList = "status, borrow_count")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -63,10 +71,45 @@ public class Book extends BaseEntity {
     @Column(nullable = false)
     private Integer status = 1;
 
+    /**
+     * 累计借阅次数（随借阅事务同步递增，用于热门排序）
+     */
+    @Column(name = "borrow_count", nullable = false)
+    @Builder.Default
+    private Integer borrowCount = 0;
+
+    /**
+     * 有效评论数（仅统计状态为显示的评论）
+     */
+    @Column(name = "review_count", nullable = false)
+    @Builder.Default
+    private Integer reviewCount = 0;
+
+    /**
+     * 有效评论评分总和，平均分 = ratingSum / reviewCount
+     */
+    @Column(name = "rating_sum", nullable = false)
+    @Builder.Default
+    private Integer ratingSum = 0;
+
     @OneToMany(mappedBy = "book")
     @Builder.Default
     private List<BorrowRecord> borrowRecords = new ArrayList<>();
 
+    /**
+     * 平均评分（无评论时返回 null）
+     */
+    public Double getAverageRating() {
+        return averageRating(reviewCount, ratingSum);
+    }
+
+    public static Double averageRating(Integer reviewCount, Integer ratingSum) {
+        if (reviewCount == null || reviewCount == 0 || ratingSum == null) {
+            return null;
+        }
+        return (double) ratingSum / reviewCount;
+    }
+
     public boolean isAvailable() {
         return status == 1 && availableCount > 0;
     }
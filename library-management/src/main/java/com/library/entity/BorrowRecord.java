@@ -8,7 +8,12 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "borrow_record")
+@Table(name = "borrow_record", indexes = {
+        @Index(name = "idx_borrow_date", columnList = "borrow_date"),
+        @Index(name = "idx_user_borrow_date", columnList = "user_id, borrow_date"),
+        @Index(name = "idx_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_status_user_due_date", columnList = "status, user_id, due_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -85,28 +90,42 @@ public class BorrowRecord extends BaseEntity {
     }
 
     public boolean isOverdue() {
-        return status != Status.RETURNED && LocalDateTime.now().isAfter(dueDate);
+        return isOverdue(status, dueDate);
     }
 
     /**
      * 计算逾期天数
      */
     public int calculateOverdueDays() {
-        if (!isOverdue()) {
-            return 0;
-        }
-        LocalDateTime endDate = returnDate != null ? returnDate : LocalDateTime.now();
-        return (int) ChronoUnit.DAYS.between(dueDate, endDate);
+        return calculateOverdueDays(status, dueDate, returnDate);
     }
 
     /**
      * 计算罚款金额（每天0.5元）
      */
     public BigDecimal calculateFine() {
-        int days = calculateOverdueDays();
-        if (days <= 0) {
+        return calculateFine(calculateOverdueDays());
+    }
+
+    /**
+     * 按状态和应还日期判断是否逾期（供列表投影等无实体场景复用）
+     */
+    public static boolean isOverdue(Status status, LocalDateTime dueDate) {
+        return status != Status.RETURNED && LocalDateTime.now().isAfter(dueDate);
+    }
+
+    public static int calculateOverdueDays(Status status, LocalDateTime dueDate, LocalDateTime returnDate) {
+        if (!isOverdue(status, dueDate)) {
+            return 0;
+        }
+        LocalDateTime endDate = returnDate != null ? returnDate : LocalDateTime.now();
+        return (int) ChronoUnit.DAYS.between(dueDate, endDate);
+    }
+
+    public static BigDecimal calculateFine(int overdueDays) {
+        if (overdueDays <= 0) {
             return BigDecimal.ZERO;
         }
-        return new BigDecimal("0.50").multiply(new BigDecimal(days));
+        return new BigDecimal("0.50").multiply(new BigDecimal(overdueDays));
     }
 }
@@ -0,0 +1,54 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 广播通知（面向全体读者，只存一行）
+ * 读者的已读状态由 notification_counter.broadcast_watermark 水位表示，
+ * 查询通知列表和未读数时与个人通知合并
+ */
+@Entity
+@Table(name = "broadcast_notification", indexes = {
+        @Index(name = "idx_broadcast_created_at", columnList = "created_at"),
+        @Index(name = "idx_broadcast_announcement_id", columnList = "announcement_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BroadcastNotification extends BaseEntity {
+
+    /**
+     * 通知类型
+     */
+    @Column(nullable = false, length = 30)
+    @Enumerated(EnumType.STRING)
+    private Notification.Type type;
+
+    /**
+     * 通知标题
+     */
+    @Column(nullable = false, length = 100)
+    private String title;
+
+    /**
+     * 通知内容
+     */
+    @Column(nullable = false, length = 500)
+    private String content;
+
+    /**
+     * 关联的公告ID（可选）
+     */
+    @Column(name = "announcement_id")
+    private Long announcementId;
+
+    /**
+     * 是否已隐藏（关联公告撤回或删除）
+     */
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean hidden = false;
+}
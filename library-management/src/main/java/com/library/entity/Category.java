@@ -1,13 +1,20 @@
 package com.library.entity;
 
+import com.library.common.CacheRegions;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "category")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.CATEGORY)
+@Table(name = "category", indexes = {
+    @Index(name = "idx_category_tree_left", columnList = "tree_left")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,6 +39,15 @@ public class Category extends BaseEntity {
     @Column(name = "sort_order")
     private Integer sortOrder = 0;
 
+    /**
+     * 分类树先序遍历区间（由 CategoryTree 维护）：后代分类的 treeLeft 落在 [treeLeft, treeRight] 内
+     */
+    @Column(name = "tree_left")
+    private Integer treeLeft;
+
+    @Column(name = "tree_right")
+    private Integer treeRight;
+
     @OneToMany(mappedBy = "category")
     @Builder.Default
     private List<Book> books = new ArrayList<>();
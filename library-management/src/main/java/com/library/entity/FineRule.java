@@ -1,7 +1,10 @@
 package com.library.entity;
 
+import com.library.common.CacheRegions;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 
@@ -10,6 +13,8 @@ import java.math.BigDecimal;
  * 系统只保留一条有效的规则配置
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.FINE_RULE)
 @Table(name = "fine_rule")
 @Getter
 @Setter
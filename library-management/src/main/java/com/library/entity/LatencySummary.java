@@ -0,0 +1,69 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 操作耗时每分钟汇总
+ * 每个模块、操作每分钟一行，保存该分钟的分位数和压缩编码的 HdrHistogram，查询任意时间窗口时合并直方图重新计算分位数
+ */
+@Entity
+@Table(name = "latency_summary", indexes = {
+        @Index(name = "idx_latency_minute", columnList = "minute_start, module")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LatencySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 操作模块
+     */
+    @Column(nullable = false, length = 50)
+    private String module;
+
+    /**
+     * 操作（@Log 注解的描述，如：借阅图书）
+     */
+    @Column(nullable = false, length = 100)
+    private String operation;
+
+    /**
+     * 统计分钟的开始时间
+     */
+    @Column(name = "minute_start", nullable = false)
+    private LocalDateTime minuteStart;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    @Column(name = "p50_ms", nullable = false)
+    private Long p50Ms;
+
+    @Column(name = "p95_ms", nullable = false)
+    private Long p95Ms;
+
+    @Column(name = "p99_ms", nullable = false)
+    private Long p99Ms;
+
+    @Column(name = "max_ms", nullable = false)
+    private Long maxMs;
+
+    @Column(name = "mean_ms", nullable = false)
+    private Double meanMs;
+
+    /**
+     * 压缩编码的直方图
+     */
+    @Lob
+    @Column(nullable = false, columnDefinition = "BLOB")
+    private byte[] histogram;
+}
@@ -3,8 +3,19 @@ package com.library.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDate;
+
 @Entity
-@Table(name = "notification")
+@Table(name = "notification", indexes = {
+        @Index(name = "idx_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_user_read", columnList = "user_id, is_read"),
+        @Index(name = "idx_notification_created_at", columnList = "created_at")
+}, uniqueConstraints = {
+        // 同一借阅记录的同类通知只发送一次（borrow_record_id 为空的通知不受限制）
+        @UniqueConstraint(name = "uk_user_record_type", columnNames = {"user_id", "borrow_record_id", "type"}),
+        // 每位用户每天只有一条提醒摘要（digest_date 为空的通知不受限制）
+        @UniqueConstraint(name = "uk_user_type_digest_date", columnNames = {"user_id", "type", "digest_date"})
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -42,12 +53,24 @@ public class Notification extends BaseEntity {
     @Builder.Default
     private Boolean isRead = false;
 
+    /**
+     * 结构化内容（JSON，可选），如提醒摘要中的图书列表
+     */
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
     /**
      * 关联的借阅记录ID（可选）
      */
     @Column(name = "borrow_record_id")
     private Long borrowRecordId;
 
+    /**
+     * 摘要日期（仅提醒摘要）
+     */
+    @Column(name = "digest_date")
+    private LocalDate digestDate;
+
     public enum Type {
         DUE_REMINDER,       // 即将到期提醒（提前3天）
         OVERDUE_NOTICE,     // 逾期通知
@@ -56,6 +79,8 @@ public class Notification extends BaseEntity {
         FINE_NOTICE,        // 罚款通知
         BOOK_AVAILABLE,     // 预约图书可借阅通知
         RESERVATION_EXPIRED,// 预约过期通知
-        SYSTEM              // 系统通知
+        SYSTEM,             // 系统通知
+        ANNOUNCEMENT,       // 公告通知（广播）
+        DIGEST              // 借阅提醒摘要（合并到期提醒与逾期通知）
     }
 }
@@ -0,0 +1,39 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户未读通知计数
+ * 与通知写入、标记已读在同一事务内维护，由 UnreadCounter 读写
+ */
+@Entity
+@Table(name = "notification_counter")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * 未读通知数
+     */
+    @Column(name = "unread_count", nullable = false)
+    private Integer unreadCount;
+
+    /**
+     * 广播通知已读水位（已读的最大广播通知ID）
+     */
+    @Column(name = "broadcast_watermark", nullable = false)
+    private Long broadcastWatermark;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
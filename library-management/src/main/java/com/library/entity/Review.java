@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "review")
+@Table(name = "review", indexes = {
+        @Index(name = "idx_book_status_created", columnList = "book_id, status, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,9 +1,14 @@
 package com.library.entity;
 
+import com.library.common.CacheRegions;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USER)
 @Table(name = "user")
 @Getter
 @Setter
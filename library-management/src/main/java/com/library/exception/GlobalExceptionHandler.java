@@ -208,7 +208,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Result<?> handleMaxUploadSizeExceededException(MaxUploadSizeExceededException e) {
         log.warn("文件上传超限: {}", e.getMessage());
-        return Result.error(ErrorCode.FILE_SIZE_EXCEEDED, "文件大小超过5MB限制");
+        return Result.error(ErrorCode.FILE_SIZE_EXCEEDED, "文件大小超过上传限制");
     }
 
     /**
@@ -1,18 +1,25 @@
 package com.library.repository;
 
+import com.library.dto.projection.BookCounters;
+import com.library.dto.projection.BookListItem;
 import com.library.entity.Book;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,27 +38,68 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByIdForUpdate(@Param("id") Long id);
 
     /**
-     * 原子性减少可借数量（返回影响行数，0表示库存不足）
+     * 计数类原子更新声明的查询空间。
+     * 不对应任何实体表，Hibernate 执行后不会清空整个图书缓存区域（借还频繁时缓存将始终为空），
+     * 调用方需通过 SecondLevelCacheService 按ID失效；图书相关查询不使用查询缓存，不受影响。
+     */
+    String COUNTER_QUERY_SPACE = "book_counters";
+
+    /**
+     * 原子性减少可借数量并累加借阅次数（返回影响行数，0表示库存不足）
      */
     @Modifying
-    @Query("UPDATE Book b SET b.availableCount = b.availableCount - 1, b.version = b.version + 1 " +
-           "WHERE b.id = :id AND b.availableCount > 0 AND b.status = 1")
+    @Query(value = "UPDATE book SET available_count = available_count - 1, borrow_count = borrow_count + 1, version = version + 1 " +
+           "WHERE id = :id AND available_count > 0 AND status = 1", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTER_QUERY_SPACE))
     int decreaseAvailableCount(@Param("id") Long id);
 
     /**
      * 原子性增加可借数量
      */
     @Modifying
-    @Query("UPDATE Book b SET b.availableCount = b.availableCount + 1, b.version = b.version + 1 " +
-           "WHERE b.id = :id AND b.availableCount < b.totalCount")
+    @Query(value = "UPDATE book SET available_count = available_count + 1, version = version + 1 " +
+           "WHERE id = :id AND available_count < total_count", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTER_QUERY_SPACE))
     int increaseAvailableCount(@Param("id") Long id);
 
-    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.category WHERE (:keyword IS NULL OR :keyword = '' OR b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%) AND (:categoryId IS NULL OR b.category.id = :categoryId) AND (:status IS NULL OR b.status = :status)")
-    Page<Book> findByConditions(@Param("keyword") String keyword, @Param("categoryId") Long categoryId, @Param("status") Integer status, Pageable pageable);
+    /**
+     * 分页查询图书列表（投影查询，不加载 description 等大字段）
+     * 分类筛选包含子分类：treeLeft/treeRight 为所选分类的先序区间，见 CategoryTree
+     */
+    @Query(value = BookListItem.SELECT + "FROM Book b LEFT JOIN b.category c WHERE (:keyword IS NULL OR :keyword = '' OR b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%) AND (:treeLeft IS NULL OR c.treeLeft BETWEEN :treeLeft AND :treeRight) AND (:status IS NULL OR b.status = :status)",
+           countQuery = "SELECT COUNT(b) FROM Book b LEFT JOIN b.category c WHERE (:keyword IS NULL OR :keyword = '' OR b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%) AND (:treeLeft IS NULL OR c.treeLeft BETWEEN :treeLeft AND :treeRight) AND (:status IS NULL OR b.status = :status)")
+    Page<BookListItem> findByConditions(@Param("keyword") String keyword, @Param("treeLeft") Integer treeLeft, @Param("treeRight") Integer treeRight, @Param("status") Integer status, Pageable pageable);
+
+    /**
+     * 游标分页查询图书（按创建时间、ID倒序，从游标位置之后开始）
+     */
+    @Query(BookListItem.SELECT + "FROM Book b LEFT JOIN b.category c WHERE (:keyword IS NULL OR :keyword = '' OR b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%) AND (:treeLeft IS NULL OR c.treeLeft BETWEEN :treeLeft AND :treeRight) AND (:status IS NULL OR b.status = :status) " +
+           "AND (:cursorTime IS NULL OR b.createdAt < :cursorTime OR (b.createdAt = :cursorTime AND b.id < :cursorId)) " +
+           "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BookListItem> findByConditionsAfter(@Param("keyword") String keyword, @Param("treeLeft") Integer treeLeft, @Param("treeRight") Integer treeRight, @Param("status") Integer status,
+                                             @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM Book b LEFT JOIN b.category c WHERE (:keyword IS NULL OR :keyword = '' OR b.title LIKE %:keyword% OR b.author LIKE %:keyword% OR b.isbn LIKE %:keyword%) AND (:treeLeft IS NULL OR c.treeLeft BETWEEN :treeLeft AND :treeRight) AND (:status IS NULL OR b.status = :status)")
+    long countByConditions(@Param("keyword") String keyword, @Param("treeLeft") Integer treeLeft, @Param("treeRight") Integer treeRight, @Param("status") Integer status);
 
     @Query("SELECT b FROM Book b LEFT JOIN FETCH b.category WHERE b.id = :id")
     Optional<Book> findByIdWithCategory(@Param("id") Long id);
 
+    @Query(BookListItem.SELECT + "FROM Book b LEFT JOIN b.category c WHERE b.id IN :ids")
+    List<BookListItem> findListItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量查询库存与评分统计：[id, status, totalCount, availableCount, reviewCount, ratingSum]
+     */
+    @Query("SELECT b.id, b.status, b.totalCount, b.availableCount, b.reviewCount, b.ratingSum FROM Book b WHERE b.id IN :ids")
+    List<Object[]> findStatusByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询单本图书的库存、借阅次数与评分统计（详情缓存的计数叠加层使用）
+     */
+    @Query(BookCounters.SELECT + "FROM Book b WHERE b.id = :id")
+    Optional<BookCounters> findCountersById(@Param("id") Long id);
+
     Page<Book> findByCategoryId(Long categoryId, Pageable pageable);
 
     long countByCategoryId(Long categoryId);
@@ -68,12 +116,39 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     /**
      * 获取新书推荐（最近N天内入库的图书）
      */
-    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.category WHERE b.createdAt >= :since AND b.status = 1 ORDER BY b.createdAt DESC")
-    List<Book> findNewArrivals(@Param("since") LocalDateTime since, Pageable pageable);
+    @Query(BookListItem.SELECT + "FROM Book b LEFT JOIN b.category c WHERE b.createdAt >= :since AND b.status = 1 ORDER BY b.createdAt DESC")
+    List<BookListItem> findNewArrivals(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * 获取热门图书（按累计借阅次数排序，走 idx_status_borrow_count 索引）
+     */
+    @Query(BookListItem.SELECT + "FROM Book b LEFT JOIN b.category c WHERE b.status = 1 ORDER BY b.borrowCount DESC, b.id DESC")
+    List<BookListItem> findPopularBooks(Pageable pageable);
+
+    /**
+     * 调整评论统计（新增/删除评论或切换评论显示状态时调用）
+     */
+    @Modifying
+    @Query(value = "UPDATE book SET review_count = review_count + :countDelta, rating_sum = rating_sum + :ratingDelta WHERE id = :id",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTER_QUERY_SPACE))
+    int adjustReviewStats(@Param("id") Long id, @Param("countDelta") int countDelta, @Param("ratingDelta") int ratingDelta);
 
     /**
-     * 获取热门图书（按借阅次数排序）
+     * 根据借阅记录和评论重算 ID 区间内图书的统计列（用于存量数据回填及纠正偏差，由 BookStatisticsReconciler 分段调用）
+     * 每段单独提交，只锁定区间内的行；声明 book 查询空间，只清空图书缓存区域而不是全部二级缓存
      */
-    @Query("SELECT b, COUNT(br) as borrowCount FROM Book b LEFT JOIN FETCH b.category LEFT JOIN BorrowRecord br ON br.book = b WHERE b.status = 1 GROUP BY b ORDER BY COUNT(br) DESC")
-    List<Book> findPopularBooks(Pageable pageable);
+    @Modifying
+    @Query(value = "UPDATE book b SET " +
+           "b.borrow_count = (SELECT COUNT(*) FROM borrow_record br WHERE br.book_id = b.id), " +
+           "b.review_count = (SELECT COUNT(*) FROM review r WHERE r.book_id = b.id AND r.status = 1), " +
+           "b.rating_sum = (SELECT COALESCE(SUM(r.rating), 0) FROM review r WHERE r.book_id = b.id AND r.status = 1) " +
+           "WHERE b.id BETWEEN :fromId AND :toId",
+           nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book"))
+    @Transactional
+    int rebuildStatistics(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT MAX(b.id) FROM Book b")
+    Long findMaxId();
 }
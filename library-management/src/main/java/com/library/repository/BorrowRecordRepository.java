@@ -1,22 +1,32 @@
 package com.library.repository;
 
+import com.library.dto.projection.BorrowRecordListItem;
 import com.library.entity.BorrowRecord;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long> {
 
+    /**
+     * MySQL 流式结果集的 fetchSize（Integer.MIN_VALUE）
+     */
+    String STREAM_FETCH_SIZE = "-2147483648";
+
     @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.user JOIN FETCH br.book WHERE br.id = :id")
     Optional<BorrowRecord> findByIdWithDetails(@Param("id") Long id);
 
@@ -27,11 +37,28 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.user JOIN FETCH br.book WHERE br.id = :id")
     Optional<BorrowRecord> findByIdForUpdate(@Param("id") Long id);
 
-    @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.user JOIN FETCH br.book WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status)")
-    Page<BorrowRecord> findByConditions(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status, Pageable pageable);
+    /**
+     * 分页查询借阅记录列表（投影查询，只取列表展示所需的用户、图书列）
+     */
+    @Query(value = BorrowRecordListItem.SELECT + "FROM BorrowRecord br JOIN br.user u JOIN br.book b WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status)",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status)")
+    Page<BorrowRecordListItem> findByConditions(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status, Pageable pageable);
 
-    @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.book WHERE br.user.id = :userId ORDER BY br.borrowDate DESC")
-    Page<BorrowRecord> findByUserId(@Param("userId") Long userId, Pageable pageable);
+    /**
+     * 游标分页查询借阅记录（按借阅日期、ID倒序，从游标位置之后开始）
+     */
+    @Query(BorrowRecordListItem.SELECT + "FROM BorrowRecord br JOIN br.user u JOIN br.book b WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status) " +
+           "AND (:cursorTime IS NULL OR br.borrowDate < :cursorTime OR (br.borrowDate = :cursorTime AND br.id < :cursorId)) " +
+           "ORDER BY br.borrowDate DESC, br.id DESC")
+    List<BorrowRecordListItem> findByConditionsAfter(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status,
+                                                     @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("SELECT COUNT(br) FROM BorrowRecord br WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status)")
+    long countByConditions(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status);
+
+    @Query(value = BorrowRecordListItem.SELECT + "FROM BorrowRecord br JOIN br.user u JOIN br.book b WHERE br.user.id = :userId ORDER BY br.borrowDate DESC",
+           countQuery = "SELECT COUNT(br) FROM BorrowRecord br WHERE br.user.id = :userId")
+    Page<BorrowRecordListItem> findByUserId(@Param("userId") Long userId, Pageable pageable);
 
     /**
      * 统计用户活跃借阅数量（包括 BORROWING 和 OVERDUE，两者都是未归还状态）
@@ -69,8 +96,13 @@ public interface BorrowRecordRepository extends JpaRepository<BorrowRecord, Long
     @Query(value = "SELECT u.id, u.username, COUNT(br.id) as borrow_count FROM borrow_record br JOIN user u ON br.user_id = u.id GROUP BY u.id, u.username ORDER BY borrow_count DESC LIMIT :limit", nativeQuery = true)
     List<Object[]> findActiveUsers(@Param("limit") int limit);
 
-    @Query("SELECT br FROM BorrowRecord br JOIN FETCH br.user JOIN FETCH br.book WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status) ORDER BY br.borrowDate DESC")
-    List<BorrowRecord> findAllByConditions(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status);
+    /**
+     * 流式读取借阅记录（导出用，需在只读事务内消费并关闭）
+     * fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行读取结果集，不在内存中缓存全部数据
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(BorrowRecordListItem.SELECT + "FROM BorrowRecord br JOIN br.user u JOIN br.book b WHERE (:userId IS NULL OR br.user.id = :userId) AND (:bookId IS NULL OR br.book.id = :bookId) AND (:status IS NULL OR br.status = :status) ORDER BY br.borrowDate DESC")
+    Stream<BorrowRecordListItem> streamAllByConditions(@Param("userId") Long userId, @Param("bookId") Long bookId, @Param("status") BorrowRecord.Status status);
 
     /**
      * 检查用户是否有未归还的借阅记录
@@ -0,0 +1,22 @@
+package com.library.repository;
+
+import com.library.entity.BroadcastNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    /**
+     * 查询指定时间之后未隐藏的广播通知（按ID升序）
+     */
+    List<BroadcastNotification> findByHiddenFalseAndCreatedAtAfterOrderByIdAsc(LocalDateTime createdAt);
+
+    /**
+     * 查询公告关联的未隐藏广播通知
+     */
+    List<BroadcastNotification> findByAnnouncementIdAndHiddenFalse(Long announcementId);
+}
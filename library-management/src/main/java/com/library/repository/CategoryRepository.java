@@ -1,7 +1,9 @@
 package com.library.repository;
 
 import com.library.entity.Category;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -15,6 +17,13 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     boolean existsByName(String name);
 
+    /**
+     * 按ID顺序锁定全部分类（事务结束前其他分类变更需等待）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Category c ORDER BY c.id")
+    List<Category> findAllForUpdate();
+
     @Query("SELECT c FROM Category c WHERE c.parent IS NULL ORDER BY c.sortOrder")
     List<Category> findRootCategories();
 
@@ -22,4 +31,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     @Query("SELECT COUNT(b) FROM Book b WHERE b.category.id = :categoryId")
     long countBooksByCategoryId(Long categoryId);
+
+    /**
+     * 各分类直属图书数量：[categoryId, count]
+     */
+    @Query("SELECT b.category.id, COUNT(b) FROM Book b WHERE b.category IS NOT NULL GROUP BY b.category.id")
+    List<Object[]> countBooksGroupByCategory();
 }
@@ -8,12 +8,15 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
-    @Query("SELECT f FROM Favorite f JOIN FETCH f.book WHERE f.user.id = :userId")
+    @Query(value = "SELECT f FROM Favorite f JOIN FETCH f.book b LEFT JOIN FETCH b.category WHERE f.user.id = :userId",
+           countQuery = "SELECT COUNT(f) FROM Favorite f WHERE f.user.id = :userId")
     Page<Favorite> findByUserIdWithBook(@Param("userId") Long userId, Pageable pageable);
 
     Optional<Favorite> findByUserIdAndBookId(Long userId, Long bookId);
@@ -24,5 +27,17 @@ public interface FavoriteRepository extends JpaRepository<Favorite, Long> {
 
     long countByBookId(Long bookId);
 
+    /**
+     * 批量统计收藏数：[bookId, count]，无收藏的图书不返回
+     */
+    @Query("SELECT f.book.id, COUNT(f) FROM Favorite f WHERE f.book.id IN :bookIds GROUP BY f.book.id")
+    List<Object[]> countByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 查询用户在指定图书中已收藏的图书ID
+     */
+    @Query("SELECT f.book.id FROM Favorite f WHERE f.user.id = :userId AND f.book.id IN :bookIds")
+    List<Long> findFavoritedBookIds(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
     void deleteByUserIdAndBookId(Long userId, Long bookId);
 }
@@ -1,8 +1,11 @@
 package com.library.repository;
 
 import com.library.entity.FineRule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -15,13 +18,16 @@ public interface FineRuleRepository extends JpaRepository<FineRule, Long> {
 
     /**
      * 获取当前启用的罚款规则
+     * 每次归还和逾期扫描都会计算罚款，结果放入查询缓存；规则通过实体保存修改，Hibernate 会自动使缓存过期
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT r FROM FineRule r WHERE r.enabled = true ORDER BY r.updatedAt DESC")
     Optional<FineRule> findActiveRule();
 
     /**
      * 获取最新的罚款规则
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT r FROM FineRule r ORDER BY r.id DESC")
     Optional<FineRule> findLatestRule();
 }
@@ -0,0 +1,30 @@
+package com.library.repository;
+
+import com.library.dto.projection.LatencyHistogramItem;
+import com.library.entity.LatencySummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static com.library.repository.BorrowRecordRepository.STREAM_FETCH_SIZE;
+
+@Repository
+public interface LatencySummaryRepository extends JpaRepository<LatencySummary, Long> {
+
+    /**
+     * 流式读取时间窗口内（可按模块过滤）的每分钟直方图（需在只读事务内消费并关闭）
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(LatencyHistogramItem.SELECT + "FROM LatencySummary ls WHERE ls.minuteStart >= :start " +
+            "AND ls.minuteStart < :end AND (:module IS NULL OR ls.module = :module)")
+    Stream<LatencyHistogramItem> streamByWindow(@Param("start") LocalDateTime start,
+                                                @Param("end") LocalDateTime end,
+                                                @Param("module") String module);
+}
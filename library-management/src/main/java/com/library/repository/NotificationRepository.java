@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +21,22 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     Page<Notification> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
+    /**
+     * 游标分页查询用户通知（按创建时间、ID倒序，从游标位置之后开始）
+     */
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+           "AND (:cursorTime IS NULL OR n.createdAt < :cursorTime OR (n.createdAt = :cursorTime AND n.id < :cursorId)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findByUserIdAfter(@Param("userId") Long userId,
+                                         @Param("cursorTime") LocalDateTime cursorTime,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable pageable);
+
+    /**
+     * 统计用户通知总数
+     */
+    long countByUserId(Long userId);
+
     /**
      * 查询用户的未读通知
      */
@@ -29,6 +47,13 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     long countByUserIdAndIsReadFalse(Long userId);
 
+    /**
+     * 将用户的一条未读通知标记为已读（返回影响行数，0表示通知不存在、不属于该用户或已读）
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id = :id AND n.user.id = :userId AND n.isRead = false")
+    int markAsRead(@Param("id") Long id, @Param("userId") Long userId);
+
     /**
      * 将用户所有未读通知标记为已读
      */
@@ -44,6 +69,21 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
                                                     @Param("borrowRecordId") Long borrowRecordId,
                                                     @Param("type") Notification.Type type);
 
+    /**
+     * 批量查询已发送过指定类型通知的借阅记录ID
+     */
+    @Query("SELECT n.borrowRecordId FROM Notification n WHERE n.type = :type AND n.borrowRecordId IN :borrowRecordIds")
+    List<Long> findSentBorrowRecordIds(@Param("type") Notification.Type type,
+                                       @Param("borrowRecordIds") Collection<Long> borrowRecordIds);
+
+    /**
+     * 批量查询指定时间之后已收到某类型通知的用户ID
+     */
+    @Query("SELECT DISTINCT n.user.id FROM Notification n WHERE n.type = :type AND n.createdAt >= :since AND n.user.id IN :userIds")
+    List<Long> findUserIdsNotifiedSince(@Param("type") Notification.Type type,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("userIds") Collection<Long> userIds);
+
     /**
      * 删除用户的所有通知
      */
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface OperationLogRepository extends JpaRepository<OperationLog, Long> {
@@ -29,6 +30,41 @@ public interface OperationLogRepository extends JpaRepository<OperationLog, Long
             Pageable pageable
     );
 
+    /**
+     * 游标分页查询操作日志（按操作时间、ID倒序，从游标位置之后开始）
+     */
+    @Query("SELECT o FROM OperationLog o WHERE " +
+           "(:module IS NULL OR :module = '' OR o.module = :module) AND " +
+           "(:operator IS NULL OR :operator = '' OR o.operator LIKE %:operator%) AND " +
+           "(:startTime IS NULL OR o.operationTime >= :startTime) AND " +
+           "(:endTime IS NULL OR o.operationTime <= :endTime) AND " +
+           "(:cursorTime IS NULL OR o.operationTime < :cursorTime OR (o.operationTime = :cursorTime AND o.id < :cursorId)) " +
+           "ORDER BY o.operationTime DESC, o.id DESC")
+    List<OperationLog> findByConditionsAfter(
+            @Param("module") String module,
+            @Param("operator") String operator,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime,
+            @Param("cursorTime") LocalDateTime cursorTime,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable
+    );
+
+    /**
+     * 统计满足条件的操作日志数量
+     */
+    @Query("SELECT COUNT(o) FROM OperationLog o WHERE " +
+           "(:module IS NULL OR :module = '' OR o.module = :module) AND " +
+           "(:operator IS NULL OR :operator = '' OR o.operator LIKE %:operator%) AND " +
+           "(:startTime IS NULL OR o.operationTime >= :startTime) AND " +
+           "(:endTime IS NULL OR o.operationTime <= :endTime)")
+    long countByConditions(
+            @Param("module") String module,
+            @Param("operator") String operator,
+            @Param("startTime") LocalDateTime startTime,
+            @Param("endTime") LocalDateTime endTime
+    );
+
     /**
      * 统计某个用户的操作次数
      */
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,21 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
            "AND r.status = com.library.entity.Reservation$Status.WAITING")
     int countWaitingByBook(@Param("book") Book book);
 
+    /**
+     * 批量统计等待中的预约数量：[bookId, count]，无人排队的图书不返回
+     */
+    @Query("SELECT r.book.id, COUNT(r) FROM Reservation r WHERE r.book.id IN :bookIds " +
+           "AND r.status = com.library.entity.Reservation$Status.WAITING GROUP BY r.book.id")
+    List<Object[]> countWaitingByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 查询用户在指定图书中有有效预约（等待中或已通知）的图书ID
+     */
+    @Query("SELECT r.book.id FROM Reservation r WHERE r.user.id = :userId AND r.book.id IN :bookIds " +
+           "AND r.status IN (com.library.entity.Reservation$Status.WAITING, " +
+           "com.library.entity.Reservation$Status.NOTIFIED)")
+    List<Long> findActiveBookIds(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
     /**
      * 查询某本书的第一位等待者
      */
@@ -50,13 +66,14 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     /**
      * 查询用户的所有预约记录
      */
-    @Query("SELECT r FROM Reservation r WHERE r.user = :user ORDER BY r.createdAt DESC")
+    @Query(value = "SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.book WHERE r.user = :user ORDER BY r.createdAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Reservation r WHERE r.user = :user")
     Page<Reservation> findByUser(@Param("user") User user, Pageable pageable);
 
     /**
      * 查询用户的有效预约（等待中或已通知）
      */
-    @Query("SELECT r FROM Reservation r WHERE r.user = :user " +
+    @Query("SELECT r FROM Reservation r JOIN FETCH r.user JOIN FETCH r.book WHERE r.user = :user " +
            "AND r.status IN (com.library.entity.Reservation$Status.WAITING, " +
            "com.library.entity.Reservation$Status.NOTIFIED) ORDER BY r.createdAt DESC")
     List<Reservation> findActiveByUser(@Param("user") User user);
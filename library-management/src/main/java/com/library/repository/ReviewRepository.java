@@ -1,5 +1,6 @@
 package com.library.repository;
 
+import com.library.dto.projection.ReviewListItem;
 import com.library.entity.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,17 +20,34 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     /**
      * 根据图书ID查询评论（分页，只显示状态为1的）
      */
-    Page<Review> findByBook_IdAndStatusOrderByCreatedAtDesc(Long bookId, Integer status, Pageable pageable);
+    @Query(value = ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b WHERE r.book.id = :bookId AND r.status = :status ORDER BY r.createdAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Review r WHERE r.book.id = :bookId AND r.status = :status")
+    Page<ReviewListItem> findByBookIdAndStatus(@Param("bookId") Long bookId, @Param("status") Integer status, Pageable pageable);
+
+    /**
+     * 游标分页查询图书评论（按创建时间、ID倒序，从游标位置之后开始）
+     */
+    @Query(ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b WHERE r.book.id = :bookId AND r.status = :status " +
+           "AND (:cursorTime IS NULL OR r.createdAt < :cursorTime OR (r.createdAt = :cursorTime AND r.id < :cursorId)) " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewListItem> findByBookIdAndStatusAfter(@Param("bookId") Long bookId,
+                                                    @Param("status") Integer status,
+                                                    @Param("cursorTime") LocalDateTime cursorTime,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
 
     /**
      * 查询所有评论（管理后台，分页）
      */
-    Page<Review> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    @Query(value = ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b ORDER BY r.createdAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Review r")
+    Page<ReviewListItem> findAllListItems(Pageable pageable);
 
     /**
      * 根据用户ID查询评论
      */
-    List<Review> findByUser_IdAndStatusOrderByCreatedAtDesc(Long userId, Integer status);
+    @Query(ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b WHERE r.user.id = :userId AND r.status = :status ORDER BY r.createdAt DESC")
+    List<ReviewListItem> findByUserIdAndStatus(@Param("userId") Long userId, @Param("status") Integer status);
 
     /**
      * 检查用户是否已对某本书评论过
@@ -47,6 +66,13 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("UPDATE Review r SET r.likes = r.likes + 1 WHERE r.id = :id")
     void incrementLikes(@Param("id") Long id);
 
+    /**
+     * 条件更新评论状态（仅当当前状态仍为 expected 时更新，返回受影响行数）
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Review r SET r.status = :status WHERE r.id = :id AND r.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") Integer expected, @Param("status") Integer status);
+
     /**
      * 获取图书的平均评分
      */
@@ -61,14 +87,16 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     /**
      * 获取最新评论（首页展示）
      */
-    @Query("SELECT r FROM Review r WHERE r.status = 1 ORDER BY r.createdAt DESC")
-    List<Review> findLatestReviews(Pageable pageable);
+    @Query(ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b WHERE r.status = 1 ORDER BY r.createdAt DESC")
+    List<ReviewListItem> findLatestReviews(Pageable pageable);
 
     /**
      * 搜索评论（管理后台）
      */
-    @Query("SELECT r FROM Review r WHERE " +
-           "(:keyword IS NULL OR r.content LIKE %:keyword% OR r.user.username LIKE %:keyword% OR r.book.title LIKE %:keyword%) " +
-           "ORDER BY r.createdAt DESC")
-    Page<Review> searchReviews(@Param("keyword") String keyword, Pageable pageable);
+    @Query(value = ReviewListItem.SELECT + "FROM Review r JOIN r.user u JOIN r.book b WHERE " +
+           "(:keyword IS NULL OR r.content LIKE %:keyword% OR u.username LIKE %:keyword% OR b.title LIKE %:keyword%) " +
+           "ORDER BY r.createdAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Review r JOIN r.user u JOIN r.book b WHERE " +
+           "(:keyword IS NULL OR r.content LIKE %:keyword% OR u.username LIKE %:keyword% OR b.title LIKE %:keyword%)")
+    Page<ReviewListItem> searchReviews(@Param("keyword") String keyword, Pageable pageable);
 }
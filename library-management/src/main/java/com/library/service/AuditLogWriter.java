@@ -0,0 +1,359 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.BoundedRingBuffer;
+import com.library.common.TruncatingWriter;
+import com.library.entity.OperationLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志异步写入
+ * 请求线程只把日志放入有界无锁环形队列后立即返回，由单个后台线程批量取出，
+ * 使用 JDBC 批量插入（配合 rewriteBatchedStatements 合并为多行 INSERT）写入 operation_log，
+ * 启用分段存储时（library.audit.store=segment）改为追加写入 {@link AuditSegmentStore}。
+ * 请求参数和返回结果在请求线程上序列化为 JSON（此时对象状态与请求一致，且不会把业务对象引用留在队列中），
+ * 序列化输出达到长度上限（2000字符）时立即中止，不再为截断而生成完整字符串。
+ * <p>
+ * 队列满时的处理策略（library.audit.overflow-policy）：
+ * <ul>
+ *     <li>BLOCK：请求线程等待队列腾出空间，超过等待上限仍无空间时丢弃本条</li>
+ *     <li>DROP_OLDEST：丢弃队列中最旧的一条，写入本条</li>
+ *     <li>SAMPLE：队列占用超过阈值后，成功的操作只按采样比例保留，失败的操作始终保留；队列满时丢弃本条</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, SAMPLE
+    }
+
+    /**
+     * 请求参数、返回结果、错误信息的最大保存长度
+     */
+    public static final int MAX_TEXT_LENGTH = 2000;
+
+    private static final String INSERT_SQL = "INSERT INTO operation_log (module, operation, description, method, url, " +
+            "params, result, operator, operator_id, ip_address, operation_time, cost_time, status, error_msg) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditSegmentStore segmentStore;
+    private final BoundedRingBuffer<Entry> queue;
+    private final OverflowPolicy overflowPolicy;
+
+    @Value("${library.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${library.audit.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${library.audit.block-timeout-ms:100}")
+    private long blockTimeoutMs;
+
+    @Value("${library.audit.sample-threshold:0.75}")
+    private double sampleThreshold;
+
+    @Value("${library.audit.sample-rate:10}")
+    private int sampleRate;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    /**
+     * 采样判定次数（每次进入采样判定都递增，保证按 1/sampleRate 的比例保留）
+     */
+    private final AtomicLong sampleDecisions = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanosTotal = new AtomicLong();
+    private final AtomicLong flushNanosMax = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * 一条待写入的操作日志
+     *
+     * @param params 请求参数 JSON（见 {@link #serializeParams}），不保存参数时为空字符串
+     * @param result 返回结果 JSON（见 {@link #serializeResult}），不保存结果时为空字符串
+     */
+    @Builder
+    public record Entry(String module, String operation, String description, String method, String url,
+                        String params, String result, String operator, Long operatorId,
+                        String ipAddress, LocalDateTime operationTime, long costTime, int status, String errorMsg) {
+    }
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, AuditSegmentStore segmentStore,
+                          @Value("${library.audit.capacity:8192}") int capacity,
+                          @Value("${library.audit.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.segmentStore = segmentStore;
+        this.queue = new BoundedRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交一条操作日志（不阻塞，BLOCK 策略下队列满时最多等待 block-timeout-ms）
+     */
+    public void submit(Entry entry) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE && !sample(entry)) {
+            sampled.incrementAndGet();
+            return;
+        }
+        if (queue.offer(entry)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+        boolean accepted = switch (overflowPolicy) {
+            case BLOCK -> offerWithin(entry, blockTimeoutMs);
+            case DROP_OLDEST -> dropOldestAndOffer(entry);
+            case SAMPLE -> false;
+        };
+        if (accepted) {
+            enqueued.incrementAndGet();
+        } else if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("操作日志队列已满，丢弃日志: policy={}, dropped={}", overflowPolicy, dropped.get());
+        }
+    }
+
+    /**
+     * 写入一批（后台线程调用，也用于停止时排空队列），返回写入条数
+     */
+    int flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        if (queue.drainTo(batch, batchSize) == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            if (segmentStore.isEnabled()) {
+                segmentStore.append(batch.stream().map(this::toLog).toList());
+            } else {
+                insert(batch);
+            }
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("批量写入操作日志失败，丢弃 {} 条", batch.size(), e);
+        }
+        long nanos = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        flushNanosTotal.addAndGet(nanos);
+        flushNanosMax.accumulateAndGet(nanos, Math::max);
+        lastFlushNanos = nanos;
+        return batch.size();
+    }
+
+    private void insert(List<Entry> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, entry) -> {
+            ps.setString(1, entry.module());
+            ps.setString(2, entry.operation());
+            ps.setString(3, entry.description());
+            ps.setString(4, entry.method());
+            ps.setString(5, entry.url());
+            ps.setString(6, entry.params());
+            ps.setString(7, entry.result());
+            ps.setString(8, entry.operator());
+            if (entry.operatorId() != null) {
+                ps.setLong(9, entry.operatorId());
+            } else {
+                ps.setNull(9, Types.BIGINT);
+            }
+            ps.setString(10, entry.ipAddress());
+            ps.setTimestamp(11, Timestamp.valueOf(entry.operationTime()));
+            ps.setLong(12, entry.costTime());
+            ps.setInt(13, entry.status());
+            ps.setString(14, entry.errorMsg());
+        });
+    }
+
+    private OperationLog toLog(Entry entry) {
+        return OperationLog.builder()
+                .module(entry.module())
+                .operation(entry.operation())
+                .description(entry.description())
+                .method(entry.method())
+                .url(entry.url())
+                .params(entry.params())
+                .result(entry.result())
+                .operator(entry.operator())
+                .operatorId(entry.operatorId())
+                .ipAddress(entry.ipAddress())
+                .operationTime(entry.operationTime())
+                .costTime(entry.costTime())
+                .status(entry.status())
+                .errorMsg(entry.errorMsg())
+                .build();
+    }
+
+    /**
+     * 运行指标：队列深度、丢弃数、写入耗时等
+     */
+    public Map<String, Object> stats() {
+        long flushCount = flushes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("overflowPolicy", overflowPolicy);
+        stats.put("capacity", queue.capacity());
+        stats.put("queueDepth", queue.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("dropped", dropped.get());
+        stats.put("sampledOut", sampled.get());
+        stats.put("written", written.get());
+        stats.put("failed", failed.get());
+        stats.put("flushes", flushCount);
+        stats.put("lastFlushMs", toMillis(lastFlushNanos));
+        stats.put("avgFlushMs", flushCount == 0 ? 0 : toMillis(flushNanosTotal.get() / flushCount));
+        stats.put("maxFlushMs", toMillis(flushNanosMax.get()));
+        if (segmentStore.isEnabled()) {
+            stats.put("segmentStore", segmentStore.stats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        while (flush() > 0) {
+            // 排空剩余日志
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                if (flush() < batchSize) {
+                    // 队列未积压时等待一个刷新间隔再合并写入
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (Exception e) {
+                log.error("操作日志写入线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 参数序列化为 {"参数名": 值, ...}，直接写入限长输出，不构建中间 Map（在请求线程调用）
+     */
+    public String serializeParams(String[] names, Object[] args) {
+        if (names == null || args == null) {
+            return "";
+        }
+        TruncatingWriter out = new TruncatingWriter(MAX_TEXT_LENGTH);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            for (int i = 0; i < names.length && i < args.length; i++) {
+                generator.writeFieldName(names[i]);
+                generator.writeObject(args[i]);
+            }
+            generator.writeEndObject();
+        } catch (Exception e) {
+            if (!out.isTruncated()) {
+                log.warn("序列化请求参数失败: {}", e.getMessage());
+                return "";
+            }
+        }
+        return out.result();
+    }
+
+    /**
+     * 返回结果序列化（在请求线程调用），失败时退回 toString()，toString() 也失败时记录类型名占位
+     */
+    public String serializeResult(Object result) {
+        if (result == null) {
+            return "";
+        }
+        TruncatingWriter out = new TruncatingWriter(MAX_TEXT_LENGTH);
+        try {
+            objectMapper.writeValue(out, result);
+        } catch (Exception e) {
+            if (!out.isTruncated()) {
+                return describe(result);
+            }
+        }
+        return out.result();
+    }
+
+    private static String describe(Object result) {
+        try {
+            String text = String.valueOf(result);
+            return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) + "..." : text;
+        } catch (RuntimeException e) {
+            log.warn("返回结果无法序列化: type={}, error={}", result.getClass().getName(), e.getMessage());
+            return "[" + result.getClass().getSimpleName() + "]";
+        }
+    }
+
+    private boolean sample(Entry entry) {
+        if (entry.status() == 0) {
+            return true;
+        }
+        if (queue.size() < queue.capacity() * sampleThreshold) {
+            return true;
+        }
+        return sampleRate <= 1 || sampleDecisions.getAndIncrement() % sampleRate == 0;
+    }
+
+    private boolean offerWithin(Entry entry, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (System.nanoTime() < deadline) {
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+            if (queue.offer(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean dropOldestAndOffer(Entry entry) {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+            if (queue.offer(entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,468 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OperationLog;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 操作日志分段存储（library.audit.store=segment 时启用）
+ * 操作日志写入量大、查询少，启用后不再写入 MySQL，而是按小时追加写入分段文件（oplog-yyyyMMddHH.seg）。
+ * 每次批量写入追加一个数据块，块内为 NDJSON 格式的日志并整体 Deflate 压缩，块头记录ID范围、时间范围、
+ * 条数以及块内出现的模块和操作人，作为该块的索引。启动时只读取块头重建内存索引，文件末尾不完整的块被截掉。
+ * <p>
+ * 查询时按时间、模块、操作人用块索引跳过不相关的块，命中的块通过内存映射读取并解压后逐条过滤。
+ * 结果按写入顺序（ID）倒序返回，过期的分段文件由数据保留清理整体移入归档目录。
+ */
+@Slf4j
+@Service
+public class AuditSegmentStore {
+
+    private static final int MAGIC = 0x4F504C47;
+    private static final String PREFIX = "oplog-";
+    private static final String SUFFIX = ".seg";
+    private static final DateTimeFormatter SEGMENT_HOUR = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    /**
+     * 块内不同操作人超过该数量时不再索引操作人（查询时该块总是需要解压）
+     */
+    private static final int MAX_INDEXED_OPERATORS = 64;
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path dir;
+
+    /**
+     * 分段文件名 -> 分段（文件名按时间排序）
+     */
+    private final NavigableMap<String, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    public AuditSegmentStore(ObjectMapper objectMapper,
+                             @Value("${library.audit.store:database}") String store,
+                             @Value("${library.audit.segment-dir:audit-segments}") String segmentDir) {
+        this.objectMapper = objectMapper;
+        this.enabled = "segment".equalsIgnoreCase(store);
+        this.dir = Paths.get(segmentDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 查询条件，与 OperationLogRepository.findByConditions 一致：模块精确匹配，操作人模糊匹配
+     */
+    public record Filter(String module, String operator, LocalDateTime startTime, LocalDateTime endTime) {
+
+        boolean mayMatch(Block block) {
+            if (startTime != null && block.maxTime() < epochSecond(startTime)) {
+                return false;
+            }
+            if (endTime != null && block.minTime() > epochSecond(endTime)) {
+                return false;
+            }
+            if (hasText(module) && !block.modules().contains(module)) {
+                return false;
+            }
+            return !hasText(operator) || block.operators() == null
+                    || block.operators().stream().anyMatch(o -> o.contains(operator));
+        }
+
+        boolean matches(OperationLog entry) {
+            return (!hasText(module) || module.equals(entry.getModule()))
+                    && (!hasText(operator) || (entry.getOperator() != null && entry.getOperator().contains(operator)))
+                    && (startTime == null || !entry.getOperationTime().isBefore(startTime))
+                    && (endTime == null || !entry.getOperationTime().isAfter(endTime));
+        }
+
+        /**
+         * 块内全部记录都满足条件（计数时无需解压）
+         */
+        boolean coversAll(Block block) {
+            return !hasText(module) && !hasText(operator)
+                    && (startTime == null || block.minTime() > epochSecond(startTime))
+                    && (endTime == null || block.maxTime() < epochSecond(endTime));
+        }
+    }
+
+    /**
+     * 数据块索引（时间为 UTC 秒，偏移为块起始位置）
+     *
+     * @param operators 块内操作人，数量过多时为 null（不索引）
+     */
+    record Block(long offset, long payloadOffset, int compressedLength, long minId, long maxId,
+                 long minTime, long maxTime, int count, int rawLength, Set<String> modules, Set<String> operators) {
+    }
+
+    /**
+     * 归档结果
+     */
+    public record ArchiveResult(int segments, long rows, long bytes) {
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                Segment segment = Segment.open(path);
+                segments.put(path.getFileName().toString(), segment);
+                segment.blocks.forEach(b -> nextId.accumulateAndGet(b.maxId() + 1, Math::max));
+            }
+        }
+        log.info("操作日志分段存储加载完成: dir={}, segments={}, nextId={}", dir, segments.size(), nextId.get());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 追加一批日志（分配ID后写为一个压缩块）
+     */
+    public synchronized void append(List<OperationLog> logs) throws IOException {
+        if (logs.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(logs.size() * 256);
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        Set<String> modules = new HashSet<>();
+        Set<String> operators = new HashSet<>();
+        long firstId = nextId.get();
+        for (OperationLog entry : logs) {
+            entry.setId(nextId.getAndIncrement());
+            long time = epochSecond(entry.getOperationTime());
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            modules.add(nullToEmpty(entry.getModule()));
+            operators.add(nullToEmpty(entry.getOperator()));
+            raw.write(objectMapper.writeValueAsBytes(entry));
+            raw.write('\n');
+        }
+        byte[] compressed = deflate(raw.toByteArray());
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeLong(firstId);
+        out.writeLong(nextId.get() - 1);
+        out.writeLong(minTime);
+        out.writeLong(maxTime);
+        out.writeInt(logs.size());
+        out.writeInt(raw.size());
+        writeStrings(out, modules);
+        writeStrings(out, operators.size() > MAX_INDEXED_OPERATORS ? null : operators);
+
+        ByteBuffer block = ByteBuffer.allocate(12 + header.size() + compressed.length);
+        block.putInt(MAGIC).putInt(header.size()).put(header.toByteArray()).putInt(compressed.length).put(compressed).flip();
+
+        String name = PREFIX + LocalDateTime.now().format(SEGMENT_HOUR) + SUFFIX;
+        Segment segment = segments.computeIfAbsent(name, n -> new Segment(dir.resolve(n)));
+        long offset = segment.append(block);
+        segment.blocks.add(new Block(offset, offset + 12 + header.size(), compressed.length, firstId,
+                nextId.get() - 1, minTime, maxTime, logs.size(), raw.size(), Set.copyOf(modules),
+                operators.size() > MAX_INDEXED_OPERATORS ? null : Set.copyOf(operators)));
+    }
+
+    /**
+     * 按条件查询，按ID倒序返回 beforeId 之前（不含）的最多 limit 条
+     */
+    public List<OperationLog> query(Filter filter, Long beforeId, int limit) {
+        List<OperationLog> result = new ArrayList<>(Math.min(limit, 1000));
+        for (Segment segment : segments.descendingMap().values()) {
+            List<Block> blocks = segment.blocks;
+            for (int i = blocks.size() - 1; i >= 0 && result.size() < limit; i--) {
+                Block block = blocks.get(i);
+                if ((beforeId != null && block.minId() >= beforeId) || !filter.mayMatch(block)) {
+                    continue;
+                }
+                List<OperationLog> entries = segment.read(block, objectMapper);
+                for (int j = entries.size() - 1; j >= 0 && result.size() < limit; j--) {
+                    OperationLog entry = entries.get(j);
+                    if ((beforeId == null || entry.getId() < beforeId) && filter.matches(entry)) {
+                        result.add(entry);
+                    }
+                }
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计满足条件的日志数（完全落在条件内的块直接使用块头条数）
+     */
+    public long count(Filter filter) {
+        long count = 0;
+        for (Segment segment : segments.values()) {
+            for (Block block : segment.blocks) {
+                if (!filter.mayMatch(block)) {
+                    continue;
+                }
+                if (filter.coversAll(block)) {
+                    count += block.count();
+                } else {
+                    count += segment.read(block, objectMapper).stream().filter(filter::matches).count();
+                }
+            }
+        }
+        return count;
+    }
+
+    public Optional<OperationLog> findById(long id) {
+        for (Segment segment : segments.descendingMap().values()) {
+            for (Block block : segment.blocks) {
+                if (id >= block.minId() && id <= block.maxId()) {
+                    return segment.read(block, objectMapper).stream().filter(e -> e.getId() == id).findFirst();
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 将全部日志早于截止时间的分段文件移入归档目录（当前小时的分段不移动）
+     */
+    public synchronized ArchiveResult archiveBefore(LocalDateTime cutoff, Path archiveDir) throws IOException {
+        long cutoffTime = epochSecond(cutoff);
+        String active = PREFIX + LocalDateTime.now().format(SEGMENT_HOUR) + SUFFIX;
+        int moved = 0;
+        long rows = 0;
+        long bytes = 0;
+        for (Map.Entry<String, Segment> entry : new ArrayList<>(segments.entrySet())) {
+            Segment segment = entry.getValue();
+            if (entry.getKey().equals(active) || segment.blocks.stream().anyMatch(b -> b.maxTime() >= cutoffTime)) {
+                continue;
+            }
+            Files.createDirectories(archiveDir);
+            Files.move(segment.path, archiveDir.resolve(entry.getKey()), StandardCopyOption.REPLACE_EXISTING);
+            segments.remove(entry.getKey());
+            moved++;
+            rows += segment.blocks.stream().mapToLong(Block::count).sum();
+            bytes += segment.size;
+        }
+        return new ArchiveResult(moved, rows, bytes);
+    }
+
+    /**
+     * 分段数、块数、日志条数、文件总大小
+     */
+    public Map<String, Object> stats() {
+        long blocks = 0;
+        long rows = 0;
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            blocks += segment.blocks.size();
+            rows += segment.blocks.stream().mapToLong(Block::count).sum();
+            bytes += segment.size;
+        }
+        return Map.of("segments", segments.size(), "blocks", blocks, "rows", rows, "bytes", bytes);
+    }
+
+    /**
+     * 单个分段文件：块索引 + 只读内存映射（文件增长后重新映射）
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final List<Block> blocks = new CopyOnWriteArrayList<>();
+        private volatile long size;
+        private MappedByteBuffer mapped;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * 打开已有分段：顺序读取块头重建索引，文件末尾不完整的块截掉
+         */
+        static Segment open(Path path) throws IOException {
+            Segment segment = new Segment(path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long fileSize = channel.size();
+                long offset = 0;
+                ByteBuffer prefix = ByteBuffer.allocate(8);
+                while (offset + 8 <= fileSize) {
+                    prefix.clear();
+                    channel.read(prefix, offset);
+                    prefix.flip();
+                    int headerLength = prefix.getInt(4);
+                    if (prefix.getInt(0) != MAGIC || headerLength <= 0 || offset + 12 + headerLength > fileSize) {
+                        break;
+                    }
+                    ByteBuffer header = ByteBuffer.allocate(headerLength + 4);
+                    channel.read(header, offset + 8);
+                    header.flip();
+                    int compressedLength = header.getInt(headerLength);
+                    long payloadOffset = offset + 12 + headerLength;
+                    if (compressedLength < 0 || payloadOffset + compressedLength > fileSize) {
+                        break;
+                    }
+                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(header.array(), 0, headerLength));
+                    segment.blocks.add(new Block(offset, payloadOffset, compressedLength, in.readLong(), in.readLong(),
+                            in.readLong(), in.readLong(), in.readInt(), in.readInt(), readStrings(in), readStrings(in)));
+                    offset = payloadOffset + compressedLength;
+                }
+                if (offset < fileSize) {
+                    log.warn("操作日志分段文件末尾存在不完整的数据块，已截断: file={}, size={}, valid={}", path, fileSize, offset);
+                    channel.truncate(offset);
+                }
+                segment.size = offset;
+            }
+            return segment;
+        }
+
+        /**
+         * 在文件末尾写入一个完整的数据块，返回块起始位置
+         */
+        long append(ByteBuffer block) throws IOException {
+            long offset = size;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.position(offset);
+                while (block.hasRemaining()) {
+                    channel.write(block);
+                }
+            }
+            size = offset + block.limit();
+            return offset;
+        }
+
+        /**
+         * 解压并解析一个数据块
+         */
+        List<OperationLog> read(Block block, ObjectMapper objectMapper) {
+            ByteBuffer payload = view().slice((int) block.payloadOffset(), block.compressedLength());
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(payload);
+                byte[] raw = new byte[block.rawLength()];
+                int length = 0;
+                while (length < raw.length && !inflater.finished()) {
+                    int n = inflater.inflate(raw, length, raw.length - length);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    length += n;
+                }
+                List<OperationLog> entries = new ArrayList<>(block.count());
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    if (raw[i] == '\n') {
+                        entries.add(objectMapper.readValue(raw, start, i - start, OperationLog.class));
+                        start = i + 1;
+                    }
+                }
+                return entries;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("操作日志数据块损坏: " + path + "@" + block.offset(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        /**
+         * 只读映射（文件增长后重新映射）
+         */
+        private synchronized ByteBuffer view() {
+            if (mapped == null || mapped.capacity() < size) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return mapped.duplicate();
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+        if (values == null) {
+            out.writeShort(-1);
+            return;
+        }
+        out.writeShort(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readShort();
+        if (size < 0) {
+            return null;
+        }
+        Set<String> values = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return Collections.unmodifiableSet(values);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,169 @@
+package com.library.service;
+
+import com.library.dto.projection.BookCounters;
+import com.library.dto.response.BookResponse;
+import com.library.entity.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 图书详情缓存
+ * 分两层缓存：静态详情（书目信息、分类名、简介等）和计数（可借数量、借阅次数、评论数与评分）。
+ * 借还、评论只使计数层失效，下次查询用单行投影重新读取计数并叠加到静态详情上，
+ * 静态详情仅在图书信息修改、删除或分类变更时失效。
+ * 计数层不叠加增量：提交到提交回调执行之间，其他请求可能已读取并缓存了包含本次变更的计数，
+ * 再叠加增量会重复计算，因此失效后以数据库中的绝对值为准。
+ */
+@Slf4j
+@Service
+public class BookCacheService {
+
+    /**
+     * 版本号分段数量（必须为2的幂）
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    /**
+     * 静态详情：图书ID -> 图书详情（其中的计数字段以计数层为准）
+     */
+    private final ConcurrentHashMap<Long, BookResponse> details = new ConcurrentHashMap<>();
+
+    /**
+     * 计数层：图书ID -> 库存、借阅次数与评分统计
+     */
+    private final ConcurrentHashMap<Long, BookCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 分段版本号，每次失效时递增（详情与计数各一组）。
+     * 加载数据库前记录版本号，回填缓存时版本号已变化则放弃回填，避免并发修改期间写入过期数据。
+     */
+    private final AtomicLongArray detailVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLongArray counterVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Value("${library.cache.book-detail-max-size:10000}")
+    private int maxSize;
+
+    /**
+     * 获取图书详情（优先读取缓存，未命中时通过 loader 加载并回填）
+     *
+     * @param id            图书ID
+     * @param loader        从数据库加载图书（含分类）的方法
+     * @param counterLoader 从数据库读取图书计数的方法（仅计数层失效时调用）
+     */
+    public BookResponse getBookDetail(Long id, Supplier<Book> loader, Supplier<BookCounters> counterLoader) {
+        BookResponse detail = details.get(id);
+        BookCounters current = counters.get(id);
+        if (detail != null && current != null) {
+            return overlay(detail, current);
+        }
+
+        if (detail == null) {
+            long detailVersion = detailVersions.get(stripe(id));
+            long counterVersion = counterVersions.get(stripe(id));
+            Book book = loader.get();
+            BookResponse loaded = BookResponse.fromEntity(book);
+            BookCounters loadedCounters = BookCounters.fromEntity(book);
+
+            if (details.size() >= maxSize) {
+                evictSome();
+            }
+            BookResponse installed = install(details, detailVersions, id, detailVersion, loaded);
+            detail = installed != null ? installed : loaded;
+            if (current == null) {
+                BookCounters installedCounters = install(counters, counterVersions, id, counterVersion, loadedCounters);
+                current = installedCounters != null ? installedCounters : loadedCounters;
+            }
+            return overlay(detail, current);
+        }
+
+        long counterVersion = counterVersions.get(stripe(id));
+        BookCounters loadedCounters = counterLoader.get();
+        BookCounters installedCounters = install(counters, counterVersions, id, counterVersion, loadedCounters);
+        return overlay(detail, installedCounters != null ? installedCounters : loadedCounters);
+    }
+
+    /**
+     * 图书计数变化（借还、评论审核等），当前事务提交后仅使计数层失效，静态详情保留
+     */
+    public void countsChanged(Long id) {
+        afterCommit(() -> invalidate(counters, counterVersions, id));
+    }
+
+    /**
+     * 使单本图书缓存失效（当前事务提交后生效，图书信息修改、删除时调用）
+     */
+    public void evict(Long id) {
+        afterCommit(() -> {
+            invalidate(details, detailVersions, id);
+            invalidate(counters, counterVersions, id);
+        });
+    }
+
+    /**
+     * 清空全部缓存（如分类名称变更影响所有图书详情时调用）
+     */
+    public void evictAll() {
+        afterCommit(() -> {
+            for (int i = 0; i < VERSION_STRIPES; i++) {
+                detailVersions.incrementAndGet(i);
+                counterVersions.incrementAndGet(i);
+            }
+            details.clear();
+            counters.clear();
+            log.debug("图书详情缓存已清空");
+        });
+    }
+
+    private static BookResponse overlay(BookResponse detail, BookCounters current) {
+        return detail.toBuilder()
+                .availableCount(current.availableCount())
+                .borrowCount(current.borrowCount())
+                .reviewCount(current.reviewCount())
+                .averageRating(Book.averageRating(current.reviewCount(), current.ratingSum()))
+                .build();
+    }
+
+    /**
+     * 版本号未变化时回填缓存，返回缓存中的值（放弃回填时返回 null）
+     */
+    private static <V> V install(ConcurrentHashMap<Long, V> map, AtomicLongArray versions,
+                                 Long id, long version, V loaded) {
+        return map.compute(id, (key, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return versions.get(stripe(id)) == version ? loaded : null;
+        });
+    }
+
+    private static <V> void invalidate(ConcurrentHashMap<Long, V> map, AtomicLongArray versions, Long id) {
+        map.compute(id, (key, existing) -> {
+            versions.incrementAndGet(stripe(id));
+            return null;
+        });
+    }
+
+    private void evictSome() {
+        // 简单淘汰：移除约10%的条目，避免缓存无限增长
+        int toRemove = Math.max(1, maxSize / 10);
+        Iterator<Long> iterator = details.keySet().iterator();
+        while (iterator.hasNext() && toRemove-- > 0) {
+            Long id = iterator.next();
+            detailVersions.incrementAndGet(stripe(id));
+            iterator.remove();
+            invalidate(counters, counterVersions, id);
+        }
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (VERSION_STRIPES - 1);
+    }
+}
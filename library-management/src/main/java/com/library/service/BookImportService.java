@@ -0,0 +1,20 @@
+package com.library.service;
+
+import com.library.dto.response.BookImportJobResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface BookImportService {
+
+    /**
+     * 提交批量导入任务（异步执行）
+     *
+     * @param file   CSV 或 MARC21（ISO 2709）文件
+     * @param format 文件格式：csv / marc，为空时按扩展名识别
+     */
+    BookImportJobResponse submitImport(MultipartFile file, String format);
+
+    /**
+     * 查询导入任务进度
+     */
+    BookImportJobResponse getJob(String jobId);
+}
@@ -1,9 +1,12 @@
 package com.library.service;
 
+import com.library.common.CursorPageResult;
 import com.library.common.PageResult;
 import com.library.dto.request.BookQueryRequest;
 import com.library.dto.request.BookRequest;
+import com.library.dto.request.CatalogSearchRequest;
 import com.library.dto.response.BookResponse;
+import com.library.dto.response.CatalogSearchResponse;
 
 import java.util.List;
 
@@ -19,6 +22,16 @@ public interface BookService {
 
     PageResult<BookResponse> getBooks(BookQueryRequest request);
 
+    /**
+     * 游标分页查询图书（按创建时间倒序，不执行 COUNT 查询）
+     */
+    CursorPageResult<BookResponse> getBooksByCursor(BookQueryRequest request);
+
+    /**
+     * 目录检索（内存列式索引筛选、排序并返回分面统计，当前页按ID回表加载）
+     */
+    CatalogSearchResponse searchCatalog(CatalogSearchRequest request);
+
     /**
      * 获取新书推荐（最近N天内入库的图书）
      * @param days 天数，默认30天
@@ -31,4 +44,18 @@ public interface BookService {
      * @param limit 返回数量限制
      */
     List<BookResponse> getPopularBooks(int limit);
+
+    /**
+     * 获取“借过这本书的读者还借过”的相关图书
+     * @param id    图书ID
+     * @param limit 返回数量限制
+     */
+    List<BookResponse> getRelatedBooks(Long id, int limit);
+
+    /**
+     * 获取内容相似的图书（基于书名、作者、分类和简介）
+     * @param id    图书ID
+     * @param limit 返回数量限制
+     */
+    List<BookResponse> getSimilarBooks(Long id, int limit);
 }
@@ -0,0 +1,80 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 图书统计列校对
+ * 借阅次数、评论数和评分总和随业务事务增量维护，这里按借阅记录和评论表重新计算以纠正偏差（也用于存量数据回填）。
+ * 在低峰时段按 ID 区间分段执行，每段单独提交并短暂停顿，不会长时间锁住整张图书表。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookStatisticsReconciler {
+
+    private final BookRepository bookRepository;
+    private final BookCacheService bookCacheService;
+    private final CatalogIndex catalogIndex;
+
+    @Value("${library.statistics.reconcile-enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.statistics.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${library.statistics.chunk-pause-ms:100}")
+    private long chunkPauseMs;
+
+    @Scheduled(cron = "${library.statistics.reconcile-cron:0 0 5 * * ?}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("图书统计列校对失败", e);
+        }
+    }
+
+    /**
+     * 分段重算全部图书的统计列
+     *
+     * @return 更新的图书数
+     */
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        Long maxId = bookRepository.findMaxId();
+        int updated = 0;
+        if (maxId != null) {
+            for (long from = 1; from <= maxId; from += chunkSize) {
+                updated += bookRepository.rebuildStatistics(from, from + chunkSize - 1);
+                if (!pause()) {
+                    break;
+                }
+            }
+        }
+        bookCacheService.evictAll();
+        catalogIndex.markDirty();
+        log.info("图书统计列校对完成: books={}, 耗时={}ms", updated, System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
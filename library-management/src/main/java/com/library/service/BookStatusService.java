@@ -0,0 +1,14 @@
+package com.library.service;
+
+import com.library.dto.response.BookStatusResponse;
+
+import java.util.List;
+
+public interface BookStatusService {
+
+    /**
+     * 批量获取图书状态，每类数据一次 IN 查询
+     * @param bookIds 图书ID列表（不存在的图书忽略）
+     */
+    List<BookStatusResponse> getBookStatuses(List<Long> bookIds);
+}
@@ -1,11 +1,13 @@
 package com.library.service;
 
+import com.library.common.CursorPageResult;
 import com.library.common.PageResult;
 import com.library.dto.request.BorrowQueryRequest;
 import com.library.dto.request.BorrowRequest;
 import com.library.dto.response.BorrowRecordResponse;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BorrowService {
 
@@ -27,12 +29,24 @@ public interface BorrowService {
 
     PageResult<BorrowRecordResponse> getRecords(BorrowQueryRequest request);
 
+    /**
+     * 游标分页查询借阅记录（按借阅日期倒序，不执行 COUNT 查询）
+     */
+    CursorPageResult<BorrowRecordResponse> getRecordsByCursor(BorrowQueryRequest request);
+
     PageResult<BorrowRecordResponse> getMyRecords(int page, int size);
 
     void checkOverdueRecords();
 
     /**
-     * 获取所有借阅记录用于导出
+     * 逐条读取符合条件的借阅记录用于导出（数据库游标流式读取，不在内存中汇总）
+     *
+     * @return 处理的记录数
+     */
+    long forEachRecordForExport(BorrowQueryRequest request, Consumer<BorrowRecordResponse> action);
+
+    /**
+     * 统计符合导出条件的借阅记录数（使用分页总数缓存，用于估算导出进度）
      */
-    List<BorrowRecordResponse> getAllRecordsForExport(BorrowQueryRequest request);
+    long countRecordsForExport(BorrowQueryRequest request);
 }
@@ -0,0 +1,173 @@
+package com.library.service;
+
+import com.library.entity.BroadcastNotification;
+import com.library.entity.Notification;
+import com.library.repository.BroadcastNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 广播通知
+ * 面向全体读者的通知（公告发布、闭馆通知等）只写入一行 broadcast_notification，不再为每位读者各写一条 notification。
+ * 保留期内的广播缓存在内存中（按ID升序，写时复制），读者只能看到注册之后发布的广播，
+ * 已读状态由读者的广播已读水位表示（见 {@link UnreadCounter}），通知列表和未读数在读取时合并。
+ * 公告关联的广播每个公告只显示一条：重新发布时插入新广播（新的ID和时间，对所有读者重新计为未读）并隐藏旧广播，
+ * 撤回或删除公告时隐藏。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BroadcastFeed {
+
+    private final BroadcastNotificationRepository broadcastNotificationRepository;
+    private final EventPushService eventPushService;
+
+    @Value("${library.notification.broadcast-retention-days:90}")
+    private int retentionDays;
+
+    /**
+     * 保留期内的广播（按ID升序，只读）
+     */
+    private volatile List<BroadcastNotification> items;
+
+    /**
+     * 发布广播通知（一次插入，事务提交后向在线用户推送未读数变化）
+     * 公告重新发布时隐藏该公告之前的广播，新广播按新的ID和时间排序并计入未读
+     */
+    @Transactional
+    public BroadcastNotification publish(Notification.Type type, String title, String content, Long announcementId) {
+        List<Long> superseded = announcementId != null ? hideExisting(announcementId) : List.of();
+        BroadcastNotification broadcast = broadcastNotificationRepository.save(BroadcastNotification.builder()
+                .type(type)
+                .title(title)
+                .content(content)
+                .announcementId(announcementId)
+                .build());
+        afterCommit(() -> {
+            synchronized (this) {
+                List<BroadcastNotification> next = new ArrayList<>(current());
+                next.removeIf(b -> superseded.contains(b.getId()));
+                next.add(broadcast);
+                items = List.copyOf(next);
+            }
+            eventPushService.broadcastUnread();
+        });
+        log.info("发布广播通知: id={}, type={}, title={}, superseded={}", broadcast.getId(), type, title, superseded);
+        return broadcast;
+    }
+
+    /**
+     * 隐藏公告关联的广播（事务提交后从内存移除并推送未读数变化）
+     */
+    @Transactional
+    public void hide(Long announcementId) {
+        List<Long> hidden = hideExisting(announcementId);
+        if (hidden.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (this) {
+                List<BroadcastNotification> next = new ArrayList<>(current());
+                next.removeIf(b -> hidden.contains(b.getId()));
+                items = List.copyOf(next);
+            }
+            eventPushService.broadcastUnread();
+        });
+        log.info("隐藏广播通知: ids={}, announcementId={}", hidden, announcementId);
+    }
+
+    private List<Long> hideExisting(Long announcementId) {
+        List<BroadcastNotification> existing = broadcastNotificationRepository.findByAnnouncementIdAndHiddenFalse(announcementId);
+        existing.forEach(broadcast -> broadcast.setHidden(true));
+        broadcastNotificationRepository.saveAll(existing);
+        return existing.stream().map(BroadcastNotification::getId).toList();
+    }
+
+    /**
+     * 对注册时间为 registeredAt 的读者可见的广播（按时间倒序）
+     */
+    public List<BroadcastNotification> visibleTo(LocalDateTime registeredAt) {
+        LocalDateTime from = visibleFrom(registeredAt);
+        List<BroadcastNotification> all = current();
+        List<BroadcastNotification> visible = new ArrayList<>();
+        for (int i = all.size() - 1; i >= 0; i--) {
+            BroadcastNotification broadcast = all.get(i);
+            if (broadcast.getCreatedAt().isBefore(from)) {
+                break;
+            }
+            visible.add(broadcast);
+        }
+        return visible;
+    }
+
+    /**
+     * 未读广播数：可见且ID大于已读水位
+     */
+    public int unreadCount(LocalDateTime registeredAt, long watermark) {
+        LocalDateTime from = visibleFrom(registeredAt);
+        List<BroadcastNotification> all = current();
+        int count = 0;
+        for (int i = all.size() - 1; i >= 0; i--) {
+            BroadcastNotification broadcast = all.get(i);
+            if (broadcast.getId() <= watermark || broadcast.getCreatedAt().isBefore(from)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 最新广播ID（无广播时为0）
+     */
+    public long latestId() {
+        List<BroadcastNotification> all = current();
+        return all.isEmpty() ? 0 : all.get(all.size() - 1).getId();
+    }
+
+    public Optional<BroadcastNotification> get(Long id) {
+        return current().stream().filter(b -> b.getId().equals(id)).findFirst();
+    }
+
+    /**
+     * 启动时及每天凌晨重新加载，移出超过保留期的广播
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.notification.broadcast-reload-cron:0 45 3 * * ?}")
+    public synchronized void reload() {
+        items = List.copyOf(broadcastNotificationRepository.findByHiddenFalseAndCreatedAtAfterOrderByIdAsc(
+                retentionCutoff()));
+        log.info("广播通知加载完成: count={}", items.size());
+    }
+
+    private List<BroadcastNotification> current() {
+        List<BroadcastNotification> list = items;
+        if (list == null) {
+            reload();
+            list = items;
+        }
+        return list;
+    }
+
+    private LocalDateTime retentionCutoff() {
+        return LocalDateTime.now().minusDays(retentionDays);
+    }
+
+    private LocalDateTime visibleFrom(LocalDateTime registeredAt) {
+        LocalDateTime cutoff = retentionCutoff();
+        return registeredAt != null && registeredAt.isAfter(cutoff) ? registeredAt : cutoff;
+    }
+}
@@ -0,0 +1,515 @@
+package com.library.service;
+
+import com.library.dto.request.CatalogSearchRequest;
+import com.library.dto.response.CatalogSearchResponse.FacetCount;
+import com.library.entity.Category;
+import com.library.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 图书目录内存列式索引
+ * 将图书目录按列存储为基本类型数组（价格、状态、分类、库存等），出版社和作者做字典编码，
+ * 分类、出版社、状态建立位图索引。筛选、排序和分面统计均在内存中完成，只返回当前页的图书ID，
+ * 由调用方按ID回表加载详情。
+ * <p>
+ * 图书增删改后标记为脏，由定时任务合并刷新；借还提交后按ID从数据库重新读取库存和借阅次数原地写入，
+ * 不触发重建。同一本书的读取和写入在分段锁内串行，后写入的一定是更新的值；重建期间变更的图书在新快照
+ * 生效后重新读取一次。另有低频的定时全量重建兜底。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogIndex {
+
+    /**
+     * 出版社分面最多返回数量
+     */
+    private static final int MAX_PUBLISHER_FACETS = 20;
+
+    private static final String COUNTS_SQL = "SELECT available_count, borrow_count FROM book WHERE id = ?";
+
+    private static final String LOAD_SQL = "SELECT id, isbn, title, author, publisher, category_id, price, status, " +
+            "available_count, borrow_count, created_at FROM book ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+
+    private volatile Snapshot snapshot;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    /**
+     * 按图书ID分段的锁，保证同一本书的库存读取和写入按顺序进行
+     */
+    private final Object[] countLocks = newLocks(64);
+
+    /**
+     * 重建期间库存发生变更的图书（不在重建时为 null）
+     */
+    private final AtomicReference<Set<Long>> changedDuringRebuild = new AtomicReference<>();
+
+    /**
+     * 检索结果：当前页图书ID及分面统计
+     */
+    public record SearchResult(List<Long> ids, long total, List<FacetCount> categories,
+                               List<FacetCount> publishers, long availableCount, long unavailableCount) {
+    }
+
+    /**
+     * 标记索引需要刷新（当前事务提交后生效）
+     */
+    public void markDirty() {
+        afterCommit(() -> dirty.set(true));
+    }
+
+    /**
+     * 图书库存或借阅次数已变更（当前事务提交后生效）
+     * 写入的是提交后读取的绝对值而不是增量，提交与回调之间发生的重建不会导致重复累加。
+     */
+    public void countsChanged(Long bookId) {
+        afterCommit(() -> {
+            Set<Long> changed = changedDuringRebuild.get();
+            if (changed != null) {
+                changed.add(bookId);
+            }
+            Snapshot s = snapshot;
+            if (s != null) {
+                reloadCounts(s, bookId);
+            }
+        });
+    }
+
+    /**
+     * 定时全量重建，兜底修正库存刷新失败等情况
+     */
+    @Scheduled(cron = "${library.catalog.reconcile-cron:0 0/30 * * * ?}")
+    public void reconcile() {
+        dirty.set(true);
+        refreshIfDirty();
+    }
+
+    private void reloadCounts(Snapshot s, Long bookId) {
+        int row = Arrays.binarySearch(s.ids, bookId);
+        if (row < 0) {
+            return;
+        }
+        synchronized (countLocks[(int) (bookId & (countLocks.length - 1))]) {
+            try {
+                jdbcTemplate.query(COUNTS_SQL, rs -> {
+                    s.availableCounts.set(row, rs.getInt("available_count"));
+                    s.borrowCounts.set(row, rs.getInt("borrow_count"));
+                }, bookId);
+            } catch (RuntimeException e) {
+                log.warn("目录索引库存刷新失败，等待定时重建: bookId={}, error={}", bookId, e.getMessage());
+            }
+        }
+    }
+
+    private static Object[] newLocks(int n) {
+        Object[] locks = new Object[n];
+        for (int i = 0; i < n; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * 定时合并刷新，多次写入只触发一次重建
+     */
+    @Scheduled(fixedDelayString = "${library.catalog.refresh-delay-ms:2000}")
+    public void refreshIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                dirty.set(true);
+                log.error("目录索引重建失败", e);
+            }
+        }
+    }
+
+    /**
+     * 在内存索引上执行筛选、排序和分面统计
+     */
+    public SearchResult search(CatalogSearchRequest request, int page, int size) {
+        Snapshot s = current();
+        List<Long> categoryIds = request.getCategoryId() != null
+                ? categoryTree.current().subtreeIds(request.getCategoryId()) : null;
+        BitSet rows = s.filter(request, categoryIds);
+
+        int total = rows.cardinality();
+        int[] matched = new int[total];
+        int[] categoryCounts = new int[s.categoryIds.length];
+        int[] publisherCounts = new int[s.publisherDict.length];
+        int available = 0;
+        int n = 0;
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            matched[n++] = row;
+            int category = s.categoryCodes[row];
+            if (category >= 0) {
+                categoryCounts[category]++;
+            }
+            int publisher = s.publisherCodes[row];
+            if (publisher >= 0) {
+                publisherCounts[publisher]++;
+            }
+            if (s.availableCounts.get(row) > 0) {
+                available++;
+            }
+        }
+
+        // 按 long 计算偏移量，超大页码直接返回空页
+        long from = (long) (Math.max(page, 1) - 1) * size;
+        List<Long> ids = new ArrayList<>(Math.min(size, total));
+        if (from < total) {
+            int[] sorted = s.sort(matched, request.getSortBy());
+            int to = (int) Math.min(from + size, total);
+            for (int i = (int) from; i < to; i++) {
+                ids.add(s.ids[sorted[i]]);
+            }
+        }
+
+        List<FacetCount> categories = new ArrayList<>();
+        for (int code = 0; code < categoryCounts.length; code++) {
+            if (categoryCounts[code] > 0) {
+                categories.add(new FacetCount(String.valueOf(s.categoryIds[code]), s.categoryNames[code], categoryCounts[code]));
+            }
+        }
+        categories.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        List<FacetCount> publishers = new ArrayList<>();
+        for (int code = 0; code < publisherCounts.length; code++) {
+            if (publisherCounts[code] > 0) {
+                publishers.add(new FacetCount(s.publisherDict[code], s.publisherDict[code], publisherCounts[code]));
+            }
+        }
+        publishers.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        if (publishers.size() > MAX_PUBLISHER_FACETS) {
+            publishers = new ArrayList<>(publishers.subList(0, MAX_PUBLISHER_FACETS));
+        }
+
+        return new SearchResult(ids, total, categories, publishers, available, total - available);
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    dirty.set(false);
+                    rebuild();
+                    s = snapshot;
+                }
+            }
+        }
+        return s;
+    }
+
+    private synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+
+        // 读取期间提交的借还可能晚于本次读取，新快照生效后重新读取这些图书的库存
+        changedDuringRebuild.set(ConcurrentHashMap.newKeySet());
+        SnapshotBuilder builder = new SnapshotBuilder(categoryNames);
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                BigDecimal price = rs.getBigDecimal("price");
+                long categoryId = rs.getLong("category_id");
+                boolean hasCategory = !rs.wasNull();
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                builder.add(rs.getLong("id"), rs.getString("isbn"), rs.getString("title"),
+                        rs.getString("author"), rs.getString("publisher"),
+                        hasCategory ? categoryId : null,
+                        price != null ? price.movePointRight(2).longValue() : -1,
+                        rs.getInt("status"), rs.getInt("available_count"), rs.getInt("borrow_count"),
+                        createdAt != null ? createdAt.getTime() / 1000 : 0);
+            });
+        } catch (RuntimeException e) {
+            changedDuringRebuild.set(null);
+            throw e;
+        }
+        Snapshot built = builder.build();
+        snapshot = built;
+        Set<Long> changed = changedDuringRebuild.getAndSet(null);
+        changed.forEach(bookId -> reloadCounts(built, bookId));
+        log.info("目录索引重建完成: books={}, 耗时={}ms", snapshot.ids.length, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 不可变的列式快照（库存和借阅次数除外，借还时原地更新）
+     */
+    private static final class Snapshot {
+        final long[] ids;
+        final String[] searchText;
+        final int[] authorCodes;
+        final String[] authorDict;
+        final int[] publisherCodes;
+        final String[] publisherDict;
+        final BitSet[] publisherBitmaps;
+        final int[] categoryCodes;
+        final long[] categoryIds;
+        final String[] categoryNames;
+        final BitSet[] categoryBitmaps;
+        final long[] priceCents;
+        final Map<Integer, BitSet> statusBitmaps;
+        final long[] createdAt;
+        final AtomicIntegerArray availableCounts;
+        final AtomicIntegerArray borrowCounts;
+
+        Snapshot(SnapshotBuilder b) {
+            int n = b.size;
+            this.ids = Arrays.copyOf(b.ids, n);
+            this.searchText = Arrays.copyOf(b.searchText, n);
+            this.authorCodes = Arrays.copyOf(b.authorCodes, n);
+            this.authorDict = b.authorDict.toArray(new String[0]);
+            this.publisherCodes = Arrays.copyOf(b.publisherCodes, n);
+            this.publisherDict = b.publisherDict.toArray(new String[0]);
+            this.publisherBitmaps = b.publisherBitmaps.toArray(new BitSet[0]);
+            this.categoryCodes = Arrays.copyOf(b.categoryCodes, n);
+            this.categoryIds = b.categoryIds.stream().mapToLong(Long::longValue).toArray();
+            this.categoryNames = b.categoryLabels.toArray(new String[0]);
+            this.categoryBitmaps = b.categoryBitmaps.toArray(new BitSet[0]);
+            this.priceCents = Arrays.copyOf(b.priceCents, n);
+            this.statusBitmaps = b.statusBitmaps;
+            this.createdAt = Arrays.copyOf(b.createdAt, n);
+            this.availableCounts = new AtomicIntegerArray(Arrays.copyOf(b.availableCounts, n));
+            this.borrowCounts = new AtomicIntegerArray(Arrays.copyOf(b.borrowCounts, n));
+        }
+
+        /**
+         * 计算匹配行集合：先用位图求交，再对剩余行做数组扫描
+         *
+         * @param subtreeCategoryIds 所选分类及其子分类ID，未按分类筛选时为 null
+         */
+        BitSet filter(CatalogSearchRequest request, List<Long> subtreeCategoryIds) {
+            int n = ids.length;
+            BitSet rows = new BitSet(n);
+            rows.set(0, n);
+
+            if (request.getStatus() != null) {
+                rows.and(statusBitmaps.getOrDefault(request.getStatus(), new BitSet()));
+            }
+            if (subtreeCategoryIds != null) {
+                BitSet union = new BitSet(n);
+                for (Long categoryId : subtreeCategoryIds) {
+                    int code = Arrays.binarySearch(categoryIds, categoryId);
+                    if (code >= 0) {
+                        union.or(categoryBitmaps[code]);
+                    }
+                }
+                rows.and(union);
+            }
+            String publisher = normalize(request.getPublisher());
+            if (publisher != null) {
+                BitSet union = new BitSet(n);
+                for (int code = 0; code < publisherDict.length; code++) {
+                    if (publisherDict[code].toLowerCase(Locale.ROOT).contains(publisher)) {
+                        union.or(publisherBitmaps[code]);
+                    }
+                }
+                rows.and(union);
+            }
+            if (rows.isEmpty()) {
+                return rows;
+            }
+
+            String author = normalize(request.getAuthor());
+            boolean[] authorMatches = null;
+            if (author != null) {
+                authorMatches = new boolean[authorDict.length];
+                for (int code = 0; code < authorDict.length; code++) {
+                    authorMatches[code] = authorDict[code].toLowerCase(Locale.ROOT).contains(author);
+                }
+            }
+            long minPrice = request.getMinPrice() != null ? request.getMinPrice().movePointRight(2).longValue() : Long.MIN_VALUE;
+            long maxPrice = request.getMaxPrice() != null ? request.getMaxPrice().movePointRight(2).longValue() : Long.MAX_VALUE;
+            boolean priceFilter = request.getMinPrice() != null || request.getMaxPrice() != null;
+            boolean availableOnly = Boolean.TRUE.equals(request.getAvailable());
+            String keyword = normalize(request.getKeyword());
+
+            if (authorMatches == null && !priceFilter && !availableOnly && keyword == null) {
+                return rows;
+            }
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                boolean keep = true;
+                if (authorMatches != null) {
+                    int code = authorCodes[row];
+                    keep = code >= 0 && authorMatches[code];
+                }
+                if (keep && priceFilter) {
+                    long price = priceCents[row];
+                    keep = price >= 0 && price >= minPrice && price <= maxPrice;
+                }
+                if (keep && availableOnly) {
+                    keep = availableCounts.get(row) > 0;
+                }
+                if (keep && keyword != null) {
+                    keep = searchText[row].contains(keyword);
+                }
+                if (!keep) {
+                    rows.clear(row);
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * 排序：将排序键与行号打包为 long 后做基本类型排序，同键按ID倒序
+         */
+        int[] sort(int[] rows, String sortBy) {
+            int rowBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(ids.length));
+            long maxRow = (1L << rowBits) - 1;
+            long maxKey = (1L << (63 - rowBits)) - 1;
+            String order = sortBy != null ? sortBy.toLowerCase(Locale.ROOT) : "latest";
+
+            long[] packed = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                int row = rows[i];
+                long key = switch (order) {
+                    case "popular" -> maxKey - borrowCounts.get(row);
+                    case "price_asc" -> priceCents[row] < 0 ? maxKey : priceCents[row];
+                    case "price_desc" -> priceCents[row] < 0 ? maxKey : maxKey - 1 - priceCents[row];
+                    default -> maxKey - createdAt[row];
+                };
+                key = Math.max(0, Math.min(key, maxKey));
+                packed[i] = (key << rowBits) | (maxRow - row);
+            }
+            Arrays.sort(packed);
+
+            int[] sorted = new int[rows.length];
+            for (int i = 0; i < packed.length; i++) {
+                sorted[i] = (int) (maxRow - (packed[i] & maxRow));
+            }
+            return sorted;
+        }
+
+        private static String normalize(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * 按行追加数据并完成字典编码、位图构建
+     */
+    private static final class SnapshotBuilder {
+        int size;
+        long[] ids = new long[1024];
+        String[] searchText = new String[1024];
+        int[] authorCodes = new int[1024];
+        int[] publisherCodes = new int[1024];
+        int[] categoryCodes = new int[1024];
+        long[] priceCents = new long[1024];
+        long[] createdAt = new long[1024];
+        int[] availableCounts = new int[1024];
+        int[] borrowCounts = new int[1024];
+
+        final List<String> authorDict = new ArrayList<>();
+        final Map<String, Integer> authorCodeMap = new HashMap<>();
+        final List<String> publisherDict = new ArrayList<>();
+        final Map<String, Integer> publisherCodeMap = new HashMap<>();
+        final List<BitSet> publisherBitmaps = new ArrayList<>();
+        final List<Long> categoryIds;
+        final List<String> categoryLabels = new ArrayList<>();
+        final List<BitSet> categoryBitmaps = new ArrayList<>();
+        final Map<Integer, BitSet> statusBitmaps = new HashMap<>();
+
+        SnapshotBuilder(Map<Long, String> categoryLabelsById) {
+            // 分类字典按ID升序编码，便于二分查找
+            this.categoryIds = new ArrayList<>(categoryLabelsById.keySet());
+            this.categoryIds.sort(Long::compare);
+            for (Long id : categoryIds) {
+                categoryLabels.add(categoryLabelsById.get(id));
+                categoryBitmaps.add(new BitSet());
+            }
+        }
+
+        void add(long id, String isbn, String title, String author, String publisher, Long categoryId,
+                 long price, int status, int available, int borrowCount, long createdAtSeconds) {
+            if (size == ids.length) {
+                grow();
+            }
+            int row = size++;
+            ids[row] = id;
+            searchText[row] = ((title != null ? title : "") + '\u0001' + (author != null ? author : "")
+                    + '\u0001' + (isbn != null ? isbn : "")).toLowerCase(Locale.ROOT);
+            authorCodes[row] = encode(author, authorDict, authorCodeMap, null);
+            int publisherCode = encode(publisher, publisherDict, publisherCodeMap, publisherBitmaps);
+            publisherCodes[row] = publisherCode;
+            if (publisherCode >= 0) {
+                publisherBitmaps.get(publisherCode).set(row);
+            }
+            int categoryCode = categoryId != null ? Collections.binarySearch(categoryIds, categoryId) : -1;
+            categoryCodes[row] = Math.max(categoryCode, -1);
+            if (categoryCode >= 0) {
+                categoryBitmaps.get(categoryCode).set(row);
+            }
+            priceCents[row] = price;
+            statusBitmaps.computeIfAbsent(status, k -> new BitSet()).set(row);
+            availableCounts[row] = available;
+            borrowCounts[row] = borrowCount;
+            createdAt[row] = createdAtSeconds;
+        }
+
+        Snapshot build() {
+            return new Snapshot(this);
+        }
+
+        private static int encode(String value, List<String> dict, Map<String, Integer> codes, List<BitSet> bitmaps) {
+            if (value == null || value.isBlank()) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value.trim(), v -> {
+                dict.add(v);
+                if (bitmaps != null) {
+                    bitmaps.add(new BitSet());
+                }
+                return dict.size() - 1;
+            });
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            searchText = Arrays.copyOf(searchText, capacity);
+            authorCodes = Arrays.copyOf(authorCodes, capacity);
+            publisherCodes = Arrays.copyOf(publisherCodes, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            availableCounts = Arrays.copyOf(availableCounts, capacity);
+            borrowCounts = Arrays.copyOf(borrowCounts, capacity);
+        }
+    }
+}
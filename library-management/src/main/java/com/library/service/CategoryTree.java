@@ -0,0 +1,252 @@
+package com.library.service;
+
+import com.library.entity.Category;
+import com.library.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 分类树内存快照
+ * 一次加载全部分类，按先序遍历为每个节点编号：treeLeft 为进入该节点时的序号，treeRight 为其子树中最大的序号。
+ * B 是 A 的后代当且仅当 A.left &lt; B.left &lt;= A.right，深度、祖先判断均为常数时间。
+ * 区间同时写回 category 表，“某分类及其子分类下的图书”只需一个 tree_left 范围条件。
+ * <p>
+ * 快照不可变；分类增删改时在同一事务内重新编号，事务提交后替换快照。
+ * 分类变更事务开始时锁定全部分类行（{@link #lock()}）直到提交，并发的变更与重新编号因此串行执行；
+ * 快照按编号顺序替换，提交回调晚到的旧快照不会覆盖新快照。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryTree {
+
+    private static final Comparator<Category> SIBLING_ORDER = Comparator
+            .comparing((Category c) -> c.getSortOrder() != null ? c.getSortOrder() : 0)
+            .thenComparing(Category::getId);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 重新编号的顺序号（在分类行锁内递增，与提交顺序一致）
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 当前快照对应的顺序号，读写均在 this 上同步
+     */
+    private long installedSequence;
+
+    /**
+     * 当前快照（首次访问时构建）
+     */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                s = snapshot;
+                if (s == null) {
+                    s = Snapshot.of(categoryRepository.findAll());
+                    snapshot = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 启动时重新编号，补齐存量数据及外部修改造成的区间偏差
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        refresh();
+        afterCommit(() -> log.info("分类树构建完成: categories={}", snapshot.size()));
+    }
+
+    /**
+     * 锁定全部分类行直到当前事务结束，须在修改分类之前调用，避免并发事务交叉加锁导致死锁
+     */
+    @Transactional
+    public void lock() {
+        categoryRepository.findAllForUpdate();
+    }
+
+    /**
+     * 分类变更后在当前事务内重新编号并写回区间，事务提交后替换快照
+     */
+    @Transactional
+    public void refresh() {
+        List<Category> categories = categoryRepository.findAllForUpdate();
+        long seq = sequence.incrementAndGet();
+        Snapshot next = Snapshot.of(categories);
+        for (Category category : categories) {
+            Node node = next.get(category.getId());
+            Integer left = node != null ? node.left() : null;
+            Integer right = node != null ? node.right() : null;
+            if (!Objects.equals(category.getTreeLeft(), left) || !Objects.equals(category.getTreeRight(), right)) {
+                category.setTreeLeft(left);
+                category.setTreeRight(right);
+            }
+        }
+        afterCommit(() -> install(next, seq));
+    }
+
+    private synchronized void install(Snapshot next, long seq) {
+        if (seq > installedSequence) {
+            installedSequence = seq;
+            snapshot = next;
+        }
+    }
+
+    /**
+     * 分类节点，children 按 sortOrder、id 排序
+     */
+    public record Node(Long id, String name, String description, Long parentId, Integer sortOrder,
+                       LocalDateTime createdAt, int depth, int left, int right, int height, List<Node> children) {
+    }
+
+    /**
+     * 不可变快照
+     */
+    public static final class Snapshot {
+
+        private final Map<Long, Node> nodes;
+        private final List<Node> roots;
+
+        /**
+         * 先序序号 - 1 -> 分类ID
+         */
+        private final long[] preorder;
+
+        private Snapshot(Map<Long, Node> nodes, List<Node> roots, long[] preorder) {
+            this.nodes = nodes;
+            this.roots = roots;
+            this.preorder = preorder;
+        }
+
+        static Snapshot of(List<Category> categories) {
+            Map<Long, List<Category>> childrenByParent = new HashMap<>();
+            List<Category> rootCategories = new ArrayList<>();
+            for (Category category : categories) {
+                // 只读取父分类ID，不会触发懒加载
+                Category parent = category.getParent();
+                if (parent == null) {
+                    rootCategories.add(category);
+                } else {
+                    childrenByParent.computeIfAbsent(parent.getId(), k -> new ArrayList<>()).add(category);
+                }
+            }
+
+            Builder builder = new Builder(childrenByParent, categories.size());
+            rootCategories.sort(SIBLING_ORDER);
+            List<Node> roots = new ArrayList<>(rootCategories.size());
+            for (Category root : rootCategories) {
+                roots.add(builder.build(root, null, 1));
+            }
+            // 父分类不存在或成环的分类不可达，不进入快照
+            return new Snapshot(builder.nodes, List.copyOf(roots), Arrays.copyOf(builder.preorder, builder.counter));
+        }
+
+        public int size() {
+            return nodes.size();
+        }
+
+        public Node get(Long id) {
+            return id != null ? nodes.get(id) : null;
+        }
+
+        public boolean contains(Long id) {
+            return get(id) != null;
+        }
+
+        public List<Node> roots() {
+            return roots;
+        }
+
+        /**
+         * 层级深度（根分类为1），分类不存在时返回0
+         */
+        public int depth(Long id) {
+            Node node = get(id);
+            return node != null ? node.depth() : 0;
+        }
+
+        /**
+         * descendantId 是否为 ancestorId 的后代（不含自身）
+         */
+        public boolean isDescendant(Long ancestorId, Long descendantId) {
+            Node ancestor = get(ancestorId);
+            Node node = get(descendantId);
+            return ancestor != null && node != null
+                    && ancestor.left() < node.left() && node.left() <= ancestor.right();
+        }
+
+        /**
+         * 分类及其全部后代的ID（先序）
+         */
+        public List<Long> subtreeIds(Long id) {
+            Node node = get(id);
+            if (node == null) {
+                return List.of();
+            }
+            List<Long> ids = new ArrayList<>(node.right() - node.left() + 1);
+            for (int i = node.left(); i <= node.right(); i++) {
+                ids.add(preorder[i - 1]);
+            }
+            return ids;
+        }
+    }
+
+    private static final class Builder {
+
+        final Map<Long, List<Category>> childrenByParent;
+        final Map<Long, Node> nodes = new HashMap<>();
+        final long[] preorder;
+        int counter;
+
+        Builder(Map<Long, List<Category>> childrenByParent, int size) {
+            this.childrenByParent = childrenByParent;
+            this.preorder = new long[size];
+        }
+
+        Node build(Category category, Long parentId, int depth) {
+            int left = ++counter;
+            preorder[left - 1] = category.getId();
+            List<Category> children = childrenByParent.getOrDefault(category.getId(), List.of());
+            List<Node> childNodes = new ArrayList<>(children.size());
+            int height = 1;
+            if (!children.isEmpty()) {
+                List<Category> sorted = new ArrayList<>(children);
+                sorted.sort(SIBLING_ORDER);
+                for (Category child : sorted) {
+                    Node childNode = build(child, category.getId(), depth + 1);
+                    childNodes.add(childNode);
+                    height = Math.max(height, childNode.height() + 1);
+                }
+            }
+            Node node = new Node(category.getId(), category.getName(), category.getDescription(), parentId,
+                    category.getSortOrder(), category.getCreatedAt(), depth, left, counter, height,
+                    List.copyOf(childNodes));
+            nodes.put(node.id(), node);
+            return node;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.library.service;
+
+import com.library.common.LongIntHashMap;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * “借过这本书的读者还借过”推荐
+ * 在内存中维护图书共现稀疏矩阵：同一读者借过的任意两本书共现次数 +1。
+ * 矩阵行、读者借阅历史均为基本类型键的哈希表，每本书只保留共现次数最高的若干邻居。
+ * 借书事务提交后增量更新；启动后在后台线程首次构建（构建完成前查询返回空列表），
+ * 每天凌晨按借阅历史以 fork/join 并行全量重建，纠正裁剪带来的偏差。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoBorrowRecommender {
+
+    /**
+     * 按读者分组、每位读者按最近借阅时间倒序加载去重后的借阅历史
+     */
+    private static final String LOAD_SQL = "SELECT user_id, book_id, MAX(borrow_date) AS last_borrow " +
+            "FROM borrow_record GROUP BY user_id, book_id ORDER BY user_id, last_borrow DESC";
+
+    /**
+     * 单个 fork/join 任务处理的读者数量
+     */
+    private static final int USERS_PER_TASK = 256;
+
+    /**
+     * 分片统计时每行保留的候选邻居倍数（相对 maxNeighbors），合并后再统一裁剪到 maxNeighbors
+     */
+    private static final int PARTITION_SLACK = 4;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${library.recommend.max-neighbors:50}")
+    private int maxNeighbors;
+
+    @Value("${library.recommend.max-history:200}")
+    private int maxHistory;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildMonitor = new Object();
+
+    /**
+     * 首次构建在独立线程中执行，不阻塞查询请求
+     */
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "co-borrow-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean buildScheduled = new AtomicBoolean();
+
+    /**
+     * 当前矩阵（读写均在 lock 保护下进行）
+     */
+    private Matrix matrix;
+
+    /**
+     * 重建期间到达的借阅事件，重建完成后回放到新矩阵（事件按读者历史去重，重复回放无副作用）
+     */
+    private List<long[]> pendingEvents;
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * 应用启动完成后开始后台构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureBuilt();
+    }
+
+    /**
+     * 记录一次借阅（当前事务提交后生效）
+     */
+    public void recordBorrow(Long userId, Long bookId) {
+        afterCommit(() -> apply(userId, bookId));
+    }
+
+    /**
+     * 查询与指定图书共同借阅度最高的图书ID
+     * 相似度按余弦归一化：共现次数 / sqrt(两本书各自的借阅人数之积)，避免热门书占据所有推荐位
+     * 矩阵尚未构建完成时返回空列表
+     */
+    public List<Long> related(Long bookId, int limit) {
+        if (!ensureBuilt()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = matrix.row(bookId);
+            if (row == null || row.isEmpty()) {
+                return List.of();
+            }
+            int n = row.size();
+            long[] ids = new long[n];
+            double[] scores = new double[n];
+            int[] counts = new int[n];
+            int[] i = {0};
+            double borrowers = matrix.borrowers.get(bookId);
+            row.forEach((neighbor, count) -> {
+                ids[i[0]] = neighbor;
+                counts[i[0]] = count;
+                scores[i[0]] = count / Math.sqrt(borrowers * Math.max(1, matrix.borrowers.get(neighbor)));
+                i[0]++;
+            });
+
+            Integer[] order = new Integer[n];
+            for (int k = 0; k < n; k++) {
+                order[k] = k;
+            }
+            Arrays.sort(order, (a, b) -> scores[a] != scores[b]
+                    ? Double.compare(scores[b], scores[a])
+                    : counts[a] != counts[b] ? Integer.compare(counts[b], counts[a]) : Long.compare(ids[a], ids[b]));
+
+            List<Long> result = new ArrayList<>(Math.min(limit, n));
+            for (int k = 0; k < n && result.size() < limit; k++) {
+                result.add(ids[order[k]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 每天凌晨全量重建
+     */
+    @Scheduled(cron = "${library.recommend.rebuild-cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("共借推荐矩阵重建失败", e);
+        }
+    }
+
+    /**
+     * 从借阅历史全量重建矩阵（按读者分片并行统计后合并）
+     */
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                pendingEvents = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Matrix built;
+            try {
+                List<long[]> histories = loadHistories();
+                built = ForkJoinPool.commonPool().invoke(
+                        new BuildTask(histories, 0, histories.size(), maxHistory, maxNeighbors * PARTITION_SLACK));
+                built.pruneAll(maxNeighbors);
+                built.clock = maxHistory + 1;
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    pendingEvents = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (long[] event : pendingEvents) {
+                    built.addBorrow(event[0], event[1], maxNeighbors, maxHistory);
+                }
+                pendingEvents = null;
+                matrix = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("共借推荐矩阵重建完成: 读者 {} 位，图书 {} 本，耗时 {} ms",
+                    built.histories.size(), built.rows.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 矩阵已构建返回 true；否则提交后台构建（同一时间只提交一次，失败后下次查询重新提交）并返回 false
+     */
+    private boolean ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (matrix != null) {
+                return true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (buildScheduled.compareAndSet(false, true)) {
+            builder.execute(() -> {
+                try {
+                    synchronized (rebuildMonitor) {
+                        if (matrix == null) {
+                            rebuild();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    log.error("共借推荐矩阵构建失败", e);
+                } finally {
+                    buildScheduled.set(false);
+                }
+            });
+        }
+        return false;
+    }
+
+    private void apply(Long userId, Long bookId) {
+        if (userId == null || bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (matrix != null) {
+                matrix.addBorrow(userId, bookId, maxNeighbors, maxHistory);
+            }
+            if (pendingEvents != null) {
+                pendingEvents.add(new long[]{userId, bookId});
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 加载每位读者的借阅历史（最近借阅在前，超过上限的部分截断）
+     */
+    private List<long[]> loadHistories() {
+        List<long[]> histories = new ArrayList<>();
+        long[] current = {0};
+        long[][] buffer = {new long[16]};
+        int[] size = {0};
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            long userId = rs.getLong("user_id");
+            if (userId != current[0]) {
+                if (size[0] > 0) {
+                    histories.add(history(current[0], buffer[0], size[0]));
+                }
+                current[0] = userId;
+                size[0] = 0;
+            }
+            if (size[0] < maxHistory) {
+                if (size[0] == buffer[0].length) {
+                    buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+                }
+                buffer[0][size[0]++] = rs.getLong("book_id");
+            }
+        });
+        if (size[0] > 0) {
+            histories.add(history(current[0], buffer[0], size[0]));
+        }
+        return histories;
+    }
+
+    /**
+     * 历史记录格式：[userId, book1, book2, ...]
+     */
+    private static long[] history(long userId, long[] books, int size) {
+        long[] history = new long[size + 1];
+        history[0] = userId;
+        System.arraycopy(books, 0, history, 1, size);
+        return history;
+    }
+
+    /**
+     * 按读者区间统计共现次数，区间过大时对半拆分并行执行，结果合并到左半部分
+     * 每个分片及每次合并后各行只保留 keep 个候选邻居，避免未裁剪的行在合并过程中占满内存
+     */
+    private static final class BuildTask extends RecursiveTask<Matrix> {
+
+        private final List<long[]> histories;
+        private final int from;
+        private final int to;
+        private final int maxHistory;
+        private final int keep;
+
+        BuildTask(List<long[]> histories, int from, int to, int maxHistory, int keep) {
+            this.histories = histories;
+            this.from = from;
+            this.to = to;
+            this.maxHistory = maxHistory;
+            this.keep = keep;
+        }
+
+        @Override
+        protected Matrix compute() {
+            if (to - from <= USERS_PER_TASK) {
+                Matrix result = new Matrix();
+                for (int u = from; u < to; u++) {
+                    result.addHistory(histories.get(u), maxHistory, keep);
+                }
+                result.pruneAll(keep);
+                return result;
+            }
+            int mid = (from + to) >>> 1;
+            BuildTask right = new BuildTask(histories, mid, to, maxHistory, keep);
+            right.fork();
+            Matrix left = new BuildTask(histories, from, mid, maxHistory, keep).compute();
+            left.merge(right.join());
+            left.pruneAll(keep);
+            return left;
+        }
+    }
+
+    /**
+     * 共现矩阵
+     * 图书ID、读者ID先经 LongIntHashMap 映射为槽位，再以数组列表存放各自的行和历史
+     */
+    private static final class Matrix {
+
+        /**
+         * 图书ID -> 行槽位；rows[slot] 为邻居图书ID -> 共现次数
+         */
+        final LongIntHashMap rowIndex = new LongIntHashMap(1024);
+        final List<LongIntHashMap> rows = new ArrayList<>();
+
+        /**
+         * 读者ID -> 历史槽位；histories[slot] 为图书ID -> 借阅时序（越大越新）
+         */
+        final LongIntHashMap historyIndex = new LongIntHashMap(1024);
+        final List<LongIntHashMap> histories = new ArrayList<>();
+
+        /**
+         * 图书ID -> 借阅过的读者人数
+         */
+        final LongIntHashMap borrowers = new LongIntHashMap(1024);
+
+        /**
+         * 增量借阅事件的时序计数器
+         */
+        int clock;
+
+        LongIntHashMap row(long bookId) {
+            int slot = rowIndex.get(bookId);
+            return slot == 0 ? null : rows.get(slot - 1);
+        }
+
+        /**
+         * 重建时批量加入一位读者的历史（行超过两倍 keep 时裁剪到 keep，合并完成后统一裁剪到 maxNeighbors）
+         */
+        void addHistory(long[] history, int maxHistory, int keep) {
+            int n = history.length - 1;
+            LongIntHashMap books = new LongIntHashMap(n);
+            for (int i = 1; i <= n; i++) {
+                books.put(history[i], maxHistory - i + 1);
+                borrowers.addTo(history[i], 1);
+                for (int j = i + 1; j <= n; j++) {
+                    increment(history[i], history[j], keep);
+                    increment(history[j], history[i], keep);
+                }
+            }
+            historyIndex.put(history[0], histories.size() + 1);
+            histories.add(books);
+        }
+
+        /**
+         * 增量加入一次借阅，已借过的书不重复计数
+         */
+        void addBorrow(long userId, long bookId, int maxNeighbors, int maxHistory) {
+            int slot = historyIndex.get(userId);
+            LongIntHashMap books;
+            if (slot == 0) {
+                books = new LongIntHashMap();
+                historyIndex.put(userId, histories.size() + 1);
+                histories.add(books);
+            } else {
+                books = histories.get(slot - 1);
+            }
+            if (books.containsKey(bookId)) {
+                books.put(bookId, ++clock);
+                return;
+            }
+
+            for (long other : books.keys()) {
+                increment(bookId, other, maxNeighbors);
+                increment(other, bookId, maxNeighbors);
+            }
+            books.put(bookId, ++clock);
+            books.retainTop(maxHistory);
+            borrowers.addTo(bookId, 1);
+        }
+
+        /**
+         * 合并另一分片的统计结果（两个分片的读者互不重叠）
+         */
+        void merge(Matrix other) {
+            other.rowIndex.forEach((bookId, slot) -> {
+                LongIntHashMap target = rowFor(bookId);
+                other.rows.get(slot - 1).forEach(target::addTo);
+            });
+            other.historyIndex.forEach((userId, slot) -> {
+                historyIndex.put(userId, histories.size() + 1);
+                histories.add(other.histories.get(slot - 1));
+            });
+            other.borrowers.forEach(borrowers::addTo);
+        }
+
+        void pruneAll(int maxNeighbors) {
+            for (LongIntHashMap row : rows) {
+                row.retainTop(maxNeighbors);
+            }
+        }
+
+        /**
+         * 行容量超过两倍上限时才裁剪，减少频繁排序
+         */
+        private void increment(long bookId, long neighbor, int maxNeighbors) {
+            LongIntHashMap row = rowFor(bookId);
+            row.addTo(neighbor, 1);
+            if (row.size() > maxNeighbors * 2) {
+                row.retainTop(maxNeighbors);
+            }
+        }
+
+        private LongIntHashMap rowFor(long bookId) {
+            int slot = rowIndex.get(bookId);
+            if (slot != 0) {
+                return rows.get(slot - 1);
+            }
+            LongIntHashMap row = new LongIntHashMap();
+            rows.add(row);
+            rowIndex.put(bookId, rows.size());
+            return row;
+        }
+    }
+}
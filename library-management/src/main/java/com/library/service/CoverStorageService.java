@@ -0,0 +1,431 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 封面图片存储
+ * 上传文件按内容 SHA-256 命名（相同图片只存一份），文件名即内容指纹，可作为强 ETag 并永久缓存；
+ * 列表、详情两种尺寸的缩略图在后台线程生成，生成前访问缩略图地址回退到原图。
+ * 解码前先从图片头读取像素尺寸，超过 library.cover.max-pixels 的图片拒绝上传也不生成缩略图，
+ * 避免小文件声明超大尺寸（解压炸弹）在解码时耗尽内存。
+ */
+@Slf4j
+@Service
+public class CoverStorageService {
+
+    public static final String COVER_DIR = "covers";
+    private static final String THUMBNAIL_DIR = "thumbs";
+
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-]+(\\.[A-Za-z0-9]{1,5})?");
+    private static final Pattern HASHED_NAME = Pattern.compile("[0-9a-f]{64}\\.[a-z]+");
+
+    /**
+     * 缩略图尺寸
+     */
+    public enum Size {
+        LIST, DETAIL;
+
+        public String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Size of(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            for (Size size : values()) {
+                if (size.key().equalsIgnoreCase(value)) {
+                    return size;
+                }
+            }
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "不支持的缩略图尺寸: " + value);
+        }
+    }
+
+    /**
+     * 上传结果
+     *
+     * @param filename  存储文件名（内容指纹 + 扩展名）
+     * @param sha256    内容 SHA-256
+     * @param duplicate 是否与已有文件重复
+     */
+    public record StoredCover(String filename, String sha256, boolean duplicate) {
+    }
+
+    /**
+     * 待输出的封面文件
+     *
+     * @param path      文件路径
+     * @param etag      ETag（含引号）：内容指纹命名的文件为强 ETag，其他文件按修改时间生成，为弱 ETag（W/ 前缀）
+     * @param immutable 内容是否永不变化（可长期缓存）
+     */
+    public record CoverFile(Path path, String etag, boolean immutable) {
+
+        /**
+         * 弱 ETag 不能用于 If-Range 等需要字节级一致的强比较
+         */
+        public boolean weak() {
+            return etag.startsWith("W/");
+        }
+    }
+
+    /**
+     * 缩略图串行生成，避免批量上传时图片解码占满 CPU
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cover-thumbnail");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 无法解码文件记录数上限，超过后清空重新记录（清空后最多对这些文件重新读取一次图片头）
+     */
+    private static final int MAX_UNSUPPORTED = 10000;
+
+    /**
+     * 正在生成或无法解码（如 webp）的文件，避免重复提交
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    private final Path coverDir;
+    private final Path thumbnailDir;
+
+    @Value("${library.cover.list-width:240}")
+    private int listWidth;
+
+    @Value("${library.cover.detail-width:600}")
+    private int detailWidth;
+
+    @Value("${library.cover.thumbnail-quality:0.85}")
+    private float quality;
+
+    /**
+     * 允许的最大像素数（宽 × 高）
+     */
+    @Value("${library.cover.max-pixels:40000000}")
+    private long maxPixels;
+
+    public CoverStorageService(@Value("${file.upload-dir:uploads}") String uploadDir) {
+        this.coverDir = Paths.get(uploadDir, COVER_DIR).toAbsolutePath().normalize();
+        this.thumbnailDir = coverDir.resolve(THUMBNAIL_DIR);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        // 等待正在写入的缩略图结束，避免关闭后仍有线程写上传目录
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("缩略图生成任务未能在关闭前结束");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 保存上传的封面：边写临时文件边计算摘要，按内容指纹落盘，已存在则直接复用
+     */
+    public StoredCover store(MultipartFile file) {
+        Path temp = null;
+        try {
+            Files.createDirectories(coverDir);
+            temp = Files.createTempFile(coverDir, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String extension = detectExtension(temp);
+            if (extension == null) {
+                throw new BusinessException(ErrorCode.FILE_TYPE_NOT_ALLOWED, "只支持 jpg/png/gif/webp 格式的图片");
+            }
+            try (ImageInputStream input = ImageIO.createImageInputStream(temp.toFile())) {
+                ImageReader reader = reader(input);
+                if (reader != null) {
+                    try {
+                        checkDimensions(reader);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String filename = hash + "." + extension;
+            Path target = coverDir.resolve(filename);
+
+            boolean duplicate = Files.exists(target);
+            if (!duplicate) {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    temp = null;
+                } catch (FileAlreadyExistsException e) {
+                    // 并发上传同一图片
+                    duplicate = true;
+                }
+            }
+            scheduleThumbnails(filename);
+            return new StoredCover(filename, hash, duplicate);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("保存封面文件失败", e);
+            throw new BusinessException(ErrorCode.FILE_UPLOAD_ERROR, "文件上传失败: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("删除上传临时文件失败: {}", temp);
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析待输出的封面文件，文件不存在或文件名非法时返回 null
+     *
+     * @param filename 封面文件名
+     * @param size     缩略图尺寸，null 表示原图
+     */
+    public CoverFile resolve(String filename, Size size) {
+        if (filename == null || !SAFE_NAME.matcher(filename).matches()) {
+            return null;
+        }
+        Path original = coverDir.resolve(filename);
+        if (!Files.isRegularFile(original)) {
+            return null;
+        }
+        boolean hashed = HASHED_NAME.matcher(filename).matches();
+
+        if (size != null) {
+            Path thumbnail = thumbnailPath(filename, size);
+            if (Files.isRegularFile(thumbnail)) {
+                String etag = hashed ? "\"" + baseName(filename) + "-" + size.key() + "\"" : fileEtag(thumbnail);
+                return new CoverFile(thumbnail, etag, hashed);
+            }
+            // 缩略图尚未生成（或为历史文件），先返回原图，同一地址稍后会变为缩略图，因此不能永久缓存
+            scheduleThumbnails(filename);
+            return new CoverFile(original, fileEtag(original), false);
+        }
+        return new CoverFile(original, hashed ? "\"" + baseName(filename) + "\"" : fileEtag(original), hashed);
+    }
+
+    /**
+     * 提交缩略图生成任务（已生成、生成中或无法解码的文件直接跳过）
+     */
+    public void scheduleThumbnails(String filename) {
+        if (unsupported.contains(filename) || !pending.add(filename)) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                generateThumbnails(filename);
+            } catch (Exception e) {
+                log.warn("生成封面缩略图失败: {}, {}", filename, e.getMessage());
+            } finally {
+                pending.remove(filename);
+            }
+        });
+    }
+
+    private void generateThumbnails(String filename) throws IOException {
+        BufferedImage source = null;
+        for (Size size : Size.values()) {
+            Path target = thumbnailPath(filename, size);
+            if (Files.exists(target)) {
+                continue;
+            }
+            if (source == null) {
+                source = decode(coverDir.resolve(filename));
+                if (source == null) {
+                    if (unsupported.size() >= MAX_UNSUPPORTED) {
+                        unsupported.clear();
+                    }
+                    unsupported.add(filename);
+                    log.debug("封面格式无法解码，跳过缩略图生成: {}", filename);
+                    return;
+                }
+            }
+            writeJpeg(scale(source, size == Size.LIST ? listWidth : detailWidth), target);
+        }
+        log.debug("封面缩略图生成完成: {}", filename);
+    }
+
+    /**
+     * 先读取图片头中的尺寸，未超限时再解码；没有可用解码器（如 webp）时返回 null
+     */
+    private BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = reader(input);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                checkDimensions(reader);
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader reader(ImageInputStream input) {
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, true, true);
+        return reader;
+    }
+
+    private void checkDimensions(ImageReader reader) throws IOException {
+        long width = reader.getWidth(0);
+        long height = reader.getHeight(0);
+        if (width * height > maxPixels) {
+            throw new BusinessException(ErrorCode.FILE_SIZE_EXCEEDED,
+                    "图片尺寸过大: " + width + "x" + height + "，最多允许 " + maxPixels + " 像素");
+        }
+    }
+
+    /**
+     * 等比缩放到目标宽度（不放大），逐级减半后再做最终缩放以保证缩小质量；透明背景填充为白色
+     */
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage current = source;
+        while (width / 2 >= targetWidth) {
+            width /= 2;
+            height = Math.max(1, height / 2);
+            current = draw(current, width, height);
+        }
+        if (width > targetWidth) {
+            height = Math.max(1, (int) Math.round((double) height * targetWidth / width));
+            width = targetWidth;
+        }
+        return current == source || current.getWidth() != width ? draw(current, width, height) : current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * 写入临时文件后原子替换，避免读取到写了一半的缩略图
+     */
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(thumbnailDir);
+        Path temp = Files.createTempFile(thumbnailDir, "thumb-", ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path thumbnailPath(String filename, Size size) {
+        return thumbnailDir.resolve(baseName(filename) + "-" + size.key() + ".jpg");
+    }
+
+    /**
+     * 根据文件头识别图片格式，不信任客户端提供的文件名和 Content-Type
+     */
+    private static String detectExtension(Path file) throws IOException {
+        byte[] head = new byte[12];
+        int read;
+        try (InputStream input = Files.newInputStream(file)) {
+            read = input.readNBytes(head, 0, head.length);
+        }
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "png";
+        }
+        if (read >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F') {
+            return "gif";
+        }
+        if (read >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "webp";
+        }
+        return null;
+    }
+
+    /**
+     * 非内容寻址文件（历史上传的随机文件名）按大小和修改时间生成弱 ETag：
+     * 修改时间精度有限，同一时刻内容被替换时无法保证字节级一致
+     */
+    private static String fileEtag(Path file) {
+        try {
+            return "W/\"" + Long.toHexString(Files.size(file)) + "-"
+                    + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+        } catch (IOException e) {
+            return "W/\"" + file.getFileName() + "\"";
+        }
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+}
@@ -0,0 +1,333 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 服务端推送（Server-Sent Events）
+ * 每个登录用户保持一条或多条（多标签页）SSE 连接，推送未读通知数变化、预约到书和图书可借状态变化，
+ * 替代前端定时轮询未读数。连接基于 Servlet 异步请求，建立后不占用请求线程，
+ * 业务线程只负责在事务提交后投递事件。
+ * <p>
+ * 每条连接有独立的待发送队列，由推送线程池逐条连接写出，同一连接的事件保持顺序。
+ * 写出是阻塞的，慢连接只占用一个推送线程：队列积压超过 max-queued-events，
+ * 或单次写出超过 send-timeout-ms 的连接会被移除，不再接收事件。
+ * <p>
+ * 事件：
+ * <ul>
+ *     <li>unread：{"delta": 1} 或 {"count": 0}，连接建立时先推送一次当前未读总数；发布广播通知时向所有连接推送</li>
+ *     <li>hold：预约图书已到馆保留，{"reservationId", "bookId", "bookTitle", "expiresAt"}</li>
+ *     <li>availability：可借数量变化，按固定间隔合并后广播，{"changes": {"bookId": delta}}</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventPushService {
+
+    /**
+     * 推送线程数
+     */
+    private static final int SENDER_THREADS = 4;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${library.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${library.events.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    /**
+     * 单条连接允许积压的事件数
+     */
+    @Value("${library.events.max-queued-events:100}")
+    private int maxQueuedEvents;
+
+    /**
+     * 单次写出的最长耗时，超过后移除连接
+     */
+    @Value("${library.events.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    /**
+     * 用户ID -> 该用户的连接（按建立顺序）
+     */
+    private final Map<Long, List<Connection>> channels = new ConcurrentHashMap<>();
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final ExecutorService sender = Executors.newFixedThreadPool(SENDER_THREADS, r -> {
+        Thread thread = new Thread(r, "sse-push-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 待广播的可借数量变化：图书ID -> 累计变化量
+     */
+    private final Map<Long, Integer> pendingAvailability = new HashMap<>();
+
+    /**
+     * 建立连接并推送当前未读总数；同一用户连接数超过上限时关闭最早的连接
+     */
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = createEmitter();
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+
+        List<Connection> evicted = new ArrayList<>();
+        channels.compute(userId, (k, connections) -> {
+            if (connections == null) {
+                connections = new CopyOnWriteArrayList<>();
+            }
+            connections.add(connection);
+            while (connections.size() > maxConnectionsPerUser) {
+                evicted.add(connections.remove(0));
+            }
+            return connections;
+        });
+        evicted.forEach(oldest -> drop(oldest, null));
+
+        enqueue(connection, new Event("unread", toJson(Map.of("count", unreadCount))));
+        return emitter;
+    }
+
+    /**
+     * 未读数变化（当前事务提交后推送）
+     */
+    public void unreadChanged(Long userId, int delta) {
+        afterCommit(() -> publish(userId, "unread", Map.of("delta", delta)));
+    }
+
+    /**
+     * 未读数清零（当前事务提交后推送）
+     */
+    public void unreadReset(Long userId) {
+        afterCommit(() -> publish(userId, "unread", Map.of("count", 0)));
+    }
+
+    /**
+     * 预约图书到馆保留（当前事务提交后推送）
+     */
+    public void holdReady(Long userId, Map<String, Object> hold) {
+        afterCommit(() -> publish(userId, "hold", hold));
+    }
+
+    /**
+     * 发布广播通知（当前事务提交后向所有在线用户推送未读数 +1）
+     */
+    public void broadcastUnread() {
+        afterCommit(() -> publishAll("unread", Map.of("delta", 1)));
+    }
+
+    /**
+     * 图书可借数量变化（当前事务提交后累计，定时合并广播）
+     */
+    public void availabilityChanged(Long bookId, int delta) {
+        afterCommit(() -> {
+            synchronized (pendingAvailability) {
+                pendingAvailability.merge(bookId, delta, Integer::sum);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${library.events.availability-flush-ms:2000}")
+    public void flushAvailability() {
+        Map<Long, Integer> changes;
+        synchronized (pendingAvailability) {
+            if (pendingAvailability.isEmpty()) {
+                return;
+            }
+            changes = new HashMap<>(pendingAvailability);
+            pendingAvailability.clear();
+        }
+        changes.values().removeIf(delta -> delta == 0);
+        if (!changes.isEmpty()) {
+            publishAll("availability", Map.of("changes", changes));
+        }
+    }
+
+    /**
+     * 定时发送注释行作为心跳，防止代理关闭空闲连接，同时清理已断开和写出超时的连接
+     */
+    @Scheduled(fixedDelayString = "${library.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (List<Connection> connections : channels.values()) {
+            for (Connection connection : connections) {
+                long started = connection.sendStartedAt;
+                if (started > 0 && now - started > sendTimeoutMs) {
+                    drop(connection, "写出超时");
+                } else {
+                    enqueue(connection, Event.PING);
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前连接总数
+     */
+    public int connectionCount() {
+        return channels.values().stream().mapToInt(List::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        channels.values().forEach(connections -> connections.forEach(connection -> {
+            connection.closed = true;
+            connection.emitter.complete();
+        }));
+        channels.clear();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void publish(Long userId, String event, Object data) {
+        List<Connection> connections = channels.get(userId);
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+        Event message = new Event(event, toJson(data));
+        connections.forEach(connection -> enqueue(connection, message));
+    }
+
+    private void publishAll(String event, Object data) {
+        if (channels.isEmpty()) {
+            return;
+        }
+        // 序列化一次，所有连接共用
+        Event message = new Event(event, toJson(data));
+        channels.values().forEach(connections -> connections.forEach(connection -> enqueue(connection, message)));
+    }
+
+    private void enqueue(Connection connection, Event event) {
+        if (connection.closed) {
+            return;
+        }
+        if (connection.queued.incrementAndGet() > maxQueuedEvents) {
+            connection.queued.decrementAndGet();
+            drop(connection, "积压事件过多");
+            return;
+        }
+        connection.queue.offer(event);
+        if (connection.scheduled.compareAndSet(false, true)) {
+            sender.execute(() -> drain(connection));
+        }
+    }
+
+    /**
+     * 写出连接队列中的全部事件；同一连接同时只有一个线程在写
+     */
+    private void drain(Connection connection) {
+        do {
+            Event event;
+            while (!connection.closed && (event = connection.queue.poll()) != null) {
+                connection.queued.decrementAndGet();
+                connection.sendStartedAt = System.currentTimeMillis();
+                try {
+                    connection.emitter.send(event.name() == null
+                            ? SseEmitter.event().comment("ping")
+                            : SseEmitter.event().name(event.name()).data(event.payload()));
+                } catch (IOException | IllegalStateException e) {
+                    // 客户端已断开，连接由容器回调或此处清理
+                    connection.closed = true;
+                    remove(connection);
+                } finally {
+                    connection.sendStartedAt = 0;
+                }
+            }
+            connection.scheduled.set(false);
+        } while (!connection.closed && !connection.queue.isEmpty() && connection.scheduled.compareAndSet(false, true));
+
+        // 写出期间被判定为慢连接，此时写出已返回，可以安全地结束请求
+        if (connection.closed && connection.scheduled.compareAndSet(false, true)) {
+            connection.queue.clear();
+            connection.emitter.complete();
+        }
+    }
+
+    /**
+     * 移除连接并结束请求；正在写出的连接由写出线程在写出返回后结束（SseEmitter 的写出与结束互斥）
+     */
+    private void drop(Connection connection, String reason) {
+        connection.closed = true;
+        remove(connection);
+        if (reason != null) {
+            log.warn("移除慢速推送连接: userId={}, reason={}", connection.userId, reason);
+        }
+        if (connection.scheduled.compareAndSet(false, true)) {
+            sender.execute(connection.emitter::complete);
+        }
+    }
+
+    private void remove(Connection connection) {
+        channels.computeIfPresent(connection.userId, (k, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * 待发送事件，name 为 null 表示心跳注释行
+     */
+    private record Event(String name, String payload) {
+        static final Event PING = new Event(null, null);
+    }
+
+    private static final class Connection {
+        final Long userId;
+        final SseEmitter emitter;
+        final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * 当前写出的开始时间，未在写出时为 0
+         */
+        volatile long sendStartedAt;
+        volatile boolean closed;
+
+        Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+
+    private String toJson(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("事件序列化失败", e);
+        }
+    }
+}
@@ -1,14 +1,41 @@
 package com.library.service;
 
-import com.library.dto.response.BorrowRecordResponse;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
 
 public interface ExcelExportService {
 
     /**
-     * 导出借阅记录到 Excel
+     * 导出借阅记录到 Excel（流式写入响应）
      */
-    void exportBorrowRecords(List<BorrowRecordResponse> records, HttpServletResponse response);
+    void exportBorrowRecords(BorrowQueryRequest request, HttpServletResponse response);
+
+    /**
+     * 将符合条件的借阅记录写成 xlsx 到输出流
+     *
+     * @param progress 每写入一行回调已写入的行数
+     * @return 写入的记录数
+     */
+    long writeBorrowRecords(BorrowQueryRequest request, OutputStream out, LongConsumer progress) throws IOException;
+
+    /**
+     * 将数据集按指定格式写到输出流（csv / ndjson 经 gzip 压缩，从数据库游标逐行写出）
+     *
+     * @param filter   借阅记录的筛选条件，其他数据集忽略
+     * @param progress 每写入一行回调已写入的行数
+     * @return 写入的记录数
+     */
+    long writeDataset(ExportDataset dataset, ExportFormat format, BorrowQueryRequest filter,
+                      OutputStream out, LongConsumer progress) throws IOException;
+
+    /**
+     * 统计数据集的记录数（用于估算导出进度）
+     */
+    long countDataset(ExportDataset dataset, BorrowQueryRequest filter);
 }
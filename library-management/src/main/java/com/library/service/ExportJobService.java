@@ -0,0 +1,38 @@
+package com.library.service;
+
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.ExportJobResponse;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+
+import java.nio.file.Path;
+
+public interface ExportJobService {
+
+    /**
+     * 提交导出任务（异步执行），相同数据集、格式和条件的任务在有效期内直接复用
+     *
+     * @param filter 借阅记录的筛选条件，其他数据集忽略
+     */
+    ExportJobResponse submitExport(ExportDataset dataset, ExportFormat format, BorrowQueryRequest filter);
+
+    /**
+     * 查询导出任务进度
+     */
+    ExportJobResponse getJob(String jobId);
+
+    /**
+     * 获取已完成任务的导出文件
+     */
+    ExportFile getFile(String jobId);
+
+    /**
+     * 导出文件
+     *
+     * @param path        文件路径
+     * @param fileName    下载文件名
+     * @param contentType 文件类型
+     */
+    record ExportFile(Path path, String fileName, String contentType) {
+    }
+}
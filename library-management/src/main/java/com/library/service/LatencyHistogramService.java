@@ -0,0 +1,200 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.dto.projection.LatencyHistogramItem;
+import com.library.dto.response.LatencyStatsResponse;
+import com.library.entity.LatencySummary;
+import com.library.exception.BusinessException;
+import com.library.repository.LatencySummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+
+/**
+ * 操作耗时直方图
+ * 按模块和操作（@Log 描述）为每个被记录的操作维护一个 HdrHistogram Recorder，请求线程无锁记录耗时；
+ * 每分钟取出上一分钟的区间直方图，保存分位数和压缩编码后的直方图到 latency_summary。
+ * 查询任意时间窗口时流式读取窗口内的每分钟直方图逐行合并后计算 p50 / p95 / p99 / max，不扫描操作日志表；
+ * 查询窗口不超过汇总数据的保留期。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LatencyHistogramService {
+
+    /**
+     * 可记录的最大耗时（毫秒），超过按最大值记录
+     */
+    static final long HIGHEST_TRACKABLE_MS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 有效数字位数（相对误差约 1%）
+     */
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * 时间窗口上限（与 latency_summary 默认保留期一致）
+     */
+    static final int MAX_WINDOW_DAYS = 30;
+
+    private static final Comparator<LatencyStatsResponse> ORDER =
+            Comparator.comparing(LatencyStatsResponse::getModule).thenComparing(LatencyStatsResponse::getOperation);
+
+    private final LatencySummaryRepository latencySummaryRepository;
+
+    @Value("${library.retention.latency-summary-days:30}")
+    private int retentionDays;
+
+    record Key(String module, String operation) {
+    }
+
+    private final Map<Key, Recorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * 回收的区间直方图，只在汇总线程中使用
+     */
+    private final Map<Key, Histogram> spares = new HashMap<>();
+
+    /**
+     * 记录一次操作耗时
+     */
+    public void record(String module, String operation, long costMs) {
+        Key key = new Key(module, operation);
+        Recorder recorder = recorders.get(key);
+        if (recorder == null) {
+            recorder = recorders.computeIfAbsent(key, k -> new Recorder(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS));
+        }
+        recorder.recordValue(Math.max(0, Math.min(costMs, HIGHEST_TRACKABLE_MS)));
+    }
+
+    /**
+     * 每分钟汇总上一分钟的直方图
+     */
+    @Scheduled(cron = "${library.latency.roll-cron:0 * * * * ?}")
+    public synchronized void roll() {
+        LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(1);
+        List<LatencySummary> rows = new ArrayList<>();
+        recorders.forEach((key, recorder) -> {
+            Histogram interval = recorder.getIntervalHistogram(spares.remove(key));
+            if (interval.getTotalCount() > 0) {
+                rows.add(toSummary(key, minute, interval));
+            }
+            spares.put(key, interval);
+        });
+        if (!rows.isEmpty()) {
+            latencySummaryRepository.saveAll(rows);
+            log.debug("操作耗时汇总: minute={}, rows={}", minute, rows.size());
+        }
+    }
+
+    /**
+     * 查询时间窗口 [from, to) 内各操作的耗时分位数（早于保留期的部分已被清理，开始时间按保留期截断）
+     */
+    @Transactional(readOnly = true)
+    public List<LatencyStatsResponse> query(LocalDateTime from, LocalDateTime to, String module) {
+        LocalDateTime earliest = LocalDateTime.now().minusDays(Math.min(retentionDays, MAX_WINDOW_DAYS));
+        if (from.isBefore(earliest)) {
+            from = earliest;
+        }
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+
+        Map<Key, Histogram> merged = new HashMap<>();
+        try (Stream<LatencyHistogramItem> rows = latencySummaryRepository.streamByWindow(
+                from, to, module == null || module.isBlank() ? null : module)) {
+            Iterator<LatencyHistogramItem> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                LatencyHistogramItem row = iterator.next();
+                merged.computeIfAbsent(new Key(row.module(), row.operation()),
+                        k -> new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS)).add(decode(row.histogram()));
+            }
+        }
+
+        LocalDateTime windowFrom = from;
+        List<LatencyStatsResponse> result = new ArrayList<>(merged.size());
+        merged.forEach((key, histogram) -> result.add(LatencyStatsResponse.builder()
+                .module(key.module())
+                .operation(key.operation())
+                .from(windowFrom)
+                .to(to)
+                .count(histogram.getTotalCount())
+                .p50Ms(histogram.getValueAtPercentile(50))
+                .p95Ms(histogram.getValueAtPercentile(95))
+                .p99Ms(histogram.getValueAtPercentile(99))
+                .maxMs(histogram.getMaxValue())
+                .meanMs(Math.round(histogram.getMean() * 10) / 10.0)
+                .build()));
+        result.sort(ORDER);
+        return result;
+    }
+
+    /**
+     * 解析时间窗口，如 15m、1h、24h、7d
+     */
+    public static Duration parseWindow(String window) {
+        if (window != null && window.length() >= 2) {
+            try {
+                long amount = Long.parseLong(window.substring(0, window.length() - 1));
+                Duration duration = switch (Character.toLowerCase(window.charAt(window.length() - 1))) {
+                    case 'm' -> Duration.ofMinutes(amount);
+                    case 'h' -> Duration.ofHours(amount);
+                    case 'd' -> Duration.ofDays(amount);
+                    default -> null;
+                };
+                if (duration != null && amount > 0 && duration.compareTo(Duration.ofDays(MAX_WINDOW_DAYS)) <= 0) {
+                    return duration;
+                }
+            } catch (NumberFormatException ignored) {
+                // 按参数错误处理
+            }
+        }
+        throw new BusinessException(ErrorCode.PARAM_ERROR, "时间窗口格式不正确，示例：15m、1h、24h、7d（最长" + MAX_WINDOW_DAYS + "天）");
+    }
+
+    private static LatencySummary toSummary(Key key, LocalDateTime minute, Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return LatencySummary.builder()
+                .module(key.module())
+                .operation(key.operation())
+                .minuteStart(minute)
+                .sampleCount(histogram.getTotalCount())
+                .p50Ms(histogram.getValueAtPercentile(50))
+                .p95Ms(histogram.getValueAtPercentile(95))
+                .p99Ms(histogram.getValueAtPercentile(99))
+                .maxMs(histogram.getMaxValue())
+                .meanMs(histogram.getMean())
+                .histogram(Arrays.copyOf(buffer.array(), length))
+                .build();
+    }
+
+    private static Histogram decode(byte[] encoded) {
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("耗时直方图数据损坏", e);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.BorrowRecord;
+import com.library.entity.Notification;
+import com.library.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 定时提醒批量派发
+ * 按 (应还日期, 借阅记录ID) 游标分段读取待提醒的借阅记录，每段在独立的短事务中完成：
+ * 一次查询过滤已发送过的记录，按模板渲染内容，JDBC 批量写入（配合 rewriteBatchedStatements 合并为多行 INSERT）。
+ * 写入使用 INSERT IGNORE，并发或重复执行时由 (user_id, borrow_record_id, type) 唯一键兜底去重；
+ * 未读计数和推送只按实际写入的行在同一事务内按用户批量累加，被唯一键忽略的行不计入。
+ * <p>
+ * 摘要模式下，一次按用户分组排序的查询（索引 status, user_id, due_date）同时取出即将到期和已逾期的记录，
+ * 每位用户每天只写入一条摘要通知，由 (user_id, type, digest_date) 唯一键兜底；图书列表以 JSON 保存在 payload 中。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private static final String DUE_SOON_SQL = "SELECT br.id, br.user_id, br.due_date, b.title FROM borrow_record br " +
+            "JOIN book b ON b.id = br.book_id " +
+            "WHERE br.status = ? AND br.due_date <= ? AND (br.due_date > ? OR (br.due_date = ? AND br.id > ?)) " +
+            "ORDER BY br.due_date, br.id LIMIT ?";
+
+    private static final String OVERDUE_SQL = "SELECT br.id, br.user_id, br.due_date, b.title FROM borrow_record br " +
+            "JOIN book b ON b.id = br.book_id " +
+            "WHERE br.status = ? AND br.due_date < ? AND (br.due_date > ? OR (br.due_date = ? AND br.id > ?)) " +
+            "ORDER BY br.due_date, br.id LIMIT ?";
+
+    private static final String DIGEST_SQL = "SELECT br.id, br.user_id, br.due_date, b.title FROM borrow_record br " +
+            "JOIN book b ON b.id = br.book_id " +
+            "WHERE br.status = ? AND br.due_date <= ? AND br.user_id > ? " +
+            "ORDER BY br.user_id, br.due_date, br.id LIMIT ?";
+
+    private static final String DIGEST_INSERT_SQL = "INSERT IGNORE INTO notification (user_id, type, title, content, payload, " +
+            "is_read, digest_date, created_at, updated_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?, ?)";
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO notification (user_id, type, title, content, is_read, " +
+            "borrow_record_id, created_at, updated_at) VALUES (?, ?, ?, ?, 0, ?, ?, ?)";
+
+    /**
+     * 逾期通知的游标起点（早于任何应还日期）
+     */
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final DateTimeFormatter DUE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    static final Template DUE_REMINDER = new Template(Notification.Type.DUE_REMINDER,
+            "图书即将到期提醒", "您借阅的图书《%s》将于 %s 到期，请及时归还或续借。");
+
+    static final Template OVERDUE_NOTICE = new Template(Notification.Type.OVERDUE_NOTICE,
+            "图书逾期通知", "您借阅的图书《%s》已逾期 %d 天，请尽快归还。逾期罚款：%.2f 元/天。");
+
+    static final Template DIGEST = new Template(Notification.Type.DIGEST,
+            "借阅提醒", "您借阅的图书中%s：%s");
+
+    /**
+     * 通知内容最大长度（与 notification.content 列一致）
+     */
+    private static final int MAX_CONTENT_LENGTH = 500;
+
+    /**
+     * 逾期罚款（元/天）
+     */
+    private static final double FINE_PER_DAY = 0.5;
+
+    private static final RowMapper<DueRecord> ROW_MAPPER = (rs, rowNum) -> new DueRecord(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getTimestamp("due_date").toLocalDateTime(),
+            rs.getString("title"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationRepository notificationRepository;
+    private final UnreadCounter unreadCounter;
+    private final EventPushService eventPushService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${library.notification.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * 派发即将到期提醒（应还日期在 [now, deadline] 内的借阅中记录）
+     *
+     * @return 新写入的通知数
+     */
+    public int dispatchDueReminders(LocalDateTime now, LocalDateTime deadline) {
+        return dispatch(DUE_SOON_SQL, deadline, now, DUE_REMINDER,
+                r -> new Object[]{r.bookTitle(), r.dueDate().format(DUE_TIME_FORMAT)});
+    }
+
+    /**
+     * 派发逾期通知（应还日期早于 now 的借阅中记录）
+     *
+     * @return 新写入的通知数
+     */
+    public int dispatchOverdueNotices(LocalDateTime now) {
+        return dispatch(OVERDUE_SQL, now, EPOCH, OVERDUE_NOTICE, r -> new Object[]{
+                r.bookTitle(),
+                BorrowRecord.calculateOverdueDays(BorrowRecord.Status.BORROWING, r.dueDate(), null),
+                FINE_PER_DAY});
+    }
+
+    /**
+     * 派发借阅提醒摘要：应还日期不晚于 deadline 的借阅中记录按用户合并，每位用户一条（当天已发送过的跳过）
+     *
+     * @return 新写入的摘要数
+     */
+    public int dispatchDigests(LocalDateTime now, LocalDateTime deadline) {
+        LocalDateTime since = now.toLocalDate().atStartOfDay();
+        long cursorUserId = 0;
+        int sent = 0;
+        while (true) {
+            long userId = cursorUserId;
+            List<DueRecord> rows = jdbcTemplate.query(DIGEST_SQL, ps -> {
+                ps.setInt(1, BorrowRecord.Status.BORROWING.ordinal());
+                ps.setTimestamp(2, Timestamp.valueOf(deadline));
+                ps.setLong(3, userId);
+                ps.setInt(4, batchSize);
+            }, ROW_MAPPER);
+            if (rows.isEmpty()) {
+                break;
+            }
+            boolean full = rows.size() >= batchSize;
+            Map<Long, List<DueRecord>> byUser = groupByUser(rows);
+            // 本段被 LIMIT 截断的最后一位用户留到下一段完整读取（单个用户超过一段时直接发送）
+            if (full && byUser.size() > 1) {
+                byUser.remove(rows.get(rows.size() - 1).userId());
+            }
+            Integer inserted = transactionTemplate.execute(status -> insertDigests(byUser, now, since));
+            sent += inserted != null ? inserted : 0;
+
+            for (Long id : byUser.keySet()) {
+                cursorUserId = id;
+            }
+            if (!full) {
+                break;
+            }
+        }
+        return sent;
+    }
+
+    private int dispatch(String sql, LocalDateTime upperBound, LocalDateTime start, Template template,
+                         Function<DueRecord, Object[]> arguments) {
+        LocalDateTime cursorDue = start;
+        long cursorId = 0;
+        int sent = 0;
+        while (true) {
+            LocalDateTime due = cursorDue;
+            long id = cursorId;
+            List<DueRecord> chunk = jdbcTemplate.query(sql, ps -> {
+                ps.setInt(1, BorrowRecord.Status.BORROWING.ordinal());
+                ps.setTimestamp(2, Timestamp.valueOf(upperBound));
+                ps.setTimestamp(3, Timestamp.valueOf(due));
+                ps.setTimestamp(4, Timestamp.valueOf(due));
+                ps.setLong(5, id);
+                ps.setInt(6, batchSize);
+            }, ROW_MAPPER);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            Integer inserted = transactionTemplate.execute(status -> insert(chunk, template, arguments));
+            sent += inserted != null ? inserted : 0;
+
+            DueRecord last = chunk.get(chunk.size() - 1);
+            cursorDue = last.dueDate();
+            cursorId = last.borrowRecordId();
+            if (chunk.size() < batchSize) {
+                break;
+            }
+        }
+        return sent;
+    }
+
+    private int insert(List<DueRecord> chunk, Template template, Function<DueRecord, Object[]> arguments) {
+        List<Long> ids = chunk.stream().map(DueRecord::borrowRecordId).toList();
+        Set<Long> sent = new HashSet<>(notificationRepository.findSentBorrowRecordIds(template.type(), ids));
+        List<DueRecord> pending = new ArrayList<>(chunk.size());
+        for (DueRecord record : chunk) {
+            if (!sent.contains(record.borrowRecordId())) {
+                pending.add(record);
+            }
+        }
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, pending, pending.size(), (ps, record) -> {
+            ps.setLong(1, record.userId());
+            ps.setString(2, template.type().name());
+            ps.setString(3, template.title());
+            ps.setString(4, template.render(arguments.apply(record)));
+            ps.setLong(5, record.borrowRecordId());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+        List<DueRecord> inserted = insertedRecords(pending, counts, template.type());
+        if (inserted.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> perUser = new HashMap<>();
+        for (DueRecord record : inserted) {
+            perUser.merge(record.userId(), 1, Integer::sum);
+        }
+        unreadCounter.add(perUser);
+        perUser.forEach(eventPushService::unreadChanged);
+        log.debug("批量写入通知: type={}, count={}, ignored={}", template.type(), inserted.size(),
+                pending.size() - inserted.size());
+        return inserted.size();
+    }
+
+    /**
+     * INSERT IGNORE 实际写入的记录
+     * 优先按每行影响行数判断；语句被驱动改写为多行 INSERT 时影响行数为 SUCCESS_NO_INFO，
+     * 改为在同一事务内重新查询：可重复读快照在写入前的查询时已建立，此时只会多出本事务写入的行，
+     * 并发事务写入的行（即本事务被忽略的行）不可见。
+     */
+    private List<DueRecord> insertedRecords(List<DueRecord> pending, int[][] counts, Notification.Type type) {
+        int[] rows = counts != null && counts.length == 1 ? counts[0] : null;
+        boolean known = rows != null && rows.length == pending.size();
+        for (int i = 0; known && i < rows.length; i++) {
+            known = rows[i] != Statement.SUCCESS_NO_INFO;
+        }
+
+        List<DueRecord> inserted = new ArrayList<>(pending.size());
+        if (known) {
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] > 0) {
+                    inserted.add(pending.get(i));
+                }
+            }
+            return inserted;
+        }
+        Set<Long> present = new HashSet<>(notificationRepository.findSentBorrowRecordIds(type,
+                pending.stream().map(DueRecord::borrowRecordId).toList()));
+        for (DueRecord record : pending) {
+            if (present.contains(record.borrowRecordId())) {
+                inserted.add(record);
+            }
+        }
+        return inserted;
+    }
+
+    private int insertDigests(Map<Long, List<DueRecord>> byUser, LocalDateTime now, LocalDateTime since) {
+        Set<Long> notified = new HashSet<>(notificationRepository.findUserIdsNotifiedSince(
+                Notification.Type.DIGEST, since, byUser.keySet()));
+        List<Object[]> args = new ArrayList<>(byUser.size());
+        List<Long> candidates = new ArrayList<>(byUser.size());
+        Date digestDate = Date.valueOf(since.toLocalDate());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        byUser.forEach((userId, items) -> {
+            if (notified.contains(userId)) {
+                return;
+            }
+            args.add(new Object[]{userId, Notification.Type.DIGEST.name(), DIGEST.title(),
+                    digestContent(items, now), digestPayload(items, now), digestDate, createdAt, createdAt});
+            candidates.add(userId);
+        });
+        if (args.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DIGEST_INSERT_SQL, args);
+
+        // 与逐条通知相同：优先按影响行数判断，无逐行结果时在同一事务内重新查询
+        Map<Long, Integer> perUser = new HashMap<>();
+        if (counts != null && counts.length == candidates.size()
+                && Arrays.stream(counts).noneMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    perUser.put(candidates.get(i), 1);
+                }
+            }
+        } else {
+            notificationRepository.findUserIdsNotifiedSince(Notification.Type.DIGEST, since, candidates)
+                    .forEach(userId -> perUser.put(userId, 1));
+        }
+        if (perUser.isEmpty()) {
+            return 0;
+        }
+        unreadCounter.add(perUser);
+        perUser.forEach(eventPushService::unreadChanged);
+        log.debug("批量写入提醒摘要: count={}, ignored={}", perUser.size(), candidates.size() - perUser.size());
+        return perUser.size();
+    }
+
+    /**
+     * 摘要正文，如：您借阅的图书中2本即将到期，1本已逾期（罚款0.50元/天）：《三体》、《活着》、《围城》
+     */
+    String digestContent(List<DueRecord> items, LocalDateTime now) {
+        long overdue = items.stream().filter(r -> r.dueDate().isBefore(now)).count();
+        long dueSoon = items.size() - overdue;
+        List<String> parts = new ArrayList<>(2);
+        if (dueSoon > 0) {
+            parts.add(dueSoon + "本即将到期");
+        }
+        if (overdue > 0) {
+            parts.add(String.format("%d本已逾期（罚款%.2f元/天）", overdue, FINE_PER_DAY));
+        }
+        String titles = items.stream().map(r -> "《" + r.bookTitle() + "》").collect(Collectors.joining("、"));
+        String content = DIGEST.render(String.join("，", parts), titles);
+        return content.length() > MAX_CONTENT_LENGTH ? content.substring(0, MAX_CONTENT_LENGTH - 1) + "…" : content;
+    }
+
+    /**
+     * 摘要的结构化内容：{"dueSoon": 2, "overdue": 1, "items": [{"borrowRecordId", "bookTitle", "dueDate", "overdueDays"}]}
+     */
+    String digestPayload(List<DueRecord> items, LocalDateTime now) {
+        List<Map<String, Object>> list = new ArrayList<>(items.size());
+        int overdue = 0;
+        for (DueRecord item : items) {
+            int overdueDays = item.dueDate().isBefore(now) ? (int) ChronoUnit.DAYS.between(item.dueDate(), now) : 0;
+            if (item.dueDate().isBefore(now)) {
+                overdue++;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("borrowRecordId", item.borrowRecordId());
+            entry.put("bookTitle", item.bookTitle());
+            entry.put("dueDate", item.dueDate().format(DUE_TIME_FORMAT));
+            entry.put("overdueDays", overdueDays);
+            list.add(entry);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("dueSoon", items.size() - overdue);
+        payload.put("overdue", overdue);
+        payload.put("items", list);
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("摘要序列化失败", e);
+        }
+    }
+
+    private static Map<Long, List<DueRecord>> groupByUser(List<DueRecord> rows) {
+        Map<Long, List<DueRecord>> byUser = new LinkedHashMap<>();
+        for (DueRecord row : rows) {
+            byUser.computeIfAbsent(row.userId(), k -> new ArrayList<>()).add(row);
+        }
+        return byUser;
+    }
+
+    /**
+     * 通知模板：标题固定，内容按 String.format 渲染
+     */
+    record Template(Notification.Type type, String title, String pattern) {
+
+        String render(Object... args) {
+            return String.format(pattern, args);
+        }
+    }
+
+    record DueRecord(long borrowRecordId, long userId, LocalDateTime dueDate, String bookTitle) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.library.service;
 
+import com.library.common.CursorPageResult;
 import com.library.dto.response.NotificationResponse;
 import com.library.entity.Notification;
 import org.springframework.data.domain.Page;
@@ -12,6 +13,15 @@ public interface NotificationService {
      */
     Page<NotificationResponse> getMyNotifications(Pageable pageable);
 
+    /**
+     * 游标分页获取当前用户的通知列表
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页数量
+     * @param withTotal 是否返回总数（缓存值）
+     */
+    CursorPageResult<NotificationResponse> getMyNotificationsByCursor(String cursor, int size, boolean withTotal);
+
     /**
      * 获取当前用户的未读通知数量
      */
@@ -22,6 +32,11 @@ public interface NotificationService {
      */
     void markAsRead(Long notificationId);
 
+    /**
+     * 标记广播通知为已读（推进已读水位，更早的广播一并视为已读）
+     */
+    void markBroadcastAsRead(Long broadcastId);
+
     /**
      * 标记所有通知为已读
      */
@@ -32,6 +47,16 @@ public interface NotificationService {
      */
     void sendNotification(Long userId, Notification.Type type, String title, String content, Long borrowRecordId);
 
+    /**
+     * 向全体读者发送广播通知（只写入一行，读取时合并到每位读者的通知列表）
+     */
+    void sendBroadcast(Notification.Type type, String title, String content, Long announcementId);
+
+    /**
+     * 隐藏公告关联的广播通知（公告撤回或删除时调用）
+     */
+    void withdrawBroadcast(Long announcementId);
+
     /**
      * 检查并发送到期提醒（提前3天提醒）
      */
@@ -0,0 +1,62 @@
+package com.library.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 分页总数缓存
+ * 游标分页默认不统计总数，客户端显式请求时才返回缓存的 COUNT 结果，避免每页都执行 COUNT(*)
+ */
+@Slf4j
+@Service
+public class PageCountCache {
+
+    /**
+     * 缓存条目上限，超过后清理过期条目
+     */
+    private static final int MAX_ENTRIES = 10000;
+
+    /**
+     * 总数缓存：查询条件 -> 缓存值
+     */
+    private final ConcurrentHashMap<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    @Value("${library.pagination.count-cache-ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private record CachedCount(long value, long expiresAt) {
+    }
+
+    /**
+     * 获取缓存的总数，过期或不存在时重新统计
+     *
+     * @param key     查询条件键（需包含业务前缀，如 book:keyword|categoryId|status）
+     * @param counter 实际执行 COUNT 的方法
+     */
+    public long getOrCount(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.value();
+        }
+
+        long value = counter.getAsLong();
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.values().removeIf(c -> c.expiresAt() <= now);
+        }
+        counts.put(key, new CachedCount(value, now + ttlSeconds * 1000));
+        log.debug("刷新分页总数缓存: key={}, total={}", key, value);
+        return value;
+    }
+
+    /**
+     * 按前缀清除缓存（数据发生批量变化时调用）
+     */
+    public void evictByPrefix(String prefix) {
+        counts.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
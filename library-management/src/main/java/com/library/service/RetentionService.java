@@ -0,0 +1,415 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.ErrorCode;
+import com.library.dto.response.RetentionReport;
+import com.library.dto.response.RetentionRunResponse;
+import com.library.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据保留清理
+ * 按保留策略定期清理只增不减的大表：已读通知、操作耗时汇总超过保留期直接删除，操作日志超过保留期先写入归档文件
+ * （gzip 压缩的 NDJSON，每行一条日志）再删除。
+ * <p>
+ * 先用时间索引取得截止时间对应的最大ID，之后只按主键范围分段读取和删除，每段是一条自动提交的短语句，
+ * 段与段之间暂停一段时间，避免长时间持有行锁和主从复制延迟；单次执行的分段数有上限，未清理完的部分下次继续。
+ * 操作日志使用分段存储时，过期的分段文件（本身已压缩）整体移入归档目录。
+ * <p>
+ * 手动触发的清理在后台线程执行，接口立即返回，执行状态和各表结果通过 {@link #status()} 查询。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetentionService {
+
+    public static final String ACTION_PURGE = "PURGE";
+    public static final String ACTION_ARCHIVE = "ARCHIVE";
+
+    private static final String STATUS_IDLE = "IDLE";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String NOTIFICATION_BOUND_SQL = "SELECT MAX(id) FROM notification WHERE created_at < ?";
+
+    private static final String NOTIFICATION_CHUNK_SQL = "SELECT id FROM notification " +
+            "WHERE id > ? AND id <= ? AND is_read = 1 AND created_at < ? ORDER BY id LIMIT ?";
+
+    private static final String NOTIFICATION_DELETE_SQL = "DELETE FROM notification " +
+            "WHERE id >= ? AND id <= ? AND is_read = 1 AND created_at < ?";
+
+    private static final String LOG_BOUND_SQL = "SELECT MAX(id) FROM operation_log WHERE operation_time < ?";
+
+    private static final String LOG_CHUNK_SQL = "SELECT * FROM operation_log " +
+            "WHERE id > ? AND id <= ? AND operation_time < ? ORDER BY id LIMIT ?";
+
+    private static final String LOG_DELETE_SQL = "DELETE FROM operation_log WHERE id >= ? AND id <= ? AND operation_time < ?";
+
+    private static final String LATENCY_DELETE_SQL = "DELETE FROM latency_summary WHERE minute_start < ? LIMIT ?";
+
+    private static final String AVG_ROW_LENGTH_SQL = "SELECT AVG_ROW_LENGTH FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditSegmentStore auditSegmentStore;
+
+    @Value("${library.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${library.retention.notification-read-days:90}")
+    private int notificationReadDays;
+
+    @Value("${library.retention.operation-log-days:180}")
+    private int operationLogDays;
+
+    @Value("${library.retention.latency-summary-days:30}")
+    private int latencySummaryDays;
+
+    @Value("${library.retention.archive-dir:archive}")
+    private String archiveDir;
+
+    @Value("${library.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${library.retention.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    @Value("${library.retention.max-chunks-per-run:500}")
+    private int maxChunksPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 手动清理在独立线程中执行，不占用请求线程
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "data-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 最近一次清理的状态
+     */
+    private volatile RetentionRunResponse lastRun = RetentionRunResponse.builder().status(STATUS_IDLE).build();
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 定时清理
+     */
+    @Scheduled(cron = "${library.retention.cron:0 30 2 * * ?}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            run();
+        } catch (BusinessException e) {
+            log.warn("数据保留清理未执行: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 提交一次后台清理，立即返回（同一时间只允许一个清理任务）
+     */
+    public RetentionRunResponse submit() {
+        RetentionRunResponse started = acquire("MANUAL");
+        try {
+            executor.submit(() -> execute(started));
+        } catch (RejectedExecutionException e) {
+            finish(started, null, "清理任务提交失败");
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "数据清理任务提交失败");
+        }
+        log.info("提交数据保留清理任务");
+        return started;
+    }
+
+    /**
+     * 最近一次清理的状态和各表结果
+     */
+    public RetentionRunResponse status() {
+        return lastRun;
+    }
+
+    /**
+     * 在当前线程执行全部保留策略（同一时间只允许一个清理任务）
+     */
+    public List<RetentionReport> run() {
+        return execute(acquire("SCHEDULED"));
+    }
+
+    private RetentionRunResponse acquire(String trigger) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.DATA_CONFLICT, "数据清理任务正在执行，请稍后再试");
+        }
+        RetentionRunResponse started = RetentionRunResponse.builder()
+                .status(STATUS_RUNNING)
+                .trigger(trigger)
+                .startedAt(LocalDateTime.now())
+                .build();
+        lastRun = started;
+        return started;
+    }
+
+    private void finish(RetentionRunResponse started, List<RetentionReport> reports, String error) {
+        lastRun = RetentionRunResponse.builder()
+                .status(error == null ? STATUS_COMPLETED : STATUS_FAILED)
+                .trigger(started.getTrigger())
+                .message(error)
+                .reports(reports)
+                .startedAt(started.getStartedAt())
+                .finishedAt(LocalDateTime.now())
+                .build();
+        running.set(false);
+    }
+
+    private List<RetentionReport> execute(RetentionRunResponse started) {
+        List<RetentionReport> reports = null;
+        String error = "清理任务异常中断";
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            reports = new ArrayList<>(List.of(
+                    purgeReadNotifications(now.minusDays(notificationReadDays)),
+                    archiveOperationLogs(now.minusDays(operationLogDays))));
+            if (auditSegmentStore.isEnabled()) {
+                reports.add(archiveLogSegments(now.minusDays(operationLogDays)));
+            }
+            reports.add(purgeLatencySummaries(now.minusDays(latencySummaryDays)));
+            reports.forEach(report -> log.info("数据保留清理: table={}, action={}, deleted={}, archived={}, " +
+                            "freedBytes={}, chunks={}, completed={}, elapsed={}ms", report.getTable(), report.getAction(),
+                    report.getDeletedRows(), report.getArchivedRows(), report.getFreedBytes(), report.getChunks(),
+                    report.isCompleted(), report.getElapsedMs()));
+            error = null;
+            return reports;
+        } catch (RuntimeException e) {
+            log.error("数据保留清理失败", e);
+            error = "清理失败: " + e.getMessage();
+            throw e;
+        } finally {
+            finish(started, reports, error);
+        }
+    }
+
+    /**
+     * 删除截止时间之前的已读通知（未读通知保留，不影响未读计数）
+     */
+    public RetentionReport purgeReadNotifications(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        Timestamp ts = Timestamp.valueOf(cutoff);
+        Long bound = jdbcTemplate.queryForObject(NOTIFICATION_BOUND_SQL, Long.class, ts);
+        long deleted = 0;
+        int chunks = 0;
+        boolean completed = true;
+        long cursor = 0;
+        while (bound != null) {
+            List<Long> ids = jdbcTemplate.queryForList(NOTIFICATION_CHUNK_SQL, Long.class, cursor, bound, ts, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            cursor = ids.get(ids.size() - 1);
+            deleted += jdbcTemplate.update(NOTIFICATION_DELETE_SQL, ids.get(0), cursor, ts);
+            chunks++;
+            if (ids.size() < chunkSize) {
+                break;
+            }
+            if (chunks >= maxChunksPerRun || !pause()) {
+                completed = false;
+                break;
+            }
+        }
+        return RetentionReport.builder()
+                .table("notification")
+                .action(ACTION_PURGE)
+                .cutoff(cutoff)
+                .deletedRows(deleted)
+                .freedBytes(deleted * avgRowLength("notification"))
+                .chunks(chunks)
+                .completed(completed)
+                .elapsedMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * 删除截止时间之前的操作耗时每分钟汇总（按 minute_start 索引顺序分段删除）
+     */
+    public RetentionReport purgeLatencySummaries(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        Timestamp ts = Timestamp.valueOf(cutoff);
+        long deleted = 0;
+        int chunks = 0;
+        boolean completed = true;
+        while (true) {
+            int affected = jdbcTemplate.update(LATENCY_DELETE_SQL, ts, chunkSize);
+            deleted += affected;
+            chunks++;
+            if (affected < chunkSize) {
+                break;
+            }
+            if (chunks >= maxChunksPerRun || !pause()) {
+                completed = false;
+                break;
+            }
+        }
+        return RetentionReport.builder()
+                .table("latency_summary")
+                .action(ACTION_PURGE)
+                .cutoff(cutoff)
+                .deletedRows(deleted)
+                .freedBytes(deleted * avgRowLength("latency_summary"))
+                .chunks(chunks)
+                .completed(completed)
+                .elapsedMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * 归档并删除截止时间之前的操作日志
+     * 每段先写入归档文件并刷新，再删除该段，删除失败时已归档的行会在下次执行时重复归档，不会丢失
+     */
+    public RetentionReport archiveOperationLogs(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        Timestamp ts = Timestamp.valueOf(cutoff);
+        RetentionReport report = RetentionReport.builder()
+                .table("operation_log")
+                .action(ACTION_ARCHIVE)
+                .cutoff(cutoff)
+                .completed(true)
+                .build();
+
+        Long bound = jdbcTemplate.queryForObject(LOG_BOUND_SQL, Long.class, ts);
+        List<Map<String, Object>> rows = bound == null ? List.of()
+                : jdbcTemplate.queryForList(LOG_CHUNK_SQL, 0L, bound, ts, chunkSize);
+        if (rows.isEmpty()) {
+            report.setElapsedMs(System.currentTimeMillis() - start);
+            return report;
+        }
+
+        Path file = Paths.get(archiveDir, "operation_log").toAbsolutePath().normalize()
+                .resolve("operation_log-" + LocalDateTime.now().format(FILE_TIME) + ".ndjson.gz");
+        try {
+            Files.createDirectories(file.getParent());
+            try (GZIPOutputStream out = new GZIPOutputStream(
+                    Files.newOutputStream(file, StandardOpenOption.CREATE_NEW), 64 * 1024, true)) {
+                while (true) {
+                    for (Map<String, Object> row : rows) {
+                        out.write(objectMapper.writeValueAsBytes(row));
+                        out.write('\n');
+                    }
+                    out.flush();
+                    long first = ((Number) rows.get(0).get("id")).longValue();
+                    long last = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+                    report.setArchivedRows(report.getArchivedRows() + rows.size());
+                    report.setDeletedRows(report.getDeletedRows() + jdbcTemplate.update(LOG_DELETE_SQL, first, last, ts));
+                    report.setChunks(report.getChunks() + 1);
+                    if (rows.size() < chunkSize) {
+                        break;
+                    }
+                    if (report.getChunks() >= maxChunksPerRun || !pause()) {
+                        report.setCompleted(false);
+                        break;
+                    }
+                    rows = jdbcTemplate.queryForList(LOG_CHUNK_SQL, last, bound, ts, chunkSize);
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+            report.setArchiveFile(file.toString());
+            report.setArchiveBytes(Files.size(file));
+        } catch (IOException e) {
+            log.error("操作日志归档失败: file={}, archived={}", file, report.getArchivedRows(), e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "操作日志归档失败: " + e.getMessage());
+        }
+        report.setFreedBytes(report.getDeletedRows() * avgRowLength("operation_log"));
+        report.setElapsedMs(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * 将过期的操作日志分段文件移入归档目录
+     */
+    public RetentionReport archiveLogSegments(LocalDateTime cutoff) {
+        long start = System.currentTimeMillis();
+        Path target = Paths.get(archiveDir, "operation_log", "segments").toAbsolutePath().normalize();
+        AuditSegmentStore.ArchiveResult result;
+        try {
+            result = auditSegmentStore.archiveBefore(cutoff, target);
+        } catch (IOException e) {
+            log.error("操作日志分段归档失败: dir={}", target, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "操作日志分段归档失败: " + e.getMessage());
+        }
+        return RetentionReport.builder()
+                .table("operation_log_segment")
+                .action(ACTION_ARCHIVE)
+                .cutoff(cutoff)
+                .deletedRows(result.rows())
+                .archivedRows(result.rows())
+                .archiveFile(result.segments() > 0 ? target.toString() : null)
+                .archiveBytes(result.bytes())
+                .freedBytes(result.bytes())
+                .chunks(result.segments())
+                .completed(true)
+                .elapsedMs(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    /**
+     * 段间暂停，返回 false 表示线程被中断，应停止本次清理
+     */
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 表的平均行长度（统计信息，取不到时为0）
+     */
+    private long avgRowLength(String table) {
+        try {
+            Long length = jdbcTemplate.queryForObject(AVG_ROW_LENGTH_SQL, Long.class, table);
+            return length != null ? length : 0;
+        } catch (DataAccessException e) {
+            return 0;
+        }
+    }
+}
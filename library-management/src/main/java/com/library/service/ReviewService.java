@@ -1,5 +1,6 @@
 package com.library.service;
 
+import com.library.common.CursorPageResult;
 import com.library.dto.request.ReviewRequest;
 import com.library.dto.response.ReviewResponse;
 import org.springframework.data.domain.Page;
@@ -18,6 +19,16 @@ public interface ReviewService {
      */
     Page<ReviewResponse> getBookReviews(Long bookId, int page, int size);
 
+    /**
+     * 游标分页获取图书的评论列表
+     *
+     * @param bookId    图书ID
+     * @param cursor    上一页返回的游标，首页为空
+     * @param size      每页数量
+     * @param withTotal 是否返回总数（缓存值）
+     */
+    CursorPageResult<ReviewResponse> getBookReviewsByCursor(Long bookId, String cursor, int size, boolean withTotal);
+
     /**
      * 获取当前用户的评论列表
      */
@@ -0,0 +1,97 @@
+package com.library.service;
+
+import com.library.common.CacheRegions;
+import com.library.dto.response.CacheRegionStatsResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hibernate 二级缓存维护
+ * 原子更新语句（如扣减库存）绕过实体生命周期，Hibernate 只会整体清空相关区域；
+ * 这类语句改用不对应实体表的查询空间，再由这里按ID失效单个条目。
+ * 失效采用与实体更新相同的软锁：语句执行后加锁，事务结束后解锁，
+ * 在此期间以及解锁前开始的加载都不会把旧数据写回缓存。
+ */
+@Slf4j
+@Service
+public class SecondLevelCacheService {
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SecondLevelCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * 使实体的二级缓存条目失效（在执行原子更新语句的事务内调用）
+     *
+     * @param entityClass 实体类型
+     * @param id          实体ID
+     */
+    public void evictAfterUpdate(Class<?> entityClass, Object id) {
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(entityClass);
+        if (!persister.canWriteToCache()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            sessionFactory.getCache().evictEntityData(entityClass, id);
+            return;
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        Object key = access.generateCacheKey(id, persister, sessionFactory, session.getTenantIdentifier());
+        SoftLock lock = access.lockItem(session, key, null);
+        session.getActionQueue().registerProcess((success, s) -> access.unlockItem(s, key, lock));
+    }
+
+    /**
+     * 各缓存区域的命中、未命中、写入次数和当前条目数
+     */
+    public List<CacheRegionStatsResponse> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<CacheRegionStatsResponse> result = new ArrayList<>();
+        for (String region : List.of(CacheRegions.CATEGORY, CacheRegions.FINE_RULE, CacheRegions.USER,
+                CacheRegions.BOOK, CacheRegions.QUERY_RESULTS)) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            long hits = regionStatistics != null ? regionStatistics.getHitCount() : 0;
+            long misses = regionStatistics != null ? regionStatistics.getMissCount() : 0;
+            result.add(CacheRegionStatsResponse.builder()
+                    .region(region)
+                    .hitCount(hits)
+                    .missCount(misses)
+                    .putCount(regionStatistics != null ? regionStatistics.getPutCount() : 0)
+                    .hitRatio(hits + misses > 0 ? (double) hits / (hits + misses) : 0)
+                    .size(estimatedSize(region))
+                    .build());
+        }
+        return result;
+    }
+
+    private long estimatedSize(String region) {
+        if (!(sessionFactory.getCache().getRegionFactory() instanceof JCacheRegionFactory regionFactory)) {
+            return 0;
+        }
+        Cache<Object, Object> cache = regionFactory.getCacheManager().getCache(region);
+        return cache != null ? cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize() : 0;
+    }
+}
@@ -0,0 +1,632 @@
+package com.library.service;
+
+import com.library.common.LongIntHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 基于内容的相似图书索引
+ * 将书名、作者、分类和简介切分为特征（英文按单词，中文按相邻两字），经哈希映射到固定维度，
+ * 按 TF-IDF 加权并归一化为稀疏向量。通过倒排表只对共享特征的图书计算余弦相似度，
+ * 为每本书预先保存相似度最高的若干本，查询时直接返回，不依赖借阅记录，新书上架即可推荐。
+ * <p>
+ * 启动完成后及批量导入后按分片并行全量构建；新增、修改图书时在事务提交后增量更新该书及其邻居。
+ * 增量更新沿用构建时的文档频率，偏差由每天凌晨的全量重建纠正；已删除的图书在回表时过滤。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SimilarBookIndex {
+
+    /**
+     * 简介只取前若干字符参与计算（在数据库中截断，避免读取完整的 TEXT 字段）
+     */
+    private static final int MAX_DESCRIPTION_LENGTH = 4000;
+
+    private static final String LOAD_SQL = "SELECT b.id, b.title, b.author, " +
+            "LEFT(b.description, " + MAX_DESCRIPTION_LENGTH + ") AS description, c.name AS category_name " +
+            "FROM book b LEFT JOIN category c ON c.id = b.category_id";
+
+    private static final RowMapper<Document> DOCUMENT_MAPPER = (rs, rowNum) -> new Document(rs.getLong("id"),
+            rs.getString("title"), rs.getString("author"), rs.getString("description"), rs.getString("category_name"));
+
+    /**
+     * 各字段特征的词频权重：书名最能代表内容，作者和分类次之
+     */
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+
+    /**
+     * 低于该相似度的图书不作为推荐
+     */
+    private static final float MIN_SCORE = 0.05f;
+
+    /**
+     * 出现在超过该比例图书中的特征（如“出版”“小说”）区分度低，不参与候选召回
+     */
+    private static final double MAX_DF_RATIO = 0.2;
+
+    /**
+     * 倒排表不超过该长度时遍历成本很低，不做上述截断
+     */
+    private static final int MIN_DF_CUTOFF = 1000;
+
+    /**
+     * 并行构建时单个分片的图书数量，也是逐行读取时每批并行分词的图书数量
+     */
+    private static final int ROWS_PER_TASK = 256;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${library.similar.feature-bits:18}")
+    private int featureBits;
+
+    @Value("${library.similar.max-neighbors:20}")
+    private int maxNeighbors;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /**
+     * 当前索引（读写均在 lock 保护下进行），构建完成前为 null
+     */
+    private Index index;
+
+    /**
+     * 全量构建期间有增量更新的图书，构建完成后在新索引上重新计算
+     */
+    private Set<Long> pendingUpdates;
+
+    /**
+     * 查询与指定图书内容最相似的图书ID（按相似度降序）
+     */
+    public List<Long> similar(Long bookId, int limit) {
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return List.of();
+            }
+            int row = index.rowOf.get(bookId) - 1;
+            if (row < 0) {
+                return List.of();
+            }
+            long[] neighbors = index.neighborIds[row];
+            int n = Math.min(limit, neighbors.length);
+            List<Long> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(neighbors[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 图书文本变化后重新计算其向量和相似列表（当前事务提交后生效）
+     */
+    public void update(Long bookId) {
+        afterCommit(() -> {
+            try {
+                refresh(bookId);
+            } catch (RuntimeException e) {
+                log.warn("相似图书索引增量更新失败: bookId={}", bookId, e);
+            }
+        });
+    }
+
+    /**
+     * 标记需要全量重建（当前事务提交后生效），用于批量导入等大量变更
+     */
+    public void markDirty() {
+        afterCommit(() -> dirty.set(true));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildQuietly();
+    }
+
+    @Scheduled(fixedDelayString = "${library.similar.refresh-delay-ms:10000}")
+    public void refreshIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                dirty.set(true);
+                log.error("相似图书索引重建失败", e);
+            }
+        }
+    }
+
+    /**
+     * 每天凌晨全量重建，纠正增量更新带来的文档频率偏差
+     */
+    @Scheduled(cron = "${library.similar.rebuild-cron:0 0 4 * * ?}")
+    public void scheduledRebuild() {
+        rebuildQuietly();
+    }
+
+    /**
+     * 从图书表全量构建索引：分词、统计文档频率、加权、建立倒排表后按分片并行计算相似列表
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new LinkedHashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index built;
+        try {
+            int mask = (1 << featureBits) - 1;
+            Index target = new Index(1 << featureBits, ROWS_PER_TASK);
+            List<Document> batch = new ArrayList<>(ROWS_PER_TASK);
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                batch.add(DOCUMENT_MAPPER.mapRow(rs, 0));
+                if (batch.size() == ROWS_PER_TASK) {
+                    appendBatch(target, batch, mask);
+                }
+            });
+            appendBatch(target, batch, mask);
+
+            built = target;
+            built.weighAll();
+            built.buildPostings();
+
+            int n = built.size;
+            int tasks = (n + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                float[] scores = new float[n];
+                int[] touched = new int[n];
+                int to = Math.min(n, (task + 1) * ROWS_PER_TASK);
+                for (int row = task * ROWS_PER_TASK; row < to; row++) {
+                    target.computeNeighbors(row, scores, touched, maxNeighbors);
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingUpdates = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        Set<Long> updated;
+        lock.writeLock().lock();
+        try {
+            index = built;
+            updated = pendingUpdates;
+            pendingUpdates = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Long bookId : updated) {
+            refresh(bookId);
+        }
+        log.info("相似图书索引构建完成: books={}, 耗时={}ms", built.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 并行分词一批图书后追加到索引，清空批次（简介文本不在内存中整体保留）
+     */
+    private static void appendBatch(Index target, List<Document> batch, int mask) {
+        TermCounts[] counts = batch.parallelStream()
+                .map(document -> document.terms(mask))
+                .toArray(TermCounts[]::new);
+        for (int i = 0; i < counts.length; i++) {
+            target.append(batch.get(i).id, counts[i]);
+        }
+        batch.clear();
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("相似图书索引构建失败", e);
+        }
+    }
+
+    private void refresh(Long bookId) {
+        List<Document> documents = jdbcTemplate.query(LOAD_SQL + " WHERE b.id = ?", DOCUMENT_MAPPER, bookId);
+        if (documents.isEmpty()) {
+            return;
+        }
+        TermCounts counts = documents.get(0).terms((1 << featureBits) - 1);
+
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(bookId);
+            }
+            if (index != null) {
+                index.replace(bookId, counts, maxNeighbors);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 参与计算的图书文本
+     */
+    private record Document(long id, String title, String author, String description, String category) {
+
+        TermCounts terms(int mask) {
+            LongIntHashMap counts = new LongIntHashMap(64);
+            tokenize(title, TITLE_WEIGHT, mask, counts);
+            if (description != null) {
+                tokenize(description, 1, mask, counts);
+            }
+            // 作者、分类整体作为一个特征，只有完全相同才匹配
+            if (author != null && !author.isBlank()) {
+                counts.addTo(feature("a|" + author.trim().toLowerCase(Locale.ROOT), mask), AUTHOR_WEIGHT);
+            }
+            if (category != null) {
+                counts.addTo(feature("c|" + category, mask), CATEGORY_WEIGHT);
+            }
+
+            long[] keys = counts.keys();
+            Arrays.sort(keys);
+            int[] features = new int[keys.length];
+            int[] frequencies = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                features[i] = (int) keys[i] - 1;
+                frequencies[i] = counts.get(keys[i]);
+            }
+            return new TermCounts(features, frequencies);
+        }
+    }
+
+    /**
+     * 一本书的特征及词频，特征按升序排列
+     */
+    private record TermCounts(int[] features, int[] frequencies) {
+    }
+
+    /**
+     * 切分文本并累加特征词频：英文和数字按单词（至少两个字符），中文按相邻两字，单独的汉字按单字
+     */
+    static void tokenize(String text, int weight, int mask, LongIntHashMap counts) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        int prevHan = -1;
+        int hanRun = 0;
+        int i = 0;
+        while (i <= text.length()) {
+            int cp = i < text.length() ? text.codePointAt(i) : ' ';
+            boolean han = Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN;
+            if (han) {
+                if (prevHan >= 0) {
+                    counts.addTo(feature(new StringBuilder().appendCodePoint(prevHan).appendCodePoint(cp), mask), weight);
+                }
+                prevHan = cp;
+                hanRun++;
+            } else {
+                if (hanRun == 1) {
+                    counts.addTo(feature(new StringBuilder().appendCodePoint(prevHan), mask), weight);
+                }
+                prevHan = -1;
+                hanRun = 0;
+            }
+
+            if (!han && Character.isLetterOrDigit(cp)) {
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else if (!word.isEmpty()) {
+                if (word.length() > 1) {
+                    counts.addTo(feature(word, mask), weight);
+                }
+                word.setLength(0);
+            }
+            i += Character.charCount(cp);
+        }
+    }
+
+    /**
+     * 特征哈希，结果 +1 作为 LongIntHashMap 的键（键0保留）
+     */
+    private static long feature(CharSequence token, int mask) {
+        int h = token.toString().hashCode() * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & mask) + 1L;
+    }
+
+    /**
+     * 向量与相似列表
+     * 行号与图书ID一一对应，新增图书追加到末尾
+     */
+    private static final class Index {
+
+        final LongIntHashMap rowOf;
+        long[] ids;
+        int size;
+
+        /**
+         * 每行的特征（升序）、原始词频及 TF-IDF 权重（L2 归一化）
+         */
+        int[][] features;
+        int[][] frequencies;
+        float[][] weights;
+
+        /**
+         * 特征 -> 包含该特征的行及对应权重
+         */
+        final int[] df;
+        final int[][] postingRows;
+        final float[][] postingWeights;
+        final int[] postingSizes;
+
+        /**
+         * 每行的相似图书ID及相似度，按相似度降序
+         */
+        long[][] neighborIds;
+        float[][] neighborScores;
+
+        Index(int dimension, int capacity) {
+            capacity = Math.max(16, capacity);
+            rowOf = new LongIntHashMap(capacity);
+            ids = new long[capacity];
+            features = new int[capacity][];
+            frequencies = new int[capacity][];
+            weights = new float[capacity][];
+            neighborIds = new long[capacity][];
+            neighborScores = new float[capacity][];
+            df = new int[dimension];
+            postingRows = new int[dimension][];
+            postingWeights = new float[dimension][];
+            postingSizes = new int[dimension];
+        }
+
+        void append(long id, TermCounts counts) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                features = Arrays.copyOf(features, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                neighborIds = Arrays.copyOf(neighborIds, capacity);
+                neighborScores = Arrays.copyOf(neighborScores, capacity);
+            }
+            int row = size++;
+            ids[row] = id;
+            rowOf.put(id, row + 1);
+            features[row] = counts.features();
+            frequencies[row] = counts.frequencies();
+            neighborIds[row] = new long[0];
+            neighborScores[row] = new float[0];
+            for (int feature : counts.features()) {
+                df[feature]++;
+            }
+        }
+
+        void weighAll() {
+            IntStream.range(0, size).parallel().forEach(this::weigh);
+        }
+
+        /**
+         * TF-IDF：(1 + ln tf) * (ln((N + 1) / (df + 1)) + 1)，再做 L2 归一化
+         */
+        void weigh(int row) {
+            int[] f = features[row];
+            int[] tf = frequencies[row];
+            float[] w = new float[f.length];
+            double norm = 0;
+            for (int i = 0; i < f.length; i++) {
+                double value = (1 + Math.log(tf[i])) * (Math.log((size + 1.0) / (df[f[i]] + 1.0)) + 1);
+                w[i] = (float) value;
+                norm += value * value;
+            }
+            if (norm > 0) {
+                float scale = (float) (1 / Math.sqrt(norm));
+                for (int i = 0; i < w.length; i++) {
+                    w[i] *= scale;
+                }
+            }
+            weights[row] = w;
+        }
+
+        void buildPostings() {
+            for (int feature = 0; feature < df.length; feature++) {
+                if (df[feature] > 0) {
+                    postingRows[feature] = new int[df[feature]];
+                    postingWeights[feature] = new float[df[feature]];
+                }
+            }
+            for (int row = 0; row < size; row++) {
+                addPostings(row);
+            }
+        }
+
+        /**
+         * 通过倒排表累加与共享特征图书的点积，保留相似度最高的 limit 本
+         */
+        void computeNeighbors(int row, float[] scores, int[] touched, int limit) {
+            int maxDf = Math.max(MIN_DF_CUTOFF, (int) (size * MAX_DF_RATIO));
+            int[] f = features[row];
+            float[] w = weights[row];
+            int touchedCount = 0;
+            for (int i = 0; i < f.length; i++) {
+                int feature = f[i];
+                if (df[feature] > maxDf) {
+                    continue;
+                }
+                int[] rows = postingRows[feature];
+                float[] postings = postingWeights[feature];
+                for (int p = 0, n = postingSizes[feature]; p < n; p++) {
+                    int other = rows[p];
+                    if (other == row) {
+                        continue;
+                    }
+                    if (scores[other] == 0) {
+                        touched[touchedCount++] = other;
+                    }
+                    scores[other] += w[i] * postings[p];
+                }
+            }
+
+            long[] topIds = new long[limit];
+            float[] topScores = new float[limit];
+            int count = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int other = touched[t];
+                float score = scores[other];
+                scores[other] = 0;
+                if (score >= MIN_SCORE) {
+                    count = insert(topIds, topScores, count, ids[other], score);
+                }
+            }
+            neighborIds[row] = Arrays.copyOf(topIds, count);
+            neighborScores[row] = Arrays.copyOf(topScores, count);
+        }
+
+        /**
+         * 增量更新一本书：替换倒排表中的旧向量，重新计算其相似列表，并同步到相关图书的相似列表中
+         */
+        void replace(long id, TermCounts counts, int limit) {
+            int row = rowOf.get(id) - 1;
+            long[] previous;
+            if (row < 0) {
+                previous = new long[0];
+                append(id, counts);
+                row = size - 1;
+            } else {
+                previous = neighborIds[row];
+                removePostings(row);
+                for (int feature : features[row]) {
+                    df[feature]--;
+                }
+                features[row] = counts.features();
+                frequencies[row] = counts.frequencies();
+                for (int feature : counts.features()) {
+                    df[feature]++;
+                }
+            }
+            weigh(row);
+            addPostings(row);
+            computeNeighbors(row, new float[size], new int[size], limit);
+
+            // 相似度对称：本书新列表中的图书尝试收录本书，原列表中的图书先移除本书
+            for (long other : previous) {
+                int otherRow = rowOf.get(other) - 1;
+                if (otherRow >= 0) {
+                    removeNeighbor(otherRow, id);
+                }
+            }
+            long[] current = neighborIds[row];
+            float[] currentScores = neighborScores[row];
+            for (int i = 0; i < current.length; i++) {
+                int otherRow = rowOf.get(current[i]) - 1;
+                removeNeighbor(otherRow, id);
+                long[] topIds = Arrays.copyOf(neighborIds[otherRow], limit);
+                float[] topScores = Arrays.copyOf(neighborScores[otherRow], limit);
+                int count = insert(topIds, topScores, neighborIds[otherRow].length, id, currentScores[i]);
+                neighborIds[otherRow] = Arrays.copyOf(topIds, count);
+                neighborScores[otherRow] = Arrays.copyOf(topScores, count);
+            }
+        }
+
+        private void addPostings(int row) {
+            int[] f = features[row];
+            float[] w = weights[row];
+            for (int i = 0; i < f.length; i++) {
+                int feature = f[i];
+                int n = postingSizes[feature];
+                if (postingRows[feature] == null || n == postingRows[feature].length) {
+                    int capacity = Math.max(4, n * 2);
+                    postingRows[feature] = postingRows[feature] == null
+                            ? new int[capacity] : Arrays.copyOf(postingRows[feature], capacity);
+                    postingWeights[feature] = postingWeights[feature] == null
+                            ? new float[capacity] : Arrays.copyOf(postingWeights[feature], capacity);
+                }
+                postingRows[feature][n] = row;
+                postingWeights[feature][n] = w[i];
+                postingSizes[feature] = n + 1;
+            }
+        }
+
+        private void removePostings(int row) {
+            for (int feature : features[row]) {
+                int[] rows = postingRows[feature];
+                int n = postingSizes[feature];
+                for (int p = 0; p < n; p++) {
+                    if (rows[p] == row) {
+                        rows[p] = rows[n - 1];
+                        postingWeights[feature][p] = postingWeights[feature][n - 1];
+                        postingSizes[feature] = n - 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void removeNeighbor(int row, long id) {
+            long[] list = neighborIds[row];
+            for (int i = 0; i < list.length; i++) {
+                if (list[i] == id) {
+                    long[] newIds = new long[list.length - 1];
+                    float[] newScores = new float[list.length - 1];
+                    System.arraycopy(list, 0, newIds, 0, i);
+                    System.arraycopy(list, i + 1, newIds, i, list.length - i - 1);
+                    System.arraycopy(neighborScores[row], 0, newScores, 0, i);
+                    System.arraycopy(neighborScores[row], i + 1, newScores, i, list.length - i - 1);
+                    neighborIds[row] = newIds;
+                    neighborScores[row] = newScores;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 插入有序的前 N 列表（相似度降序，相同时ID小的在前），返回新长度
+         */
+        private static int insert(long[] topIds, float[] topScores, int count, long id, float score) {
+            int limit = topIds.length;
+            if (limit == 0) {
+                return 0;
+            }
+            if (count == limit && !better(score, id, topScores[count - 1], topIds[count - 1])) {
+                return count;
+            }
+            int pos = count == limit ? count - 1 : count;
+            while (pos > 0 && better(score, id, topScores[pos - 1], topIds[pos - 1])) {
+                topIds[pos] = topIds[pos - 1];
+                topScores[pos] = topScores[pos - 1];
+                pos--;
+            }
+            topIds[pos] = id;
+            topScores[pos] = score;
+            return Math.min(count + 1, limit);
+        }
+
+        private static boolean better(float score, long id, float otherScore, long otherId) {
+            return score > otherScore || (score == otherScore && id < otherId);
+        }
+    }
+}
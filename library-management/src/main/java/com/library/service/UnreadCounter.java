@@ -0,0 +1,220 @@
+package com.library.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.library.common.TransactionHooks.afterCommit;
+
+/**
+ * 用户未读通知计数
+ * 计数保存在 notification_counter 表，写入通知、标记已读时与业务数据在同一事务内增减，
+ * 未读数查询按主键读取计数行，不再执行 COUNT。
+ * <p>
+ * 内存中镜像已读取过的计数（条目数有上限），计数变化在事务提交后使对应条目失效，下次查询重新读取计数行。
+ * 不在镜像上叠加增量：提交到提交回调执行之间，其他请求可能已读取并缓存了包含本次变更的计数，再叠加会重复计算。
+ * <p>
+ * 计数行在首次读取时按实际未读数初始化。初始化与并发写入交错等情况可能造成少量偏差，
+ * 由定时校对按通知表重新计算并修正。
+ * <p>
+ * 计数行同时保存广播通知的已读水位（已读的最大广播ID），广播通知的未读数在读取时按水位计算。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounter {
+
+    private static final String SELECT_SQL = "SELECT unread_count, broadcast_watermark FROM notification_counter WHERE user_id = ?";
+
+    private static final String INIT_SQL = "INSERT IGNORE INTO notification_counter (user_id, unread_count, " +
+            "broadcast_watermark, updated_at) SELECT ?, COUNT(*), 0, ? FROM notification WHERE user_id = ? AND is_read = 0";
+
+    private static final String ADD_SQL = "UPDATE notification_counter " +
+            "SET unread_count = GREATEST(unread_count + ?, 0), updated_at = ? WHERE user_id = ?";
+
+    private static final String RESET_SQL = "UPDATE notification_counter SET unread_count = 0, updated_at = ? " +
+            "WHERE user_id = ? AND unread_count <> 0";
+
+    private static final String WATERMARK_SQL = "UPDATE notification_counter " +
+            "SET broadcast_watermark = GREATEST(broadcast_watermark, ?), updated_at = ? WHERE user_id = ?";
+
+    private static final String MAX_USER_ID_SQL = "SELECT MAX(user_id) FROM notification_counter";
+
+    /**
+     * 按用户ID区间 (fromId, toId] 校对计数行，子查询只统计该区间内用户的未读通知
+     */
+    private static final String RECONCILE_SQL = "UPDATE notification_counter c LEFT JOIN " +
+            "(SELECT user_id, COUNT(*) AS unread FROM notification " +
+            "WHERE is_read = 0 AND user_id > ? AND user_id <= ? GROUP BY user_id) n " +
+            "ON n.user_id = c.user_id SET c.unread_count = COALESCE(n.unread, 0), c.updated_at = ? " +
+            "WHERE c.user_id > ? AND c.user_id <= ? AND c.unread_count <> COALESCE(n.unread, 0)";
+
+    /**
+     * 版本号分段数量（必须为2的幂）
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final RowMapper<State> STATE_MAPPER = (rs, rowNum) -> new State(rs.getInt(1), rs.getLong(2));
+
+    /**
+     * 内存镜像：用户ID -> 计数状态
+     */
+    private final ConcurrentHashMap<Long, State> mirror = new ConcurrentHashMap<>();
+
+    /**
+     * 分段版本号，每次失效时递增。
+     * 读取计数行前记录版本号，回填镜像时版本号已变化则放弃回填，避免写入提交前读到的旧计数。
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Value("${library.notification.counter-cache-max-size:100000}")
+    private int maxSize;
+
+    @Value("${library.notification.counter-reconcile-chunk-size:1000}")
+    private int reconcileChunkSize;
+
+    /**
+     * 未读数与广播已读水位
+     */
+    public record State(int unread, long broadcastWatermark) {
+    }
+
+    /**
+     * 查询个人通知未读数
+     */
+    public int get(Long userId) {
+        return state(userId).unread();
+    }
+
+    /**
+     * 查询计数状态（内存未命中时读取计数行，计数行不存在时按通知表初始化）
+     */
+    public State state(Long userId) {
+        State cached = mirror.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long version = versions.get(stripe(userId));
+        List<State> rows = jdbcTemplate.query(SELECT_SQL, STATE_MAPPER, userId);
+        if (rows.isEmpty()) {
+            jdbcTemplate.update(INIT_SQL, userId, now(), userId);
+            rows = jdbcTemplate.query(SELECT_SQL, STATE_MAPPER, userId);
+        }
+        State state = rows.isEmpty() ? new State(0, 0) : rows.get(0);
+
+        if (mirror.size() >= maxSize) {
+            evictSome();
+        }
+        State installed = mirror.compute(userId, (key, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return versions.get(stripe(userId)) == version ? state : null;
+        });
+        return installed != null ? installed : state;
+    }
+
+    /**
+     * 增减未读数（需在写入或更新通知的事务内调用；计数行尚未初始化时跳过，首次读取时会按实际值初始化）
+     */
+    public void add(Long userId, int delta) {
+        jdbcTemplate.update(ADD_SQL, delta, now(), userId);
+        afterCommit(() -> invalidate(userId));
+    }
+
+    /**
+     * 批量增减未读数：用户ID -> 变化量
+     */
+    public void add(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp now = now();
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> args.add(new Object[]{delta, now, userId}));
+        jdbcTemplate.batchUpdate(ADD_SQL, args);
+        afterCommit(() -> deltas.keySet().forEach(this::invalidate));
+    }
+
+    /**
+     * 未读数清零（全部标记已读）
+     */
+    public void reset(Long userId) {
+        jdbcTemplate.update(RESET_SQL, now(), userId);
+        afterCommit(() -> invalidate(userId));
+    }
+
+    /**
+     * 推进广播已读水位（只增不减）
+     */
+    public void advanceWatermark(Long userId, long broadcastId) {
+        state(userId);
+        jdbcTemplate.update(WATERMARK_SQL, broadcastId, now(), userId);
+        afterCommit(() -> invalidate(userId));
+    }
+
+    /**
+     * 定时校对：按用户ID分段、按通知表重新计算计数行，修正偏差并清空内存镜像
+     */
+    @Scheduled(cron = "${library.notification.counter-reconcile-cron:0 15 3 * * ?}")
+    public void reconcile() {
+        Long maxUserId = jdbcTemplate.queryForObject(MAX_USER_ID_SQL, Long.class);
+        int fixed = 0;
+        if (maxUserId != null) {
+            for (long from = 0; from < maxUserId; from += reconcileChunkSize) {
+                long to = from + reconcileChunkSize;
+                fixed += jdbcTemplate.update(RECONCILE_SQL, from, to, now(), from, to);
+            }
+        }
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        mirror.clear();
+        if (fixed > 0) {
+            log.warn("未读计数校对完成，修正 {} 个用户的计数偏差", fixed);
+        } else {
+            log.info("未读计数校对完成，无偏差");
+        }
+    }
+
+    private void invalidate(Long userId) {
+        mirror.compute(userId, (key, existing) -> {
+            versions.incrementAndGet(stripe(userId));
+            return null;
+        });
+    }
+
+    private void evictSome() {
+        // 简单淘汰：移除约10%的条目，避免镜像无限增长
+        int toRemove = Math.max(1, maxSize / 10);
+        Iterator<Long> iterator = mirror.keySet().iterator();
+        while (iterator.hasNext() && toRemove-- > 0) {
+            Long userId = iterator.next();
+            versions.incrementAndGet(stripe(userId));
+            iterator.remove();
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return Long.hashCode(userId) & (VERSION_STRIPES - 1);
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,29 @@
+package com.library.service.exporter;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 导出列的取值方式，按结果集元数据确定，逐行读取时按类型直接取值，不经过实体或 DTO
+ */
+public enum ColumnKind {
+
+    LONG, DECIMAL, DOUBLE, BOOLEAN, TIMESTAMP, DATE, STRING;
+
+    public static ColumnKind[] of(ResultSetMetaData metaData) throws SQLException {
+        ColumnKind[] kinds = new ColumnKind[metaData.getColumnCount()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = switch (metaData.getColumnType(i + 1)) {
+                case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+                case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+                case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+                case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+                case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+                case Types.DATE -> DATE;
+                default -> STRING;
+            };
+        }
+        return kinds;
+    }
+}
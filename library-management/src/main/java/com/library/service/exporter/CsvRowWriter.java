@@ -0,0 +1,120 @@
+package com.library.service.exporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV 写入器（RFC 4180）
+ * 含逗号、引号或换行的字段用引号包裹并转义引号，空值写为空字段，时间格式为 yyyy-MM-dd HH:mm:ss
+ */
+public class CsvRowWriter implements RowWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+    private ColumnKind[] kinds;
+
+    public CsvRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void writeHeader(String[] columns, ColumnKind[] kinds) throws IOException {
+        this.kinds = kinds;
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeText(columns[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < kinds.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            int column = i + 1;
+            switch (kinds[i]) {
+                case LONG -> {
+                    long value = rs.getLong(column);
+                    if (!rs.wasNull()) {
+                        writer.write(Long.toString(value));
+                    }
+                }
+                case DECIMAL -> {
+                    BigDecimal value = rs.getBigDecimal(column);
+                    if (value != null) {
+                        writer.write(value.toPlainString());
+                    }
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(column);
+                    if (!rs.wasNull()) {
+                        writer.write(Double.toString(value));
+                    }
+                }
+                case BOOLEAN -> {
+                    boolean value = rs.getBoolean(column);
+                    if (!rs.wasNull()) {
+                        writer.write(value ? "true" : "false");
+                    }
+                }
+                case TIMESTAMP -> {
+                    LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+                    if (value != null) {
+                        TIMESTAMP_FORMATTER.formatTo(value, writer);
+                    }
+                }
+                case DATE -> {
+                    LocalDate value = rs.getObject(column, LocalDate.class);
+                    if (value != null) {
+                        writer.write(value.toString());
+                    }
+                }
+                default -> {
+                    String value = rs.getString(column);
+                    if (value != null) {
+                        writeText(value);
+                    }
+                }
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeText(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,167 @@
+package com.library.service.exporter;
+
+import com.library.common.ErrorCode;
+import com.library.exception.BusinessException;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 可导出的数据集
+ * 每个数据集对应一条按主键顺序读取的 SQL，列名即 CSV 表头和 NDJSON 字段名，
+ * 借阅记录的状态编码转换为名称；用户不导出密码，图书不导出简介大字段。
+ */
+public enum ExportDataset {
+
+    BORROW_RECORDS("borrows", "借阅记录", ExportFormat.XLSX, false,
+            "borrow_record", "borrow_record br JOIN user u ON br.user_id = u.id JOIN book b ON br.book_id = b.id", "br.id",
+            new Column("id", "br.id"),
+            new Column("user_id", "br.user_id"),
+            new Column("username", "u.username"),
+            new Column("real_name", "u.real_name"),
+            new Column("book_id", "br.book_id"),
+            new Column("book_title", "b.title"),
+            new Column("isbn", "b.isbn"),
+            new Column("author", "b.author"),
+            new Column("borrow_date", "br.borrow_date"),
+            new Column("due_date", "br.due_date"),
+            new Column("return_date", "br.return_date"),
+            new Column("status", "CASE br.status WHEN 0 THEN 'BORROWING' WHEN 1 THEN 'RETURNED' WHEN 2 THEN 'OVERDUE' END"),
+            new Column("renew_count", "br.renew_count"),
+            new Column("overdue_days", "br.overdue_days"),
+            new Column("fine_amount", "br.fine_amount"),
+            new Column("fine_paid", "br.fine_paid"),
+            new Column("remark", "br.remark"),
+            new Column("created_at", "br.created_at")),
+
+    FINES("fines", "罚款记录", ExportFormat.CSV, false,
+            "fine_record", "fine_record f JOIN user u ON f.user_id = u.id", "f.id",
+            new Column("id", "f.id"),
+            new Column("user_id", "f.user_id"),
+            new Column("username", "u.username"),
+            new Column("borrow_id", "f.borrow_id"),
+            new Column("amount", "f.amount"),
+            new Column("overdue_days", "f.overdue_days"),
+            new Column("status", "f.status"),
+            new Column("paid_at", "f.paid_at"),
+            new Column("waived_at", "f.waived_at"),
+            new Column("waive_reason", "f.waive_reason"),
+            new Column("operator_name", "f.operator_name"),
+            new Column("remark", "f.remark"),
+            new Column("created_at", "f.created_at")),
+
+    USERS("users", "用户", ExportFormat.CSV, true,
+            "user", "user u", "u.id",
+            new Column("id", "u.id"),
+            new Column("username", "u.username"),
+            new Column("real_name", "u.real_name"),
+            new Column("email", "u.email"),
+            new Column("phone", "u.phone"),
+            new Column("role", "u.role"),
+            new Column("status", "u.status"),
+            new Column("created_at", "u.created_at")),
+
+    BOOKS("books", "图书", ExportFormat.CSV, false,
+            "book", "book b LEFT JOIN category c ON b.category_id = c.id", "b.id",
+            new Column("id", "b.id"),
+            new Column("isbn", "b.isbn"),
+            new Column("title", "b.title"),
+            new Column("author", "b.author"),
+            new Column("publisher", "b.publisher"),
+            new Column("publish_date", "b.publish_date"),
+            new Column("category_id", "b.category_id"),
+            new Column("category_name", "c.name"),
+            new Column("price", "b.price"),
+            new Column("total_count", "b.total_count"),
+            new Column("available_count", "b.available_count"),
+            new Column("location", "b.location"),
+            new Column("status", "b.status"),
+            new Column("borrow_count", "b.borrow_count"),
+            new Column("review_count", "b.review_count"),
+            new Column("rating_sum", "b.rating_sum"),
+            new Column("created_at", "b.created_at"));
+
+    /**
+     * 导出列：列名与 SQL 表达式
+     */
+    public record Column(String name, String expression) {
+    }
+
+    private final String path;
+    private final String title;
+    private final ExportFormat defaultFormat;
+    private final boolean adminOnly;
+    private final String table;
+    private final String from;
+    private final String orderBy;
+    private final Column[] columns;
+
+    ExportDataset(String path, String title, ExportFormat defaultFormat, boolean adminOnly,
+                  String table, String from, String orderBy, Column... columns) {
+        this.path = path;
+        this.title = title;
+        this.defaultFormat = defaultFormat;
+        this.adminOnly = adminOnly;
+        this.table = table;
+        this.from = from;
+        this.orderBy = orderBy;
+        this.columns = columns;
+    }
+
+    /**
+     * 接口路径中的名称：borrows / fines / users / books
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 下载文件名前缀
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public ExportFormat getDefaultFormat() {
+        return defaultFormat;
+    }
+
+    /**
+     * 是否仅管理员可导出（包含个人信息）
+     */
+    public boolean isAdminOnly() {
+        return adminOnly;
+    }
+
+    public String[] columnNames() {
+        return Arrays.stream(columns).map(Column::name).toArray(String[]::new);
+    }
+
+    /**
+     * 查询语句（where 为空时导出全部）
+     */
+    public String selectSql(String where) {
+        return "SELECT " + Arrays.stream(columns)
+                .map(column -> column.expression() + " AS " + column.name())
+                .collect(Collectors.joining(", "))
+                + " FROM " + from
+                + (where == null || where.isEmpty() ? "" : " WHERE " + where)
+                + " ORDER BY " + orderBy;
+    }
+
+    /**
+     * 全表计数语句（用于估算进度）
+     */
+    public String countSql() {
+        return "SELECT COUNT(*) FROM " + table;
+    }
+
+    public static ExportDataset of(String path) {
+        for (ExportDataset dataset : values()) {
+            if (dataset.path.equalsIgnoreCase(path)) {
+                return dataset;
+            }
+        }
+        throw new BusinessException(ErrorCode.PARAM_ERROR, "不支持的导出数据：" + path);
+    }
+}
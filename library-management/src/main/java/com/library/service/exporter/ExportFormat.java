@@ -0,0 +1,57 @@
+package com.library.service.exporter;
+
+import com.library.common.ErrorCode;
+import com.library.exception.BusinessException;
+
+import java.util.Locale;
+
+/**
+ * 导出文件格式
+ */
+public enum ExportFormat {
+
+    /**
+     * Excel 工作簿（仅借阅记录）
+     */
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+
+    /**
+     * gzip 压缩的 CSV（RFC 4180，首行为列名）
+     */
+    CSV("csv.gz", "application/gzip"),
+
+    /**
+     * gzip 压缩的 NDJSON（每行一个 JSON 对象）
+     */
+    NDJSON("ndjson.gz", "application/gzip");
+
+    private final String extension;
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 解析格式参数，为空时返回默认格式
+     */
+    public static ExportFormat of(String value, ExportFormat defaultFormat) {
+        if (value == null || value.isBlank()) {
+            return defaultFormat;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "导出格式仅支持 xlsx / csv / ndjson");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.service.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 导出使用的 gzip 输出流
+ * 使用最快压缩级别（导出文本重复度高，压缩率与默认级别相差不大，CPU 耗时约为其三分之一）；
+ * 关闭时只写入 gzip 尾部并释放压缩器，不关闭底层流（响应流或文件流由调用方管理）。
+ */
+public class GzipExportStream extends GZIPOutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public GzipExportStream(OutputStream out) throws IOException {
+        super(out, BUFFER_SIZE);
+        def.setLevel(Deflater.BEST_SPEED);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+            out.flush();
+        } finally {
+            def.end();
+        }
+    }
+}
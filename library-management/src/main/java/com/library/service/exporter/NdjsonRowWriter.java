@@ -0,0 +1,101 @@
+package com.library.service.exporter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * NDJSON 写入器，每行一个 JSON 对象
+ * 使用 Jackson 流式生成器直接写出，字段名预先编码；空值写为 null，时间为 ISO-8601 格式
+ */
+public class NdjsonRowWriter implements RowWriter {
+
+    private final JsonGenerator generator;
+    private SerializedString[] names;
+    private ColumnKind[] kinds;
+
+    public NdjsonRowWriter(JsonFactory jsonFactory, OutputStream out) throws IOException {
+        this.generator = jsonFactory.createGenerator(out);
+        // 根对象之间不写分隔符，由每行末尾的换行分隔
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        this.generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+    }
+
+    @Override
+    public void writeHeader(String[] columns, ColumnKind[] kinds) {
+        this.kinds = kinds;
+        this.names = new SerializedString[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = new SerializedString(columns[i]);
+        }
+    }
+
+    @Override
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < kinds.length; i++) {
+            generator.writeFieldName(names[i]);
+            int column = i + 1;
+            switch (kinds[i]) {
+                case LONG -> {
+                    long value = rs.getLong(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case DECIMAL -> {
+                    BigDecimal value = rs.getBigDecimal(column);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case BOOLEAN -> {
+                    boolean value = rs.getBoolean(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeBoolean(value);
+                    }
+                }
+                case TIMESTAMP -> {
+                    LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+                    generator.writeString(value != null ? DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value) : null);
+                }
+                case DATE -> {
+                    LocalDate value = rs.getObject(column, LocalDate.class);
+                    generator.writeString(value != null ? value.toString() : null);
+                }
+                default -> generator.writeString(rs.getString(column));
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.service.exporter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 导出文件的流式写入器，直接从结果集的当前行取值写出，内存占用与导出行数无关
+ */
+public interface RowWriter extends Closeable {
+
+    /**
+     * 写入表头（在第一行之前调用一次）
+     *
+     * @param columns 列名
+     * @param kinds   各列取值方式
+     */
+    void writeHeader(String[] columns, ColumnKind[] kinds) throws IOException;
+
+    /**
+     * 写入结果集的当前行
+     */
+    void writeRow(ResultSet rs) throws SQLException, IOException;
+}
@@ -5,10 +5,12 @@ import com.library.common.PageResult;
 import com.library.dto.request.AnnouncementRequest;
 import com.library.dto.response.AnnouncementResponse;
 import com.library.entity.Announcement;
+import com.library.entity.Notification;
 import com.library.entity.User;
 import com.library.exception.BusinessException;
 import com.library.repository.AnnouncementRepository;
 import com.library.service.AnnouncementService;
+import com.library.service.NotificationService;
 import com.library.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -27,6 +30,14 @@ public class AnnouncementServiceImpl implements AnnouncementService {
 
     private final AnnouncementRepository announcementRepository;
     private final UserService userService;
+    private final NotificationService notificationService;
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]+>");
+
+    /**
+     * 广播通知中公告摘要的最大长度
+     */
+    private static final int BROADCAST_SUMMARY_LENGTH = 200;
 
     @Override
     @Transactional
@@ -45,6 +56,9 @@ public class AnnouncementServiceImpl implements AnnouncementService {
 
         announcement = announcementRepository.save(announcement);
         log.info("创建公告成功: id={}, title={}", announcement.getId(), announcement.getTitle());
+        if (announcement.getStatus() == 1) {
+            broadcast(announcement);
+        }
 
         return AnnouncementResponse.fromEntity(announcement);
     }
@@ -67,12 +81,18 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         if (request.getPinned() != null) {
             announcement.setPinned(request.getPinned());
         }
+        int previousStatus = announcement.getStatus();
         if (request.getStatus() != null) {
             announcement.setStatus(request.getStatus());
         }
 
         announcement = announcementRepository.save(announcement);
         log.info("更新公告成功: id={}, title={}", announcement.getId(), announcement.getTitle());
+        if (previousStatus != 1 && announcement.getStatus() == 1) {
+            broadcast(announcement);
+        } else if (previousStatus == 1 && announcement.getStatus() != 1) {
+            notificationService.withdrawBroadcast(announcement.getId());
+        }
 
         return AnnouncementResponse.fromEntity(announcement);
     }
@@ -89,6 +109,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         }
 
         announcementRepository.deleteById(id);
+        notificationService.withdrawBroadcast(id);
         log.info("删除公告成功: id={}", id);
     }
 
@@ -168,6 +189,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         announcement.setStatus(1);
         announcement = announcementRepository.save(announcement);
         log.info("发布公告成功: id={}, title={}", announcement.getId(), announcement.getTitle());
+        broadcast(announcement);
 
         return AnnouncementResponse.fromEntity(announcement);
     }
@@ -189,6 +211,7 @@ public class AnnouncementServiceImpl implements AnnouncementService {
         announcement.setStatus(0);
         announcement = announcementRepository.save(announcement);
         log.info("撤回公告成功: id={}, title={}", announcement.getId(), announcement.getTitle());
+        notificationService.withdrawBroadcast(announcement.getId());
 
         return AnnouncementResponse.fromEntity(announcement);
     }
@@ -209,4 +232,18 @@ public class AnnouncementServiceImpl implements AnnouncementService {
 
         return AnnouncementResponse.fromEntity(announcement);
     }
+
+    /**
+     * 公告发布后向全体读者发送广播通知（重新发布时替换该公告之前的广播）
+     */
+    private void broadcast(Announcement announcement) {
+        String content = announcement.getContent() != null
+                ? HTML_TAG.matcher(announcement.getContent()).replaceAll("").trim()
+                : "";
+        if (content.length() > BROADCAST_SUMMARY_LENGTH) {
+            content = content.substring(0, BROADCAST_SUMMARY_LENGTH) + "…";
+        }
+        notificationService.sendBroadcast(Notification.Type.ANNOUNCEMENT, "新公告：" + announcement.getTitle(),
+                content.isEmpty() ? announcement.getTitle() : content, announcement.getId());
+    }
 }
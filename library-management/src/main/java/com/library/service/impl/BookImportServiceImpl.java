@@ -0,0 +1,547 @@
+package com.library.service.impl;
+
+import com.library.common.ErrorCode;
+import com.library.dto.response.BookImportJobResponse;
+import com.library.entity.Category;
+import com.library.exception.BusinessException;
+import com.library.repository.CategoryRepository;
+import com.library.service.BookImportService;
+import com.library.service.CatalogIndex;
+import com.library.service.PageCountCache;
+import com.library.service.SimilarBookIndex;
+import com.library.service.importer.BookImportFormatException;
+import com.library.service.importer.BookImportRow;
+import com.library.service.importer.BookRowReader;
+import com.library.service.importer.CsvBookRowReader;
+import com.library.service.importer.MarcBookRowReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 图书批量导入服务
+ * 流式解析 CSV / MARC21 文件，ISBN 查重使用预加载的内存集合，分类通过名称映射解析，
+ * 使用 JDBC 批量插入（配合 rewriteBatchedStatements 合并为多行 INSERT），避免逐条查询和逐条写入。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+
+    /**
+     * 单个任务保留的行级错误数上限
+     */
+    private static final int MAX_ERRORS = 1000;
+
+    /**
+     * 已结束任务的保留时间（小时）
+     */
+    private static final long JOB_RETENTION_HOURS = 24;
+
+    private static final Pattern ISBN_PATTERN = Pattern.compile("^[0-9\\-]{9,19}[0-9Xx]$");
+    private static final Pattern YEAR_PATTERN = Pattern.compile("(\\d{4})");
+    private static final Pattern PRICE_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)");
+
+    private static final String INSERT_SQL = "INSERT INTO book (isbn, title, author, publisher, publish_date, category_id, " +
+            "price, total_count, available_count, description, location, status, borrow_count, review_count, rating_sum, " +
+            "version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 1, 0, 0, 0, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final PageCountCache pageCountCache;
+    private final CatalogIndex catalogIndex;
+    private final SimilarBookIndex similarBookIndex;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${library.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${library.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    /**
+     * 导入任务串行执行，避免多个大文件同时导入争抢数据库连接；排队数量有上限，队列满时拒绝新任务
+     */
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "book-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public BookImportJobResponse submitImport(MultipartFile file, String format) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "请选择要导入的文件");
+        }
+        String resolvedFormat = resolveFormat(file.getOriginalFilename(), format);
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new BusinessException(ErrorCode.IMPORT_BUSY);
+        }
+
+        // 请求结束后上传的临时文件会被清理，先转存到独立的临时文件再异步处理
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("book-import-", "." + resolvedFormat.toLowerCase(Locale.ROOT));
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            log.error("保存导入文件失败", e);
+            throw new BusinessException(ErrorCode.FILE_UPLOAD_ERROR, "保存导入文件失败");
+        }
+
+        purgeExpiredJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString().replace("-", ""),
+                file.getOriginalFilename(), resolvedFormat, file.getSize());
+        try {
+            executor.execute(() -> runImport(job, tempFile));
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(tempFile);
+            throw new BusinessException(ErrorCode.IMPORT_BUSY);
+        }
+        jobs.put(job.id, job);
+        log.info("提交图书导入任务: jobId={}, file={}, format={}", job.id, job.fileName, resolvedFormat);
+        return job.toResponse();
+    }
+
+    @Override
+    public BookImportJobResponse getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new BusinessException(ErrorCode.DATA_NOT_FOUND, "导入任务不存在或已过期");
+        }
+        return job.toResponse();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runImport(ImportJob job, Path file) {
+        job.status = "RUNNING";
+        long start = System.currentTimeMillis();
+        try (InputStream input = new CountingInputStream(Files.newInputStream(file), job.readBytes);
+             BookRowReader reader = "MARC".equals(job.format) ? new MarcBookRowReader(input) : new CsvBookRowReader(input)) {
+
+            Set<String> existingIsbns = loadExistingIsbns();
+            Map<String, Long> categories = loadCategories();
+            List<PendingBook> batch = new ArrayList<>(batchSize);
+
+            while (true) {
+                BookImportRow row;
+                try {
+                    row = reader.next();
+                } catch (BookImportFormatException e) {
+                    job.processed.incrementAndGet();
+                    job.fail(e.getRowNumber(), null, e.getMessage());
+                    continue;
+                }
+                if (row == null) {
+                    break;
+                }
+                job.processed.incrementAndGet();
+
+                PendingBook book = validate(row, categories, existingIsbns, job);
+                if (book == null) {
+                    continue;
+                }
+                batch.add(book);
+                if (batch.size() >= batchSize) {
+                    flush(batch, job);
+                }
+            }
+            flush(batch, job);
+            job.status = "COMPLETED";
+        } catch (BookImportFormatException e) {
+            job.status = "FAILED";
+            job.message = e.getMessage();
+        } catch (Exception e) {
+            log.error("图书导入任务失败: jobId={}", job.id, e);
+            job.status = "FAILED";
+            job.message = "导入失败: " + e.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            deleteQuietly(file);
+            if (job.imported.get() > 0) {
+                pageCountCache.evictByPrefix("book:");
+                catalogIndex.markDirty();
+                similarBookIndex.markDirty();
+            }
+            log.info("图书导入任务结束: jobId={}, status={}, 读取={}, 导入={}, 重复={}, 失败={}, 耗时={}ms",
+                    job.id, job.status, job.processed.get(), job.imported.get(), job.duplicates.get(),
+                    job.failed.get(), System.currentTimeMillis() - start);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导入临时文件失败: {}", file, e);
+        }
+    }
+
+    /**
+     * 校验并转换一行数据，校验失败或 ISBN 重复时返回 null
+     */
+    private PendingBook validate(BookImportRow row, Map<String, Long> categories,
+                                 Set<String> existingIsbns, ImportJob job) {
+        String isbn = extractIsbn(row.isbn());
+        try {
+            if (row.title() == null) {
+                throw new IllegalArgumentException("书名不能为空");
+            }
+            if (row.title().length() > 200) {
+                throw new IllegalArgumentException("书名长度为1-200个字符");
+            }
+            if (isbn != null && !ISBN_PATTERN.matcher(isbn).matches()) {
+                throw new IllegalArgumentException("ISBN格式不正确");
+            }
+            checkLength(row.author(), 100, "作者不超过100个字符");
+            checkLength(row.publisher(), 100, "出版社不超过100个字符");
+            checkLength(row.description(), 2000, "描述不超过2000个字符");
+            checkLength(row.location(), 50, "存放位置不超过50个字符");
+
+            int totalCount = parseTotalCount(row.totalCount());
+            BigDecimal price = parsePrice(row.price());
+            LocalDate publishDate = parseDate(row.publishDate());
+            Long categoryId = resolveCategory(row.category(), categories);
+
+            // 同时对文件内部的重复 ISBN 去重；写入规范化后的 ISBN，与查重键一致，不会因写法不同通过查重后再触发唯一键冲突
+            String normalized = isbn != null ? normalizeIsbn(isbn) : null;
+            if (normalized != null && !existingIsbns.add(normalized)) {
+                job.duplicates.incrementAndGet();
+                return null;
+            }
+            return new PendingBook(row.rowNumber(), normalized, row.title(), row.author(), row.publisher(),
+                    publishDate, categoryId, price, totalCount, row.description(), row.location());
+        } catch (IllegalArgumentException e) {
+            job.fail(row.rowNumber(), isbn, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 批量写入，批次失败（如并发插入导致唯一键冲突）时逐条重试以定位错误行
+     * 批次在单个事务中执行，失败时整体回滚，逐条重试时不会把批次中已写入的行误计为重复
+     */
+    private void flush(List<PendingBook> batch, ImportJob job) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, book) -> bind(ps, book, now)));
+            job.imported.addAndGet(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("批量写入失败，逐条重试: jobId={}, size={}, error={}", job.id, batch.size(), e.getMessage());
+            for (PendingBook book : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, book, now));
+                    job.imported.incrementAndGet();
+                } catch (DuplicateKeyException ex) {
+                    job.duplicates.incrementAndGet();
+                } catch (DataAccessException ex) {
+                    job.fail(book.rowNumber, book.isbn, "写入失败: " + ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private void bind(PreparedStatement ps, PendingBook book, Timestamp now) throws SQLException {
+        ps.setString(1, book.isbn);
+        ps.setString(2, book.title);
+        ps.setString(3, book.author);
+        ps.setString(4, book.publisher);
+        if (book.publishDate != null) {
+            ps.setDate(5, Date.valueOf(book.publishDate));
+        } else {
+            ps.setNull(5, Types.DATE);
+        }
+        if (book.categoryId != null) {
+            ps.setLong(6, book.categoryId);
+        } else {
+            ps.setNull(6, Types.BIGINT);
+        }
+        ps.setBigDecimal(7, book.price);
+        ps.setInt(8, book.totalCount);
+        ps.setInt(9, book.totalCount);
+        ps.setString(10, book.description);
+        ps.setString(11, book.location);
+        ps.setTimestamp(12, now);
+        ps.setTimestamp(13, now);
+    }
+
+    private Set<String> loadExistingIsbns() {
+        Set<String> isbns = new HashSet<>();
+        jdbcTemplate.query("SELECT isbn FROM book WHERE isbn IS NOT NULL",
+                rs -> {
+                    isbns.add(normalizeIsbn(rs.getString(1)));
+                });
+        return isbns;
+    }
+
+    /**
+     * 分类映射：名称（小写）及ID字符串 -> 分类ID
+     */
+    private Map<String, Long> loadCategories() {
+        Map<String, Long> categories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+            categories.put(String.valueOf(category.getId()), category.getId());
+        }
+        return categories;
+    }
+
+    private Long resolveCategory(String value, Map<String, Long> categories) {
+        if (value == null) {
+            return null;
+        }
+        Long id = categories.get(value.trim().toLowerCase(Locale.ROOT));
+        if (id == null) {
+            throw new IllegalArgumentException("分类不存在: " + value);
+        }
+        return id;
+    }
+
+    private static String resolveFormat(String fileName, String format) {
+        String value = format;
+        if (value == null || value.isBlank()) {
+            value = fileName != null && fileName.contains(".")
+                    ? fileName.substring(fileName.lastIndexOf('.') + 1)
+                    : "";
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "csv" -> "CSV";
+            case "marc", "mrc", "iso", "iso2709" -> "MARC";
+            default -> throw new BusinessException(ErrorCode.FILE_TYPE_NOT_ALLOWED, "仅支持 CSV 或 MARC21（.mrc）文件");
+        };
+    }
+
+    /**
+     * 提取 ISBN（MARC 中可能带有装帧说明，如 "9787020008500 (pbk.)"）
+     */
+    private static String extractIsbn(String value) {
+        if (value == null) {
+            return null;
+        }
+        String isbn = value.trim();
+        int space = isbn.indexOf(' ');
+        return space > 0 ? isbn.substring(0, space) : isbn;
+    }
+
+    /**
+     * 规范化 ISBN（去除首尾空白和连字符，校验位 x 转为大写），既作查重键也作写入值
+     */
+    private static String normalizeIsbn(String isbn) {
+        return isbn.trim().replace("-", "").toUpperCase(Locale.ROOT);
+    }
+
+    private static void checkLength(String value, int max, String message) {
+        if (value != null && value.length() > max) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static int parseTotalCount(String value) {
+        if (value == null) {
+            return 1;
+        }
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count < 0 || count > 9999) {
+                throw new IllegalArgumentException("总库存应在0-9999之间");
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("总库存格式不正确: " + value);
+        }
+    }
+
+    private static BigDecimal parsePrice(String value) {
+        if (value == null) {
+            return null;
+        }
+        // 兼容 MARC 中的币种前缀，如 "CNY59.70"
+        Matcher matcher = PRICE_PATTERN.matcher(value);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("价格格式不正确: " + value);
+        }
+        BigDecimal price = new BigDecimal(matcher.group(1));
+        if (price.compareTo(new BigDecimal("99999.99")) > 0) {
+            throw new IllegalArgumentException("价格不能超过99999.99");
+        }
+        return price;
+    }
+
+    /**
+     * 解析出版日期，支持 yyyy-MM-dd，以及仅包含年份的写法（如 MARC 中的 "c2005"）
+     */
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            Matcher matcher = YEAR_PATTERN.matcher(value);
+            if (matcher.find()) {
+                return LocalDate.of(Integer.parseInt(matcher.group(1)), 1, 1);
+            }
+            throw new IllegalArgumentException("出版日期格式不正确: " + value);
+        }
+    }
+
+    private void purgeExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+    }
+
+    /**
+     * 统计已读取字节数，用于计算导入进度
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+    }
+
+    private record PendingBook(long rowNumber, String isbn, String title, String author, String publisher,
+                               LocalDate publishDate, Long categoryId, BigDecimal price, int totalCount,
+                               String description, String location) {
+    }
+
+    /**
+     * 导入任务状态（由导入线程更新，查询线程读取）
+     */
+    private static class ImportJob {
+        final String id;
+        final String fileName;
+        final String format;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong readBytes = new AtomicLong();
+        final long totalBytes;
+        final List<BookImportJobResponse.RowError> errors = new ArrayList<>();
+        volatile String status = "PENDING";
+        volatile String message;
+        volatile LocalDateTime finishedAt;
+
+        ImportJob(String id, String fileName, String format, long totalBytes) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+            this.totalBytes = totalBytes;
+        }
+
+        void fail(long row, String isbn, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(new BookImportJobResponse.RowError(row, isbn, message));
+                }
+            }
+        }
+
+        int progress() {
+            if (finishedAt != null) {
+                return 100;
+            }
+            return totalBytes > 0 ? (int) Math.min(99, readBytes.get() * 100 / totalBytes) : 0;
+        }
+
+        BookImportJobResponse toResponse() {
+            List<BookImportJobResponse.RowError> snapshot;
+            synchronized (errors) {
+                snapshot = new ArrayList<>(errors);
+            }
+            return BookImportJobResponse.builder()
+                    .jobId(id)
+                    .fileName(fileName)
+                    .format(format)
+                    .status(status)
+                    .progress(progress())
+                    .processedRows(processed.get())
+                    .importedRows(imported.get())
+                    .duplicateRows(duplicates.get())
+                    .failedRows(failed.get())
+                    .message(message)
+                    .errors(snapshot)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.library.service.impl;
 
+import com.library.common.CursorPageResult;
 import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
 import com.library.common.PageResult;
+import com.library.dto.projection.BookListItem;
 import com.library.dto.request.BookQueryRequest;
 import com.library.dto.request.BookRequest;
+import com.library.dto.request.CatalogSearchRequest;
 import com.library.dto.response.BookResponse;
+import com.library.dto.response.CatalogSearchResponse;
 import com.library.entity.Book;
 import com.library.entity.Category;
 import com.library.exception.BusinessException;
 import com.library.repository.BookRepository;
 import com.library.repository.CategoryRepository;
+import com.library.service.BookCacheService;
 import com.library.service.BookService;
+import com.library.service.CatalogIndex;
+import com.library.service.CategoryTree;
+import com.library.service.CoBorrowRecommender;
+import com.library.service.PageCountCache;
+import com.library.service.SimilarBookIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -22,6 +33,9 @@ import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,6 +45,12 @@ public class BookServiceImpl implements BookService {
 
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
+    private final PageCountCache pageCountCache;
+    private final BookCacheService bookCacheService;
+    private final CatalogIndex catalogIndex;
+    private final CoBorrowRecommender coBorrowRecommender;
+    private final SimilarBookIndex similarBookIndex;
+    private final CategoryTree categoryTree;
 
     @Override
     @Transactional
@@ -68,6 +88,8 @@ public class BookServiceImpl implements BookService {
                 .build();
 
         book = bookRepository.save(book);
+        catalogIndex.markDirty();
+        similarBookIndex.update(book.getId());
         log.info("创建图书成功: id={}, title={}", book.getId(), book.getTitle());
         return BookResponse.fromEntity(book);
     }
@@ -94,6 +116,12 @@ public class BookServiceImpl implements BookService {
             book.setIsbn(null);
         }
 
+        Long oldCategoryId = book.getCategory() != null ? book.getCategory().getId() : null;
+        boolean textChanged = !Objects.equals(book.getTitle(), request.getTitle().trim())
+                || !Objects.equals(book.getAuthor(), request.getAuthor())
+                || !Objects.equals(book.getDescription(), request.getDescription())
+                || !Objects.equals(oldCategoryId, request.getCategoryId());
+
         book.setTitle(request.getTitle().trim());
         book.setAuthor(request.getAuthor());
         book.setPublisher(request.getPublisher());
@@ -134,6 +162,11 @@ public class BookServiceImpl implements BookService {
         }
 
         book = bookRepository.save(book);
+        bookCacheService.evict(book.getId());
+        catalogIndex.markDirty();
+        if (textChanged) {
+            similarBookIndex.update(book.getId());
+        }
         log.info("更新图书成功: id={}, title={}", book.getId(), book.getTitle());
         return BookResponse.fromEntity(book);
     }
@@ -157,6 +190,8 @@ public class BookServiceImpl implements BookService {
         }
 
         bookRepository.deleteById(id);
+        bookCacheService.evict(id);
+        catalogIndex.markDirty();
         log.info("删除图书成功: id={}, title={}", id, book.getTitle());
     }
 
@@ -166,9 +201,11 @@ public class BookServiceImpl implements BookService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "图书ID无效");
         }
 
-        Book book = bookRepository.findByIdWithCategory(id)
-                .orElseThrow(() -> new BusinessException(ErrorCode.BOOK_NOT_FOUND));
-        return BookResponse.fromEntity(book);
+        return bookCacheService.getBookDetail(id,
+                () -> bookRepository.findByIdWithCategory(id)
+                        .orElseThrow(() -> new BusinessException(ErrorCode.BOOK_NOT_FOUND)),
+                () -> bookRepository.findCountersById(id)
+                        .orElseThrow(() -> new BusinessException(ErrorCode.BOOK_NOT_FOUND)));
     }
 
     @Override
@@ -177,22 +214,24 @@ public class BookServiceImpl implements BookService {
         int page = request.getPage() != null && request.getPage() > 0 ? request.getPage() : 1;
         int size = request.getSize() != null && request.getSize() > 0 ? Math.min(request.getSize(), 100) : 10;
 
-        PageRequest pageRequest = PageRequest.of(
-                page - 1,
-                size,
-                Sort.by(Sort.Direction.DESC, "createdAt")
-        );
+        // 热门排序直接使用 borrow_count 列，走 (status, borrow_count) 索引
+        Sort sort = "popular".equalsIgnoreCase(request.getSortBy())
+                ? Sort.by(Sort.Direction.DESC, "borrowCount").and(Sort.by(Sort.Direction.DESC, "id"))
+                : Sort.by(Sort.Direction.DESC, "createdAt");
+        PageRequest pageRequest = PageRequest.of(page - 1, size, sort);
 
-        Page<Book> bookPage = bookRepository.findByConditions(
+        int[] range = categoryRange(request.getCategoryId());
+        Page<BookListItem> bookPage = bookRepository.findByConditions(
                 request.getKeyword(),
-                request.getCategoryId(),
+                range != null ? range[0] : null,
+                range != null ? range[1] : null,
                 request.getStatus(),
                 pageRequest
         );
 
         return PageResult.of(
                 bookPage.getContent().stream()
-                        .map(BookResponse::fromEntity)
+                        .map(BookResponse::fromListItem)
                         .collect(Collectors.toList()),
                 bookPage.getTotalElements(),
                 page,
@@ -200,6 +239,64 @@ public class BookServiceImpl implements BookService {
         );
     }
 
+    @Override
+    public CursorPageResult<BookResponse> getBooksByCursor(BookQueryRequest request) {
+        int size = request.getSize() != null && request.getSize() > 0 ? Math.min(request.getSize(), 100) : 10;
+        PageCursor cursor = PageCursor.decode(request.getCursor());
+
+        // 多查询一条用于判断是否还有下一页
+        int[] range = categoryRange(request.getCategoryId());
+        List<BookListItem> books = bookRepository.findByConditionsAfter(
+                request.getKeyword(),
+                range != null ? range[0] : null,
+                range != null ? range[1] : null,
+                request.getStatus(),
+                cursor != null ? cursor.getSortKey() : null,
+                cursor != null ? cursor.getId() : null,
+                PageRequest.of(0, size + 1)
+        );
+
+        Long total = null;
+        if (Boolean.TRUE.equals(request.getWithTotal())) {
+            String key = "book:" + request.getKeyword() + "|" + request.getCategoryId() + "|" + request.getStatus();
+            total = pageCountCache.getOrCount(key, () -> bookRepository.countByConditions(
+                    request.getKeyword(), range != null ? range[0] : null, range != null ? range[1] : null,
+                    request.getStatus()));
+        }
+
+        return CursorPageResult.of(books, size,
+                book -> new PageCursor(book.createdAt(), book.id()),
+                BookResponse::fromListItem, total);
+    }
+
+    @Override
+    public CatalogSearchResponse searchCatalog(CatalogSearchRequest request) {
+        int page = request.getPage() != null && request.getPage() > 0 ? request.getPage() : 1;
+        int size = request.getSize() != null && request.getSize() > 0 ? Math.min(request.getSize(), 100) : 10;
+
+        CatalogIndex.SearchResult result = catalogIndex.search(request, page, size);
+
+        // 按索引排序结果回表加载当前页
+        Map<Long, BookListItem> books = bookRepository.findListItemsByIdIn(result.ids()).stream()
+                .collect(Collectors.toMap(BookListItem::id, Function.identity()));
+        List<BookResponse> list = result.ids().stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(BookResponse::fromListItem)
+                .collect(Collectors.toList());
+
+        return CatalogSearchResponse.builder()
+                .list(list)
+                .total(result.total())
+                .page(page)
+                .size(size)
+                .categories(result.categories())
+                .publishers(result.publishers())
+                .availableCount(result.availableCount())
+                .unavailableCount(result.unavailableCount())
+                .build();
+    }
+
     @Override
     public List<BookResponse> getNewArrivals(int days, int limit) {
         // 校验参数
@@ -209,11 +306,11 @@ public class BookServiceImpl implements BookService {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         PageRequest pageRequest = PageRequest.of(0, limit);
 
-        List<Book> books = bookRepository.findNewArrivals(since, pageRequest);
+        List<BookListItem> books = bookRepository.findNewArrivals(since, pageRequest);
         log.debug("获取新书推荐，天数: {}, 限制: {}, 结果数量: {}", days, limit, books.size());
 
         return books.stream()
-                .map(BookResponse::fromEntity)
+                .map(BookResponse::fromListItem)
                 .collect(Collectors.toList());
     }
 
@@ -222,11 +319,57 @@ public class BookServiceImpl implements BookService {
         limit = limit > 0 ? Math.min(limit, 50) : 10;
 
         PageRequest pageRequest = PageRequest.of(0, limit);
-        List<Book> books = bookRepository.findPopularBooks(pageRequest);
+        List<BookListItem> books = bookRepository.findPopularBooks(pageRequest);
         log.debug("获取热门图书，限制: {}, 结果数量: {}", limit, books.size());
 
         return books.stream()
-                .map(BookResponse::fromEntity)
+                .map(BookResponse::fromListItem)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BookResponse> getRelatedBooks(Long id, int limit) {
+        limit = limit > 0 ? Math.min(limit, 50) : 10;
+        if (!bookRepository.existsById(id)) {
+            throw new BusinessException(ErrorCode.BOOK_NOT_FOUND);
+        }
+        return toOnShelfBooks(coBorrowRecommender.related(id, limit));
+    }
+
+    @Override
+    public List<BookResponse> getSimilarBooks(Long id, int limit) {
+        limit = limit > 0 ? Math.min(limit, 20) : 10;
+        if (!bookRepository.existsById(id)) {
+            throw new BusinessException(ErrorCode.BOOK_NOT_FOUND);
+        }
+        return toOnShelfBooks(similarBookIndex.similar(id, limit));
+    }
+
+    /**
+     * 分类筛选包含全部子分类：返回所选分类的先序区间 [treeLeft, treeRight]，未筛选时返回 null，
+     * 分类不存在时返回空区间
+     */
+    private int[] categoryRange(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        CategoryTree.Node node = categoryTree.current().get(categoryId);
+        return node != null ? new int[]{node.left(), node.right()} : new int[]{0, -1};
+    }
+
+    /**
+     * 按推荐顺序回表，过滤已下架或已删除的图书
+     */
+    private List<BookResponse> toOnShelfBooks(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookListItem> books = bookRepository.findListItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookListItem::id, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(book -> book != null && Integer.valueOf(1).equals(book.status()))
+                .map(BookResponse::fromListItem)
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,116 @@
+package com.library.service.impl;
+
+import com.library.common.ErrorCode;
+import com.library.dto.response.BookStatusResponse;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.ReservationRepository;
+import com.library.repository.UserRepository;
+import com.library.security.SecurityUtils;
+import com.library.service.BookStatusService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class BookStatusServiceImpl implements BookStatusService {
+
+    /**
+     * 单次最多查询的图书数量
+     */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final BookRepository bookRepository;
+    private final FavoriteRepository favoriteRepository;
+    private final ReservationRepository reservationRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookStatusResponse> getBookStatuses(List<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = bookIds.stream()
+                .filter(id -> id != null && id > 0)
+                .distinct()
+                .toList();
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "一次最多查询" + MAX_BATCH_SIZE + "本图书");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // 1. 库存与评分（评分使用图书表上的统计列）
+        Map<Long, BookStatusResponse> statuses = new HashMap<>();
+        for (Object[] row : bookRepository.findStatusByIdIn(ids)) {
+            Integer status = (Integer) row[1];
+            Integer availableCount = (Integer) row[3];
+            Integer reviewCount = (Integer) row[4];
+            statuses.put((Long) row[0], BookStatusResponse.builder()
+                    .bookId((Long) row[0])
+                    .status(status)
+                    .totalCount((Integer) row[2])
+                    .availableCount(availableCount)
+                    .available(Integer.valueOf(1).equals(status) && availableCount != null && availableCount > 0)
+                    .reviewCount(reviewCount)
+                    .averageRating(Book.averageRating(reviewCount, (Integer) row[5]))
+                    .favorited(false)
+                    .reserved(false)
+                    .favoriteCount(0L)
+                    .queueLength(0)
+                    .build());
+        }
+        if (statuses.isEmpty()) {
+            return List.of();
+        }
+        List<Long> existing = ids.stream().filter(statuses::containsKey).toList();
+
+        // 2. 收藏数与预约排队人数
+        for (Object[] row : favoriteRepository.countByBookIdIn(existing)) {
+            statuses.get((Long) row[0]).setFavoriteCount((Long) row[1]);
+        }
+        for (Object[] row : reservationRepository.countWaitingByBookIdIn(existing)) {
+            statuses.get((Long) row[0]).setQueueLength(((Long) row[1]).intValue());
+        }
+
+        // 3. 当前用户的收藏与预约标记
+        Long userId = currentUserId();
+        if (userId != null) {
+            Set<Long> favorited = new HashSet<>(favoriteRepository.findFavoritedBookIds(userId, existing));
+            Set<Long> reserved = new HashSet<>(reservationRepository.findActiveBookIds(userId, existing));
+            for (BookStatusResponse status : statuses.values()) {
+                status.setFavorited(favorited.contains(status.getBookId()));
+                status.setReserved(reserved.contains(status.getBookId()));
+            }
+        }
+
+        return existing.stream()
+                .map(statuses::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * 当前登录用户ID，未登录时返回 null（该接口允许匿名访问）
+     */
+    private Long currentUserId() {
+        String username = SecurityUtils.currentUsername();
+        if (username == null) {
+            return null;
+        }
+        return userRepository.findByUsername(username).map(User::getId).orElse(null);
+    }
+}
@@ -1,7 +1,10 @@
 package com.library.service.impl;
 
+import com.library.common.CursorPageResult;
 import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
 import com.library.common.PageResult;
+import com.library.dto.projection.BorrowRecordListItem;
 import com.library.dto.request.BorrowQueryRequest;
 import com.library.dto.request.BorrowRequest;
 import com.library.dto.response.BorrowRecordResponse;
@@ -11,9 +14,15 @@ import com.library.entity.User;
 import com.library.exception.BusinessException;
 import com.library.repository.BookRepository;
 import com.library.repository.BorrowRecordRepository;
+import com.library.service.BookCacheService;
 import com.library.service.BorrowService;
+import com.library.service.CatalogIndex;
+import com.library.service.CoBorrowRecommender;
+import com.library.service.EventPushService;
 import com.library.service.FineService;
+import com.library.service.PageCountCache;
 import com.library.service.ReservationService;
+import com.library.service.SecondLevelCacheService;
 import com.library.service.UserService;
 import com.library.entity.FineRecord;
 import com.library.entity.FineRule;
@@ -33,8 +42,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -45,6 +57,12 @@ public class BorrowServiceImpl implements BorrowService {
     private final BookRepository bookRepository;
     private final UserService userService;
     private final FineRecordRepository fineRecordRepository;
+    private final PageCountCache pageCountCache;
+    private final BookCacheService bookCacheService;
+    private final CatalogIndex catalogIndex;
+    private final CoBorrowRecommender coBorrowRecommender;
+    private final EventPushService eventPushService;
+    private final SecondLevelCacheService secondLevelCacheService;
 
     // 使用 @Lazy 避免循环依赖
     private ReservationService reservationService;
@@ -120,6 +138,11 @@ public class BorrowServiceImpl implements BorrowService {
             throw new BusinessException(ErrorCode.STOCK_NOT_ENOUGH,
                     "《" + latestBook.getTitle() + "》库存不足，当前可借数量为" + latestBook.getAvailableCount());
         }
+        secondLevelCacheService.evictAfterUpdate(Book.class, book.getId());
+        bookCacheService.countsChanged(book.getId());
+        catalogIndex.countsChanged(book.getId());
+        coBorrowRecommender.recordBorrow(user.getId(), book.getId());
+        eventPushService.availabilityChanged(book.getId(), -1);
 
         // 7. 创建借阅记录
         LocalDateTime now = LocalDateTime.now();
@@ -203,6 +226,11 @@ public class BorrowServiceImpl implements BorrowService {
         int updated = bookRepository.increaseAvailableCount(record.getBook().getId());
         if (updated == 0) {
             log.warn("归还图书时库存增加失败，可能已达到最大值: bookId={}", record.getBook().getId());
+        } else {
+            secondLevelCacheService.evictAfterUpdate(Book.class, record.getBook().getId());
+            bookCacheService.countsChanged(record.getBook().getId());
+            catalogIndex.countsChanged(record.getBook().getId());
+            eventPushService.availabilityChanged(record.getBook().getId(), 1);
         }
 
         log.info("用户 {} 归还图书《{}》成功", currentUser.getUsername(), record.getBook().getTitle());
@@ -331,7 +359,7 @@ public class BorrowServiceImpl implements BorrowService {
             status = BorrowRecord.Status.values()[request.getStatus()];
         }
 
-        Page<BorrowRecord> recordPage = borrowRecordRepository.findByConditions(
+        Page<BorrowRecordListItem> recordPage = borrowRecordRepository.findByConditions(
                 request.getUserId(),
                 request.getBookId(),
                 status,
@@ -340,7 +368,7 @@ public class BorrowServiceImpl implements BorrowService {
 
         return PageResult.of(
                 recordPage.getContent().stream()
-                        .map(record -> BorrowRecordResponse.fromEntity(record, maxRenewCount))
+                        .map(record -> BorrowRecordResponse.fromListItem(record, maxRenewCount))
                         .collect(Collectors.toList()),
                 recordPage.getTotalElements(),
                 page,
@@ -348,6 +376,42 @@ public class BorrowServiceImpl implements BorrowService {
         );
     }
 
+    @Override
+    public CursorPageResult<BorrowRecordResponse> getRecordsByCursor(BorrowQueryRequest request) {
+        int size = request.getSize() != null && request.getSize() > 0 ? Math.min(request.getSize(), 100) : 10;
+        PageCursor cursor = PageCursor.decode(request.getCursor());
+
+        BorrowRecord.Status status = null;
+        if (request.getStatus() != null) {
+            if (request.getStatus() < 0 || request.getStatus() >= BorrowRecord.Status.values().length) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "无效的借阅状态");
+            }
+            status = BorrowRecord.Status.values()[request.getStatus()];
+        }
+
+        // 多查询一条用于判断是否还有下一页
+        List<BorrowRecordListItem> records = borrowRecordRepository.findByConditionsAfter(
+                request.getUserId(),
+                request.getBookId(),
+                status,
+                cursor != null ? cursor.getSortKey() : null,
+                cursor != null ? cursor.getId() : null,
+                PageRequest.of(0, size + 1)
+        );
+
+        Long total = null;
+        if (Boolean.TRUE.equals(request.getWithTotal())) {
+            BorrowRecord.Status countStatus = status;
+            String key = "borrow:" + request.getUserId() + "|" + request.getBookId() + "|" + status;
+            total = pageCountCache.getOrCount(key, () -> borrowRecordRepository.countByConditions(
+                    request.getUserId(), request.getBookId(), countStatus));
+        }
+
+        return CursorPageResult.of(records, size,
+                record -> new PageCursor(record.borrowDate(), record.id()),
+                record -> BorrowRecordResponse.fromListItem(record, maxRenewCount), total);
+    }
+
     @Override
     public PageResult<BorrowRecordResponse> getMyRecords(int page, int size) {
         // 校验分页参数
@@ -356,11 +420,11 @@ public class BorrowServiceImpl implements BorrowService {
 
         User user = userService.getCurrentUserEntity();
         PageRequest pageRequest = PageRequest.of(page - 1, size);
-        Page<BorrowRecord> recordPage = borrowRecordRepository.findByUserId(user.getId(), pageRequest);
+        Page<BorrowRecordListItem> recordPage = borrowRecordRepository.findByUserId(user.getId(), pageRequest);
 
         return PageResult.of(
                 recordPage.getContent().stream()
-                        .map(record -> BorrowRecordResponse.fromEntity(record, maxRenewCount))
+                        .map(record -> BorrowRecordResponse.fromListItem(record, maxRenewCount))
                         .collect(Collectors.toList()),
                 recordPage.getTotalElements(),
                 page,
@@ -404,7 +468,8 @@ public class BorrowServiceImpl implements BorrowService {
     }
 
     @Override
-    public List<BorrowRecordResponse> getAllRecordsForExport(BorrowQueryRequest request) {
+    @Transactional(readOnly = true)
+    public long forEachRecordForExport(BorrowQueryRequest request, Consumer<BorrowRecordResponse> action) {
         BorrowRecord.Status status = null;
         if (request.getStatus() != null) {
             if (request.getStatus() >= 0 && request.getStatus() < BorrowRecord.Status.values().length) {
@@ -412,15 +477,33 @@ public class BorrowServiceImpl implements BorrowService {
             }
         }
 
-        List<BorrowRecord> records = borrowRecordRepository.findAllByConditions(
+        long count = 0;
+        try (Stream<BorrowRecordListItem> records = borrowRecordRepository.streamAllByConditions(
                 request.getUserId(),
                 request.getBookId(),
                 status
-        );
+        )) {
+            Iterator<BorrowRecordListItem> iterator = records.iterator();
+            while (iterator.hasNext()) {
+                action.accept(BorrowRecordResponse.fromListItem(iterator.next(), maxRenewCount));
+                count++;
+            }
+        }
+        return count;
+    }
 
-        return records.stream()
-                .map(record -> BorrowRecordResponse.fromEntity(record, maxRenewCount))
-                .collect(Collectors.toList());
+    @Override
+    public long countRecordsForExport(BorrowQueryRequest request) {
+        BorrowRecord.Status status = null;
+        if (request.getStatus() != null) {
+            if (request.getStatus() >= 0 && request.getStatus() < BorrowRecord.Status.values().length) {
+                status = BorrowRecord.Status.values()[request.getStatus()];
+            }
+        }
+        BorrowRecord.Status countStatus = status;
+        String key = "borrow:" + request.getUserId() + "|" + request.getBookId() + "|" + status;
+        return pageCountCache.getOrCount(key, () -> borrowRecordRepository.countByConditions(
+                request.getUserId(), request.getBookId(), countStatus));
     }
 
     /**
@@ -6,15 +6,20 @@ import com.library.dto.response.CategoryResponse;
 import com.library.entity.Category;
 import com.library.exception.BusinessException;
 import com.library.repository.CategoryRepository;
+import com.library.service.BookCacheService;
+import com.library.service.CatalogIndex;
 import com.library.service.CategoryService;
+import com.library.service.CategoryTree;
+import com.library.service.PageCountCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -23,6 +28,10 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final BookCacheService bookCacheService;
+    private final CatalogIndex catalogIndex;
+    private final CategoryTree categoryTree;
+    private final PageCountCache pageCountCache;
 
     /**
      * 最大分类层级深度
@@ -32,6 +41,9 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     @Transactional
     public CategoryResponse createCategory(CategoryRequest request) {
+        // 串行化并发的分类变更与重新编号
+        categoryTree.lock();
+
         // 1. 校验分类名称唯一性
         if (categoryRepository.existsByName(request.getName().trim())) {
             throw new BusinessException(ErrorCode.CATEGORY_EXISTS);
@@ -49,7 +61,7 @@ public class CategoryServiceImpl implements CategoryService {
                     .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_PARENT_NOT_FOUND));
 
             // 检查层级深度
-            int depth = getCategoryDepth(parent) + 1;
+            int depth = categoryTree.current().depth(parent.getId()) + 1;
             if (depth > MAX_CATEGORY_DEPTH) {
                 throw new BusinessException(ErrorCode.CATEGORY_DEPTH_EXCEEDED,
                         "分类层级不能超过" + MAX_CATEGORY_DEPTH + "层");
@@ -59,6 +71,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         category = categoryRepository.save(category);
+        categoryTree.refresh();
         log.info("创建分类成功: id={}, name={}", category.getId(), category.getName());
         return CategoryResponse.fromEntity(category);
     }
@@ -71,6 +84,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "分类ID无效");
         }
 
+        categoryTree.lock();
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND));
 
@@ -92,7 +106,8 @@ public class CategoryServiceImpl implements CategoryService {
             }
 
             // 不能将自己的子分类设为父分类（防止循环引用）
-            if (isDescendant(id, request.getParentId())) {
+            CategoryTree.Snapshot tree = categoryTree.current();
+            if (tree.isDescendant(id, request.getParentId())) {
                 throw new BusinessException(ErrorCode.CATEGORY_PARENT_INVALID, "不能将子分类设为父分类");
             }
 
@@ -100,8 +115,9 @@ public class CategoryServiceImpl implements CategoryService {
                     .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_PARENT_NOT_FOUND));
 
             // 检查层级深度（当前分类的最大子树深度 + 新父分类深度）
-            int maxSubtreeDepth = getMaxSubtreeDepth(category);
-            int parentDepth = getCategoryDepth(parent);
+            CategoryTree.Node node = tree.get(id);
+            int maxSubtreeDepth = node != null ? node.height() : 1;
+            int parentDepth = tree.depth(parent.getId());
             if (parentDepth + maxSubtreeDepth > MAX_CATEGORY_DEPTH) {
                 throw new BusinessException(ErrorCode.CATEGORY_DEPTH_EXCEEDED,
                         "移动后分类层级将超过" + MAX_CATEGORY_DEPTH + "层");
@@ -113,6 +129,11 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         category = categoryRepository.save(category);
+        categoryTree.refresh();
+        // 图书详情缓存中包含分类名称，分类变更后需整体失效；移动分类会改变“含子分类”筛选的结果
+        bookCacheService.evictAll();
+        catalogIndex.markDirty();
+        pageCountCache.evictByPrefix("book:");
         log.info("更新分类成功: id={}, name={}", category.getId(), category.getName());
         return CategoryResponse.fromEntity(category);
     }
@@ -125,13 +146,15 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "分类ID无效");
         }
 
+        categoryTree.lock();
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND));
 
         // 2. 检查是否有子分类
-        if (category.getChildren() != null && !category.getChildren().isEmpty()) {
+        CategoryTree.Node node = categoryTree.current().get(id);
+        if (node != null && !node.children().isEmpty()) {
             throw new BusinessException(ErrorCode.CATEGORY_HAS_CHILDREN,
-                    "该分类下存在" + category.getChildren().size() + "个子分类，请先删除子分类");
+                    "该分类下存在" + node.children().size() + "个子分类，请先删除子分类");
         }
 
         // 3. 检查是否有关联的图书
@@ -142,6 +165,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.deleteById(id);
+        categoryTree.refresh();
         log.info("删除分类成功: id={}, name={}", id, category.getName());
     }
 
@@ -151,72 +175,67 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BusinessException(ErrorCode.PARAM_ERROR, "分类ID无效");
         }
 
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CATEGORY_NOT_FOUND));
-        return CategoryResponse.fromEntity(category);
+        CategoryTree.Snapshot tree = categoryTree.current();
+        CategoryTree.Node node = tree.get(id);
+        if (node == null) {
+            throw new BusinessException(ErrorCode.CATEGORY_NOT_FOUND);
+        }
+        return toResponse(tree, node, Map.of(id, categoryRepository.countBooksByCategoryId(id)));
     }
 
     @Override
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        CategoryTree.Snapshot tree = categoryTree.current();
+        Map<Long, Long> bookCounts = countBooks();
+        List<CategoryResponse> result = new ArrayList<>(tree.size());
+        for (CategoryTree.Node root : tree.roots()) {
+            for (Long id : tree.subtreeIds(root.id())) {
+                result.add(toResponse(tree, tree.get(id), bookCounts));
+            }
+        }
+        return result;
     }
 
     @Override
     public List<CategoryResponse> getCategoryTree() {
-        List<Category> rootCategories = categoryRepository.findRootCategories();
-        return rootCategories.stream()
-                .map(CategoryResponse::fromEntityWithChildren)
+        CategoryTree.Snapshot tree = categoryTree.current();
+        Map<Long, Long> bookCounts = countBooks();
+        return tree.roots().stream()
+                .map(root -> toResponseWithChildren(tree, root, bookCounts))
                 .collect(Collectors.toList());
     }
 
     /**
-     * 获取分类的层级深度（根分类为1）
+     * 各分类直属图书数量（一次分组查询）
      */
-    private int getCategoryDepth(Category category) {
-        int depth = 1;
-        Category parent = category.getParent();
-        while (parent != null) {
-            depth++;
-            parent = parent.getParent();
+    private Map<Long, Long> countBooks() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : categoryRepository.countBooksGroupByCategory()) {
+            counts.put((Long) row[0], (Long) row[1]);
         }
-        return depth;
+        return counts;
     }
 
-    /**
-     * 获取分类子树的最大深度
-     */
-    private int getMaxSubtreeDepth(Category category) {
-        if (category.getChildren() == null || category.getChildren().isEmpty()) {
-            return 1;
-        }
-        int maxChildDepth = 0;
-        for (Category child : category.getChildren()) {
-            maxChildDepth = Math.max(maxChildDepth, getMaxSubtreeDepth(child));
-        }
-        return maxChildDepth + 1;
-    }
-
-    /**
-     * 检查potentialDescendantId是否是ancestorId的后代
-     */
-    private boolean isDescendant(Long ancestorId, Long potentialDescendantId) {
-        Set<Long> descendants = new HashSet<>();
-        collectDescendantIds(ancestorId, descendants);
-        return descendants.contains(potentialDescendantId);
+    private CategoryResponse toResponse(CategoryTree.Snapshot tree, CategoryTree.Node node, Map<Long, Long> bookCounts) {
+        CategoryTree.Node parent = tree.get(node.parentId());
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .description(node.description())
+                .parentId(node.parentId())
+                .parentName(parent != null ? parent.name() : null)
+                .sortOrder(node.sortOrder())
+                .bookCount(bookCounts.getOrDefault(node.id(), 0L).intValue())
+                .createdAt(node.createdAt())
+                .build();
     }
 
-    /**
-     * 收集所有后代分类的ID
-     */
-    private void collectDescendantIds(Long categoryId, Set<Long> descendants) {
-        Category category = categoryRepository.findById(categoryId).orElse(null);
-        if (category != null && category.getChildren() != null) {
-            for (Category child : category.getChildren()) {
-                descendants.add(child.getId());
-                collectDescendantIds(child.getId(), descendants);
-            }
-        }
+    private CategoryResponse toResponseWithChildren(CategoryTree.Snapshot tree, CategoryTree.Node node,
+                                                    Map<Long, Long> bookCounts) {
+        CategoryResponse response = toResponse(tree, node, bookCounts);
+        response.setChildren(node.children().stream()
+                .map(child -> toResponseWithChildren(tree, child, bookCounts))
+                .collect(Collectors.toList()));
+        return response;
     }
 }
@@ -1,74 +1,101 @@
 package com.library.service.impl;
 
-import com.library.dto.response.BorrowRecordResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.ErrorCode;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.entity.BorrowRecord;
+import com.library.exception.BusinessException;
+import com.library.service.BorrowService;
 import com.library.service.ExcelExportService;
+import com.library.service.exporter.ColumnKind;
+import com.library.service.exporter.CsvRowWriter;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import com.library.service.exporter.GzipExportStream;
+import com.library.service.exporter.NdjsonRowWriter;
+import com.library.service.exporter.RowWriter;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.LongConsumer;
 
+/**
+ * Excel 导出
+ * 借阅记录从数据库游标逐条读取，写入 SXSSF 流式工作簿：内存中只保留最近 ROW_WINDOW 行，
+ * 更早的行刷到压缩临时文件；列宽按写入时统计的最大显示宽度设置，不使用 autoSizeColumn。
+ * 单个工作表超过 XLSX 行数上限（1,048,576 行，含表头）时续写到新的工作表。
+ * CSV / NDJSON 导出用 JdbcTemplate 流式查询，按列类型直接从结果集取值写入 gzip 流，不创建实体或 DTO。
+ * 内存占用与导出行数无关。
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ExcelExportServiceImpl implements ExcelExportService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
 
-    @Override
-    public void exportBorrowRecords(List<BorrowRecordResponse> records, HttpServletResponse response) {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("借阅记录");
+    /**
+     * 内存中保留的行数，超出后刷到临时文件
+     */
+    static final int ROW_WINDOW = 100;
 
-            // 创建表头样式
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            // 创建数据样式
-            CellStyle dataStyle = createDataStyle(workbook);
+    /**
+     * 每个工作表最多写入的数据行数（XLSX 行数上限减去表头）
+     */
+    static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
 
-            // 创建表头
-            String[] headers = {"订单号", "用户名", "真实姓名", "图书名称", "ISBN", "作者",
-                               "借阅日期", "应还日期", "实际归还日期", "状态", "是否逾期", "备注"};
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+    private static final String SHEET_NAME = "借阅记录";
 
-            // 填充数据
-            int rowNum = 1;
-            for (BorrowRecordResponse record : records) {
-                Row row = sheet.createRow(rowNum++);
-
-                createCell(row, 0, record.getId() != null ? record.getId().toString() : "", dataStyle);
-                createCell(row, 1, record.getUsername() != null ? record.getUsername() : "", dataStyle);
-                createCell(row, 2, record.getRealName() != null ? record.getRealName() : "", dataStyle);
-                createCell(row, 3, record.getBookTitle() != null ? record.getBookTitle() : "", dataStyle);
-                createCell(row, 4, record.getBookIsbn() != null ? record.getBookIsbn() : "", dataStyle);
-                createCell(row, 5, record.getBookAuthor() != null ? record.getBookAuthor() : "", dataStyle);
-                createCell(row, 6, formatDateTime(record.getBorrowDate()), dataStyle);
-                createCell(row, 7, formatDateTime(record.getDueDate()), dataStyle);
-                createCell(row, 8, formatDateTime(record.getReturnDate()), dataStyle);
-                createCell(row, 9, record.getStatusDesc() != null ? record.getStatusDesc() : "", dataStyle);
-                createCell(row, 10, record.getOverdue() != null && record.getOverdue() ? "是" : "否", dataStyle);
-                createCell(row, 11, record.getRemark() != null ? record.getRemark() : "", dataStyle);
-            }
+    /**
+     * 列宽上下限（字符数）
+     */
+    static final int MIN_COLUMN_CHARS = 12;
+    static final int MAX_COLUMN_CHARS = 60;
 
-            // 自动调整列宽
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-                // 设置最小宽度
-                int width = sheet.getColumnWidth(i);
-                sheet.setColumnWidth(i, Math.max(width, 3000));
-            }
+    /**
+     * 非 MySQL 数据库流式查询的 fetchSize
+     */
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String[] HEADERS = {"订单号", "用户名", "真实姓名", "图书名称", "ISBN", "作者",
+            "借阅日期", "应还日期", "实际归还日期", "状态", "是否逾期", "备注"};
+
+    private final BorrowService borrowService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * 流式查询专用 JdbcTemplate（首次使用时按数据库类型设置 fetchSize）
+     */
+    private volatile JdbcTemplate streamingJdbcTemplate;
+
+    /**
+     * 每个工作表的数据行数上限
+     */
+    private int maxRowsPerSheet = MAX_ROWS_PER_SHEET;
+
+    @Override
+    public void exportBorrowRecords(BorrowQueryRequest request, HttpServletResponse response) {
+        try {
             // 设置响应头
             String fileName = "借阅记录_" + LocalDateTime.now().format(FILE_DATE_FORMATTER) + ".xlsx";
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
@@ -76,8 +103,8 @@ public class ExcelExportServiceImpl implements ExcelExportService {
                 "attachment;filename=" + URLEncoder.encode(fileName, StandardCharsets.UTF_8));
             response.setHeader("Access-Control-Expose-Headers", "Content-Disposition");
 
-            // 写入响应流
-            workbook.write(response.getOutputStream());
+            // 数据全部写入临时文件后才开始输出，读取数据库出错时响应尚未提交，可以返回错误信息
+            writeBorrowRecords(request, response.getOutputStream(), rows -> { });
             response.getOutputStream().flush();
 
         } catch (IOException e) {
@@ -86,6 +113,181 @@ public class ExcelExportServiceImpl implements ExcelExportService {
         }
     }
 
+    @Override
+    public long writeBorrowRecords(BorrowQueryRequest request, OutputStream out, LongConsumer progress) throws IOException {
+        long start = System.currentTimeMillis();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            // 创建表头样式
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            // 创建数据样式
+            CellStyle dataStyle = createDataStyle(workbook);
+
+            // 各列最大显示宽度
+            int[] widths = new int[HEADERS.length];
+            for (int i = 0; i < HEADERS.length; i++) {
+                widths[i] = displayWidth(HEADERS[i]);
+            }
+
+            // 填充数据，当前工作表写满后续写到新的工作表
+            List<SXSSFSheet> sheets = new ArrayList<>();
+            sheets.add(createSheet(workbook, SHEET_NAME, headerStyle));
+            int[] rowNum = {1};
+            long[] written = {0};
+            long count = borrowService.forEachRecordForExport(request, record -> {
+                if (rowNum[0] > maxRowsPerSheet) {
+                    sheets.add(createSheet(workbook, SHEET_NAME + "(" + (sheets.size() + 1) + ")", headerStyle));
+                    rowNum[0] = 1;
+                }
+                Row row = sheets.get(sheets.size() - 1).createRow(rowNum[0]++);
+                String[] values = {
+                        record.getId() != null ? record.getId().toString() : "",
+                        record.getUsername() != null ? record.getUsername() : "",
+                        record.getRealName() != null ? record.getRealName() : "",
+                        record.getBookTitle() != null ? record.getBookTitle() : "",
+                        record.getBookIsbn() != null ? record.getBookIsbn() : "",
+                        record.getBookAuthor() != null ? record.getBookAuthor() : "",
+                        formatDateTime(record.getBorrowDate()),
+                        formatDateTime(record.getDueDate()),
+                        formatDateTime(record.getReturnDate()),
+                        record.getStatusDesc() != null ? record.getStatusDesc() : "",
+                        record.getOverdue() != null && record.getOverdue() ? "是" : "否",
+                        record.getRemark() != null ? record.getRemark() : ""
+                };
+                for (int i = 0; i < values.length; i++) {
+                    createCell(row, i, values[i], dataStyle);
+                    widths[i] = Math.max(widths[i], displayWidth(values[i]));
+                }
+                progress.accept(++written[0]);
+            });
+
+            // 按统计的显示宽度设置列宽
+            for (int i = 0; i < HEADERS.length; i++) {
+                int chars = Math.min(Math.max(widths[i] + 2, MIN_COLUMN_CHARS), MAX_COLUMN_CHARS);
+                for (SXSSFSheet sheet : sheets) {
+                    sheet.setColumnWidth(i, chars * 256);
+                }
+            }
+
+            workbook.write(out);
+            log.info("导出借阅记录完成: rows={}, sheets={}, elapsed={}ms", count, sheets.size(),
+                    System.currentTimeMillis() - start);
+            return count;
+        } finally {
+            // 删除临时文件
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * 创建工作表并写入表头
+     */
+    private static SXSSFSheet createSheet(SXSSFWorkbook workbook, String name, CellStyle headerStyle) {
+        SXSSFSheet sheet = workbook.createSheet(name);
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    @Override
+    public long writeDataset(ExportDataset dataset, ExportFormat format, BorrowQueryRequest filter,
+                             OutputStream out, LongConsumer progress) throws IOException {
+        if (format == ExportFormat.XLSX) {
+            if (dataset != ExportDataset.BORROW_RECORDS) {
+                throw new BusinessException(ErrorCode.PARAM_ERROR, "仅借阅记录支持导出 Excel，其他数据请使用 csv 或 ndjson 格式");
+            }
+            return writeBorrowRecords(filter, out, progress);
+        }
+
+        List<Object> args = new ArrayList<>();
+        String where = dataset == ExportDataset.BORROW_RECORDS ? borrowConditions(filter, args) : null;
+        long start = System.currentTimeMillis();
+        try (RowWriter writer = format == ExportFormat.CSV
+                ? new CsvRowWriter(new GzipExportStream(out))
+                : new NdjsonRowWriter(objectMapper.getFactory(), new GzipExportStream(out))) {
+            Long count = streamingJdbcTemplate().query(dataset.selectSql(where), rs -> {
+                long rows = 0;
+                try {
+                    writer.writeHeader(dataset.columnNames(), ColumnKind.of(rs.getMetaData()));
+                    while (rs.next()) {
+                        writer.writeRow(rs);
+                        progress.accept(++rows);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return rows;
+            }, args.toArray());
+            log.info("导出{}完成: format={}, rows={}, elapsed={}ms", dataset.getTitle(), format, count,
+                    System.currentTimeMillis() - start);
+            return count != null ? count : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public long countDataset(ExportDataset dataset, BorrowQueryRequest filter) {
+        if (dataset == ExportDataset.BORROW_RECORDS) {
+            return borrowService.countRecordsForExport(filter);
+        }
+        Long count = jdbcTemplate.queryForObject(dataset.countSql(), Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 借阅记录筛选条件（与 Excel 导出一致，无效的状态值忽略）
+     */
+    private static String borrowConditions(BorrowQueryRequest filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getUserId() != null) {
+            conditions.add("br.user_id = ?");
+            args.add(filter.getUserId());
+        }
+        if (filter.getBookId() != null) {
+            conditions.add("br.book_id = ?");
+            args.add(filter.getBookId());
+        }
+        Integer status = filter.getStatus();
+        if (status != null && status >= 0 && status < BorrowRecord.Status.values().length) {
+            conditions.add("br.status = ?");
+            args.add(status);
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    /**
+     * MySQL 驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行读取结果集，其他数据库使用普通的 fetchSize
+     */
+    private JdbcTemplate streamingJdbcTemplate() {
+        JdbcTemplate template = streamingJdbcTemplate;
+        if (template == null) {
+            template = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            template.setFetchSize("MySQL".equalsIgnoreCase(product) ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            streamingJdbcTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * 估算单元格显示宽度（字符数），中文等全角字符按两个字符计
+     */
+    static int displayWidth(String value) {
+        int width = 0;
+        for (int i = 0; i < value.length(); i++) {
+            width += value.charAt(i) < 0x2E80 ? 1 : 2;
+        }
+        return width;
+    }
+
     private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
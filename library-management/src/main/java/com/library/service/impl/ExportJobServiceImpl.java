@@ -0,0 +1,343 @@
+package com.library.service.impl;
+
+import com.library.common.ErrorCode;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.ExportJobResponse;
+import com.library.exception.BusinessException;
+import com.library.service.ExcelExportService;
+import com.library.service.ExportJobService;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 异步导出任务服务
+ * 导出在有界线程池中执行，结果先写入本地临时文件，完成后通过下载地址获取；
+ * 任务进度按已写入行数与任务开始时统计的总行数计算，并据此估算剩余时间。
+ * 相同导出条件在结果有效期内复用已有任务（包括进行中的任务），每个用户同时进行的任务数受限。
+ * 任务只有提交人和管理员可以查询和下载，复用同样只限于可访问的任务。
+ */
+@Slf4j
+@Service
+public class ExportJobServiceImpl implements ExportJobService {
+
+    private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final ExcelExportService excelExportService;
+    private final Path spoolDir;
+    private final int maxJobsPerUser;
+    private final Duration resultTtl;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 导出条件 -> 任务ID（提交与清理时在 this 上同步）
+     */
+    private final Map<String, String> jobsByKey = new HashMap<>();
+
+    public ExportJobServiceImpl(ExcelExportService excelExportService,
+                                @Value("${library.export.spool-dir:export-spool}") String spoolDir,
+                                @Value("${library.export.pool-size:2}") int poolSize,
+                                @Value("${library.export.queue-capacity:20}") int queueCapacity,
+                                @Value("${library.export.max-jobs-per-user:2}") int maxJobsPerUser,
+                                @Value("${library.export.result-ttl-minutes:30}") long resultTtlMinutes) {
+        this.excelExportService = excelExportService;
+        this.spoolDir = Paths.get(spoolDir);
+        this.maxJobsPerUser = maxJobsPerUser;
+        this.resultTtl = Duration.ofMinutes(resultTtlMinutes);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "export-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 创建临时文件目录，并删除上次运行遗留的文件（任务状态只保存在内存中，重启后无法再下载）
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, "export-*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(ExportJob::deleteFile);
+    }
+
+    @Override
+    public ExportJobResponse submitExport(ExportDataset dataset, ExportFormat format, BorrowQueryRequest request) {
+        if (dataset.isAdminOnly() && !isAdmin()) {
+            throw new BusinessException(ErrorCode.ADMIN_REQUIRED);
+        }
+        if (format == ExportFormat.XLSX && dataset != ExportDataset.BORROW_RECORDS) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR, "仅借阅记录支持导出 Excel，其他数据请使用 csv 或 ndjson 格式");
+        }
+
+        // 只保留筛选条件，分页、游标等参数不影响导出内容
+        BorrowQueryRequest filter = new BorrowQueryRequest();
+        String key = dataset + ":" + format;
+        if (dataset == ExportDataset.BORROW_RECORDS) {
+            filter.setUserId(request.getUserId());
+            filter.setBookId(request.getBookId());
+            filter.setStatus(request.getStatus());
+            key += ":" + filter.getUserId() + "|" + filter.getBookId() + "|" + filter.getStatus();
+        }
+
+        return submit(key, dataset, format,
+                () -> excelExportService.countDataset(dataset, filter),
+                (out, progress) -> excelExportService.writeDataset(dataset, format, filter, out, progress));
+    }
+
+    @Override
+    public ExportJobResponse getJob(String jobId) {
+        return requireAccessibleJob(jobId).toResponse(false);
+    }
+
+    @Override
+    public ExportFile getFile(String jobId) {
+        ExportJob job = requireAccessibleJob(jobId);
+        Path file = job.file;
+        if (!"COMPLETED".equals(job.status) || file == null || !Files.exists(file)) {
+            throw new BusinessException(ErrorCode.EXPORT_NOT_READY);
+        }
+        String fileName = job.dataset.getTitle() + "_" + job.createdAt.format(FILE_DATE_FORMATTER)
+                + "." + job.format.getExtension();
+        return new ExportFile(file, fileName, job.format.getContentType());
+    }
+
+    /**
+     * 定时删除过期的任务及文件
+     */
+    @Scheduled(fixedDelay = 60000)
+    public synchronized void purgeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || !job.expiresAt().isBefore(now)) {
+                return false;
+            }
+            jobsByKey.remove(job.key, job.id);
+            job.deleteFile();
+            return true;
+        });
+    }
+
+    private synchronized ExportJobResponse submit(String key, ExportDataset dataset, ExportFormat format,
+                                                  LongSupplier counter, ExportWriter writer) {
+        purgeExpiredJobs();
+
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        String existingId = jobsByKey.get(key);
+        ExportJob existing = existingId != null ? jobs.get(existingId) : null;
+        if (existing != null && !"FAILED".equals(existing.status) && (existing.owner.equals(owner) || isAdmin())) {
+            return existing.toResponse(true);
+        }
+
+        long active = jobs.values().stream().filter(job -> job.owner.equals(owner) && job.finishedAt == null).count();
+        if (active >= maxJobsPerUser) {
+            throw new BusinessException(ErrorCode.EXPORT_JOB_LIMIT_EXCEEDED,
+                    "进行中的导出任务不能超过" + maxJobsPerUser + "个，请等待已有任务完成");
+        }
+
+        ExportJob job = new ExportJob(UUID.randomUUID().toString().replace("-", ""), key, owner, dataset, format);
+        try {
+            executor.execute(() -> run(job, counter, writer));
+        } catch (RejectedExecutionException e) {
+            throw new BusinessException(ErrorCode.EXPORT_BUSY);
+        }
+        jobs.put(job.id, job);
+        jobsByKey.put(key, job.id);
+        log.info("提交导出任务: jobId={}, key={}, owner={}", job.id, key, owner);
+        return job.toResponse(false);
+    }
+
+    private void run(ExportJob job, LongSupplier counter, ExportWriter writer) {
+        job.startedNanos = System.nanoTime();
+        job.startedAt = LocalDateTime.now();
+        job.status = "RUNNING";
+        Path part = null;
+        try {
+            job.totalRows = counter.getAsLong();
+            part = Files.createTempFile(spoolDir, "export-", ".part");
+            long rows;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part))) {
+                rows = writer.write(out, job.rowsWritten::set);
+            }
+            Path file = Files.move(part, part.resolveSibling("export-" + job.id + "." + job.format.getExtension()));
+            job.rowsWritten.set(rows);
+            job.fileSize = Files.size(file);
+            job.file = file;
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            log.error("导出任务失败: jobId={}", job.id, e);
+            job.status = "FAILED";
+            job.message = "导出失败: " + e.getMessage();
+            if (part != null) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException ex) {
+                    log.warn("删除导出临时文件失败: {}", part, ex);
+                }
+            }
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            log.info("导出任务结束: jobId={}, status={}, rows={}, size={}, 耗时={}ms", job.id, job.status,
+                    job.rowsWritten.get(), job.fileSize, (System.nanoTime() - job.startedNanos) / 1_000_000);
+        }
+    }
+
+    private static boolean isAdmin() {
+        return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    /**
+     * 查找任务并校验当前用户是提交人或管理员
+     */
+    private ExportJob requireAccessibleJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new BusinessException(ErrorCode.DATA_NOT_FOUND, "导出任务不存在或已过期");
+        }
+        if (!job.owner.equals(SecurityContextHolder.getContext().getAuthentication().getName()) && !isAdmin()) {
+            throw new BusinessException(ErrorCode.EXPORT_PERMISSION_DENIED);
+        }
+        return job;
+    }
+
+    /**
+     * 将导出内容写入输出流，返回写入的记录数
+     */
+    @FunctionalInterface
+    interface ExportWriter {
+        long write(OutputStream out, LongConsumer progress) throws IOException;
+    }
+
+    /**
+     * 导出任务状态（由导出线程更新，查询线程读取）
+     */
+    private class ExportJob {
+        final String id;
+        final String key;
+        final String owner;
+        final ExportDataset dataset;
+        final ExportFormat format;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicLong rowsWritten = new AtomicLong();
+        volatile long totalRows;
+        volatile long startedNanos;
+        volatile LocalDateTime startedAt;
+        volatile String status = "PENDING";
+        volatile String message;
+        volatile Path file;
+        volatile long fileSize;
+        volatile LocalDateTime finishedAt;
+
+        ExportJob(String id, String key, String owner, ExportDataset dataset, ExportFormat format) {
+            this.id = id;
+            this.key = key;
+            this.owner = owner;
+            this.dataset = dataset;
+            this.format = format;
+        }
+
+        LocalDateTime expiresAt() {
+            return finishedAt != null ? finishedAt.plus(resultTtl) : null;
+        }
+
+        int progress() {
+            if (finishedAt != null) {
+                return 100;
+            }
+            long total = totalRows;
+            return total > 0 ? (int) Math.min(99, rowsWritten.get() * 100 / total) : 0;
+        }
+
+        /**
+         * 按已写入行的平均速度估算剩余时间
+         */
+        Long etaSeconds() {
+            long rows = rowsWritten.get();
+            long total = totalRows;
+            if (finishedAt != null) {
+                return 0L;
+            }
+            if (startedAt == null || rows == 0 || total <= rows) {
+                return null;
+            }
+            long elapsedNanos = System.nanoTime() - startedNanos;
+            return TimeUnit.NANOSECONDS.toSeconds(elapsedNanos / rows * (total - rows));
+        }
+
+        void deleteFile() {
+            Path path = file;
+            if (path != null) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("删除导出文件失败: {}", path, e);
+                }
+            }
+        }
+
+        ExportJobResponse toResponse(boolean reused) {
+            boolean completed = "COMPLETED".equals(status);
+            return ExportJobResponse.builder()
+                    .jobId(id)
+                    .type(dataset.name())
+                    .format(format.name())
+                    .status(status)
+                    .progress(progress())
+                    .rowsWritten(rowsWritten.get())
+                    .totalRows(totalRows)
+                    .etaSeconds(etaSeconds())
+                    .fileSize(fileSize)
+                    .downloadUrl(completed ? "/api/exports/" + id + "/file" : null)
+                    .reused(reused)
+                    .message(message)
+                    .createdAt(createdAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .expiresAt(expiresAt())
+                    .build();
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.library.service.impl;
 
+import com.library.common.CursorPageResult;
 import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
 import com.library.dto.response.NotificationResponse;
-import com.library.entity.BorrowRecord;
+import com.library.entity.BroadcastNotification;
 import com.library.entity.Notification;
 import com.library.entity.User;
 import com.library.exception.BusinessException;
-import com.library.repository.BorrowRecordRepository;
 import com.library.repository.NotificationRepository;
 import com.library.repository.UserRepository;
+import com.library.service.BroadcastFeed;
+import com.library.service.EventPushService;
+import com.library.service.NotificationDispatcher;
 import com.library.service.NotificationService;
+import com.library.service.PageCountCache;
+import com.library.service.UnreadCounter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,8 +29,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -29,46 +40,162 @@ import java.util.List;
 public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationRepository notificationRepository;
-    private final BorrowRecordRepository borrowRecordRepository;
     private final UserRepository userRepository;
+    private final PageCountCache pageCountCache;
+    private final EventPushService eventPushService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final UnreadCounter unreadCounter;
+    private final BroadcastFeed broadcastFeed;
 
     private static final int REMINDER_DAYS_BEFORE = 3; // 提前3天提醒
 
+    /**
+     * 是否将到期提醒和逾期通知按用户合并为每日一条摘要
+     */
+    @Value("${library.notification.digest:true}")
+    private boolean digestEnabled;
+
+    /**
+     * 页码分页最多跳过的条数（与广播合并时需要读取前 offset + size 条个人通知）
+     */
+    @Value("${library.notification.max-page-offset:1000}")
+    private int maxPageOffset;
+
+    /**
+     * 通知列表排序：时间倒序，同一时间按游标ID倒序
+     */
+    private static final Comparator<NotificationResponse> NEWEST_FIRST = Comparator
+            .comparing(NotificationResponse::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(NotificationServiceImpl::cursorId, Comparator.reverseOrder());
+
     @Override
     public Page<NotificationResponse> getMyNotifications(Pageable pageable) {
-        Long userId = getCurrentUserId();
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
-                .map(NotificationResponse::fromEntity);
+        if (pageable.getOffset() > maxPageOffset) {
+            throw new BusinessException(ErrorCode.PARAM_ERROR,
+                    "页码过大，请使用游标分页接口 /api/notifications/cursor 查询更早的通知");
+        }
+        User user = getCurrentUser();
+        List<BroadcastNotification> broadcasts = broadcastFeed.visibleTo(user.getCreatedAt());
+        if (broadcasts.isEmpty()) {
+            return notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), pageable)
+                    .map(NotificationResponse::fromEntity);
+        }
+
+        // 广播数量很少：取个人通知的前 offset + size 条与广播合并排序后截取当前页
+        int offset = (int) pageable.getOffset();
+        int end = offset + pageable.getPageSize();
+        Page<Notification> head = notificationRepository.findByUserIdOrderByCreatedAtDesc(user.getId(), PageRequest.of(0, end));
+        List<NotificationResponse> merged = merge(head.getContent(), broadcasts, broadcastWatermark(user), end);
+        List<NotificationResponse> content = offset < merged.size() ? merged.subList(offset, merged.size()) : List.of();
+        return new PageImpl<>(content, pageable, head.getTotalElements() + broadcasts.size());
+    }
+
+    @Override
+    public CursorPageResult<NotificationResponse> getMyNotificationsByCursor(String cursor, int size, boolean withTotal) {
+        User user = getCurrentUser();
+        Long userId = user.getId();
+        size = size > 0 ? Math.min(size, 100) : 10;
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        // 广播通知的游标ID取负值，与个人通知在同一时间点上不会冲突
+        List<Notification> notifications = notificationRepository.findByUserIdAfter(
+                userId,
+                pageCursor != null ? pageCursor.getSortKey() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                PageRequest.of(0, size + 1));
+        List<BroadcastNotification> visible = broadcastFeed.visibleTo(user.getCreatedAt());
+        List<BroadcastNotification> broadcasts = visible.stream()
+                .filter(b -> pageCursor == null || isAfter(b, pageCursor))
+                .toList();
+        List<NotificationResponse> rows = merge(notifications, broadcasts, broadcastWatermark(user), size + 1);
+
+        Long total = withTotal
+                ? pageCountCache.getOrCount("notification:" + userId, () -> notificationRepository.countByUserId(userId))
+                + visible.size()
+                : null;
+
+        return CursorPageResult.of(rows, size,
+                n -> new PageCursor(n.getCreatedAt(), cursorId(n)),
+                Function.identity(), total);
     }
 
     @Override
     public long getUnreadCount() {
-        Long userId = getCurrentUserId();
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        User user = getCurrentUser();
+        UnreadCounter.State state = unreadCounter.state(user.getId());
+        return state.unread() + broadcastFeed.unreadCount(user.getCreatedAt(), state.broadcastWatermark());
     }
 
     @Override
     @Transactional
     public void markAsRead(Long notificationId) {
-        Long userId = getCurrentUserId();
+        Long userId = getCurrentUser().getId();
+        // 条件更新：只有本次由未读变为已读时才扣减计数，并发重复标记不会重复扣减
+        if (notificationRepository.markAsRead(notificationId, userId) == 1) {
+            unreadCounter.add(userId, -1);
+            eventPushService.unreadChanged(userId, -1);
+            return;
+        }
+
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.DATA_NOT_FOUND, "通知不存在"));
-
-        // 验证通知属于当前用户
+        // 验证通知属于当前用户（属于当前用户时说明已读，无需处理）
         if (!notification.getUser().getId().equals(userId)) {
             throw new BusinessException(ErrorCode.NO_PERMISSION, "无权操作此通知");
         }
+    }
 
-        notification.setIsRead(true);
-        notificationRepository.save(notification);
+    @Override
+    @Transactional
+    public void markBroadcastAsRead(Long broadcastId) {
+        User user = getCurrentUser();
+        BroadcastNotification broadcast = broadcastFeed.get(broadcastId)
+                .filter(b -> !b.getCreatedAt().isBefore(user.getCreatedAt()))
+                .orElseThrow(() -> new BusinessException(ErrorCode.DATA_NOT_FOUND, "通知不存在"));
+
+        long watermark = broadcastWatermark(user);
+        if (broadcast.getId() <= watermark) {
+            return;
+        }
+        // 水位推进到该广播，更早的广播一并视为已读
+        int before = broadcastFeed.unreadCount(user.getCreatedAt(), watermark);
+        int after = broadcastFeed.unreadCount(user.getCreatedAt(), broadcast.getId());
+        unreadCounter.advanceWatermark(user.getId(), broadcast.getId());
+        eventPushService.unreadChanged(user.getId(), after - before);
     }
 
     @Override
     @Transactional
     public void markAllAsRead() {
-        Long userId = getCurrentUserId();
+        User user = getCurrentUser();
+        Long userId = user.getId();
+        UnreadCounter.State state = unreadCounter.state(userId);
+        long latestBroadcastId = broadcastFeed.latestId();
+        boolean hasUnreadBroadcast = latestBroadcastId > state.broadcastWatermark();
+
+        // 始终按通知表更新（走 user_id, is_read 索引），不依赖可能存在偏差的计数
         int count = notificationRepository.markAllAsRead(userId);
-        log.info("用户 {} 标记了 {} 条通知为已读", userId, count);
+        if (count > 0 || state.unread() != 0) {
+            // 所有个人通知均已读，计数以更新结果为准归零（计数行存在偏差时一并修正）
+            unreadCounter.reset(userId);
+            log.info("用户 {} 标记了 {} 条通知为已读", userId, count);
+        }
+        if (hasUnreadBroadcast) {
+            unreadCounter.advanceWatermark(userId, latestBroadcastId);
+        }
+        if (count > 0 || state.unread() != 0 || hasUnreadBroadcast) {
+            eventPushService.unreadReset(userId);
+        }
+    }
+
+    @Override
+    public void sendBroadcast(Notification.Type type, String title, String content, Long announcementId) {
+        broadcastFeed.publish(type, abbreviate(title, 100), abbreviate(content, 500), announcementId);
+    }
+
+    @Override
+    public void withdrawBroadcast(Long announcementId) {
+        broadcastFeed.hide(announcementId);
     }
 
     @Override
@@ -93,67 +220,73 @@ public class NotificationServiceImpl implements NotificationService {
                 .build();
 
         notificationRepository.save(notification);
+        unreadCounter.add(userId, 1);
+        eventPushService.unreadChanged(userId, 1);
         log.info("向用户 {} 发送通知: {}", userId, title);
     }
 
     @Override
-    @Transactional
     @Scheduled(cron = "0 30 8 * * ?") // 每天早上8:30执行
     public void checkAndSendDueReminders() {
-        log.info("开始检查即将到期的借阅记录并发送提醒...");
-
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime deadline = now.plusDays(REMINDER_DAYS_BEFORE);
-
-        List<BorrowRecord> dueSoonRecords = borrowRecordRepository.findDueSoonRecords(now, deadline);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-        int count = 0;
-        for (BorrowRecord record : dueSoonRecords) {
-            String title = "图书即将到期提醒";
-            String content = String.format("您借阅的图书《%s》将于 %s 到期，请及时归还或续借。",
-                    record.getBook().getTitle(),
-                    record.getDueDate().format(formatter));
-
-            sendNotification(record.getUser().getId(), Notification.Type.DUE_REMINDER,
-                    title, content, record.getId());
-            count++;
+        if (digestEnabled) {
+            log.info("开始发送借阅提醒摘要...");
+            int count = notificationDispatcher.dispatchDigests(now, now.plusDays(REMINDER_DAYS_BEFORE));
+            log.info("借阅提醒摘要发送完成，共发送 {} 条摘要", count);
+            return;
         }
-
+        log.info("开始检查即将到期的借阅记录并发送提醒...");
+        int count = notificationDispatcher.dispatchDueReminders(now, now.plusDays(REMINDER_DAYS_BEFORE));
         log.info("到期提醒发送完成，共发送 {} 条提醒", count);
     }
 
     @Override
-    @Transactional
     @Scheduled(cron = "0 0 9 * * ?") // 每天早上9:00执行
     public void checkAndSendOverdueNotices() {
+        if (digestEnabled) {
+            log.info("已启用借阅提醒摘要，逾期通知合并在摘要中发送");
+            return;
+        }
         log.info("开始检查逾期记录并发送通知...");
+        int count = notificationDispatcher.dispatchOverdueNotices(LocalDateTime.now());
+        log.info("逾期通知发送完成，共发送 {} 条通知", count);
+    }
 
-        LocalDateTime now = LocalDateTime.now();
-        List<BorrowRecord> overdueRecords = borrowRecordRepository.findOverdueRecords(now);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        int count = 0;
-        for (BorrowRecord record : overdueRecords) {
-            int overdueDays = record.calculateOverdueDays();
-            String title = "图书逾期通知";
-            String content = String.format("您借阅的图书《%s》已逾期 %d 天，请尽快归还。逾期罚款：%.2f 元/天。",
-                    record.getBook().getTitle(),
-                    overdueDays,
-                    0.5);
-
-            sendNotification(record.getUser().getId(), Notification.Type.OVERDUE_NOTICE,
-                    title, content, record.getId());
-            count++;
-        }
+    /**
+     * 合并个人通知与广播通知，按时间倒序取前 limit 条
+     */
+    private List<NotificationResponse> merge(List<Notification> notifications, List<BroadcastNotification> broadcasts,
+                                             long watermark, int limit) {
+        List<NotificationResponse> merged = new ArrayList<>(notifications.size() + broadcasts.size());
+        notifications.forEach(n -> merged.add(NotificationResponse.fromEntity(n)));
+        broadcasts.forEach(b -> merged.add(NotificationResponse.fromBroadcast(b, b.getId() <= watermark)));
+        merged.sort(NEWEST_FIRST);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
 
-        log.info("逾期通知发送完成，共发送 {} 条通知", count);
+    private static long cursorId(NotificationResponse notification) {
+        return Boolean.TRUE.equals(notification.getBroadcast()) ? -notification.getId() : notification.getId();
+    }
+
+    /**
+     * 广播是否位于游标之后（按时间、游标ID倒序）
+     */
+    private static boolean isAfter(BroadcastNotification broadcast, PageCursor cursor) {
+        int cmp = broadcast.getCreatedAt().compareTo(cursor.getSortKey());
+        return cmp < 0 || (cmp == 0 && -broadcast.getId() < cursor.getId());
+    }
+
+    private long broadcastWatermark(User user) {
+        return unreadCounter.state(user.getId()).broadcastWatermark();
+    }
+
+    private static String abbreviate(String text, int maxLength) {
+        return text != null && text.length() > maxLength ? text.substring(0, maxLength - 1) + "…" : text;
     }
 
-    private Long getCurrentUserId() {
+    private User getCurrentUser() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         return userRepository.findByUsername(username)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_LOGIN, "用户未登录"))
-                .getId();
+                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_LOGIN, "用户未登录"));
     }
 }
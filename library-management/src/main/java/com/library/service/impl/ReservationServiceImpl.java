@@ -10,6 +10,7 @@ import com.library.entity.User;
 import com.library.exception.BusinessException;
 import com.library.repository.BookRepository;
 import com.library.repository.ReservationRepository;
+import com.library.service.EventPushService;
 import com.library.service.NotificationService;
 import com.library.service.ReservationService;
 import com.library.service.UserService;
@@ -24,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,6 +37,7 @@ public class ReservationServiceImpl implements ReservationService {
     private final BookRepository bookRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final EventPushService eventPushService;
 
     /**
      * 预约优先借阅有效期（天）
@@ -177,6 +180,11 @@ public class ReservationServiceImpl implements ReservationService {
                         book.getTitle(), RESERVATION_PRIORITY_DAYS),
                 null
         );
+        eventPushService.holdReady(reservation.getUser().getId(), Map.of(
+                "reservationId", reservation.getId(),
+                "bookId", book.getId(),
+                "bookTitle", book.getTitle(),
+                "expiresAt", expiresAt.toString()));
 
         log.info("已通知用户 {} 预约的图书《{}》可借阅，有效期至 {}",
                 reservation.getUser().getUsername(), book.getTitle(), expiresAt);
@@ -1,7 +1,10 @@
 package com.library.service.impl;
 
 import com.library.exception.BusinessException;
+import com.library.common.CursorPageResult;
 import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
+import com.library.dto.projection.ReviewListItem;
 import com.library.dto.request.ReviewRequest;
 import com.library.dto.response.ReviewResponse;
 import com.library.entity.Book;
@@ -10,7 +13,10 @@ import com.library.entity.User;
 import com.library.repository.BookRepository;
 import com.library.repository.ReviewRepository;
 import com.library.repository.UserRepository;
+import com.library.service.BookCacheService;
+import com.library.service.PageCountCache;
 import com.library.service.ReviewService;
+import com.library.service.SecondLevelCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -29,6 +35,9 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final PageCountCache pageCountCache;
+    private final BookCacheService bookCacheService;
+    private final SecondLevelCacheService secondLevelCacheService;
 
     @Override
     @Transactional
@@ -59,35 +68,56 @@ public class ReviewServiceImpl implements ReviewService {
                 .build();
 
         review = reviewRepository.save(review);
+        applyReviewStats(review, 1);
         return ReviewResponse.fromEntity(review);
     }
 
     @Override
     public Page<ReviewResponse> getBookReviews(Long bookId, int page, int size) {
         Pageable pageable = PageRequest.of(page - 1, size);
-        Page<Review> reviews = reviewRepository.findByBook_IdAndStatusOrderByCreatedAtDesc(bookId, 1, pageable);
-        return reviews.map(ReviewResponse::fromEntity);
+        Page<ReviewListItem> reviews = reviewRepository.findByBookIdAndStatus(bookId, 1, pageable);
+        return reviews.map(ReviewResponse::fromListItem);
+    }
+
+    @Override
+    public CursorPageResult<ReviewResponse> getBookReviewsByCursor(Long bookId, String cursor, int size, boolean withTotal) {
+        size = size > 0 ? Math.min(size, 100) : 10;
+        PageCursor pageCursor = PageCursor.decode(cursor);
+
+        List<ReviewListItem> reviews = reviewRepository.findByBookIdAndStatusAfter(
+                bookId, 1,
+                pageCursor != null ? pageCursor.getSortKey() : null,
+                pageCursor != null ? pageCursor.getId() : null,
+                PageRequest.of(0, size + 1));
+
+        Long total = withTotal
+                ? pageCountCache.getOrCount("review:" + bookId, () -> reviewRepository.countByBook_IdAndStatus(bookId, 1))
+                : null;
+
+        return CursorPageResult.of(reviews, size,
+                r -> new PageCursor(r.createdAt(), r.id()),
+                ReviewResponse::fromListItem, total);
     }
 
     @Override
     public List<ReviewResponse> getMyReviews() {
         Long userId = getCurrentUserId();
-        List<Review> reviews = reviewRepository.findByUser_IdAndStatusOrderByCreatedAtDesc(userId, 1);
+        List<ReviewListItem> reviews = reviewRepository.findByUserIdAndStatus(userId, 1);
         return reviews.stream()
-                .map(ReviewResponse::fromEntity)
+                .map(ReviewResponse::fromListItem)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Page<ReviewResponse> getAllReviews(String keyword, int page, int size) {
         Pageable pageable = PageRequest.of(page - 1, size);
-        Page<Review> reviews;
+        Page<ReviewListItem> reviews;
         if (keyword != null && !keyword.trim().isEmpty()) {
             reviews = reviewRepository.searchReviews(keyword.trim(), pageable);
         } else {
-            reviews = reviewRepository.findAllByOrderByCreatedAtDesc(pageable);
+            reviews = reviewRepository.findAllListItems(pageable);
         }
-        return reviews.map(ReviewResponse::fromEntity);
+        return reviews.map(ReviewResponse::fromListItem);
     }
 
     @Override
@@ -103,6 +133,9 @@ public class ReviewServiceImpl implements ReviewService {
         }
 
         reviewRepository.delete(review);
+        if (Integer.valueOf(1).equals(review.getStatus())) {
+            applyReviewStats(review, -1);
+        }
     }
 
     @Override
@@ -111,6 +144,9 @@ public class ReviewServiceImpl implements ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PARAM_ERROR, "评论不存在"));
         reviewRepository.delete(review);
+        if (Integer.valueOf(1).equals(review.getStatus())) {
+            applyReviewStats(review, -1);
+        }
     }
 
     @Override
@@ -127,27 +163,55 @@ public class ReviewServiceImpl implements ReviewService {
     public void updateReviewStatus(Long reviewId, Integer status) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PARAM_ERROR, "评论不存在"));
-        review.setStatus(status);
-        reviewRepository.save(review);
+        Integer previous = review.getStatus();
+        if (previous.equals(status)) {
+            return;
+        }
+        // 以读取到的状态为条件更新：并发审核时只有一方生效，另一方提示刷新，避免重复调整评分统计
+        if (reviewRepository.updateStatus(reviewId, previous, status) == 0) {
+            throw new BusinessException(ErrorCode.CONCURRENT_UPDATE);
+        }
+        boolean wasVisible = Integer.valueOf(1).equals(previous);
+        boolean visible = Integer.valueOf(1).equals(status);
+        if (wasVisible != visible) {
+            // 仅在显示状态切换时同步图书评论统计
+            applyReviewStats(review, visible ? 1 : -1);
+        }
     }
 
     @Override
     public List<ReviewResponse> getLatestReviews(int limit) {
         Pageable pageable = PageRequest.of(0, limit);
-        List<Review> reviews = reviewRepository.findLatestReviews(pageable);
+        List<ReviewListItem> reviews = reviewRepository.findLatestReviews(pageable);
         return reviews.stream()
-                .map(ReviewResponse::fromEntity)
+                .map(ReviewResponse::fromListItem)
                 .collect(Collectors.toList());
     }
 
     @Override
     public Double getBookAverageRating(Long bookId) {
-        return reviewRepository.getAverageRatingByBookId(bookId);
+        return bookRepository.findById(bookId)
+                .map(Book::getAverageRating)
+                .orElse(null);
     }
 
     @Override
     public long getBookReviewCount(Long bookId) {
-        return reviewRepository.countByBook_IdAndStatus(bookId, 1);
+        return bookRepository.findById(bookId)
+                .map(book -> (long) book.getReviewCount())
+                .orElse(0L);
+    }
+
+    /**
+     * 同步图书上的评论数和评分总和，并使图书实体缓存和详情缓存失效
+     *
+     * @param sign 1-计入统计，-1-移出统计
+     */
+    private void applyReviewStats(Review review, int sign) {
+        Long bookId = review.getBook().getId();
+        bookRepository.adjustReviewStats(bookId, sign, sign * review.getRating());
+        secondLevelCacheService.evictAfterUpdate(Book.class, bookId);
+        bookCacheService.countsChanged(bookId);
     }
 
     private Long getCurrentUserId() {
@@ -0,0 +1,17 @@
+package com.library.service.importer;
+
+import lombok.Getter;
+
+/**
+ * 单条导入记录格式错误，读取器已跳过该记录，可继续读取后续记录
+ */
+@Getter
+public class BookImportFormatException extends RuntimeException {
+
+    private final long rowNumber;
+
+    public BookImportFormatException(long rowNumber, String message) {
+        super(message);
+        this.rowNumber = rowNumber;
+    }
+}
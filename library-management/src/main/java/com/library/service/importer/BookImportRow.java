@@ -0,0 +1,29 @@
+package com.library.service.importer;
+
+/**
+ * 导入文件中的一行图书数据（原始字符串，校验和类型转换由导入服务完成）
+ *
+ * @param rowNumber   行号（CSV 为数据行号，MARC 为记录序号）
+ * @param isbn        ISBN
+ * @param title       书名
+ * @param author      作者
+ * @param publisher   出版社
+ * @param publishDate 出版日期（yyyy-MM-dd 或 yyyy）
+ * @param category    分类名称或分类ID
+ * @param price       价格
+ * @param totalCount  总库存
+ * @param description 简介
+ * @param location    存放位置
+ */
+public record BookImportRow(long rowNumber,
+                            String isbn,
+                            String title,
+                            String author,
+                            String publisher,
+                            String publishDate,
+                            String category,
+                            String price,
+                            String totalCount,
+                            String description,
+                            String location) {
+}
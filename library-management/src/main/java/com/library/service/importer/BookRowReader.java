@@ -0,0 +1,19 @@
+package com.library.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 图书导入文件的流式读取器，逐条读取记录，内存占用与文件大小无关
+ */
+public interface BookRowReader extends Closeable {
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录，读取完毕时返回 null
+     * @throws BookImportFormatException 当前记录格式错误（可跳过该记录继续读取）
+     * @throws IOException               读取文件失败
+     */
+    BookImportRow next() throws IOException;
+}
@@ -0,0 +1,173 @@
+package com.library.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV 图书导入读取器（RFC 4180，支持引号包裹、转义引号及字段内换行）
+ * 首行为表头，列名支持英文或中文，列顺序不限：
+ * isbn/ISBN、title/书名、author/作者、publisher/出版社、publish_date/出版日期、
+ * category/分类、price/价格、total_count/库存、description/简介、location/位置
+ */
+public class CsvBookRowReader implements BookRowReader {
+
+    private static final Map<String, String> HEADER_ALIASES = new HashMap<>();
+
+    static {
+        alias("isbn", "isbn");
+        alias("title", "title", "书名");
+        alias("author", "author", "作者");
+        alias("publisher", "publisher", "出版社");
+        alias("publish_date", "publish_date", "publishdate", "出版日期");
+        alias("category", "category", "category_id", "分类");
+        alias("price", "price", "价格");
+        alias("total_count", "total_count", "totalcount", "库存", "总库存");
+        alias("description", "description", "简介");
+        alias("location", "location", "位置", "存放位置");
+    }
+
+    private final Reader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final StringBuilder field = new StringBuilder();
+    private long rowNumber;
+    private boolean eof;
+
+    public CsvBookRowReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        skipBom();
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new BookImportFormatException(1, "CSV 文件为空");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            String key = HEADER_ALIASES.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            if (key != null) {
+                columns.putIfAbsent(key, i);
+            }
+        }
+        if (!columns.containsKey("title")) {
+            throw new BookImportFormatException(1, "CSV 表头缺少 title（书名）列");
+        }
+    }
+
+    @Override
+    public BookImportRow next() throws IOException {
+        List<String> values;
+        do {
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        return new BookImportRow(rowNumber,
+                column(values, "isbn"),
+                column(values, "title"),
+                column(values, "author"),
+                column(values, "publisher"),
+                column(values, "publish_date"),
+                column(values, "category"),
+                column(values, "price"),
+                column(values, "total_count"),
+                column(values, "description"),
+                column(values, "location"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String column(List<String> values, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 读取一条完整记录（可能跨越多个物理行），文件结束时返回 null
+     */
+    private List<String> readRecord() throws IOException {
+        if (eof) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean any = false;
+        rowNumber++;
+
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                eof = true;
+                if (quoted) {
+                    throw new BookImportFormatException(rowNumber, "引号未闭合");
+                }
+                if (!any && field.isEmpty() && values.isEmpty()) {
+                    return null;
+                }
+                values.add(field.toString());
+                return values;
+            }
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                values.add(field.toString());
+                return values;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void skipBom() throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') {
+            reader.reset();
+        }
+    }
+
+    private static void alias(String key, String... names) {
+        for (String name : names) {
+            HEADER_ALIASES.put(name.toLowerCase(Locale.ROOT), key);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.library.service.importer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MARC21（ISO 2709）图书导入读取器，逐条解析记录，按 UTF-8 解码字段内容
+ * 字段映射：
+ * 020$a ISBN，020$c 价格，245$a$b 书名，100$a（或110$a）作者，
+ * 260/264 $b 出版社、$c 出版日期，650$a 分类，520$a 简介，852$h 存放位置
+ */
+public class MarcBookRowReader implements BookRowReader {
+
+    private static final int LEADER_LENGTH = 24;
+    private static final int DIRECTORY_ENTRY_LENGTH = 12;
+    private static final int MAX_RECORD_LENGTH = 99999;
+    private static final byte FIELD_TERMINATOR = 0x1E;
+    private static final byte RECORD_TERMINATOR = 0x1D;
+    private static final byte SUBFIELD_DELIMITER = 0x1F;
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[MAX_RECORD_LENGTH];
+    private long rowNumber;
+
+    public MarcBookRowReader(InputStream input) {
+        this.input = new BufferedInputStream(input, 64 * 1024);
+    }
+
+    @Override
+    public BookImportRow next() throws IOException {
+        int first = skipWhitespace();
+        if (first == -1) {
+            return null;
+        }
+        rowNumber++;
+
+        buffer[0] = (byte) first;
+        readFully(1, 4);
+        int recordLength = parseNumber(buffer, 0, 5);
+        if (recordLength < LEADER_LENGTH + 1) {
+            throw new IOException("MARC 记录长度无效（第" + rowNumber + "条），无法继续解析");
+        }
+        readFully(5, recordLength - 5);
+
+        int baseAddress = parseNumber(buffer, 12, 5);
+        if (baseAddress <= LEADER_LENGTH || baseAddress > recordLength) {
+            throw new BookImportFormatException(rowNumber, "MARC 记录数据起始地址无效");
+        }
+
+        Fields fields = new Fields();
+        for (int pos = LEADER_LENGTH; pos + DIRECTORY_ENTRY_LENGTH <= baseAddress - 1; pos += DIRECTORY_ENTRY_LENGTH) {
+            String tag = new String(buffer, pos, 3, StandardCharsets.US_ASCII);
+            int length = parseNumber(buffer, pos + 3, 4);
+            int start = baseAddress + parseNumber(buffer, pos + 7, 5);
+            if (length < 0 || start < 0 || start + length > recordLength) {
+                throw new BookImportFormatException(rowNumber, "MARC 目录项越界: " + tag);
+            }
+            fields.accept(tag, start, length);
+        }
+
+        return new BookImportRow(rowNumber, fields.isbn, join(fields.title, fields.subtitle), fields.author,
+                fields.publisher, fields.publishDate, fields.category, fields.price, null,
+                fields.description, fields.location);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * 单条记录中感兴趣的字段（同一字段重复出现时取第一次）
+     */
+    private class Fields {
+        String isbn;
+        String price;
+        String title;
+        String subtitle;
+        String author;
+        String publisher;
+        String publishDate;
+        String category;
+        String description;
+        String location;
+
+        void accept(String tag, int start, int length) {
+            switch (tag) {
+                case "020" -> {
+                    isbn = first(isbn, subfield(start, length, 'a'));
+                    price = first(price, subfield(start, length, 'c'));
+                }
+                case "245" -> {
+                    title = first(title, subfield(start, length, 'a'));
+                    subtitle = first(subtitle, subfield(start, length, 'b'));
+                }
+                case "100", "110" -> author = first(author, subfield(start, length, 'a'));
+                case "260", "264" -> {
+                    publisher = first(publisher, subfield(start, length, 'b'));
+                    publishDate = first(publishDate, subfield(start, length, 'c'));
+                }
+                case "650" -> category = first(category, subfield(start, length, 'a'));
+                case "520" -> description = first(description, subfield(start, length, 'a'));
+                case "852" -> location = first(location, subfield(start, length, 'h'));
+                default -> {
+                }
+            }
+        }
+
+        /**
+         * 提取变长字段中指定代码的子字段（跳过两位指示符）
+         */
+        private String subfield(int start, int length, char code) {
+            int end = start + length;
+            for (int i = start; i < end - 1; i++) {
+                if (buffer[i] == SUBFIELD_DELIMITER && buffer[i + 1] == code) {
+                    int from = i + 2;
+                    int to = from;
+                    while (to < end && buffer[to] != SUBFIELD_DELIMITER
+                            && buffer[to] != FIELD_TERMINATOR && buffer[to] != RECORD_TERMINATOR) {
+                        to++;
+                    }
+                    return clean(new String(buffer, from, to - from, StandardCharsets.UTF_8));
+                }
+            }
+            return null;
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = input.read();
+        } while (c == '\n' || c == '\r' || c == ' ' || c == RECORD_TERMINATOR);
+        return c;
+    }
+
+    private void readFully(int offset, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int n = input.read(buffer, offset + read, length - read);
+            if (n == -1) {
+                throw new IOException("MARC 文件意外结束（第" + rowNumber + "条记录不完整）");
+            }
+            read += n;
+        }
+    }
+
+    private int parseNumber(byte[] bytes, int offset, int length) throws IOException {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("MARC 记录头格式错误（第" + rowNumber + "条），无法继续解析");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * 去除 ISBD 标点（结尾的 / : ; , . 及空白）
+     */
+    private static String clean(String value) {
+        int end = value.length();
+        while (end > 0 && " /:;,.".indexOf(value.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String result = value.substring(0, end).trim();
+        return result.isEmpty() ? null : result;
+    }
+
+    private static String first(String current, String candidate) {
+        return current != null ? current : candidate;
+    }
+
+    private static String join(String title, String subtitle) {
+        if (title == null || subtitle == null) {
+            return title;
+        }
+        return title + "：" + subtitle;
+    }
+}
@@ -18,7 +18,10 @@ SET NAMES utf8mb4;
 -- ========================================
 -- 用户表
 -- ========================================
+DROP TABLE IF EXISTS latency_summary;
 DROP TABLE IF EXISTS operation_log;
+DROP TABLE IF EXISTS notification_counter;
+DROP TABLE IF EXISTS broadcast_notification;
 DROP TABLE IF EXISTS notification;
 DROP TABLE IF EXISTS favorite;
 DROP TABLE IF EXISTS borrow_record;
@@ -50,9 +53,12 @@ CREATE TABLE category (
     description VARCHAR(255) COMMENT '分类描述',
     parent_id BIGINT DEFAULT NULL COMMENT '父分类ID',
     sort_order INT DEFAULT 0 COMMENT '排序',
+    tree_left INT DEFAULT NULL COMMENT '分类树先序区间左端（应用启动及分类变更时维护）',
+    tree_right INT DEFAULT NULL COMMENT '分类树先序区间右端',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_parent_id (parent_id),
+    INDEX idx_category_tree_left (tree_left),
     FOREIGN KEY (parent_id) REFERENCES category(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书分类表';
 
@@ -74,6 +80,9 @@ CREATE TABLE book (
     cover_url VARCHAR(500) COMMENT '封面图片URL',
     location VARCHAR(50) COMMENT '存放位置',
     status INT NOT NULL DEFAULT 1 COMMENT '状态: 0-下架, 1-上架',
+    borrow_count INT NOT NULL DEFAULT 0 COMMENT '累计借阅次数',
+    review_count INT NOT NULL DEFAULT 0 COMMENT '有效评论数',
+    rating_sum INT NOT NULL DEFAULT 0 COMMENT '有效评论评分总和',
     version BIGINT DEFAULT 0 COMMENT '乐观锁版本号',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
@@ -81,6 +90,8 @@ CREATE TABLE book (
     INDEX idx_author (author),
     INDEX idx_category_id (category_id),
     INDEX idx_isbn (isbn),
+    INDEX idx_created_at (created_at),
+    INDEX idx_status_borrow_count (status, borrow_count),
     FOREIGN KEY (category_id) REFERENCES category(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书表';
 
@@ -102,6 +113,9 @@ CREATE TABLE borrow_record (
     INDEX idx_book_id (book_id),
     INDEX idx_status (status),
     INDEX idx_borrow_date (borrow_date),
+    INDEX idx_user_borrow_date (user_id, borrow_date),
+    INDEX idx_status_due_date (status, due_date),
+    INDEX idx_status_user_due_date (status, user_id, due_date),
     FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE,
     FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅记录表';
@@ -164,21 +178,48 @@ CREATE TABLE favorite (
 CREATE TABLE notification (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '通知ID',
     user_id BIGINT NOT NULL COMMENT '用户ID',
-    type VARCHAR(30) NOT NULL COMMENT '通知类型: DUE_REMINDER-到期提醒, OVERDUE_NOTICE-逾期通知, RETURN_SUCCESS-归还成功, BORROW_SUCCESS-借阅成功, FINE_NOTICE-罚款通知, SYSTEM-系统通知',
+    type VARCHAR(30) NOT NULL COMMENT '通知类型: DUE_REMINDER-到期提醒, OVERDUE_NOTICE-逾期通知, RETURN_SUCCESS-归还成功, BORROW_SUCCESS-借阅成功, FINE_NOTICE-罚款通知, SYSTEM-系统通知, DIGEST-借阅提醒摘要',
     title VARCHAR(100) NOT NULL COMMENT '通知标题',
     content VARCHAR(500) NOT NULL COMMENT '通知内容',
+    payload TEXT COMMENT '结构化内容(JSON)，如提醒摘要中的图书列表',
     is_read TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否已读: 0-未读, 1-已读',
     borrow_record_id BIGINT COMMENT '关联的借阅记录ID',
+    digest_date DATE COMMENT '摘要日期（仅提醒摘要）',
     created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_user_id (user_id),
     INDEX idx_type (type),
     INDEX idx_is_read (is_read),
-    INDEX idx_created_at (created_at),
+    INDEX idx_notification_created_at (created_at),
+    INDEX idx_user_created (user_id, created_at),
+    INDEX idx_user_read (user_id, is_read),
+    UNIQUE KEY uk_user_record_type (user_id, borrow_record_id, type),
+    UNIQUE KEY uk_user_type_digest_date (user_id, type, digest_date),
     FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE,
     FOREIGN KEY (borrow_record_id) REFERENCES borrow_record(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知表';
 
+CREATE TABLE notification_counter (
+    user_id BIGINT PRIMARY KEY COMMENT '用户ID',
+    unread_count INT NOT NULL DEFAULT 0 COMMENT '未读通知数',
+    broadcast_watermark BIGINT NOT NULL DEFAULT 0 COMMENT '广播通知已读水位（已读的最大广播通知ID）',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='未读通知计数表';
+
+CREATE TABLE broadcast_notification (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '广播通知ID',
+    type VARCHAR(30) NOT NULL COMMENT '通知类型: ANNOUNCEMENT-公告通知, SYSTEM-系统通知',
+    title VARCHAR(100) NOT NULL COMMENT '通知标题',
+    content VARCHAR(500) NOT NULL COMMENT '通知内容',
+    announcement_id BIGINT COMMENT '关联的公告ID',
+    hidden TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否已隐藏: 0-否, 1-是（关联公告撤回或删除）',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_broadcast_created_at (created_at),
+    INDEX idx_broadcast_announcement_id (announcement_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='广播通知表';
+
 -- ========================================
 -- 操作日志表
 -- ========================================
@@ -205,6 +246,24 @@ CREATE TABLE IF NOT EXISTS operation_log (
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作日志表';
 
+-- ========================================
+-- 操作耗时每分钟汇总表
+-- ========================================
+CREATE TABLE IF NOT EXISTS latency_summary (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '汇总ID',
+    module VARCHAR(50) NOT NULL COMMENT '操作模块',
+    operation VARCHAR(100) NOT NULL COMMENT '操作（@Log 描述）',
+    minute_start DATETIME NOT NULL COMMENT '统计分钟的开始时间',
+    sample_count BIGINT NOT NULL COMMENT '请求数',
+    p50_ms BIGINT NOT NULL COMMENT 'p50耗时(毫秒)',
+    p95_ms BIGINT NOT NULL COMMENT 'p95耗时(毫秒)',
+    p99_ms BIGINT NOT NULL COMMENT 'p99耗时(毫秒)',
+    max_ms BIGINT NOT NULL COMMENT '最大耗时(毫秒)',
+    mean_ms DOUBLE NOT NULL COMMENT '平均耗时(毫秒)',
+    histogram BLOB NOT NULL COMMENT '压缩编码的 HdrHistogram',
+    INDEX idx_latency_minute (minute_start, module)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='操作耗时每分钟汇总表';
+
 -- ========================================
 -- 预约表
 -- ========================================
@@ -268,6 +327,7 @@ CREATE TABLE IF NOT EXISTS review (
     INDEX idx_user_id (user_id),
     INDEX idx_status (status),
     INDEX idx_created_at (created_at),
+    INDEX idx_book_status_created (book_id, status, created_at),
     FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE,
     FOREIGN KEY (book_id) REFERENCES book(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书评论表';
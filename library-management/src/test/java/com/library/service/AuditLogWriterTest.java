@@ -0,0 +1,137 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 操作日志异步写入单元测试（不启动后台线程，直接调用 flush）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("操作日志异步写入测试")
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditSegmentStore segmentStore;
+
+    private AuditLogWriter writer(int capacity, AuditLogWriter.OverflowPolicy policy) {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, new ObjectMapper(), segmentStore, capacity, policy);
+        ReflectionTestUtils.setField(writer, "batchSize", 200);
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 0L);
+        return writer;
+    }
+
+    private AuditLogWriter.Entry entry(String description) {
+        return entry(description, 1);
+    }
+
+    private AuditLogWriter.Entry entry(String description, int status) {
+        return AuditLogWriter.Entry.builder()
+                .module("借阅管理")
+                .operation("新增")
+                .description(description)
+                .operator("reader")
+                .operationTime(LocalDateTime.now())
+                .costTime(5L)
+                .status(status)
+                .build();
+    }
+
+    @Test
+    @DisplayName("队列满时丢弃最旧日志，批量写入剩余日志")
+    @SuppressWarnings("unchecked")
+    void dropOldest_FlushesRemainingInOneBatch() {
+        AuditLogWriter writer = writer(2, AuditLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        writer.submit(entry("a"));
+        writer.submit(entry("b"));
+        writer.submit(entry("c"));
+
+        assertEquals(2, writer.flush());
+        ArgumentCaptor<Collection<AuditLogWriter.Entry>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of("b", "c"), batch.getValue().stream().map(AuditLogWriter.Entry::description).toList());
+
+        Map<String, Object> stats = writer.stats();
+        assertEquals(1L, stats.get("dropped"));
+        assertEquals(2L, stats.get("written"));
+        assertEquals(0, stats.get("queueDepth"));
+        assertEquals(0, writer.flush());
+    }
+
+    @Test
+    @DisplayName("等待超时后丢弃新日志；采样策略始终保留失败操作")
+    void blockTimeoutAndSample() {
+        AuditLogWriter blocking = writer(2, AuditLogWriter.OverflowPolicy.BLOCK);
+        blocking.submit(entry("a"));
+        blocking.submit(entry("b"));
+        blocking.submit(entry("c"));
+        assertEquals(2L, blocking.stats().get("enqueued"));
+        assertEquals(1L, blocking.stats().get("dropped"));
+
+        // 阈值为 0 时每条成功日志都参与采样：1000 次采样判定按 1/10 保留
+        AuditLogWriter sampling = writer(2000, AuditLogWriter.OverflowPolicy.SAMPLE);
+        ReflectionTestUtils.setField(sampling, "sampleThreshold", 0.0);
+        ReflectionTestUtils.setField(sampling, "sampleRate", 10);
+        for (int i = 0; i < 1000; i++) {
+            sampling.submit(entry("e" + i));
+        }
+        sampling.submit(entry("failed", 0));
+        assertEquals(100L + 1, sampling.stats().get("enqueued"));
+        assertEquals(900L, sampling.stats().get("sampledOut"));
+    }
+
+    @Test
+    @DisplayName("序列化参数和结果，超过长度上限时截断，toString() 抛出异常时记录类型名占位")
+    void serialize_StopsAtLimit() {
+        AuditLogWriter writer = writer(2, AuditLogWriter.OverflowPolicy.BLOCK);
+
+        assertEquals("{\"bookId\":1,\"password\":\"******\"}",
+                writer.serializeParams(new String[]{"bookId", "password"}, new Object[]{1L, "******"}));
+        assertEquals("", writer.serializeParams(null, null));
+
+        String big = writer.serializeResult(Map.of("items", Collections.nCopies(5000, "书名")));
+        assertEquals(AuditLogWriter.MAX_TEXT_LENGTH + 3, big.length());
+        assertTrue(big.startsWith("{\"items\":[\"书名\""));
+        assertTrue(big.endsWith("..."));
+        assertEquals("{\"code\":200}", writer.serializeResult(Map.of("code", 200)));
+
+        assertEquals("[Broken]", writer.serializeResult(new Broken()));
+    }
+
+    /**
+     * 序列化和 toString() 均会抛出异常的返回值（如会话关闭后访问懒加载属性的实体）
+     */
+    static class Broken {
+        public Object getValue() {
+            throw new IllegalStateException("lazy");
+        }
+
+        @Override
+        public String toString() {
+            throw new IllegalStateException("lazy");
+        }
+    }
+}
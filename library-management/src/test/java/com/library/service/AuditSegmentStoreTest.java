@@ -0,0 +1,99 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OperationLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 操作日志分段存储单元测试
+ */
+@DisplayName("操作日志分段存储测试")
+class AuditSegmentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 9, 0);
+
+    private AuditSegmentStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = open();
+    }
+
+    private AuditSegmentStore open() throws Exception {
+        AuditSegmentStore store = new AuditSegmentStore(objectMapper, "segment", tempDir.toString());
+        store.load();
+        return store;
+    }
+
+    private OperationLog log(String module, String operator, int minutes) {
+        return OperationLog.builder()
+                .module(module)
+                .operation("新增")
+                .description(module + "操作")
+                .operator(operator)
+                .operationTime(base.plusMinutes(minutes))
+                .costTime(12L)
+                .status(1)
+                .params("{\"bookId\":1}")
+                .build();
+    }
+
+    @Test
+    @DisplayName("追加与查询 - 按模块、操作人、时间过滤，ID倒序分页，重启后按块头恢复索引")
+    void appendAndQuery() throws Exception {
+        store.append(List.of(log("借阅管理", "alice", 0), log("图书管理", "bob", 1)));
+        store.append(List.of(log("借阅管理", "alice2", 30), log("借阅管理", "carol", 40)));
+
+        AuditSegmentStore.Filter borrow = new AuditSegmentStore.Filter("借阅管理", null, null, null);
+        assertEquals(List.of(4L, 3L, 1L), store.query(borrow, null, 10).stream().map(OperationLog::getId).toList());
+        assertEquals(List.of(1L), store.query(borrow, 3L, 10).stream().map(OperationLog::getId).toList());
+        assertEquals(3, store.count(borrow));
+
+        AuditSegmentStore.Filter alice = new AuditSegmentStore.Filter(null, "alice", null, base.plusMinutes(35));
+        assertEquals(List.of(3L, 1L), store.query(alice, null, 10).stream().map(OperationLog::getId).toList());
+        assertEquals(4, store.count(new AuditSegmentStore.Filter(null, null, base.minusDays(1), null)));
+        assertEquals("bob", store.findById(2).orElseThrow().getOperator());
+
+        AuditSegmentStore reopened = open();
+        assertEquals(3, reopened.count(borrow));
+        reopened.append(List.of(log("系统管理", "admin", 50)));
+        assertEquals(5L, reopened.query(new AuditSegmentStore.Filter(null, null, null, null), null, 1).get(0).getId());
+        assertEquals("{\"bookId\":1}", reopened.findById(5).orElseThrow().getParams());
+    }
+
+    @Test
+    @DisplayName("启动时截掉文件末尾不完整的数据块")
+    void load_TruncatesPartialTail() throws Exception {
+        store.append(List.of(log("借阅管理", "alice", 0)));
+        Path segment;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        long validSize = Files.size(segment);
+        Files.write(segment, new byte[]{0x4F, 0x50, 0x4C, 0x47, 0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+
+        AuditSegmentStore reopened = open();
+
+        assertEquals(validSize, Files.size(segment));
+        assertEquals(1, reopened.count(new AuditSegmentStore.Filter(null, null, null, null)));
+        reopened.append(List.of(log("图书管理", "bob", 5)));
+        assertEquals(2, reopened.count(new AuditSegmentStore.Filter(null, null, null, null)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.library.service;
+
+import com.library.dto.projection.BookCounters;
+import com.library.dto.response.BookResponse;
+import com.library.entity.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图书详情缓存单元测试
+ */
+@DisplayName("图书详情缓存测试")
+class BookCacheServiceTest {
+
+    private BookCacheService bookCacheService;
+
+    /**
+     * 模拟数据库中的可借数量
+     */
+    private final AtomicInteger availableInDb = new AtomicInteger(3);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger counterLoads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        bookCacheService = new BookCacheService();
+        ReflectionTestUtils.setField(bookCacheService, "maxSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Book loadFromDb() {
+        loads.incrementAndGet();
+        Book book = Book.builder().title("红楼梦").totalCount(3).availableCount(availableInDb.get()).status(1).build();
+        book.setId(1L);
+        return book;
+    }
+
+    private BookCounters loadCountersFromDb() {
+        counterLoads.incrementAndGet();
+        return new BookCounters(availableInDb.get(), 3 - availableInDb.get(), 0, 0);
+    }
+
+    private int detail() {
+        return bookCacheService.getBookDetail(1L, this::loadFromDb, this::loadCountersFromDb).getAvailableCount();
+    }
+
+    /**
+     * 模拟事务提交：执行已注册的提交后回调
+     */
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    @DisplayName("提交与提交回调之间加载了新库存，回调后不会重复扣减")
+    void evict_ReaderBetweenCommitAndHook() {
+        TransactionSynchronizationManager.initSynchronization();
+        // 借出事务：数据库已扣减并提交，提交后回调尚未执行
+        availableInDb.decrementAndGet();
+        bookCacheService.countsChanged(1L);
+
+        // 其他请求此时未命中缓存，读到已提交的新库存并回填
+        assertEquals(2, detail());
+
+        commit();
+        assertEquals(2, detail());
+        assertEquals(1, loads.get());
+        assertEquals(1, counterLoads.get());
+    }
+
+    @Test
+    @DisplayName("借还只刷新计数层，静态详情不重新加载")
+    void countsChanged_KeepsStaticDetail() {
+        assertEquals(3, detail());
+
+        TransactionSynchronizationManager.initSynchronization();
+        availableInDb.decrementAndGet();
+        bookCacheService.countsChanged(1L);
+        commit();
+
+        BookResponse response = bookCacheService.getBookDetail(1L, this::loadFromDb, this::loadCountersFromDb);
+        assertEquals(2, response.getAvailableCount());
+        assertEquals(1, response.getBorrowCount());
+        assertEquals("红楼梦", response.getTitle());
+        assertEquals(1, loads.get());
+        assertEquals(1, counterLoads.get());
+    }
+
+    @Test
+    @DisplayName("命中缓存不访问数据库，提交前加载的旧数据在提交后失效")
+    void getBookDetail_CachedUntilEvicted() {
+        assertEquals(3, detail());
+        assertEquals(3, detail());
+        assertEquals(1, loads.get());
+
+        TransactionSynchronizationManager.initSynchronization();
+        bookCacheService.evict(1L);
+        // 事务未提交，缓存仍返回旧值
+        assertEquals(3, detail());
+        availableInDb.decrementAndGet();
+        commit();
+
+        assertEquals(2, detail());
+        assertEquals(2, loads.get());
+        assertEquals(0, counterLoads.get());
+    }
+}
@@ -0,0 +1,158 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.dto.response.BookImportJobResponse;
+import com.library.exception.BusinessException;
+import com.library.repository.CategoryRepository;
+import com.library.service.impl.BookImportServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * 图书批量导入单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("图书批量导入测试")
+class BookImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PageCountCache pageCountCache;
+
+    @Mock
+    private CatalogIndex catalogIndex;
+
+    @Mock
+    private SimilarBookIndex similarBookIndex;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private BookImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new BookImportServiceImpl(jdbcTemplate, transactionTemplate, categoryRepository,
+                pageCountCache, catalogIndex, similarBookIndex);
+        ReflectionTestUtils.setField(importService, "batchSize", 1000);
+        ReflectionTestUtils.setField(importService, "queueCapacity", 1);
+        importService.init();
+
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    @DisplayName("ISBN 查重 - 连字符和大小写不同视为重复，写入规范化后的 ISBN")
+    @SuppressWarnings("unchecked")
+    void import_NormalizesIsbn() throws Exception {
+        when(resultSet.getString(1)).thenReturn("9787111123451");
+        doAnswer(inv -> {
+            inv.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT isbn"), any(RowCallbackHandler.class));
+        // 批次在写入后会被清空，在写入时绑定参数
+        PreparedStatement ps = mock(PreparedStatement.class);
+        doAnswer(inv -> {
+            ParameterizedPreparedStatementSetter<Object> setter = inv.getArgument(3);
+            for (Object book : inv.<Collection<Object>>getArgument(1)) {
+                setter.setValues(ps, book);
+            }
+            return new int[0][];
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        String csv = "isbn,title\n" +
+                "978-7-111-12345-1,Java核心技术\n" +
+                "7-5442-1234-x,百年孤独\n" +
+                "754421234X,百年孤独（重复）\n";
+        BookImportJobResponse job = await(importService.submitImport(file(csv), "CSV").getJobId());
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(1, job.getImportedRows());
+        assertEquals(2, job.getDuplicateRows());
+        assertEquals(0, job.getFailedRows());
+        verify(ps, never()).setString(1, "9787111123451");
+        verify(ps).setString(1, "754421234X");
+    }
+
+    @Test
+    @DisplayName("排队已满 - 拒绝新任务并返回导入繁忙")
+    void submit_RejectsWhenQueueFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(categoryRepository.findAll()).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        importService.submitImport(file("title\n红楼梦\n"), "CSV");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        importService.submitImport(file("title\n西游记\n"), "CSV");
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> importService.submitImport(file("title\n水浒传\n"), "CSV"));
+        assertEquals(ErrorCode.IMPORT_BUSY.getCode(), e.getCode());
+        release.countDown();
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "books.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private BookImportJobResponse await(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        BookImportJobResponse job = importService.getJob(jobId);
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = importService.getJob(jobId);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,118 @@
+package com.library.service;
+
+import com.library.service.importer.BookImportFormatException;
+import com.library.service.importer.BookImportRow;
+import com.library.service.importer.CsvBookRowReader;
+import com.library.service.importer.MarcBookRowReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 图书导入文件读取器单元测试
+ */
+@DisplayName("图书导入读取器测试")
+class BookRowReaderTest {
+
+    @Test
+    @DisplayName("CSV - 中文表头、引号字段及字段内换行")
+    void csv_QuotedFieldsAndChineseHeader() throws IOException {
+        String csv = "\uFEFF书名,作者,ISBN,库存,简介\r\n" +
+                "红楼梦,曹雪芹,978-7-02-000850-0,5,\"四大名著之一，\"\"石头记\"\"\"\r\n" +
+                "\r\n" +
+                "\"Java, 编程思想\",Bruce Eckel,,2,\"第一行\n第二行\"\n";
+
+        try (CsvBookRowReader reader = new CsvBookRowReader(stream(csv))) {
+            BookImportRow first = reader.next();
+            assertEquals("红楼梦", first.title());
+            assertEquals("曹雪芹", first.author());
+            assertEquals("978-7-02-000850-0", first.isbn());
+            assertEquals("5", first.totalCount());
+            assertEquals("四大名著之一，\"石头记\"", first.description());
+            assertEquals(2, first.rowNumber());
+
+            BookImportRow second = reader.next();
+            assertEquals("Java, 编程思想", second.title());
+            assertNull(second.isbn());
+            assertEquals("第一行\n第二行", second.description());
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    @DisplayName("CSV - 缺少书名列时拒绝导入")
+    void csv_MissingTitleColumn() {
+        assertThrows(BookImportFormatException.class,
+                () -> new CsvBookRowReader(stream("isbn,author\n123,abc\n")));
+    }
+
+    @Test
+    @DisplayName("MARC21 - 解析多条记录及常用字段")
+    void marc_ParseRecords() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(marcRecord(new String[][]{
+                {"020", "  \u001Fa9787020008500 (pbk.)\u001FcCNY59.70"},
+                {"100", "1 \u001Fa曹雪芹"},
+                {"245", "10\u001Fa红楼梦 /\u001Fb校注本"},
+                {"260", "  \u001Fa北京 :\u001Fb人民文学出版社,\u001Fc1996."},
+                {"650", " 0\u001Fa中国文学"}
+        }));
+        out.write(marcRecord(new String[][]{
+                {"245", "10\u001FaThe Art of Computer Programming."}
+        }));
+
+        try (MarcBookRowReader reader = new MarcBookRowReader(new ByteArrayInputStream(out.toByteArray()))) {
+            BookImportRow first = reader.next();
+            assertEquals("9787020008500 (pbk.)", first.isbn());
+            assertEquals("CNY59.70", first.price());
+            assertEquals("曹雪芹", first.author());
+            assertEquals("红楼梦：校注本", first.title());
+            assertEquals("人民文学出版社", first.publisher());
+            assertEquals("1996", first.publishDate());
+            assertEquals("中国文学", first.category());
+
+            BookImportRow second = reader.next();
+            assertEquals("The Art of Computer Programming", second.title());
+            assertEquals(2, second.rowNumber());
+
+            assertNull(reader.next());
+        }
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按 ISO 2709 结构组装一条 MARC 记录
+     */
+    private static byte[] marcRecord(String[][] fields) {
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (String[] field : fields) {
+            byte[] bytes = (field[1] + "\u001E").getBytes(StandardCharsets.UTF_8);
+            directory.writeBytes(String.format("%s%04d%05d", field[0], bytes.length, data.size())
+                    .getBytes(StandardCharsets.US_ASCII));
+            data.writeBytes(bytes);
+        }
+        directory.write(0x1E);
+
+        int baseAddress = 24 + directory.size();
+        int length = baseAddress + data.size() + 1;
+        String leader = String.format("%05dnam a22%05d   4500", length, baseAddress);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.writeBytes(leader.getBytes(StandardCharsets.US_ASCII));
+        record.writeBytes(directory.toByteArray());
+        record.writeBytes(data.toByteArray());
+        record.write(0x1D);
+        return record.toByteArray();
+    }
+}
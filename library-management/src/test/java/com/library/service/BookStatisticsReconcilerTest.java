@@ -0,0 +1,68 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 图书统计列校对单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("图书统计列校对测试")
+class BookStatisticsReconcilerTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookCacheService bookCacheService;
+
+    @Mock
+    private CatalogIndex catalogIndex;
+
+    private BookStatisticsReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new BookStatisticsReconciler(bookRepository, bookCacheService, catalogIndex);
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+        ReflectionTestUtils.setField(reconciler, "chunkSize", 500);
+        ReflectionTestUtils.setField(reconciler, "chunkPauseMs", 0L);
+    }
+
+    @Test
+    @DisplayName("按ID区间分段重算，完成后刷新缓存和目录索引")
+    void reconcile_UpdatesInIdChunks() {
+        when(bookRepository.findMaxId()).thenReturn(1200L);
+        when(bookRepository.rebuildStatistics(anyLong(), anyLong())).thenReturn(500, 500, 200);
+
+        assertEquals(1200, reconciler.reconcile());
+
+        InOrder inOrder = inOrder(bookRepository, bookCacheService, catalogIndex);
+        inOrder.verify(bookRepository).rebuildStatistics(1, 500);
+        inOrder.verify(bookRepository).rebuildStatistics(501, 1000);
+        inOrder.verify(bookRepository).rebuildStatistics(1001, 1500);
+        inOrder.verify(bookCacheService).evictAll();
+        inOrder.verify(catalogIndex).markDirty();
+    }
+
+    @Test
+    @DisplayName("关闭定时校对时不执行更新")
+    void scheduledReconcile_Disabled() {
+        ReflectionTestUtils.setField(reconciler, "enabled", false);
+
+        reconciler.scheduledReconcile();
+
+        verifyNoInteractions(bookRepository);
+    }
+}
@@ -49,6 +49,21 @@ class BorrowServiceTest {
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private BookCacheService bookCacheService;
+
+    @Mock
+    private CatalogIndex catalogIndex;
+
+    @Mock
+    private CoBorrowRecommender coBorrowRecommender;
+
+    @Mock
+    private EventPushService eventPushService;
+
+    @Mock
+    private SecondLevelCacheService secondLevelCacheService;
+
     @InjectMocks
     private BorrowServiceImpl borrowService;
 
@@ -121,6 +136,7 @@ class BorrowServiceTest {
         assertEquals(BorrowRecord.Status.RETURNED, record.getStatus());
         assertNotNull(record.getReturnDate());
         verify(bookRepository).increaseAvailableCount(1L);
+        verify(secondLevelCacheService).evictAfterUpdate(Book.class, 1L);
     }
 
     @Test
@@ -0,0 +1,124 @@
+package com.library.service;
+
+import com.library.entity.BroadcastNotification;
+import com.library.entity.Notification;
+import com.library.repository.BroadcastNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 广播通知单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("广播通知测试")
+class BroadcastFeedTest {
+
+    @Mock
+    private BroadcastNotificationRepository broadcastNotificationRepository;
+
+    @Mock
+    private EventPushService eventPushService;
+
+    private BroadcastFeed broadcastFeed;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        broadcastFeed = new BroadcastFeed(broadcastNotificationRepository, eventPushService);
+        ReflectionTestUtils.setField(broadcastFeed, "retentionDays", 90);
+        List<BroadcastNotification> existing = new ArrayList<>(List.of(
+                broadcast(1L, now.minusDays(10)),
+                broadcast(2L, now.minusDays(5)),
+                broadcast(3L, now.minusDays(1))));
+        when(broadcastNotificationRepository.findByHiddenFalseAndCreatedAtAfterOrderByIdAsc(any())).thenReturn(existing);
+    }
+
+    @Test
+    @DisplayName("可见范围与未读数 - 只包含注册之后的广播，按已读水位计算未读")
+    void visibleAndUnread() {
+        LocalDateTime registeredAt = now.minusDays(7);
+
+        assertEquals(List.of(3L, 2L), broadcastFeed.visibleTo(registeredAt).stream()
+                .map(BroadcastNotification::getId).toList());
+        assertEquals(2, broadcastFeed.unreadCount(registeredAt, 0));
+        assertEquals(1, broadcastFeed.unreadCount(registeredAt, 2));
+        assertEquals(0, broadcastFeed.unreadCount(registeredAt, 3));
+        assertEquals(3, broadcastFeed.unreadCount(now.minusDays(30), 0));
+        assertEquals(3L, broadcastFeed.latestId());
+    }
+
+    @Test
+    @DisplayName("发布 - 只写入一行并向在线用户推送")
+    void publish_SingleInsert() {
+        when(broadcastNotificationRepository.save(any(BroadcastNotification.class))).thenAnswer(inv -> {
+            BroadcastNotification saved = inv.getArgument(0);
+            saved.setId(4L);
+            saved.setCreatedAt(now);
+            return saved;
+        });
+
+        broadcastFeed.publish(Notification.Type.SYSTEM, "闭馆通知", "本周六闭馆一天", null);
+
+        verify(broadcastNotificationRepository, times(1)).save(any(BroadcastNotification.class));
+        verify(eventPushService).broadcastUnread();
+        assertEquals(4L, broadcastFeed.latestId());
+        assertEquals(1, broadcastFeed.unreadCount(now.minusDays(7), 3));
+    }
+
+    @Test
+    @DisplayName("公告重新发布插入新广播并隐藏旧广播，已读过更新广播的读者重新看到未读")
+    void republish_SupersedesOldBroadcast() {
+        BroadcastNotification original = broadcast(2L, now.minusDays(5));
+        original.setAnnouncementId(9L);
+        when(broadcastNotificationRepository.findByAnnouncementIdAndHiddenFalse(9L))
+                .thenReturn(List.of(original))
+                .thenReturn(List.of());
+        when(broadcastNotificationRepository.save(any(BroadcastNotification.class))).thenAnswer(inv -> {
+            BroadcastNotification saved = inv.getArgument(0);
+            saved.setId(4L);
+            saved.setCreatedAt(now);
+            return saved;
+        });
+
+        // 读者已读到广播 3
+        assertEquals(0, broadcastFeed.unreadCount(now.minusDays(30), 3));
+
+        BroadcastNotification republished = broadcastFeed.publish(Notification.Type.ANNOUNCEMENT,
+                "新公告：开馆时间调整", "内容", 9L);
+
+        assertEquals(4L, republished.getId());
+        assertTrue(original.getHidden());
+        assertEquals(List.of(4L, 3L, 1L), broadcastFeed.visibleTo(now.minusDays(30)).stream()
+                .map(BroadcastNotification::getId).toList());
+        assertEquals(1, broadcastFeed.unreadCount(now.minusDays(30), 3));
+
+        // 没有未隐藏广播时撤回不做任何事
+        broadcastFeed.hide(9L);
+        verify(eventPushService, times(1)).broadcastUnread();
+    }
+
+    private BroadcastNotification broadcast(Long id, LocalDateTime createdAt) {
+        BroadcastNotification broadcast = BroadcastNotification.builder()
+                .type(Notification.Type.ANNOUNCEMENT)
+                .title("公告" + id)
+                .content("内容")
+                .build();
+        broadcast.setId(id);
+        broadcast.setCreatedAt(createdAt);
+        return broadcast;
+    }
+}
@@ -0,0 +1,166 @@
+package com.library.service;
+
+import com.library.dto.request.CatalogSearchRequest;
+import com.library.dto.response.CatalogSearchResponse.FacetCount;
+import com.library.entity.Category;
+import com.library.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图书目录内存索引单元测试
+ * 图书数据保存在 H2（MySQL 模式）中，分类由模拟的仓库提供
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("目录内存索引测试")
+class CatalogIndexTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CatalogIndex catalogIndex;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:catalog" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, isbn VARCHAR(20), title VARCHAR(200), " +
+                "author VARCHAR(100), publisher VARCHAR(100), category_id BIGINT, price DECIMAL(10,2), status INT, " +
+                "available_count INT, borrow_count INT, created_at DATETIME)");
+        insertBook(1, "红楼梦", "曹雪芹", "人民文学出版社", 3L, "59.70", 400, 10, "2024-01-01 09:00:00");
+        insertBook(2, "水浒传", "施耐庵", "人民文学出版社", 3L, "45.00", 0, 30, "2024-01-02 09:00:00");
+        insertBook(3, "唐诗三百首", "蘅塘退士", "中华书局", 2L, "28.00", 2, 20, "2024-01-03 09:00:00");
+        insertBook(4, "Java核心技术", "Horstmann", "机械工业出版社", 5L, "119.00", 2, 5, "2024-01-04 09:00:00");
+        insertBook(5, "呐喊", "鲁迅", null, null, null, 1, 0, "2024-01-05 09:00:00");
+
+        // 文学(1) -> 诗歌(2)、小说(3)；计算机(5)
+        Category literature = category(1L, "文学", null);
+        List<Category> categories = List.of(literature, category(2L, "诗歌", literature),
+                category(3L, "小说", literature), category(5L, "计算机", null));
+        when(categoryRepository.findAll()).thenReturn(categories);
+        catalogIndex = new CatalogIndex(jdbcTemplate, categoryRepository, new CategoryTree(categoryRepository));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void insertBook(long id, String title, String author, String publisher, Long categoryId,
+                            String price, int available, int borrowCount, String createdAt) {
+        jdbcTemplate.update("INSERT INTO book VALUES (?, ?, ?, ?, ?, ?, ?, 1, ?, ?, ?)",
+                id, "97870200085" + id, title, author, publisher, categoryId,
+                price != null ? new BigDecimal(price) : null, available, borrowCount, createdAt);
+    }
+
+    private static Category category(Long id, String name, Category parent) {
+        Category category = Category.builder().name(name).parent(parent).sortOrder(id.intValue()).build();
+        category.setId(id);
+        return category;
+    }
+
+    private static CatalogSearchRequest request(Long categoryId, String sortBy) {
+        CatalogSearchRequest request = new CatalogSearchRequest();
+        request.setCategoryId(categoryId);
+        request.setSortBy(sortBy);
+        return request;
+    }
+
+    @Test
+    @DisplayName("按分类子树筛选、分面统计、排序和分页，超大页码返回空页")
+    void search_FilterFacetsSortAndPaging() {
+        CatalogIndex.SearchResult result = catalogIndex.search(request(1L, "price_asc"), 1, 2);
+        assertEquals(3, result.total());
+        assertEquals(List.of(3L, 2L), result.ids());
+        assertEquals(2, result.availableCount());
+        assertEquals(1, result.unavailableCount());
+        assertEquals(List.of("3:2", "2:1"), result.categories().stream()
+                .map(facet -> facet.getValue() + ":" + facet.getCount()).toList());
+        FacetCount publisher = result.publishers().get(0);
+        assertEquals("人民文学出版社", publisher.getLabel());
+        assertEquals(2, publisher.getCount());
+
+        assertEquals(List.of(1L), catalogIndex.search(request(1L, "price_asc"), 2, 2).ids());
+        assertEquals(List.of(2L, 3L, 1L), catalogIndex.search(request(1L, "popular"), 1, 10).ids());
+
+        // 无价格的图书在价格排序中排在最后，默认按入库时间倒序
+        assertEquals(5L, catalogIndex.search(request(null, "price_desc"), 1, 10).ids().get(4));
+        assertEquals(List.of(5L, 4L), catalogIndex.search(request(null, null), 1, 2).ids());
+
+        CatalogSearchRequest available = request(null, "latest");
+        available.setAvailable(true);
+        available.setPublisher("人民文学");
+        assertEquals(List.of(1L), catalogIndex.search(available, 1, 10).ids());
+
+        CatalogIndex.SearchResult deep = catalogIndex.search(request(null, null), Integer.MAX_VALUE, 100);
+        assertTrue(deep.ids().isEmpty());
+        assertEquals(5, deep.total());
+    }
+
+    @Test
+    @DisplayName("借还提交后原地写入最新库存，不触发重建，与重建交错或并发执行时结果一致")
+    void countsChanged_IdempotentWithRebuildAndConcurrentUpdates() throws Exception {
+        catalogIndex.search(request(null, null), 1, 10);
+
+        // 借出事务已提交但回调尚未执行时发生重建，新快照已包含本次借出（库存 2 -> 1）
+        TransactionSynchronizationManager.initSynchronization();
+        jdbcTemplate.update("UPDATE book SET available_count = available_count - 1, borrow_count = borrow_count + 1 WHERE id = 4");
+        catalogIndex.countsChanged(4L);
+        ReflectionTestUtils.invokeMethod(catalogIndex, "rebuild");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        CatalogSearchRequest availableOnly = request(null, null);
+        availableOnly.setAvailable(true);
+        assertTrue(catalogIndex.search(availableOnly, 1, 10).ids().contains(4L));
+
+        // 并发借出同一本书，同一本书的读取和写入串行执行，最终为最新库存
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            futures.add(pool.submit(() -> {
+                jdbcTemplate.update("UPDATE book SET available_count = available_count - 1, borrow_count = borrow_count + 1 WHERE id = 1");
+                catalogIndex.countsChanged(1L);
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        catalogIndex.refreshIfDirty();
+        // 只有首次加载和显式重建读取了全量目录
+        verify(categoryRepository, times(2)).findAll();
+
+        assertFalse(catalogIndex.search(availableOnly, 1, 10).ids().contains(1L));
+        assertEquals(1L, catalogIndex.search(request(null, "popular"), 1, 10).ids().get(0));
+        assertEquals(3, catalogIndex.search(availableOnly, 1, 10).total());
+    }
+}
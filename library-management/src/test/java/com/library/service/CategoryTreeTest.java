@@ -0,0 +1,111 @@
+package com.library.service;
+
+import com.library.entity.Category;
+import com.library.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分类树快照单元测试
+ */
+@DisplayName("分类树快照测试")
+class CategoryTreeTest {
+
+    private CategoryTree.Snapshot tree;
+
+    @BeforeEach
+    void setUp() {
+        // 文学(1) -> 小说(2) -> 古典小说(3)；文学(1) -> 诗歌(4)；计算机(5)
+        Category literature = category(1L, "文学", null, 1);
+        Category novel = category(2L, "小说", literature, 2);
+        Category classic = category(3L, "古典小说", novel, 1);
+        Category poetry = category(4L, "诗歌", literature, 1);
+        Category computer = category(5L, "计算机", null, 2);
+        tree = CategoryTree.Snapshot.of(List.of(classic, computer, novel, poetry, literature));
+    }
+
+    @Test
+    @DisplayName("先序区间 - 子树区间嵌套且同级按排序号排列")
+    void intervals_Nested() {
+        assertEquals(List.of(1L, 5L), tree.roots().stream().map(CategoryTree.Node::id).toList());
+        assertEquals(List.of(4L, 2L), tree.get(1L).children().stream().map(CategoryTree.Node::id).toList());
+
+        CategoryTree.Node literature = tree.get(1L);
+        assertEquals(1, literature.left());
+        assertEquals(4, literature.right());
+        assertEquals(List.of(1L, 4L, 2L, 3L), tree.subtreeIds(1L));
+        assertEquals(List.of(5L), tree.subtreeIds(5L));
+        assertEquals(List.of(), tree.subtreeIds(99L));
+    }
+
+    @Test
+    @DisplayName("深度与祖先判断 - 常数时间查询")
+    void depthAndAncestry() {
+        assertEquals(1, tree.depth(1L));
+        assertEquals(3, tree.depth(3L));
+        assertEquals(0, tree.depth(99L));
+        assertEquals(3, tree.get(1L).height());
+        assertEquals(1, tree.get(3L).height());
+
+        assertTrue(tree.isDescendant(1L, 3L));
+        assertTrue(tree.isDescendant(2L, 3L));
+        assertFalse(tree.isDescendant(3L, 1L));
+        assertFalse(tree.isDescendant(4L, 3L));
+        assertFalse(tree.isDescendant(1L, 1L));
+        assertFalse(tree.isDescendant(5L, 3L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("重新编号 - 在分类行锁内读取，旧事务的提交回调晚到时不覆盖新快照")
+    void refresh_LateHookDoesNotOverwriteNewerSnapshot() {
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        Category literature = category(1L, "文学", null, 1);
+        when(categoryRepository.findAllForUpdate())
+                .thenReturn(List.of(literature))
+                .thenReturn(List.of(literature, category(2L, "小说", literature, 1)));
+        CategoryTree categoryTree = new CategoryTree(categoryRepository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        categoryTree.refresh();
+        List<TransactionSynchronization> first = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        categoryTree.refresh();
+        List<TransactionSynchronization> second = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        second.forEach(TransactionSynchronization::afterCommit);
+        first.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(2, categoryTree.current().size());
+        verify(categoryRepository, times(2)).findAllForUpdate();
+        verify(categoryRepository, never()).findAll();
+    }
+
+    private static Category category(Long id, String name, Category parent, int sortOrder) {
+        Category category = Category.builder()
+                .name(name)
+                .parent(parent)
+                .sortOrder(sortOrder)
+                .build();
+        category.setId(id);
+        return category;
+    }
+}
@@ -0,0 +1,112 @@
+package com.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 共借推荐单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("共借推荐测试")
+class CoBorrowRecommenderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private CoBorrowRecommender recommender;
+
+    /**
+     * 借阅历史：{userId, bookId}，已按读者分组
+     */
+    private static final long[][] HISTORY = {
+            {1, 10}, {1, 20}, {1, 30},
+            {2, 10}, {2, 20},
+            {3, 10}, {3, 40}
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        recommender = new CoBorrowRecommender(jdbcTemplate);
+        ReflectionTestUtils.setField(recommender, "maxNeighbors", 50);
+        ReflectionTestUtils.setField(recommender, "maxHistory", 200);
+
+        int[] row = {0};
+        when(resultSet.getLong("user_id")).thenAnswer(inv -> HISTORY[row[0]][0]);
+        when(resultSet.getLong("book_id")).thenAnswer(inv -> HISTORY[row[0]][1]);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (row[0] = 0; row[0] < HISTORY.length; row[0]++) {
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommender.shutdown();
+    }
+
+    @Test
+    @DisplayName("推荐 - 首次查询不阻塞，后台构建完成后按归一化共现度排序且不包含自身")
+    void related_RankedByCosine() throws InterruptedException {
+        assertEquals(List.of(), recommender.related(10L, 10));
+
+        List<Long> related = recommender.related(10L, 10);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (related.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            related = recommender.related(10L, 10);
+        }
+
+        // 20 与 10 共现2次，30、40 各1次；30 与 40 借阅人数相同时按ID排序
+        assertEquals(List.of(20L, 30L, 40L), related);
+        assertEquals(List.of(20L), recommender.related(10L, 1));
+        assertEquals(List.of(), recommender.related(99L, 10));
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("增量更新 - 新借阅即时生效且同一读者重复借阅不重复计数")
+    void recordBorrow_Incremental() {
+        recommender.rebuild();
+
+        recommender.recordBorrow(3L, 50L);
+        recommender.recordBorrow(2L, 50L);
+        recommender.recordBorrow(2L, 50L);
+
+        // 10: 2/sqrt(2*3)；40: 1/sqrt(2*1)；20: 1/sqrt(2*2)，冷门书 40 排在热门书 20 之前
+        assertEquals(List.of(10L, 40L, 20L), recommender.related(50L, 10));
+        assertTrue(recommender.related(10L, 10).contains(50L));
+    }
+
+    @Test
+    @DisplayName("重建 - 重建结果与增量结果一致")
+    void rebuild_MatchesIncremental() {
+        recommender.rebuild();
+        List<Long> before = recommender.related(20L, 10);
+        recommender.rebuild();
+
+        assertEquals(before, recommender.related(20L, 10));
+        assertEquals(List.of(10L, 30L), before);
+    }
+}
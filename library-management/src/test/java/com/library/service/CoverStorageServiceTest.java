@@ -0,0 +1,145 @@
+package com.library.service;
+
+import com.library.common.ByteRange;
+import com.library.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 封面存储单元测试
+ */
+@DisplayName("封面存储测试")
+class CoverStorageServiceTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private CoverStorageService coverStorageService;
+
+    @BeforeEach
+    void setUp() {
+        coverStorageService = new CoverStorageService(uploadDir.toString());
+        ReflectionTestUtils.setField(coverStorageService, "listWidth", 240);
+        ReflectionTestUtils.setField(coverStorageService, "detailWidth", 600);
+        ReflectionTestUtils.setField(coverStorageService, "quality", 0.85f);
+        ReflectionTestUtils.setField(coverStorageService, "maxPixels", 40_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coverStorageService.shutdown();
+    }
+
+    @Test
+    @DisplayName("上传 - 相同内容按指纹去重")
+    void store_DeduplicateByContent() throws IOException {
+        byte[] png = png(800, 1200);
+
+        CoverStorageService.StoredCover first = coverStorageService.store(
+                new MockMultipartFile("file", "a.jpg", "image/jpeg", png));
+        CoverStorageService.StoredCover second = coverStorageService.store(
+                new MockMultipartFile("file", "b.png", "image/png", png));
+
+        // 扩展名按文件头识别，不信任客户端文件名
+        assertEquals(first.sha256() + ".png", first.filename());
+        assertFalse(first.duplicate());
+        assertTrue(second.duplicate());
+        assertEquals(first.filename(), second.filename());
+        try (var files = Files.list(uploadDir.resolve(CoverStorageService.COVER_DIR))) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("上传 - 非图片内容拒绝保存")
+    void store_RejectNonImage() {
+        assertThrows(BusinessException.class, () -> coverStorageService.store(
+                new MockMultipartFile("file", "cover.jpg", "image/jpeg", "not an image".getBytes())));
+    }
+
+    @Test
+    @DisplayName("上传 - 像素数超过上限时在解码前拒绝，不落盘")
+    void store_RejectOversizedDimensions() throws IOException {
+        ReflectionTestUtils.setField(coverStorageService, "maxPixels", 500_000L);
+        byte[] png = png(800, 1200);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> coverStorageService.store(
+                new MockMultipartFile("file", "cover.png", "image/png", png)));
+        assertTrue(e.getMessage().contains("800x1200"));
+        try (var files = Files.list(uploadDir.resolve(CoverStorageService.COVER_DIR))) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("读取 - 缩略图生成前回退原图，生成后返回可永久缓存的缩略图，历史文件返回弱 ETag")
+    void resolve_ThumbnailAfterGeneration() throws Exception {
+        CoverStorageService.StoredCover stored = coverStorageService.store(
+                new MockMultipartFile("file", "cover.png", "image/png", png(800, 1200)));
+
+        CoverStorageService.CoverFile original = coverStorageService.resolve(stored.filename(), null);
+        assertTrue(original.immutable());
+        assertEquals("\"" + stored.sha256() + "\"", original.etag());
+
+        Path thumbnail = uploadDir.resolve(CoverStorageService.COVER_DIR).resolve("thumbs")
+                .resolve(stored.sha256() + "-list.jpg");
+        for (int i = 0; i < 100 && !Files.exists(thumbnail); i++) {
+            Thread.sleep(50);
+        }
+        CoverStorageService.CoverFile list = coverStorageService.resolve(stored.filename(), CoverStorageService.Size.LIST);
+        assertEquals(thumbnail, list.path());
+        assertTrue(list.immutable());
+        assertEquals("\"" + stored.sha256() + "-list\"", list.etag());
+        assertEquals(240, ImageIO.read(thumbnail.toFile()).getWidth());
+
+        // 历史随机文件名按修改时间生成弱 ETag，不可永久缓存
+        Files.write(uploadDir.resolve(CoverStorageService.COVER_DIR).resolve("legacy.png"), png(10, 10));
+        CoverStorageService.CoverFile legacy = coverStorageService.resolve("legacy.png", null);
+        assertTrue(legacy.etag().startsWith("W/\""));
+        assertTrue(legacy.weak());
+        assertFalse(legacy.immutable());
+        assertFalse(original.weak());
+
+        assertNull(coverStorageService.resolve("../secret.txt", null));
+        assertNull(coverStorageService.resolve("missing.png", null));
+    }
+
+    @Test
+    @DisplayName("Range - 解析单段、后缀及越界范围")
+    void byteRange_Parse() {
+        assertEquals(new ByteRange(0, 99), ByteRange.parse("bytes=0-99", 1000));
+        assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=900-", 1000));
+        assertEquals(new ByteRange(800, 999), ByteRange.parse("bytes=-200", 1000));
+        assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-5000", 1000));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+        assertNull(ByteRange.parse("bytes=0-1,5-6", 1000));
+        assertNull(ByteRange.parse("items=0-1", 1000));
+        assertNull(ByteRange.parse(null, 1000));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y += 10) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
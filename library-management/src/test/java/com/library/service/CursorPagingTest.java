@@ -0,0 +1,149 @@
+package com.library.service;
+
+import com.library.common.CursorPageResult;
+import com.library.common.ErrorCode;
+import com.library.common.PageCursor;
+import com.library.config.JpaConfig;
+import com.library.dto.projection.BookListItem;
+import com.library.entity.Book;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页测试
+ * 验证游标编解码、同一时间戳下按ID续页不重不漏，以及最后一页的 hasMore/nextCursor
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cursor;MODE=MySQL;NON_KEYWORDS=USER,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaConfig.class)
+@DisplayName("游标分页测试")
+class CursorPagingTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    @DisplayName("游标 - 编码后可原样解析，篡改或无效的游标返回参数错误")
+    void pageCursor_RoundTripAndRejectInvalid() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 30, 15, 123_000_000);
+        PageCursor decoded = PageCursor.decode(new PageCursor(time, 42L).encode());
+
+        assertEquals(time, decoded.getSortKey());
+        assertEquals(42L, decoded.getId());
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-03-01T08:30:15|abc".getBytes(StandardCharsets.UTF_8));
+        String noSeparator = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-03-01T08:30:15".getBytes(StandardCharsets.UTF_8));
+        String badTime = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("yesterday|42".getBytes(StandardCharsets.UTF_8));
+        for (String cursor : List.of("不是游标", "%%%", tampered, noSeparator, badTime)) {
+            BusinessException e = assertThrows(BusinessException.class, () -> PageCursor.decode(cursor));
+            assertEquals(ErrorCode.PARAM_ERROR.getCode(), e.getCode());
+        }
+    }
+
+    @Test
+    @DisplayName("续页 - 创建时间相同的图书按ID倒序依次返回，不重复不遗漏")
+    void findByConditionsAfter_TieBreakOnId() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(persistBook("书" + i).getId());
+        }
+        entityManager.getEntityManager().createNativeQuery("UPDATE book SET created_at = ?1")
+                .setParameter(1, LocalDateTime.of(2024, 1, 1, 0, 0))
+                .executeUpdate();
+        entityManager.clear();
+
+        List<Long> visited = new ArrayList<>();
+        PageCursor cursor = null;
+        int pages = 0;
+        do {
+            CursorPageResult<Long> page = page(cursor, 2);
+            visited.addAll(page.getList());
+            cursor = PageCursor.decode(page.getNextCursor());
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        Collections.reverse(ids);
+        assertEquals(ids, visited);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @DisplayName("最后一页 - 恰好取完时 hasMore 为 false 且不返回 nextCursor")
+    void lastPage_NoMore() {
+        persistBook("红楼梦");
+        persistBook("西游记");
+        entityManager.flush();
+        entityManager.clear();
+
+        CursorPageResult<Long> first = page(null, 1);
+        assertTrue(first.isHasMore());
+        assertNotNull(first.getNextCursor());
+
+        CursorPageResult<Long> last = page(PageCursor.decode(first.getNextCursor()), 1);
+        assertEquals(1, last.getList().size());
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+
+        CursorPageResult<Long> exact = page(null, 2);
+        assertEquals(2, exact.getList().size());
+        assertFalse(exact.isHasMore());
+        assertNull(exact.getNextCursor());
+    }
+
+    /**
+     * 与 BookServiceImpl.getBooksByCursor 相同：多查询一条判断是否还有下一页
+     */
+    private CursorPageResult<Long> page(PageCursor cursor, int size) {
+        List<BookListItem> rows = bookRepository.findByConditionsAfter(null, null, null, 1,
+                cursor != null ? cursor.getSortKey() : null,
+                cursor != null ? cursor.getId() : null,
+                PageRequest.of(0, size + 1));
+        return CursorPageResult.of(rows, size, item -> new PageCursor(item.createdAt(), item.id()),
+                BookListItem::id, null);
+    }
+
+    private Book persistBook(String title) {
+        return entityManager.persistAndFlush(Book.builder()
+                .title(title)
+                .author("作者")
+                .price(new BigDecimal("30.00"))
+                .totalCount(1)
+                .availableCount(1)
+                .status(1)
+                .build());
+    }
+}
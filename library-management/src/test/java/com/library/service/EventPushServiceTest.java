@@ -0,0 +1,174 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务端推送单元测试
+ */
+@DisplayName("服务端推送测试")
+class EventPushServiceTest {
+
+    private EventPushService eventPushService;
+
+    /**
+     * 按建立顺序记录的连接，blockNext 为 true 时下一条连接的写出会阻塞到 release 释放
+     */
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean blockNext;
+
+    @BeforeEach
+    void setUp() {
+        eventPushService = new EventPushService(new ObjectMapper()) {
+            @Override
+            SseEmitter createEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter(blockNext ? release : null);
+                blockNext = false;
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(eventPushService, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(eventPushService, "maxConnectionsPerUser", 2);
+        ReflectionTestUtils.setField(eventPushService, "maxQueuedEvents", 3);
+        ReflectionTestUtils.setField(eventPushService, "sendTimeoutMs", 10000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        eventPushService.shutdown();
+    }
+
+    @Test
+    @DisplayName("建立连接 - 同一用户超过上限时关闭最早的连接")
+    void subscribe_EvictsOldest() throws InterruptedException {
+        eventPushService.subscribe(1L, 3);
+        eventPushService.subscribe(1L, 3);
+        eventPushService.subscribe(1L, 3);
+        eventPushService.subscribe(2L, 0);
+
+        assertEquals(3, eventPushService.connectionCount());
+        await(() -> emitters.get(0).completed);
+        assertFalse(emitters.get(1).completed);
+    }
+
+    @Test
+    @DisplayName("推送事件 - 按顺序送达用户的每条连接，无连接的用户直接忽略")
+    void publish_DeliveredInOrder() throws InterruptedException {
+        eventPushService.subscribe(1L, 3);
+        eventPushService.subscribe(1L, 3);
+        eventPushService.subscribe(2L, 0);
+
+        eventPushService.unreadChanged(1L, 2);
+        eventPushService.unreadChanged(9L, 1);
+        eventPushService.broadcastUnread();
+        eventPushService.availabilityChanged(10L, -1);
+        eventPushService.availabilityChanged(10L, 1);
+        eventPushService.availabilityChanged(11L, -1);
+        eventPushService.flushAvailability();
+
+        List<String> expected = List.of("unread {\"count\":3}", "unread {\"delta\":2}", "unread {\"delta\":1}",
+                "availability {\"changes\":{\"11\":-1}}");
+        await(() -> emitters.get(0).events.size() == 4 && emitters.get(1).events.size() == 4
+                && emitters.get(2).events.size() == 3);
+        assertEquals(expected, emitters.get(0).events);
+        assertEquals(expected, emitters.get(1).events);
+        assertEquals(List.of("unread {\"count\":0}", "unread {\"delta\":1}", "availability {\"changes\":{\"11\":-1}}"),
+                emitters.get(2).events);
+    }
+
+    @Test
+    @DisplayName("慢连接 - 积压超过上限或写出超时时移除，其他连接照常接收")
+    void slowConnection_Dropped() throws InterruptedException {
+        blockNext = true;
+        eventPushService.subscribe(1L, 0);
+        eventPushService.subscribe(2L, 0);
+        await(() -> emitters.get(0).sending && emitters.get(1).events.size() == 1);
+
+        // 连接 1 阻塞在第一次写出，之后的事件在队列中积压，超过 3 条时被移除；连接 2 及时写出不积压
+        for (int i = 0; i < 4; i++) {
+            eventPushService.broadcastUnread();
+            int delivered = i + 2;
+            await(() -> emitters.get(1).events.size() == delivered);
+        }
+        assertEquals(1, eventPushService.connectionCount());
+
+        // 连接 3 写出超过超时时间，心跳检查时移除
+        ReflectionTestUtils.setField(eventPushService, "sendTimeoutMs", 20L);
+        blockNext = true;
+        eventPushService.subscribe(3L, 0);
+        await(() -> emitters.get(2).sending);
+        Thread.sleep(50);
+        eventPushService.heartbeat();
+        assertEquals(1, eventPushService.connectionCount());
+
+        // 阻塞的写出返回后由推送线程结束请求
+        release.countDown();
+        await(() -> emitters.get(0).completed && emitters.get(2).completed);
+        assertEquals(1, emitters.get(0).events.size());
+        assertFalse(emitters.get(1).completed);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * 记录写出的事件（"事件名 数据"），心跳注释行不记录
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch block;
+        volatile boolean sending;
+        volatile boolean completed;
+
+        RecordingEmitter(CountDownLatch block) {
+            this.block = block;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            if (block != null) {
+                try {
+                    block.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<String> parts = new ArrayList<>();
+            builder.build().forEach(part -> parts.add(part.getData().toString()));
+            String text = String.join("", parts);
+            if (text.startsWith("event:")) {
+                String name = text.substring("event:".length(), text.indexOf('\n'));
+                String data = text.substring(text.indexOf("data:") + "data:".length()).trim();
+                events.add(name + " " + data);
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.BorrowRecordResponse;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import com.library.service.impl.ExcelExportServiceImpl;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据导出单元测试
+ * Excel 导出使用模拟的借阅记录，CSV / NDJSON 导出在 H2（MySQL 模式）上执行真实查询
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("数据导出测试")
+class ExcelExportServiceTest {
+
+    @Mock
+    private BorrowService borrowService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ExcelExportServiceImpl excelExportService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:export" + System.nanoTime() + ";MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", ""));
+        excelExportService = new ExcelExportServiceImpl(borrowService, jdbcTemplate, objectMapper);
+    }
+
+    private void createTables() {
+        jdbcTemplate.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, username VARCHAR(50), real_name VARCHAR(50), " +
+                "email VARCHAR(100), phone VARCHAR(20), role VARCHAR(20), status INT, created_at DATETIME)");
+        jdbcTemplate.execute("CREATE TABLE category (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, isbn VARCHAR(20), title VARCHAR(200), " +
+                "author VARCHAR(100), publisher VARCHAR(100), publish_date DATE, category_id BIGINT, price DECIMAL(10,2), " +
+                "total_count INT, available_count INT, location VARCHAR(50), status INT, borrow_count INT, " +
+                "review_count INT, rating_sum INT, created_at DATETIME)");
+        jdbcTemplate.execute("CREATE TABLE borrow_record (id BIGINT PRIMARY KEY, user_id BIGINT, book_id BIGINT, " +
+                "borrow_date DATETIME, due_date DATETIME, return_date DATETIME, status INT, renew_count INT, " +
+                "overdue_days INT, fine_amount DECIMAL(10,2), fine_paid BOOLEAN, remark VARCHAR(255), created_at DATETIME)");
+        jdbcTemplate.update("INSERT INTO category VALUES (1, '文学')");
+        jdbcTemplate.update("INSERT INTO user VALUES (1, 'reader', '读者', 'r@example.com', NULL, 'USER', 1, '2024-01-01 08:00:00')");
+        jdbcTemplate.update("INSERT INTO user VALUES (2, 'other', NULL, NULL, NULL, 'USER', 1, '2024-01-02 08:00:00')");
+        jdbcTemplate.update("INSERT INTO book VALUES (1, '9787020008500', '红楼梦', '曹雪芹', '人民文学出版社', '1996-12-01', 1, " +
+                "59.70, 3, 2, 'A-01', 1, 5, 1, 4, '2024-01-01 09:00:00')");
+        jdbcTemplate.update("INSERT INTO book VALUES (2, NULL, 'Java, \"核心\"技术', NULL, NULL, NULL, NULL, " +
+                "NULL, 1, 1, NULL, 1, 0, 0, 0, '2024-01-01 09:30:00')");
+        jdbcTemplate.update("INSERT INTO borrow_record VALUES (1, 1, 1, '2024-03-01 10:00:00', '2024-03-31 10:00:00', " +
+                "'2024-03-20 15:30:00', 1, 0, 0, 0.00, TRUE, '按时归还', '2024-03-01 10:00:00')");
+        jdbcTemplate.update("INSERT INTO borrow_record VALUES (2, 1, 2, '2024-04-01 10:00:00', '2024-05-01 10:00:00', " +
+                "NULL, 2, 1, 12, 6.00, FALSE, '书页破损, \"第3页\"\n待核实', '2024-04-01 10:00:00')");
+        jdbcTemplate.update("INSERT INTO borrow_record VALUES (3, 2, 1, '2024-04-02 10:00:00', '2024-05-02 10:00:00', " +
+                "NULL, 0, 0, 0, NULL, FALSE, NULL, '2024-04-02 10:00:00')");
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("超过内存行窗口的记录全部写出，列宽按内容设置")
+    @SuppressWarnings("unchecked")
+    void writeBorrowRecords_StreamsAllRows() throws Exception {
+        int total = 1000;
+        LocalDateTime borrowDate = LocalDateTime.of(2024, 3, 1, 10, 0);
+        when(borrowService.forEachRecordForExport(any(), any())).thenAnswer(invocation -> {
+            Consumer<BorrowRecordResponse> action = invocation.getArgument(1);
+            for (long i = 1; i <= total; i++) {
+                action.accept(BorrowRecordResponse.builder()
+                        .id(i)
+                        .username("reader" + i)
+                        .realName("读者")
+                        .bookTitle(i == total ? "一本书名特别特别特别特别长的图书" : "红楼梦")
+                        .borrowDate(borrowDate)
+                        .statusDesc("借阅中")
+                        .overdue(i % 2 == 0)
+                        .build());
+            }
+            return (long) total;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = excelExportService.writeBorrowRecords(new BorrowQueryRequest(), out, rows -> { });
+
+        assertEquals(total, count);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("借阅记录");
+            assertEquals(total, sheet.getLastRowNum());
+            assertEquals("订单号", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("1", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("2024-03-01 10:00:00", sheet.getRow(1).getCell(6).getStringCellValue());
+            assertEquals("是", sheet.getRow(total).getCell(10).getStringCellValue());
+            assertEquals("", sheet.getRow(total).getCell(8).getStringCellValue());
+
+            // 最长书名 16 个汉字按 32 个字符宽度计，加两个字符留白；其余列不低于最小宽度
+            assertEquals(34 * 256, sheet.getColumnWidth(3));
+            assertEquals(12 * 256, sheet.getColumnWidth(10));
+        }
+    }
+
+    @Test
+    @DisplayName("超过单个工作表行数上限时续写到新的工作表，每个工作表都有表头")
+    void writeBorrowRecords_RollsOverToNewSheet() throws Exception {
+        ReflectionTestUtils.setField(excelExportService, "maxRowsPerSheet", 100);
+        when(borrowService.forEachRecordForExport(any(), any())).thenAnswer(invocation -> {
+            Consumer<BorrowRecordResponse> action = invocation.getArgument(1);
+            for (long i = 1; i <= 250; i++) {
+                action.accept(BorrowRecordResponse.builder().id(i).username("reader" + i).build());
+            }
+            return 250L;
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+        assertEquals(250, excelExportService.writeBorrowRecords(new BorrowQueryRequest(), out, progress::add));
+        assertEquals(250L, progress.get(progress.size() - 1));
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(List.of("借阅记录", "借阅记录(2)", "借阅记录(3)"),
+                    List.of(workbook.getSheetName(0), workbook.getSheetName(1), workbook.getSheetName(2)));
+            assertEquals(100, workbook.getSheetAt(0).getLastRowNum());
+            Sheet last = workbook.getSheetAt(2);
+            assertEquals(50, last.getLastRowNum());
+            assertEquals("订单号", last.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("201", last.getRow(1).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("没有符合条件的记录时只输出表头")
+    void writeBorrowRecords_Empty() throws Exception {
+        when(borrowService.forEachRecordForExport(any(), any())).thenReturn(0L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, excelExportService.writeBorrowRecords(new BorrowQueryRequest(), out, rows -> { }));
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("借阅记录");
+            assertEquals(0, sheet.getLastRowNum());
+            assertEquals("备注", sheet.getRow(0).getCell(11).getStringCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("CSV - 按条件从游标导出借阅记录，gzip 压缩且含逗号、引号、换行的字段正确转义")
+    void writeDataset_BorrowRecordsCsv() throws Exception {
+        createTables();
+        BorrowQueryRequest filter = new BorrowQueryRequest();
+        filter.setUserId(1L);
+        List<Long> progress = new ArrayList<>();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = excelExportService.writeDataset(ExportDataset.BORROW_RECORDS, ExportFormat.CSV, filter, out, progress::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(1L, 2L), progress);
+        assertEquals("id,user_id,username,real_name,book_id,book_title,isbn,author,borrow_date,due_date,return_date," +
+                        "status,renew_count,overdue_days,fine_amount,fine_paid,remark,created_at\r\n" +
+                        "1,1,reader,读者,1,红楼梦,9787020008500,曹雪芹,2024-03-01 10:00:00,2024-03-31 10:00:00," +
+                        "2024-03-20 15:30:00,RETURNED,0,0,0.00,true,按时归还,2024-03-01 10:00:00\r\n" +
+                        "2,1,reader,读者,2,\"Java, \"\"核心\"\"技术\",,,2024-04-01 10:00:00,2024-05-01 10:00:00," +
+                        ",OVERDUE,1,12,6.00,false,\"书页破损, \"\"第3页\"\"\n待核实\",2024-04-01 10:00:00\r\n",
+                gunzip(out.toByteArray()));
+        verifyNoInteractions(borrowService);
+    }
+
+    @Test
+    @DisplayName("NDJSON - 每行一个对象，数值、布尔、日期按类型输出，空值为 null")
+    void writeDataset_BooksNdjson() throws Exception {
+        createTables();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = excelExportService.writeDataset(ExportDataset.BOOKS, ExportFormat.NDJSON, new BorrowQueryRequest(),
+                out, rows -> { });
+
+        assertEquals(2, count);
+        assertEquals(2, excelExportService.countDataset(ExportDataset.BOOKS, new BorrowQueryRequest()));
+        String[] lines = gunzip(out.toByteArray()).split("\n");
+        assertEquals(2, lines.length);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asLong());
+        assertTrue(first.get("price").isNumber());
+        assertTrue(lines[0].contains("\"price\":59.70,"));
+        assertEquals("1996-12-01", first.get("publish_date").asText());
+        assertEquals("文学", first.get("category_name").asText());
+        assertEquals("2024-01-01T09:00:00", first.get("created_at").asText());
+        assertFalse(first.has("description"));
+
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("Java, \"核心\"技术", second.get("title").asText());
+        assertTrue(second.get("isbn").isNull());
+        assertTrue(second.get("category_name").isNull());
+        assertTrue(second.get("price").isNull());
+    }
+}
@@ -0,0 +1,153 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.BorrowRecordResponse;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import com.library.service.impl.ExcelExportServiceImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 导出格式性能对比（XLSX / CSV.gz / NDJSON.gz）
+ * 默认不执行，运行方式：mvn test -Dtest=ExportFormatBenchmark -Dbenchmark=true [-Dbenchmark.rows=200000]
+ * 三种格式读取同一张 H2 内存表的借阅记录，输出写入只计字节数的空流，统计每秒行数和输出大小；
+ * XLSX 路径同样从 JDBC 逐行读取后转换为 DTO，与线上导出的处理步骤一致。
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("导出格式性能对比")
+class ExportFormatBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 200_000);
+    private static final int ITERATIONS = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private ExcelExportServiceImpl excelExportService;
+
+    @BeforeAll
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:export-benchmark;MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, username VARCHAR(50), real_name VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, isbn VARCHAR(20), title VARCHAR(200), author VARCHAR(100))");
+        jdbcTemplate.execute("CREATE TABLE borrow_record (id BIGINT PRIMARY KEY, user_id BIGINT, book_id BIGINT, " +
+                "borrow_date DATETIME, due_date DATETIME, return_date DATETIME, status INT, renew_count INT, " +
+                "overdue_days INT, fine_amount DECIMAL(10,2), fine_paid BOOLEAN, remark VARCHAR(255), created_at DATETIME)");
+        jdbcTemplate.update("INSERT INTO user SELECT x, CONCAT('reader', x), CONCAT('读者', x) " + range(1000));
+        jdbcTemplate.update("INSERT INTO book SELECT x, CONCAT('978702', LPAD(x, 7, '0')), CONCAT('图书标题', x), " +
+                "CONCAT('作者', MOD(x, 97)) " + range(5000));
+        jdbcTemplate.update("INSERT INTO borrow_record SELECT x, MOD(x, 1000) + 1, MOD(x, 5000) + 1, " +
+                "DATEADD('MINUTE', x, TIMESTAMP '2023-01-01 08:00:00'), DATEADD('MINUTE', x + 43200, TIMESTAMP '2023-01-01 08:00:00'), " +
+                "CASE WHEN MOD(x, 3) = 0 THEN NULL ELSE DATEADD('MINUTE', x + 20000, TIMESTAMP '2023-01-01 08:00:00') END, " +
+                "MOD(x, 3), MOD(x, 2), MOD(x, 7), CASE WHEN MOD(x, 7) = 0 THEN 0 ELSE MOD(x, 7) * 0.5 END, MOD(x, 2) = 0, " +
+                "CASE WHEN MOD(x, 10) = 0 THEN '书页破损, 已登记' END, " +
+                "DATEADD('MINUTE', x, TIMESTAMP '2023-01-01 08:00:00')" + range(ROWS));
+
+        BorrowService borrowService = mock(BorrowService.class);
+        when(borrowService.forEachRecordForExport(any(), any())).thenAnswer(invocation -> {
+            Consumer<BorrowRecordResponse> action = invocation.getArgument(1);
+            long[] count = {0};
+            jdbcTemplate.query(ExportDataset.BORROW_RECORDS.selectSql(null), rs -> {
+                action.accept(BorrowRecordResponse.builder()
+                        .id(rs.getLong("id"))
+                        .username(rs.getString("username"))
+                        .realName(rs.getString("real_name"))
+                        .bookTitle(rs.getString("book_title"))
+                        .bookIsbn(rs.getString("isbn"))
+                        .bookAuthor(rs.getString("author"))
+                        .borrowDate(rs.getTimestamp("borrow_date").toLocalDateTime())
+                        .dueDate(rs.getTimestamp("due_date").toLocalDateTime())
+                        .returnDate(rs.getTimestamp("return_date") != null ? rs.getTimestamp("return_date").toLocalDateTime() : null)
+                        .statusDesc(rs.getString("status"))
+                        .overdue("OVERDUE".equals(rs.getString("status")))
+                        .remark(rs.getString("remark"))
+                        .build());
+                count[0]++;
+            });
+            return count[0];
+        });
+        excelExportService = new ExcelExportServiceImpl(borrowService, jdbcTemplate, new ObjectMapper());
+    }
+
+    /**
+     * 1..n 的序列（H2 的 SYSTEM_RANGE 列名为大写 X）
+     */
+    private static String range(int n) {
+        return " FROM (SELECT \"X\" AS x FROM SYSTEM_RANGE(1, " + n + ")) r";
+    }
+
+    @Test
+    @DisplayName("XLSX 与 gzip CSV / NDJSON 吞吐对比")
+    void compareFormats() throws Exception {
+        System.out.printf("导出格式性能对比: rows=%d, iterations=%d%n", ROWS, ITERATIONS);
+
+        // 基线：只读取结果集各列，不写出
+        long baseline = Long.MAX_VALUE;
+        for (int i = 0; i <= ITERATIONS; i++) {
+            long start = System.nanoTime();
+            jdbcTemplate.query(ExportDataset.BORROW_RECORDS.selectSql(null), rs -> {
+                for (int column = 1; column <= rs.getMetaData().getColumnCount(); column++) {
+                    rs.getObject(column);
+                }
+            });
+            baseline = Math.min(baseline, System.nanoTime() - start);
+        }
+        System.out.printf("  %-6s best=%6d ms  %,10.0f rows/s%n", "JDBC", baseline / 1_000_000, ROWS * 1e9 / baseline);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            // 预热
+            run(format);
+            long bestNanos = Long.MAX_VALUE;
+            long bytes = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                bytes = run(format);
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            }
+            System.out.printf("  %-6s best=%6d ms  %,10.0f rows/s  size=%,.1f MB%n", format,
+                    bestNanos / 1_000_000, ROWS * 1e9 / bestNanos, bytes / 1024.0 / 1024.0);
+        }
+    }
+
+    private long run(ExportFormat format) throws Exception {
+        CountingOutputStream out = new CountingOutputStream();
+        long rows = excelExportService.writeDataset(ExportDataset.BORROW_RECORDS, format, new BorrowQueryRequest(),
+                out, written -> { });
+        assertEquals(ROWS, rows);
+        return out.count;
+    }
+
+    /**
+     * 只统计字节数的输出流
+     */
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.dto.request.BorrowQueryRequest;
+import com.library.dto.response.ExportJobResponse;
+import com.library.exception.BusinessException;
+import com.library.service.exporter.ExportDataset;
+import com.library.service.exporter.ExportFormat;
+import com.library.service.impl.ExportJobServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步导出任务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("异步导出任务测试")
+class ExportJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ExcelExportService excelExportService;
+
+    private ExportJobServiceImpl exportJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exportJobService = new ExportJobServiceImpl(excelExportService,
+                tempDir.toString(), 1, 5, 2, 30);
+        exportJobService.init();
+        login("librarian");
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void login(String username, String... roles) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                Arrays.stream(roles).map(SimpleGrantedAuthority::new).toList()));
+    }
+
+    private static BorrowQueryRequest filter(Integer status, int page) {
+        BorrowQueryRequest request = new BorrowQueryRequest();
+        request.setStatus(status);
+        request.setPage(page);
+        return request;
+    }
+
+    private ExportJobResponse submitBorrows(BorrowQueryRequest request) {
+        return exportJobService.submitExport(ExportDataset.BORROW_RECORDS, ExportFormat.XLSX, request);
+    }
+
+    private ExportJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        ExportJobResponse job = exportJobService.getJob(jobId);
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = exportJobService.getJob(jobId);
+        }
+        return job;
+    }
+
+    @Test
+    @DisplayName("后台写入临时文件并返回下载地址，相同条件复用已有结果")
+    void submit_CompletesAndReusesResult() throws Exception {
+        when(excelExportService.countDataset(any(), any())).thenReturn(3L);
+        when(excelExportService.writeDataset(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            LongConsumer progress = invocation.getArgument(4);
+            for (long i = 1; i <= 3; i++) {
+                progress.accept(i);
+            }
+            out.write("xlsx".getBytes(StandardCharsets.UTF_8));
+            return 3L;
+        });
+
+        ExportJobResponse submitted = submitBorrows(filter(1, 1));
+        assertFalse(submitted.isReused());
+
+        ExportJobResponse finished = awaitFinished(submitted.getJobId());
+        assertEquals("COMPLETED", finished.getStatus());
+        assertEquals(100, finished.getProgress());
+        assertEquals(3, finished.getRowsWritten());
+        assertEquals(3, finished.getTotalRows());
+        assertEquals(4, finished.getFileSize());
+        assertEquals("/api/exports/" + submitted.getJobId() + "/file", finished.getDownloadUrl());
+        assertNotNull(finished.getExpiresAt());
+
+        ExportJobService.ExportFile file = exportJobService.getFile(submitted.getJobId());
+        assertEquals("xlsx", Files.readString(file.path()));
+        assertTrue(file.fileName().startsWith("借阅记录_") && file.fileName().endsWith(".xlsx"));
+
+        // 分页参数不同但筛选条件相同，直接复用
+        ExportJobResponse again = submitBorrows(filter(1, 3));
+        assertTrue(again.isReused());
+        assertEquals(submitted.getJobId(), again.getJobId());
+
+        ExportJobResponse other = submitBorrows(filter(0, 1));
+        assertNotEquals(submitted.getJobId(), other.getJobId());
+        awaitFinished(other.getJobId());
+        verify(excelExportService, times(2)).writeDataset(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("每个用户进行中的任务数受限，未完成的任务不能下载，用户数据仅管理员可导出，任务仅提交人和管理员可访问")
+    void submit_LimitsConcurrentJobsPerUser() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(excelExportService.writeDataset(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        ExportJobResponse first = submitBorrows(filter(0, 1));
+        submitBorrows(filter(1, 1));
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> submitBorrows(filter(2, 1)));
+        assertEquals(ErrorCode.EXPORT_JOB_LIMIT_EXCEEDED.getCode(), exception.getCode());
+
+        // 正在进行的相同条件任务仍可复用，不占用新的名额
+        assertTrue(submitBorrows(filter(0, 2)).isReused());
+        BusinessException notReady = assertThrows(BusinessException.class,
+                () -> exportJobService.getFile(first.getJobId()));
+        assertEquals(ErrorCode.EXPORT_NOT_READY.getCode(), notReady.getCode());
+
+        // 用户数据包含个人信息，仅管理员可导出
+        BusinessException adminRequired = assertThrows(BusinessException.class,
+                () -> exportJobService.submitExport(ExportDataset.USERS, ExportFormat.CSV, new BorrowQueryRequest()));
+        assertEquals(ErrorCode.ADMIN_REQUIRED.getCode(), adminRequired.getCode());
+
+        login("admin", "ROLE_ADMIN");
+        assertFalse(submitBorrows(filter(2, 1)).isReused());
+
+        release.countDown();
+        assertEquals("COMPLETED", awaitFinished(first.getJobId()).getStatus());
+
+        // 其他馆员不能查看或下载，提交相同条件时创建自己的任务
+        login("other");
+        BusinessException denied = assertThrows(BusinessException.class,
+                () -> exportJobService.getFile(first.getJobId()));
+        assertEquals(ErrorCode.EXPORT_PERMISSION_DENIED.getCode(), denied.getCode());
+        assertThrows(BusinessException.class, () -> exportJobService.getJob(first.getJobId()));
+        ExportJobResponse own = submitBorrows(filter(0, 1));
+        assertNotEquals(first.getJobId(), own.getJobId());
+        assertEquals("COMPLETED", awaitFinished(own.getJobId()).getStatus());
+
+        login("librarian");
+        assertFalse(submitBorrows(filter(3, 1)).isReused());
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.service;
+
+import com.library.dto.projection.LatencyHistogramItem;
+import com.library.dto.response.LatencyStatsResponse;
+import com.library.entity.LatencySummary;
+import com.library.exception.BusinessException;
+import com.library.repository.LatencySummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 操作耗时直方图单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("操作耗时直方图测试")
+class LatencyHistogramServiceTest {
+
+    @Mock
+    private LatencySummaryRepository latencySummaryRepository;
+
+    private LatencyHistogramService latencyHistogramService;
+
+    @BeforeEach
+    void setUp() {
+        latencyHistogramService = new LatencyHistogramService(latencySummaryRepository);
+        ReflectionTestUtils.setField(latencyHistogramService, "retentionDays", 30);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LatencySummary> rollCaptured() {
+        ArgumentCaptor<List<LatencySummary>> rows = ArgumentCaptor.forClass(List.class);
+        latencyHistogramService.roll();
+        verify(latencySummaryRepository, atLeastOnce()).saveAll(rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    @DisplayName("每分钟汇总，按窗口合并直方图计算分位数")
+    void rollAndQuery_MergesMinutes() {
+        for (int i = 1; i <= 100; i++) {
+            latencyHistogramService.record("借阅管理", "借阅图书", i);
+        }
+        latencyHistogramService.record("借阅管理", "归还图书", 8);
+        List<LatencySummary> first = new ArrayList<>(rollCaptured());
+
+        assertEquals(2, first.size());
+        LatencySummary borrow = first.stream().filter(r -> r.getOperation().equals("借阅图书")).findFirst().orElseThrow();
+        assertEquals(100, borrow.getSampleCount());
+        assertEquals(50, borrow.getP50Ms(), 1);
+        assertEquals(99, borrow.getP99Ms(), 1);
+        assertEquals(100, borrow.getMaxMs(), 1);
+
+        // 下一分钟只有慢请求，且空闲的操作不再产生汇总行
+        for (int i = 0; i < 100; i++) {
+            latencyHistogramService.record("借阅管理", "借阅图书", 1000);
+        }
+        clearInvocations(latencySummaryRepository);
+        List<LatencySummary> second = rollCaptured();
+        assertEquals(1, second.size());
+
+        List<LatencySummary> all = new ArrayList<>(first);
+        all.addAll(second);
+        when(latencySummaryRepository.streamByWindow(any(), any(), isNull()))
+                .thenAnswer(inv -> all.stream().map(row ->
+                        new LatencyHistogramItem(row.getModule(), row.getOperation(), row.getHistogram())));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LatencyStatsResponse> stats = latencyHistogramService.query(now.minusHours(1), now, null);
+
+        assertEquals(List.of("借阅图书", "归还图书"), stats.stream().map(LatencyStatsResponse::getOperation).toList());
+        LatencyStatsResponse merged = stats.get(0);
+        assertEquals(200, merged.getCount());
+        assertEquals(100, merged.getP50Ms(), 1);
+        assertEquals(1000, merged.getP95Ms(), 10);
+        assertEquals(1000, merged.getMaxMs(), 10);
+        assertEquals(1, stats.get(1).getCount());
+
+        // 早于保留期的开始时间被截断
+        ArgumentCaptor<LocalDateTime> start = ArgumentCaptor.forClass(LocalDateTime.class);
+        List<LatencyStatsResponse> longWindow = latencyHistogramService.query(now.minusDays(90), now, " ");
+        verify(latencySummaryRepository, times(2)).streamByWindow(start.capture(), eq(now), isNull());
+        assertFalse(start.getValue().isBefore(now.minusDays(30)));
+        assertEquals(start.getValue(), longWindow.get(0).getFrom());
+    }
+
+    @Test
+    @DisplayName("时间窗口解析")
+    void parseWindow() {
+        assertEquals(Duration.ofMinutes(15), LatencyHistogramService.parseWindow("15m"));
+        assertEquals(Duration.ofDays(7), LatencyHistogramService.parseWindow("7d"));
+        assertEquals(Duration.ofDays(30), LatencyHistogramService.parseWindow("30d"));
+        assertThrows(BusinessException.class, () -> LatencyHistogramService.parseWindow("31d"));
+        assertThrows(BusinessException.class, () -> LatencyHistogramService.parseWindow("1w"));
+        assertThrows(BusinessException.class, () -> LatencyHistogramService.parseWindow("0h"));
+        assertThrows(BusinessException.class, () -> LatencyHistogramService.parseWindow("365d"));
+    }
+}
@@ -0,0 +1,305 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.config.JpaConfig;
+import com.library.dto.projection.BookListItem;
+import com.library.dto.projection.BorrowRecordListItem;
+import com.library.dto.projection.ReviewListItem;
+import com.library.dto.response.BookResponse;
+import com.library.dto.response.BookStatusResponse;
+import com.library.dto.response.BorrowRecordResponse;
+import com.library.dto.response.FavoriteResponse;
+import com.library.dto.response.ReviewResponse;
+import com.library.entity.Book;
+import com.library.entity.BorrowRecord;
+import com.library.entity.Category;
+import com.library.entity.Favorite;
+import com.library.entity.Reservation;
+import com.library.entity.Review;
+import com.library.entity.User;
+import com.library.repository.BookRepository;
+import com.library.repository.BorrowRecordRepository;
+import com.library.repository.CategoryRepository;
+import com.library.repository.FavoriteRepository;
+import com.library.repository.ReservationRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import com.library.service.impl.BookStatusServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列表投影查询测试
+ * 验证列表查询不加载实体、不触发懒加载，且不返回 description 等大字段
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:projection;MODE=MySQL;NON_KEYWORDS=USER,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaConfig.class)
+@DisplayName("列表投影查询测试")
+class ListProjectionQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BorrowRecordRepository borrowRecordRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private Statistics statistics;
+    private User user;
+    private Book book;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("文学");
+        entityManager.persist(category);
+
+        user = new User();
+        user.setUsername("reader");
+        user.setPassword("secret");
+        user.setRealName("读者");
+        user.setRole(User.Role.USER);
+        user.setStatus(User.STATUS_ENABLED);
+        entityManager.persist(user);
+
+        book = Book.builder()
+                .isbn("9787020008500")
+                .title("红楼梦")
+                .author("曹雪芹")
+                .category(category)
+                .price(new BigDecimal("59.70"))
+                .totalCount(3)
+                .availableCount(2)
+                .description("很长的简介".repeat(1000))
+                .status(1)
+                .borrowCount(1)
+                .reviewCount(1)
+                .ratingSum(4)
+                .build();
+        entityManager.persist(book);
+
+        entityManager.persist(BorrowRecord.builder()
+                .user(user)
+                .book(book)
+                .borrowDate(LocalDateTime.now().minusDays(40))
+                .dueDate(LocalDateTime.now().minusDays(10))
+                .status(BorrowRecord.Status.BORROWING)
+                .build());
+
+        entityManager.persist(Review.builder()
+                .user(user)
+                .book(book)
+                .rating(4)
+                .content("值得一读")
+                .likes(0)
+                .status(1)
+                .build());
+
+        entityManager.persist(Favorite.builder().user(user).book(book).build());
+
+        entityManager.persist(Reservation.builder()
+                .user(user)
+                .book(book)
+                .status(Reservation.Status.WAITING)
+                .queuePosition(1)
+                .build());
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("图书分页列表 - 不加载实体且不返回简介")
+    void bookList_NoEntityLoaded() throws Exception {
+        Page<BookListItem> page = bookRepository.findByConditions(null, null, null, 1,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+        List<BookResponse> list = page.getContent().stream().map(BookResponse::fromListItem).toList();
+        String json = objectMapper.writeValueAsString(list);
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("文学", list.get(0).getCategoryName());
+        assertEquals(4.0, list.get(0).getAverageRating());
+        assertNull(list.get(0).getDescription());
+        assertFalse(json.contains("很长的简介"));
+        assertEquals(0, statistics.getEntityLoadCount());
+        // 结果不足一页时不执行计数查询，关联数据随列表一次取出，无 N+1
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("借阅记录列表 - 单条查询取出用户与图书列并实时计算逾期")
+    void borrowRecordList_NoEntityLoaded() throws Exception {
+        Page<BorrowRecordListItem> page = borrowRecordRepository.findByUserId(user.getId(), PageRequest.of(0, 10));
+        List<BorrowRecordResponse> list = page.getContent().stream()
+                .map(item -> BorrowRecordResponse.fromListItem(item, 2))
+                .toList();
+        objectMapper.writeValueAsString(list);
+
+        BorrowRecordResponse response = list.get(0);
+        assertEquals("reader", response.getUsername());
+        assertEquals("红楼梦", response.getBookTitle());
+        assertTrue(response.getOverdue());
+        assertFalse(response.getCanRenew());
+        assertEquals(10, response.getOverdueDays());
+        assertEquals(0, new BigDecimal("5.00").compareTo(response.getFineAmount()));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("评论列表 - 搜索与游标查询均不加载实体")
+    void reviewList_NoEntityLoaded() throws Exception {
+        Page<ReviewListItem> page = reviewRepository.searchReviews("红楼", PageRequest.of(0, 10));
+        List<ReviewListItem> cursorPage = reviewRepository.findByBookIdAndStatusAfter(
+                book.getId(), 1, null, null, PageRequest.of(0, 11));
+        objectMapper.writeValueAsString(page.map(ReviewResponse::fromListItem).getContent());
+        objectMapper.writeValueAsString(cursorPage.stream().map(ReviewResponse::fromListItem).toList());
+
+        assertEquals(1, page.getTotalElements());
+        assertEquals("reader", page.getContent().get(0).username());
+        assertEquals(1, cursorPage.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("收藏列表 - 脱离会话后序列化不触发懒加载")
+    void favoriteList_DetachedSerialization() throws Exception {
+        Page<Favorite> page = favoriteRepository.findByUserIdWithBook(user.getId(), PageRequest.of(0, 10));
+        entityManager.clear();
+
+        List<FavoriteResponse> list = page.getContent().stream().map(FavoriteResponse::fromEntity).toList();
+        objectMapper.writeValueAsString(list);
+
+        assertEquals("文学", list.get(0).getCategoryName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("批量图书状态 - 每类数据一次查询，匿名用户不查询个人标记")
+    void bookStatuses_OneQueryPerDataType() {
+        BookStatusService bookStatusService = new BookStatusServiceImpl(
+                bookRepository, favoriteRepository, reservationRepository, userRepository);
+
+        List<BookStatusResponse> anonymous = bookStatusService.getBookStatuses(List.of(book.getId(), 999L));
+        assertEquals(1, anonymous.size());
+        assertEquals(1L, anonymous.get(0).getFavoriteCount());
+        assertEquals(1, anonymous.get(0).getQueueLength());
+        assertEquals(4.0, anonymous.get(0).getAverageRating());
+        assertTrue(anonymous.get(0).getAvailable());
+        assertFalse(anonymous.get(0).getFavorited());
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+        List<BookStatusResponse> personal = bookStatusService.getBookStatuses(List.of(book.getId()));
+        assertTrue(personal.get(0).getFavorited());
+        assertTrue(personal.get(0).getReserved());
+        // 库存评分、收藏数、排队数、当前用户、收藏标记、预约标记
+        assertEquals(6, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("分类筛选 - 以先序区间一次查询包含子分类的图书")
+    void bookList_IncludeSubcategories() {
+        Category child = new Category();
+        child.setName("古典小说");
+        child.setParent(entityManager.find(Category.class, category.getId()));
+        entityManager.persist(child);
+        entityManager.persist(Book.builder()
+                .title("西游记")
+                .author("吴承恩")
+                .category(child)
+                .price(new BigDecimal("45.00"))
+                .totalCount(1)
+                .availableCount(1)
+                .status(1)
+                .build());
+        Category other = new Category();
+        other.setName("计算机");
+        entityManager.persist(other);
+
+        new CategoryTree(categoryRepository).refresh();
+        entityManager.flush();
+        entityManager.clear();
+
+        Category parent = entityManager.find(Category.class, category.getId());
+        Category leaf = entityManager.find(Category.class, child.getId());
+        Category empty = entityManager.find(Category.class, other.getId());
+        assertTrue(parent.getTreeLeft() < leaf.getTreeLeft() && leaf.getTreeLeft() <= parent.getTreeRight());
+
+        statistics.clear();
+        Page<BookListItem> all = bookRepository.findByConditions(null, parent.getTreeLeft(), parent.getTreeRight(), 1,
+                PageRequest.of(0, 10));
+        Page<BookListItem> leafOnly = bookRepository.findByConditions(null, leaf.getTreeLeft(), leaf.getTreeRight(), 1,
+                PageRequest.of(0, 10));
+
+        assertEquals(2, all.getTotalElements());
+        assertEquals(1, leafOnly.getTotalElements());
+        assertEquals("西游记", leafOnly.getContent().get(0).title());
+        assertEquals(0, bookRepository.countByConditions(null, empty.getTreeLeft(), empty.getTreeRight(), 1));
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,174 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Notification;
+import com.library.repository.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 定时提醒批量派发单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("定时提醒批量派发测试")
+class NotificationDispatcherTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private UnreadCounter unreadCounter;
+
+    @Mock
+    private EventPushService eventPushService;
+
+    private NotificationDispatcher dispatcher;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 8, 30);
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, transactionTemplate, notificationRepository, unreadCounter,
+                eventPushService, new ObjectMapper());
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 2);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("到期提醒 - 分段读取，跳过已发送记录，只按实际写入的行累加计数和推送")
+    @SuppressWarnings("unchecked")
+    void dispatchDueReminders_ChunkedAndDeduplicated() {
+        LocalDateTime due = now.plusDays(2);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(
+                        new NotificationDispatcher.DueRecord(1L, 100L, due, "三体"),
+                        new NotificationDispatcher.DueRecord(2L, 100L, due, "活着")))
+                .thenReturn(List.of(
+                        new NotificationDispatcher.DueRecord(3L, 200L, due.plusHours(1), "围城")));
+        when(notificationRepository.findSentBorrowRecordIds(eq(Notification.Type.DUE_REMINDER), any()))
+                .thenReturn(List.of(2L))
+                .thenReturn(List.of());
+        // 第二段的记录已被并发执行写入，INSERT IGNORE 影响行数为 0
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}})
+                .thenReturn(new int[][]{{0}});
+
+        int sent = dispatcher.dispatchDueReminders(now, now.plusDays(3));
+
+        assertEquals(1, sent);
+        verify(jdbcTemplate, times(2)).query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class));
+        verify(transactionTemplate, times(2)).execute(any());
+
+        ArgumentCaptor<Collection<NotificationDispatcher.DueRecord>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(1L), rows.getAllValues().get(0).stream().map(NotificationDispatcher.DueRecord::borrowRecordId).toList());
+        assertEquals(List.of(3L), rows.getAllValues().get(1).stream().map(NotificationDispatcher.DueRecord::borrowRecordId).toList());
+
+        verify(unreadCounter).add(Map.of(100L, 1));
+        verify(unreadCounter, never()).add(Map.of(200L, 1));
+        verify(eventPushService).unreadChanged(100L, 1);
+        verify(eventPushService, never()).unreadChanged(eq(200L), anyInt());
+    }
+
+    @Test
+    @DisplayName("逾期通知 - 驱动未返回逐行影响行数时，在同一事务内重新查询实际写入的记录")
+    @SuppressWarnings("unchecked")
+    void dispatchOverdueNotices_RequeryWhenNoRowCounts() {
+        LocalDateTime due = now.minusDays(3);
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(
+                        new NotificationDispatcher.DueRecord(1L, 100L, due, "三体"),
+                        new NotificationDispatcher.DueRecord(2L, 100L, due, "活着")))
+                .thenReturn(List.of());
+        // 写入前均未发送；写入后只看到记录 1（记录 2 被并发写入的行忽略，快照中不可见）
+        when(notificationRepository.findSentBorrowRecordIds(eq(Notification.Type.OVERDUE_NOTICE), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(1L));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO}});
+
+        assertEquals(1, dispatcher.dispatchOverdueNotices(now));
+        verify(unreadCounter).add(Map.of(100L, 1));
+        verify(eventPushService).unreadChanged(100L, 1);
+    }
+
+    @Test
+    @DisplayName("提醒摘要 - 按用户合并，被分段截断的用户留到下一段完整读取，唯一键忽略的摘要不计入")
+    @SuppressWarnings("unchecked")
+    void dispatchDigests_OnePerUser() {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 3);
+        NotificationDispatcher.DueRecord overdue = new NotificationDispatcher.DueRecord(1L, 100L, now.minusDays(2), "三体");
+        NotificationDispatcher.DueRecord dueSoon = new NotificationDispatcher.DueRecord(2L, 100L, now.plusDays(1), "活着");
+        NotificationDispatcher.DueRecord other = new NotificationDispatcher.DueRecord(3L, 200L, now.plusDays(2), "围城");
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(overdue, dueSoon, other))
+                .thenReturn(List.of(other));
+        when(notificationRepository.findUserIdsNotifiedSince(eq(Notification.Type.DIGEST), any(), any()))
+                .thenReturn(List.of());
+        // 用户 200 当天的摘要已由并发执行写入
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[]{1})
+                .thenReturn(new int[]{0});
+
+        int sent = dispatcher.dispatchDigests(now, now.plusDays(3));
+
+        assertEquals(1, sent);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertEquals(1, rows.getAllValues().get(0).size());
+        assertEquals(100L, rows.getAllValues().get(0).get(0)[0]);
+        assertEquals(java.sql.Date.valueOf(now.toLocalDate()), rows.getAllValues().get(0).get(0)[5]);
+        assertEquals(200L, rows.getAllValues().get(1).get(0)[0]);
+        verify(unreadCounter).add(Map.of(100L, 1));
+        verify(unreadCounter, never()).add(Map.of(200L, 1));
+
+        assertEquals("您借阅的图书中1本即将到期，1本已逾期（罚款0.50元/天）：《三体》、《活着》",
+                dispatcher.digestContent(List.of(overdue, dueSoon), now));
+        String payload = dispatcher.digestPayload(List.of(overdue, dueSoon), now);
+        assertTrue(payload.startsWith("{\"dueSoon\":1,\"overdue\":1,\"items\":[{\"borrowRecordId\":1,"));
+        assertTrue(payload.contains("\"overdueDays\":2"));
+    }
+
+    @Test
+    @DisplayName("通知模板 - 按参数渲染内容")
+    void template_Render() {
+        assertEquals("您借阅的图书《三体》已逾期 4 天，请尽快归还。逾期罚款：0.50 元/天。",
+                NotificationDispatcher.OVERDUE_NOTICE.render("三体", 4, 0.5));
+        assertEquals("图书即将到期提醒", NotificationDispatcher.DUE_REMINDER.title());
+    }
+}
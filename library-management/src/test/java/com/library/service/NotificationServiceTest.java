@@ -0,0 +1,119 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.entity.Notification;
+import com.library.entity.User;
+import com.library.exception.BusinessException;
+import com.library.repository.NotificationRepository;
+import com.library.repository.UserRepository;
+import com.library.service.impl.NotificationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 通知服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("通知服务测试")
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private EventPushService eventPushService;
+
+    @Mock
+    private UnreadCounter unreadCounter;
+
+    @Mock
+    private BroadcastFeed broadcastFeed;
+
+    @InjectMocks
+    private NotificationServiceImpl notificationService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        ReflectionTestUtils.setField(user, "id", 1L);
+        user.setUsername("reader");
+        when(userRepository.findByUsername("reader")).thenReturn(Optional.of(user));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("reader", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("标记已读 - 仅条件更新命中时扣减计数，重复标记不重复扣减，他人通知拒绝")
+    void markAsRead_DecrementsOnlyOnTransition() {
+        when(notificationRepository.markAsRead(10L, 1L)).thenReturn(1).thenReturn(0);
+        Notification own = Notification.builder().user(user).isRead(true).build();
+        when(notificationRepository.findById(10L)).thenReturn(Optional.of(own));
+
+        notificationService.markAsRead(10L);
+        notificationService.markAsRead(10L);
+
+        verify(unreadCounter, times(1)).add(1L, -1);
+        verify(eventPushService, times(1)).unreadChanged(1L, -1);
+
+        User other = new User();
+        ReflectionTestUtils.setField(other, "id", 2L);
+        when(notificationRepository.markAsRead(20L, 1L)).thenReturn(0);
+        when(notificationRepository.findById(20L)).thenReturn(Optional.of(Notification.builder().user(other).build()));
+        BusinessException e = assertThrows(BusinessException.class, () -> notificationService.markAsRead(20L));
+        assertEquals(ErrorCode.NO_PERMISSION.getCode(), e.getCode());
+    }
+
+    @Test
+    @DisplayName("全部已读 - 计数为0时仍按通知表更新，并以更新结果修正计数")
+    void markAllAsRead_AlwaysUpdates() {
+        when(unreadCounter.state(1L)).thenReturn(new UnreadCounter.State(0, 0));
+        when(broadcastFeed.latestId()).thenReturn(0L);
+        when(notificationRepository.markAllAsRead(1L)).thenReturn(2);
+
+        notificationService.markAllAsRead();
+
+        verify(notificationRepository).markAllAsRead(1L);
+        verify(unreadCounter).reset(1L);
+        verify(unreadCounter, never()).advanceWatermark(anyLong(), anyLong());
+        verify(eventPushService).unreadReset(1L);
+
+        // 计数与通知表均无未读时不推送
+        reset(eventPushService, unreadCounter);
+        when(unreadCounter.state(1L)).thenReturn(new UnreadCounter.State(0, 0));
+        when(notificationRepository.markAllAsRead(1L)).thenReturn(0);
+        notificationService.markAllAsRead();
+        verify(unreadCounter, never()).reset(anyLong());
+        verify(eventPushService, never()).unreadChanged(anyLong(), anyInt());
+        verify(eventPushService, never()).unreadReset(anyLong());
+    }
+}
@@ -48,6 +48,9 @@ class ReservationServiceTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private EventPushService eventPushService;
+
     @InjectMocks
     private ReservationServiceImpl reservationService;
 
@@ -0,0 +1,150 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.ErrorCode;
+import com.library.dto.response.RetentionReport;
+import com.library.dto.response.RetentionRunResponse;
+import com.library.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据保留清理单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("数据保留清理测试")
+class RetentionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AuditSegmentStore auditSegmentStore;
+
+    @TempDir
+    Path tempDir;
+
+    private RetentionService retentionService;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        retentionService = new RetentionService(jdbcTemplate, new ObjectMapper(), auditSegmentStore);
+        ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(retentionService, "chunkPauseMs", 0L);
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 10);
+        ReflectionTestUtils.setField(retentionService, "archiveDir", tempDir.toString());
+        lenient().when(jdbcTemplate.queryForObject(startsWith("SELECT AVG_ROW_LENGTH"), eq(Long.class), any()))
+                .thenReturn(100L);
+    }
+
+    @Test
+    @DisplayName("已读通知 - 按主键范围分段删除，最后一段不足时结束")
+    void purgeReadNotifications_Chunked() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT MAX(id) FROM notification"), eq(Long.class), any()))
+                .thenReturn(50L);
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM notification"), eq(Long.class), any(), any(), any(), any()))
+                .thenReturn(List.of(3L, 7L))
+                .thenReturn(List.of(9L));
+        when(jdbcTemplate.update(startsWith("DELETE FROM notification"), any(), any(), any()))
+                .thenReturn(2)
+                .thenReturn(1);
+
+        RetentionReport report = retentionService.purgeReadNotifications(cutoff);
+
+        assertEquals(3, report.getDeletedRows());
+        assertEquals(2, report.getChunks());
+        assertEquals(300, report.getFreedBytes());
+        assertTrue(report.isCompleted());
+        verify(jdbcTemplate).queryForList(startsWith("SELECT id FROM notification"), eq(Long.class), eq(0L), eq(50L), any(), eq(2));
+        verify(jdbcTemplate).queryForList(startsWith("SELECT id FROM notification"), eq(Long.class), eq(7L), eq(50L), any(), eq(2));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM notification"), eq(3L), eq(7L), any());
+        verify(jdbcTemplate).update(startsWith("DELETE FROM notification"), eq(9L), eq(9L), any());
+    }
+
+    @Test
+    @DisplayName("操作日志 - 先写入归档文件再删除，达到分段上限时标记未完成")
+    void archiveOperationLogs_WritesArchiveBeforeDelete() throws Exception {
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 1);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT MAX(id) FROM operation_log"), eq(Long.class), any()))
+                .thenReturn(20L);
+        when(jdbcTemplate.queryForList(startsWith("SELECT * FROM operation_log"), (Object) any(), any(), any(), any()))
+                .thenReturn(List.of(
+                        Map.of("id", 1L, "module", "图书管理"),
+                        Map.of("id", 2L, "module", "借阅管理")));
+        when(jdbcTemplate.update(startsWith("DELETE FROM operation_log"), any(), any(), any())).thenReturn(2);
+
+        RetentionReport report = retentionService.archiveOperationLogs(cutoff);
+
+        assertEquals(2, report.getArchivedRows());
+        assertEquals(2, report.getDeletedRows());
+        assertFalse(report.isCompleted());
+        verify(jdbcTemplate).update(startsWith("DELETE FROM operation_log"), eq(1L), eq(2L), any());
+        verify(jdbcTemplate, times(1)).queryForList(startsWith("SELECT * FROM operation_log"), (Object) any(), any(), any(), any());
+
+        Path file = Paths.get(report.getArchiveFile());
+        assertEquals(Files.size(file), report.getArchiveBytes());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertEquals(2, lines.size());
+            assertEquals("借阅管理", new ObjectMapper().readTree(lines.get(1)).get("module").asText());
+        }
+    }
+
+    @Test
+    @DisplayName("手动清理 - 后台执行立即返回，执行中拒绝重复提交，结束后可查询各表结果")
+    void submit_RunsInBackground() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.update(startsWith("DELETE FROM latency_summary"), any(Timestamp.class), eq(2))).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+
+        RetentionRunResponse submitted = retentionService.submit();
+        assertEquals("RUNNING", submitted.getStatus());
+        assertEquals("RUNNING", retentionService.status().getStatus());
+        BusinessException conflict = assertThrows(BusinessException.class, () -> retentionService.submit());
+        assertEquals(ErrorCode.DATA_CONFLICT.getCode(), conflict.getCode());
+
+        release.countDown();
+        for (int i = 0; i < 100 && "RUNNING".equals(retentionService.status().getStatus()); i++) {
+            Thread.sleep(20);
+        }
+        RetentionRunResponse finished = retentionService.status();
+        assertEquals("COMPLETED", finished.getStatus());
+        assertEquals("MANUAL", finished.getTrigger());
+        assertEquals(List.of("notification", "operation_log", "latency_summary"),
+                finished.getReports().stream().map(RetentionReport::getTable).toList());
+        assertNotNull(finished.getFinishedAt());
+        retentionService.shutdown();
+    }
+}
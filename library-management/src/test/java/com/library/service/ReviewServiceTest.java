@@ -0,0 +1,101 @@
+package com.library.service;
+
+import com.library.common.ErrorCode;
+import com.library.entity.Book;
+import com.library.entity.Review;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import com.library.repository.ReviewRepository;
+import com.library.repository.UserRepository;
+import com.library.service.impl.ReviewServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 评论服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("评论服务测试")
+class ReviewServiceTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private PageCountCache pageCountCache;
+
+    @Mock
+    private BookCacheService bookCacheService;
+
+    @Mock
+    private SecondLevelCacheService secondLevelCacheService;
+
+    @InjectMocks
+    private ReviewServiceImpl reviewService;
+
+    private Review review;
+
+    @BeforeEach
+    void setUp() {
+        Book book = new Book();
+        ReflectionTestUtils.setField(book, "id", 7L);
+        review = new Review();
+        ReflectionTestUtils.setField(review, "id", 1L);
+        review.setBook(book);
+        review.setRating(4);
+        review.setStatus(1);
+        when(reviewRepository.findById(1L)).thenReturn(Optional.of(review));
+    }
+
+    @Test
+    @DisplayName("审核状态 - 显示状态切换时按条件更新并调整一次评分统计，状态未变时不更新")
+    void updateReviewStatus_AdjustsStatsOnce() {
+        when(reviewRepository.updateStatus(1L, 1, 0)).thenReturn(1);
+
+        reviewService.updateReviewStatus(1L, 0);
+
+        verify(reviewRepository).updateStatus(1L, 1, 0);
+        verify(bookRepository).adjustReviewStats(7L, -1, -4);
+        verify(bookCacheService).countsChanged(7L);
+
+        reset(reviewRepository, bookRepository);
+        when(reviewRepository.findById(1L)).thenReturn(Optional.of(review));
+        reviewService.updateReviewStatus(1L, 1);
+        verify(reviewRepository, never()).updateStatus(anyLong(), anyInt(), anyInt());
+        verify(bookRepository, never()).adjustReviewStats(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("审核状态 - 状态已被并发修改时拒绝本次更新，不重复调整评分统计")
+    void updateReviewStatus_RejectsConcurrentChange() {
+        when(reviewRepository.updateStatus(1L, 1, 0)).thenReturn(0);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> reviewService.updateReviewStatus(1L, 0));
+
+        assertEquals(ErrorCode.CONCURRENT_UPDATE.getCode(), e.getCode());
+        verify(bookRepository, never()).adjustReviewStats(anyLong(), anyInt(), anyInt());
+        verify(bookCacheService, never()).countsChanged(anyLong());
+    }
+}
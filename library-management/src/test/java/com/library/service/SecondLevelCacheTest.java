@@ -0,0 +1,148 @@
+package com.library.service;
+
+import com.library.common.CacheRegions;
+import com.library.config.JpaConfig;
+import com.library.dto.response.CacheRegionStatsResponse;
+import com.library.entity.Book;
+import com.library.entity.FineRule;
+import com.library.repository.BookRepository;
+import com.library.repository.FineRuleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hibernate 二级缓存测试
+ * 每步在独立事务中执行并提交，验证跨会话命中和原子更新后的按ID失效
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;MODE=MySQL;NON_KEYWORDS=USER,VALUE",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({JpaConfig.class, SecondLevelCacheService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("二级缓存测试")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private FineRuleRepository fineRuleRepository;
+
+    @Autowired
+    private SecondLevelCacheService secondLevelCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    private Book saveBook(String isbn, int availableCount) {
+        return tx.execute(status -> bookRepository.save(Book.builder()
+                .isbn(isbn)
+                .title("图书" + isbn)
+                .totalCount(3)
+                .availableCount(availableCount)
+                .status(1)
+                .build()));
+    }
+
+    private Book load(Long id) {
+        return tx.execute(status -> bookRepository.findById(id).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("原子扣减库存只失效对应图书，事务提交后重新加载得到最新库存")
+    void decreaseAvailableCount_EvictsOnlyUpdatedBook() {
+        Book borrowed = saveBook("9787020008501", 2);
+        Book other = saveBook("9787020008502", 2);
+        load(borrowed.getId());
+        load(other.getId());
+        statistics.clear();
+
+        tx.executeWithoutResult(status -> {
+            assertEquals(1, bookRepository.decreaseAvailableCount(borrowed.getId()));
+            secondLevelCacheService.evictAfterUpdate(Book.class, borrowed.getId());
+        });
+
+        // 其他图书仍在缓存中，没有因为原子更新被整体清空
+        statistics.clear();
+        assertEquals(2, load(other.getId()).getAvailableCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        Book reloaded = load(borrowed.getId());
+        assertEquals(1, reloaded.getAvailableCount());
+        assertEquals(1, reloaded.getBorrowCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // 失效后首次加载重新写入缓存，之后的读取不再访问数据库
+        statistics.clear();
+        assertEquals(1, load(borrowed.getId()).getAvailableCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("罚款规则查询走查询缓存，规则保存后缓存过期并统计命中")
+    void activeFineRule_QueryCacheInvalidatedOnSave() {
+        FineRule rule = tx.execute(status -> fineRuleRepository.save(FineRule.builder()
+                .dailyAmount(new BigDecimal("0.50"))
+                .maxAmount(new BigDecimal("100.00"))
+                .graceDays(0)
+                .enabled(true)
+                .build()));
+        tx.execute(status -> fineRuleRepository.findActiveRule().orElseThrow());
+        statistics.clear();
+
+        assertEquals(0, tx.execute(status -> fineRuleRepository.findActiveRule().orElseThrow())
+                .getGraceDays());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        tx.executeWithoutResult(status -> {
+            FineRule managed = fineRuleRepository.findById(rule.getId()).orElseThrow();
+            managed.setGraceDays(3);
+        });
+        assertEquals(3, tx.execute(status -> fineRuleRepository.findActiveRule().orElseThrow())
+                .getGraceDays());
+
+        CacheRegionStatsResponse queryStats = secondLevelCacheService.getStatistics().stream()
+                .filter(stats -> stats.getRegion().equals(CacheRegions.QUERY_RESULTS))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(queryStats.getHitCount() >= 1);
+        assertTrue(queryStats.getSize() >= 1);
+    }
+}
@@ -0,0 +1,136 @@
+package com.library.service;
+
+import com.library.common.LongIntHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * 相似图书索引单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("相似图书索引测试")
+class SimilarBookIndexTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SimilarBookIndex similarBookIndex;
+
+    /**
+     * 图书表：id -> {title, author, description, category}
+     */
+    private final Map<Long, String[]> books = new TreeMap<>();
+
+    private String[] current;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        similarBookIndex = new SimilarBookIndex(jdbcTemplate);
+        ReflectionTestUtils.setField(similarBookIndex, "featureBits", 18);
+        ReflectionTestUtils.setField(similarBookIndex, "maxNeighbors", 20);
+
+        books.put(1L, new String[]{"三体", "刘慈欣", "地球文明与三体文明的信息交流、生死搏杀", "科幻"});
+        books.put(2L, new String[]{"三体II：黑暗森林", "刘慈欣", "三体文明的舰队正在驶向地球", "科幻"});
+        books.put(3L, new String[]{"红楼梦", "曹雪芹", "贾宝玉与林黛玉的爱情悲剧", "文学"});
+        books.put(4L, new String[]{"Effective Java", "Joshua Bloch", "Best practices for the Java platform", "计算机"});
+        books.put(5L, new String[]{"Java Concurrency in Practice", "Brian Goetz", "Threads and locks in Java", "计算机"});
+        for (long id = 6; id <= 12; id++) {
+            books.put(id, new String[]{"书" + id, "作者" + id, null, null});
+        }
+
+        lenient().when(resultSet.getLong("id")).thenAnswer(inv -> Long.parseLong(current[4]));
+        lenient().when(resultSet.getString("title")).thenAnswer(inv -> current[0]);
+        lenient().when(resultSet.getString("author")).thenAnswer(inv -> current[1]);
+        lenient().when(resultSet.getString("description")).thenAnswer(inv -> current[2]);
+        lenient().when(resultSet.getString("category_name")).thenAnswer(inv -> current[3]);
+        lenient().doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (Long id : books.keySet()) {
+                select(id);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        lenient().doAnswer(inv -> map(inv.getArgument(1), List.of((Long) inv.getArgument(2))))
+                .when(jdbcTemplate).query(anyString(), any(RowMapper.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("分词 - 中文按相邻两字、英文按单词切分")
+    void tokenize_CjkBigramsAndWords() {
+        LongIntHashMap counts = new LongIntHashMap();
+        SimilarBookIndex.tokenize("三体 Java8, a 林", 1, (1 << 18) - 1, counts);
+
+        // 三体、java8、林（单独汉字按单字），单字母 a 忽略
+        assertEquals(3, counts.size());
+    }
+
+    @Test
+    @DisplayName("构建 - 按内容相似度排序且不包含无关图书")
+    void rebuild_RankedByContent() {
+        similarBookIndex.rebuild();
+
+        assertEquals(List.of(2L), similarBookIndex.similar(1L, 10));
+        assertEquals(5L, similarBookIndex.similar(4L, 10).get(0));
+        assertFalse(similarBookIndex.similar(4L, 10).contains(1L));
+        assertEquals(List.of(), similarBookIndex.similar(99L, 10));
+        verify(jdbcTemplate).query(contains("LEFT(b.description, 4000)"), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    @DisplayName("增量更新 - 修改简介后该书及相关图书的相似列表同步更新")
+    void update_RefreshNeighbors() {
+        similarBookIndex.rebuild();
+        assertFalse(similarBookIndex.similar(3L, 10).contains(1L));
+
+        books.put(3L, new String[]{"红楼梦", "曹雪芹", "三体文明来到大观园", "科幻"});
+        similarBookIndex.update(3L);
+
+        assertTrue(similarBookIndex.similar(3L, 10).contains(1L));
+        assertTrue(similarBookIndex.similar(1L, 10).contains(3L));
+
+        books.put(13L, new String[]{"三体III：死神永生", "刘慈欣", "三体文明与地球文明", "科幻"});
+        similarBookIndex.update(13L);
+
+        assertEquals(13L, similarBookIndex.similar(1L, 10).get(0));
+        assertTrue(similarBookIndex.similar(2L, 10).contains(13L));
+    }
+
+    private List<Object> map(RowMapper<?> mapper, Iterable<Long> ids) throws Exception {
+        List<Object> rows = new ArrayList<>();
+        for (Long id : ids) {
+            select(id);
+            rows.add(mapper.mapRow(resultSet, rows.size()));
+        }
+        return rows;
+    }
+
+    private void select(Long id) {
+        String[] book = books.get(id);
+        current = new String[]{book[0], book[1], book[2], book[3], String.valueOf(id)};
+    }
+}
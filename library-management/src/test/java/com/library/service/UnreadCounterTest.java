@@ -0,0 +1,123 @@
+package com.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 未读通知计数单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("未读通知计数测试")
+class UnreadCounterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UnreadCounter unreadCounter;
+
+    @BeforeEach
+    void setUp() {
+        unreadCounter = new UnreadCounter(jdbcTemplate);
+        ReflectionTestUtils.setField(unreadCounter, "maxSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("查询 - 计数行不存在时初始化，之后从内存读取")
+    @SuppressWarnings("unchecked")
+    void get_InitializesThenCaches() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1L)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new UnreadCounter.State(3, 0)));
+
+        assertEquals(3, unreadCounter.get(1L));
+        assertEquals(3, unreadCounter.get(1L));
+
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT IGNORE INTO notification_counter"), any(), any(), any());
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), eq(1L));
+    }
+
+    @Test
+    @DisplayName("增减与清零 - 提交后使内存镜像失效，提交与回调之间读到的新计数不会被重复累加")
+    @SuppressWarnings("unchecked")
+    void addAndReset_InvalidateMirror() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1L)))
+                .thenReturn(List.of(new UnreadCounter.State(2, 0)))
+                .thenReturn(List.of(new UnreadCounter.State(3, 0)))
+                .thenReturn(List.of(new UnreadCounter.State(6, 0)))
+                .thenReturn(List.of(new UnreadCounter.State(0, 0)));
+        assertEquals(2, unreadCounter.get(1L));
+
+        // 事务已提交、回调尚未执行时其他请求读到新计数（未命中镜像时）
+        TransactionSynchronizationManager.initSynchronization();
+        unreadCounter.add(1L, 1);
+        assertEquals(2, unreadCounter.get(1L));
+        commit();
+        assertEquals(3, unreadCounter.get(1L));
+        assertEquals(3, unreadCounter.get(1L));
+
+        unreadCounter.add(Map.of(1L, 3, 2L, 1));
+        assertEquals(6, unreadCounter.get(1L));
+
+        unreadCounter.reset(1L);
+        assertEquals(0, unreadCounter.get(1L));
+        verify(jdbcTemplate, times(4)).query(anyString(), any(RowMapper.class), eq(1L));
+    }
+
+    @Test
+    @DisplayName("校对 - 按用户ID区间分段更新计数行并清空内存镜像")
+    @SuppressWarnings("unchecked")
+    void reconcile_InUserIdChunks() {
+        ReflectionTestUtils.setField(unreadCounter, "reconcileChunkSize", 1000);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(2500L);
+        when(jdbcTemplate.update(startsWith("UPDATE notification_counter c"),
+                anyLong(), anyLong(), any(Timestamp.class), anyLong(), anyLong())).thenReturn(1);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(1L)))
+                .thenReturn(List.of(new UnreadCounter.State(5, 0)))
+                .thenReturn(List.of(new UnreadCounter.State(2, 0)));
+        assertEquals(5, unreadCounter.get(1L));
+
+        unreadCounter.reconcile();
+
+        verify(jdbcTemplate).update(anyString(), eq(0L), eq(1000L), any(Timestamp.class), eq(0L), eq(1000L));
+        verify(jdbcTemplate).update(anyString(), eq(1000L), eq(2000L), any(Timestamp.class), eq(1000L), eq(2000L));
+        verify(jdbcTemplate).update(anyString(), eq(2000L), eq(3000L), any(Timestamp.class), eq(2000L), eq(3000L));
+        assertEquals(2, unreadCounter.get(1L));
+    }
+
+    /**
+     * 模拟事务提交：执行已注册的提交后回调
+     */
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}